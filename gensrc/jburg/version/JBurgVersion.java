@@ -0,0 +1,6 @@
+
+		package jburg.version;
+		public interface JBurgVersion {
+		    public static final String version="1.0";
+		}
+		
\ No newline at end of file
@@ -0,0 +1,640 @@
+package jburg;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import jburg.semantics.HostRoutine;
+import jburg.semantics.JavaSemantics;
+
+/**
+ * An AbstractProductionTable holds the runtime side of a BURS
+ * system: the states and the operators' transition tables that
+ * label input trees, and the labeling logic itself. A
+ * ProductionTable builds and generates the tables; a
+ * CompiledProductionTable is a frozen, immutable copy of
+ * a ProductionTable's runtime tables. Reducers can use either.
+ */
+public abstract class AbstractProductionTable<Nonterminal, NodeType>
+{
+    /**
+     * The State that is assigned to inputs that don't
+     * match any transition in the table.
+     */
+    final ErrorState<Nonterminal,NodeType> errorState;
+
+    /**
+     * Ordinals of the nonterminals produced by this table's states.
+     */
+    final NonterminalIndex nonterminalIndex;
+
+    /**
+     * Set once compileRoutines() has rewired this table's
+     * states, leaves, and operators to compiled routines.
+     */
+    private volatile boolean routinesCompiled = false;
+
+    /**
+     * @param errorState        the error state.
+     * @param nonterminalIndex  the nonterminal ordinals.
+     */
+    AbstractProductionTable(ErrorState<Nonterminal,NodeType> errorState, NonterminalIndex nonterminalIndex)
+    {
+        this.errorState = errorState;
+        this.nonterminalIndex = nonterminalIndex;
+    }
+
+    /**
+     * Get the error state.
+     */
+    public State<Nonterminal, NodeType> getErrorState()
+    {
+        return this.errorState;
+    }
+
+    /**
+     * Get the singleton state that specifies valid transitions for a null pointer.
+     * @return the state that specifies valid transitions for a null pointer.
+     */
+    public abstract State<Nonterminal, NodeType> getNullPointerState();
+
+    /**
+     * Get a state by number.
+     * @param stateNumber   the state number.
+     * @return the state, or the error state if there is no such state.
+     */
+    abstract State<Nonterminal, NodeType> getState(int stateNumber);
+
+    /**
+     * Get the Operator that handles a nodeType(nt*) tuple.
+     * @param nodeType  the node type of interest.
+     * @param arity     the actual arity of the subtree.
+     * @return the operator, or null if no complete operator handles the tuple.
+     */
+    abstract Operator<Nonterminal, NodeType> getOperator(NodeType nodeType, int arity);
+
+    /**
+     * Get the operator dispatch table of a table whose node types
+     * are enums: the operator for a node is found at
+     * [nodeType.ordinal()][min(arity, row.length-1)]. Callers must
+     * not modify the table.
+     * @return the dispatch table, or null if the table isn't finished
+     * or if its node types aren't enums.
+     */
+    public abstract Operator<Nonterminal,NodeType>[][] getOperatorDispatch();
+
+    /**
+     * @return the number of states.
+     */
+    public abstract int getStateCount();
+
+    /**
+     * @return the operators that can label nodes, in no particular order.
+     */
+    abstract Collection<Operator<Nonterminal,NodeType>> getAllOperators();
+
+    /**
+     * Count the predicates this table's labelers run and skip, which
+     * getPredicateInvocations() and getPredicateInvocationsSaved()
+     * report. Counting is off by default, since labeling every node
+     * that has predicates would update the shared counters; enable
+     * it before labeling, e.g., to test or tune a grammar.
+     * @param enabled   true to count predicates.
+     */
+    public void setPredicateStatistics(boolean enabled)
+    {
+        for (TransitionTableLeaf<Nonterminal,NodeType> leaf: getLeaves()) {
+            leaf.countPredicates = enabled;
+        }
+
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            op.setPredicateStatistics(enabled);
+        }
+    }
+
+    /**
+     * @return the number of predicates this table's transition
+     * table leaves and dynamic operators have run while labeling,
+     * if the table counts them; see setPredicateStatistics().
+     */
+    public long getPredicateInvocations()
+    {
+        long result = 0;
+
+        for (TransitionTableLeaf<Nonterminal,NodeType> leaf: getLeaves()) {
+            result += leaf.getPredicateInvocations();
+        }
+
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            result += op.getDynamicPredicateInvocations();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of predicates this table's transition
+     * table leaves have not run while labeling, because their
+     * decision trees showed that the predicates' results
+     * couldn't change the nodes' states; zero unless the
+     * table counts them, see setPredicateStatistics().
+     */
+    public long getPredicateInvocationsSaved()
+    {
+        long result = 0;
+
+        for (TransitionTableLeaf<Nonterminal,NodeType> leaf: getLeaves()) {
+            result += leaf.getPredicateInvocationsSaved();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the operators' transition table leaves.
+     */
+    private Set<TransitionTableLeaf<Nonterminal,NodeType>> getLeaves()
+    {
+        Set<TransitionPlane<Nonterminal,NodeType>> planes = Collections.newSetFromMap(new IdentityHashMap<TransitionPlane<Nonterminal,NodeType>,Boolean>());
+        Set<TransitionTableLeaf<Nonterminal,NodeType>> leaves = Collections.newSetFromMap(new IdentityHashMap<TransitionTableLeaf<Nonterminal,NodeType>,Boolean>());
+
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            op.collectLeaves(planes, leaves);
+        }
+
+        return leaves;
+    }
+
+    /**
+     * Compile the predicates and callbacks of this table's states
+     * into a hidden class that calls the visitor's methods directly,
+     * as a BURM generated from the table would. The table's labelers
+     * and reducers call the routines through the hidden class from
+     * then on; the routines are compiled into copies, and the table's
+     * states, leaves, and operators are rewired to use the copies, so
+     * other tables that share the routines aren't affected. Routines
+     * loaded lazily are resolved first. The shared error state keeps
+     * calling its error handlers' routines as before.
+     * <p>Compile a table's routines before publishing it to other threads.
+     * @param lookup    a lookup with full privilege access whose class
+     * can call the visitor's methods, e.g., MethodHandles.lookup()
+     * called in the visitor class.
+     * @return the number of routines compiled.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     * @see JavaSemantics#compileRoutines
+     */
+    public int compileRoutines(MethodHandles.Lookup lookup)
+    throws IllegalAccessException
+    {
+        List<HostRoutine> routines = new ArrayList<HostRoutine>();
+        collectRoutines(routines);
+
+        CompiledRoutines<Nonterminal> compiled = new CompiledRoutines<Nonterminal>(JavaSemantics.compileRoutines(routines, lookup));
+        installRoutines(compiled);
+        routinesCompiled = true;
+        return compiled.size();
+    }
+
+    /**
+     * @return true if compileRoutines() has compiled this table's routines.
+     */
+    public boolean hasCompiledRoutines()
+    {
+        return routinesCompiled;
+    }
+
+    /**
+     * Add the predicates and callbacks this table's
+     * labelers and reducers call to a collection.
+     * @param routines  the collection.
+     */
+    void collectRoutines(Collection<HostRoutine> routines)
+    {
+        for (int i = 0; i < getStateCount(); i++) {
+            State<Nonterminal, NodeType> state = getState(i);
+
+            if (state != errorState) {
+                state.collectRoutines(routines);
+            }
+        }
+    }
+
+    /**
+     * Route this table's calls to its routines through their
+     * compiled copies: its states' productions, its leaves'
+     * predicates, and its dynamic operators' predicates.
+     * @param compiled  the compiled routines.
+     */
+    void installRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        for (int i = 0; i < getStateCount(); i++) {
+            State<Nonterminal, NodeType> state = getState(i);
+
+            if (state != errorState) {
+                state.compileRoutines(compiled);
+            }
+        }
+
+        for (TransitionTableLeaf<Nonterminal,NodeType> leaf: getLeaves()) {
+            leaf.compileRoutines(compiled);
+        }
+
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            op.compileRoutines(compiled);
+        }
+    }
+
+    /**
+     * Label a tree; this is the first pass
+     * of the rewrite engine. After a tree
+     * is labeled, it can be analyzed by walking
+     * it with a visitor, or by directly querying
+     * the available nonterminal states of its root's
+     * transition table leaf.
+     * @param node the root of the tree to label.
+     */
+    public void label(BurgInput<Nonterminal, NodeType> node, Object visitor, boolean labelSubtrees)
+    throws Exception
+    {
+        // Null subtrees all share a singleton state in the production table;
+        // it's precomputed into the transition table and the operators use it
+        // when they encounter a null subtree.
+        if (node != null) {
+
+            int subtreeCount = node.getSubtreeCount();
+
+            for (int i = 0; labelSubtrees && i < subtreeCount; i++) {
+                label(node.getSubtree(i), visitor, labelSubtrees);
+            }
+
+            labelNode(node, visitor);
+        } 
+    }
+
+    /**
+     * Label a tree that will be reduced to a known goal. Labeling
+     * runs in two phases at each node: on the way down the tree, the
+     * node's goals determine its children's goals, which are the
+     * child nonterminals of the pattern matchers that can start the
+     * goals' closure chains; on the way back up, the node's state is
+     * selected by running only the predicates whose results can change
+     * how the node is reduced to its goals. The node's state may differ
+     * from the state label() assigns in nonterminals the tree can't be
+     * reduced to, but the tree's reductions to the goal are the same.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param goal      the nonterminal the root will be reduced to.
+     * @throws IllegalArgumentException if no state produces the goal.
+     */
+    public void labelForGoal(BurgInput<Nonterminal, NodeType> node, Object visitor, Object goal)
+    throws Exception
+    {
+        int ordinal = nonterminalIndex.lookup(goal);
+
+        if (ordinal < 0) {
+            throw new IllegalArgumentException(String.format("%s is not produced by this production table", goal));
+        }
+
+        BitSet goals = new BitSet();
+        goals.set(ordinal);
+        labelForGoals(node, visitor, goals);
+    }
+
+    /**
+     * Label a subtree for a set of goals.
+     * @param node      the root of the subtree.
+     * @param visitor   the receiver for predicate methods.
+     * @param goals     the ordinals of the nonterminals the subtree's
+     * root may be reduced to.
+     */
+    private void labelForGoals(BurgInput<Nonterminal, NodeType> node, Object visitor, BitSet goals)
+    throws Exception
+    {
+        if (node != null) {
+            int subtreeCount = node.getSubtreeCount();
+            Operator<Nonterminal, NodeType> op = getOperator(node.getNodeType(), subtreeCount);
+
+            if (op == null) {
+                // The node is an error, and error handlers
+                // may reduce its subtrees to any nonterminal.
+                label(node, visitor, true);
+
+            } else if (subtreeCount > 0) {
+
+                for (int i = 0; i < subtreeCount; i++) {
+                    labelForGoals(node.getSubtree(i), visitor, op.getChildGoals(goals, i, nonterminalIndex));
+                }
+
+                op.assignState(node, visitor, goals);
+
+            } else {
+                op.setLeafState(node, visitor, goals);
+            }
+        }
+    }
+
+    /**
+     * Label a directed acyclic graph of nodes whose subtrees
+     * may be shared by several parents. Each distinct node,
+     * by identity, is labeled once, after its subtrees; a node
+     * that's reachable from several parents is not relabeled.
+     * @param node          the root of the graph to label.
+     * @param visitor       the receiver for predicate methods.
+     * @param labeledNodes  nodes that are already labeled, which
+     * this method skips; the nodes it labels are added to the set.
+     * The set must compare nodes by identity, e.g., a set made by
+     * Collections.newSetFromMap(new IdentityHashMap()).
+     */
+    public void labelDag(BurgInput<Nonterminal, NodeType> node, Object visitor, Set<BurgInput<Nonterminal, NodeType>> labeledNodes)
+    throws Exception
+    {
+        labelDag(node, visitor, labeledNodes, null);
+    }
+
+    /**
+     * Label a directed acyclic graph of nodes into a label store.
+     * @param node          the root of the graph to label.
+     * @param visitor       the receiver for predicate methods.
+     * @param labeledNodes  nodes that are already labeled; see labelDag().
+     * @param store         the label store, or null to label the nodes themselves.
+     */
+    public void labelDag(BurgInput<Nonterminal, NodeType> node, Object visitor, Set<BurgInput<Nonterminal, NodeType>> labeledNodes, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        if (node != null && labeledNodes.add(node)) {
+
+            int subtreeCount = node.getSubtreeCount();
+
+            for (int i = 0; i < subtreeCount; i++) {
+                labelDag(node.getSubtree(i), visitor, labeledNodes, store);
+            }
+
+            labelNode(node, visitor, store);
+        }
+    }
+
+    /**
+     * Label a tree without recursion; this assigns
+     * the same states, and runs the same predicates
+     * in the same order, as label(node, visitor, LABEL_DEEP).
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param workStack the work stack; a LabelStack may be
+     * reused for any number of trees to avoid reallocating it.
+     */
+    public void labelIteratively(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStack<Nonterminal, NodeType> workStack)
+    throws Exception
+    {
+        workStack.label(this, node, visitor, null, null);
+    }
+
+    /**
+     * Label a directed acyclic graph of nodes without recursion;
+     * this assigns the same states, and runs the same predicates
+     * in the same order, as labelDag(node, visitor, labeledNodes).
+     * @param node          the root of the graph to label.
+     * @param visitor       the receiver for predicate methods.
+     * @param workStack     the work stack.
+     * @param labeledNodes  nodes that are already labeled; see labelDag().
+     */
+    public void labelDagIteratively(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStack<Nonterminal, NodeType> workStack, Set<BurgInput<Nonterminal, NodeType>> labeledNodes)
+    throws Exception
+    {
+        workStack.label(this, node, visitor, labeledNodes, null);
+    }
+
+    /**
+     * Label a directed acyclic graph of nodes into a label store without recursion.
+     * @param node          the root of the graph to label.
+     * @param visitor       the receiver for predicate methods.
+     * @param workStack     the work stack.
+     * @param labeledNodes  nodes that are already labeled; see labelDag().
+     * @param store         the label store, or null to label the nodes themselves.
+     */
+    public void labelDagIteratively(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStack<Nonterminal, NodeType> workStack, Set<BurgInput<Nonterminal, NodeType>> labeledNodes, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        workStack.label(this, node, visitor, labeledNodes, store);
+    }
+
+    /**
+     * Label a tree without recursion, using a new work stack.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     */
+    public void labelIteratively(BurgInput<Nonterminal, NodeType> node, Object visitor)
+    throws Exception
+    {
+        labelIteratively(node, visitor, new LabelStack<Nonterminal, NodeType>());
+    }
+
+    /**
+     * Label a tree, labeling sibling subtrees in parallel.
+     * <p>Every node is labeled after its subtrees, as it is by
+     * label(node, visitor, LABEL_DEEP), and it's assigned the
+     * same state; but sibling subtrees are labeled concurrently,
+     * in no particular order. So:
+     * <ul>
+     * <li> The visitor's predicate methods must be thread-safe,
+     * and must not depend on the order in which nodes are visited.
+     * <li> The nodes' setStateNumber() and setTransitionTableLeaf()
+     * methods are called from several threads, though each node's
+     * are called from only one thread; the nodes must not share
+     * mutable state.
+     * <li> The tree must be a tree: a subtree that's reachable from
+     * several parents may be labeled concurrently by several tasks.
+     * </ul>
+     * The production table itself is read-only once its states have
+     * been generated or loaded, and is safe to share between threads.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param pool      the pool that runs the labeling tasks.
+     * @param threshold the smallest subtree that's labeled by a task of its
+     * own; smaller subtrees are labeled iteratively by their parent's task.
+     * Trees smaller than the threshold are labeled in the calling thread.
+     */
+    public void labelInParallel(BurgInput<Nonterminal, NodeType> node, Object visitor, ForkJoinPool pool, int threshold)
+    throws Exception
+    {
+        if (threshold < 1) {
+            throw new IllegalArgumentException(String.format("parallel labeling threshold %d must be positive", threshold));
+        } else if (node == null) {
+            return;
+        } else if (!ParallelLabelTask.isLarge(node, threshold)) {
+            labelIteratively(node, visitor);
+            return;
+        }
+
+        // Build the null pointer state, if it's not
+        // already built, before the tasks share it.
+        getNullPointerState();
+
+        try {
+            pool.invoke(new ParallelLabelTask<Nonterminal, NodeType>(this, node, visitor, threshold));
+        } catch (RuntimeException taskFailed) {
+            // Unwrap a checked exception from the labeler or a predicate;
+            // the pool may have wrapped the task's exception in turn.
+            for (Throwable cause = taskFailed; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ParallelLabelTask.LabelingException) {
+                    throw (Exception)cause.getCause();
+                }
+            }
+            throw taskFailed;
+        }
+    }
+
+    /**
+     * Label a tree, labeling sibling subtrees in parallel
+     * in the common fork/join pool.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param threshold the smallest subtree that's labeled by a task of its own.
+     * @see #labelInParallel(BurgInput, Object, ForkJoinPool, int), which
+     * describes the constraints parallel labeling places on visitors and nodes.
+     */
+    public void labelInParallel(BurgInput<Nonterminal, NodeType> node, Object visitor, int threshold)
+    throws Exception
+    {
+        labelInParallel(node, visitor, ForkJoinPool.commonPool(), threshold);
+    }
+
+    /**
+     * Label a FlatTree in one sequential scan of its nodes;
+     * since the nodes are stored in post order, each node's
+     * subtrees are labeled before it is. This assigns the
+     * same states, and runs the same predicates in the same
+     * order, as label(node, visitor, LABEL_DEEP) does for the
+     * equivalent tree of BurgInput nodes.
+     * @param tree      the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @throws IllegalStateException if the production table
+     * isn't finished, or its node types aren't enums.
+     */
+    public void labelFlatTree(FlatTree<Nonterminal, NodeType> tree, Object visitor)
+    throws Exception
+    {
+        Operator<Nonterminal, NodeType>[][] dispatch = getOperatorDispatch();
+
+        if (dispatch == null) {
+            throw new IllegalStateException("Labeling a FlatTree requires a finished production table with enum node types");
+        }
+
+        for (int i = 0; i < tree.size(); i++) {
+            int subtreeCount = tree.getSubtreeCount(i);
+            int nodeTypeOrdinal = tree.getNodeTypeOrdinal(i);
+            Operator<Nonterminal, NodeType>[] row = nodeTypeOrdinal < dispatch.length? dispatch[nodeTypeOrdinal]: null;
+            Operator<Nonterminal, NodeType> op = row != null? row[Math.min(subtreeCount, row.length - 1)]: null;
+            State<Nonterminal, NodeType> state;
+
+            if (op == null) {
+                state = errorState;
+            } else if (subtreeCount > 0) {
+                state = op.getState(tree, i, visitor);
+            } else {
+                state = op.getLeafState(tree.getNode(i), visitor);
+            }
+
+            tree.setStateNumber(i, state.number);
+        }
+    }
+
+    /**
+     * Label a tree into a label store, leaving the tree's nodes untouched;
+     * the nodes' state numbers are stored in the label store. This assigns
+     * the same states, and runs the same predicates in the same order, as
+     * label(node, visitor, LABEL_DEEP). Since the tree isn't modified, it
+     * may be labeled concurrently by several production tables, each
+     * labeling into its own store.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param store     the label store.
+     */
+    public void label(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        if (node != null) {
+
+            int subtreeCount = node.getSubtreeCount();
+
+            for (int i = 0; i < subtreeCount; i++) {
+                label(node.getSubtree(i), visitor, store);
+            }
+
+            labelNode(node, visitor, store);
+        }
+    }
+
+    /**
+     * Label a tree into a label store without recursion.
+     * @param node      the root of the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param workStack the work stack.
+     * @param store     the label store.
+     * @see #label(BurgInput, Object, LabelStore)
+     */
+    public void labelIteratively(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStack<Nonterminal, NodeType> workStack, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        workStack.label(this, node, visitor, null, store);
+    }
+
+    /**
+     * Label a single node whose subtrees have been labeled.
+     * @param node      the node to label.
+     * @param visitor   the receiver for predicate methods.
+     * @param store     the label store that receives the node's state
+     * number and holds its subtrees', or null to label the node itself.
+     */
+    void labelNode(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        if (store == null) {
+            labelNode(node, visitor);
+            return;
+        }
+
+        int subtreeCount = node.getSubtreeCount();
+        Operator<Nonterminal, NodeType> op = getOperator(node.getNodeType(), subtreeCount);
+        State<Nonterminal, NodeType> state;
+
+        if (op == null) {
+            state = errorState;
+        } else if (subtreeCount > 0) {
+            state = op.getState(node, store, visitor);
+        } else {
+            state = op.getLeafState(node, visitor);
+        }
+
+        store.setStateNumber(node, state.number);
+    }
+
+    /**
+     * Label a single node whose subtrees have been labeled.
+     * @param node      the node to label.
+     * @param visitor   the receiver for predicate methods.
+     */
+    void labelNode(BurgInput<Nonterminal, NodeType> node, Object visitor)
+    throws Exception
+    {
+        int subtreeCount = node.getSubtreeCount();
+        Operator<Nonterminal, NodeType> op = getOperator(node.getNodeType(), subtreeCount);
+
+        if (op != null) {
+
+            if (subtreeCount > 0) {
+                op.assignState(node, visitor);
+            } else {
+                op.setLeafState(node, visitor);
+            }
+        } else {
+            node.setStateNumber(0);
+            node.setTransitionTableLeaf(errorState);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package jburg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jburg.semantics.BURMSemantics;
+import jburg.semantics.HostRoutine;
+import jburg.semantics.JavaSemantics;
+
+/**
+ * BinaryTableLoader loads a production table from the binary
+ * format written by ProductionTable.dumpBinary(). The file is
+ * memory-mapped and decoded directly into the table's states and
+ * transition planes; host routines are only resolved when the
+ * reducer first calls them. The loaded table is equivalent to a
+ * table loaded from an XML dump by TransitionTableLoader.
+ */
+public class BinaryTableLoader<Nonterminal, NodeType>
+{
+    /** The binary format's magic number, "JBT3". */
+    static final int MAGIC = 0x4a425433;
+
+    /** The binary format's version. */
+    static final int VERSION = 1;
+
+    /** Production kinds. */
+    static final byte PATTERN_MATCHER = 0;
+    static final byte CLOSURE = 1;
+    static final byte NULL_POINTER_PRODUCTION = 2;
+
+    /** Operator kinds. */
+    static final byte LEAF_STATE = 0;
+    static final byte TRANSITION_TABLE = 1;
+
+    /** Transition plane kinds. */
+    static final byte FINAL_DIMENSION = 0;
+    static final byte NEXT_DIMENSION = 1;
+    static final byte PLANE_REFERENCE = 2;
+
+    private final BURMSemantics<Nonterminal,NodeType> semantics;
+    private final boolean isJavaSemantics;
+
+    public BinaryTableLoader()
+    {
+        this.semantics = new JavaSemantics<Nonterminal,NodeType>();
+        this.isJavaSemantics = true;
+    }
+
+    public BinaryTableLoader(BURMSemantics<Nonterminal,NodeType> semantics)
+    {
+        this.semantics = semantics;
+        this.isJavaSemantics = semantics instanceof JavaSemantics;
+    }
+
+    /**
+     * Load a production table from a file.
+     * @param path          the path of the file.
+     * @param nodeTypeClass the node type enumeration's class.
+     * @return the loaded production table.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a binary production table.
+     */
+    public ProductionTable<Nonterminal, NodeType> load(String path, Class<?> nodeTypeClass)
+    throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return load(buffer, nodeTypeClass);
+        }
+    }
+
+    /**
+     * Load a production table from a buffer.
+     * @param buffer        the buffer, positioned at the start of the table.
+     * @param nodeTypeClass the node type enumeration's class.
+     * @return the loaded production table.
+     * @throws IllegalArgumentException if the buffer does not hold a binary production table.
+     */
+    public ProductionTable<Nonterminal, NodeType> load(ByteBuffer buffer, Class<?> nodeTypeClass)
+    {
+        return new TableReader(buffer, nodeTypeClass).read();
+    }
+
+    /**
+     * A TableReader decodes one production table.
+     */
+    private class TableReader
+    {
+        final ByteBuffer buffer;
+        final Class<?> nodeTypeClass;
+        final ProductionTable<Nonterminal, NodeType> productionTable = new ProductionTable<Nonterminal, NodeType>();
+
+        String[] strings;
+        HostRoutine[] routines;
+        List<Production<Nonterminal>> productions;
+
+        /**
+         * Transition planes in the order they were read,
+         * so references to shared planes can be resolved.
+         */
+        final List<TransitionPlane<Nonterminal, NodeType>> planes = new ArrayList<TransitionPlane<Nonterminal, NodeType>>();
+
+        TableReader(ByteBuffer buffer, Class<?> nodeTypeClass)
+        {
+            this.buffer = buffer;
+            this.nodeTypeClass = nodeTypeClass;
+        }
+
+        ProductionTable<Nonterminal, NodeType> read()
+        {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary production table");
+            }
+
+            int version = buffer.getInt();
+
+            if (version != VERSION) {
+                throw new IllegalArgumentException(String.format("Unsupported binary production table version %d, expected %d", version, VERSION));
+            }
+
+            readStrings();
+            readRoutines();
+            readProductions();
+
+            if (buffer.get() != 0) {
+                Object errorNonterminal = nonterminal(buffer.getInt());
+                productionTable.addErrorHandler(errorNonterminal, routine(buffer.getInt()));
+
+                for (Production<Nonterminal> closure: readProductionList()) {
+                    productionTable.getErrorState().addClosure((Closure<Nonterminal>)closure);
+                }
+            }
+
+            int nullProductionCount = buffer.getInt();
+
+            for (int i = 0; i < nullProductionCount; i++) {
+                Production<Nonterminal> np = production(buffer.getInt());
+                productionTable.addNullPointerProduction(np.target, np.ownCost, np.postCallback);
+            }
+
+            int operatorCount = buffer.getInt();
+
+            for (int i = 0; i < operatorCount; i++) {
+                productionTable.loadOperator(readOperator());
+            }
+
+            productionTable.finishLoading();
+            return productionTable;
+        }
+
+        void readStrings()
+        {
+            strings = new String[buffer.getInt()];
+
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        void readRoutines()
+        {
+            routines = new HostRoutine[buffer.getInt()];
+
+            for (int i = 0; i < routines.length; i++) {
+                String className = string(buffer.getInt());
+                String name = string(buffer.getInt());
+                String[] parameterTypeNames = new String[buffer.getInt()];
+
+                for (int j = 0; j < parameterTypeNames.length; j++) {
+                    parameterTypeNames[j] = string(buffer.getInt());
+                }
+
+                // Like the XML loader, only Java semantics can load host routines.
+                routines[i] = isJavaSemantics? new LazyHostRoutine((JavaSemantics<?,?>)semantics, className, name, parameterTypeNames): null;
+            }
+        }
+
+        void readProductions()
+        {
+            int productionCount = buffer.getInt();
+            productions = new ArrayList<Production<Nonterminal>>(productionCount);
+
+            for (int i = 0; i < productionCount; i++) {
+                byte kind = buffer.get();
+                Production<Nonterminal> p;
+
+                if (kind == PATTERN_MATCHER) {
+                    Object target = nonterminal(buffer.getInt());
+                    NodeType nodeType = nodeType(buffer.getInt());
+                    int cost = buffer.getInt();
+                    boolean isVarArgs = buffer.get() != 0;
+                    Object[] childTypes = new Object[buffer.getInt()];
+
+                    for (int j = 0; j < childTypes.length; j++) {
+                        childTypes[j] = nonterminal(buffer.getInt());
+                    }
+
+                    HostRoutine predicate = routine(buffer.getInt());
+                    HostRoutine preCallback = routine(buffer.getInt());
+                    HostRoutine postCallback = routine(buffer.getInt());
+                    p = new PatternMatcher<Nonterminal, NodeType>(target, nodeType, cost, predicate, preCallback, postCallback, isVarArgs, Arrays.asList(childTypes));
+
+                } else if (kind == CLOSURE) {
+                    Object target = nonterminal(buffer.getInt());
+                    Object source = nonterminal(buffer.getInt());
+                    int cost = buffer.getInt();
+                    HostRoutine preCallback = routine(buffer.getInt());
+                    HostRoutine postCallback = routine(buffer.getInt());
+                    p = new Closure<Nonterminal>(target, source, cost, preCallback, postCallback);
+
+                } else if (kind == NULL_POINTER_PRODUCTION) {
+                    Object target = nonterminal(buffer.getInt());
+                    int cost = buffer.getInt();
+                    routine(buffer.getInt());
+                    HostRoutine postCallback = routine(buffer.getInt());
+                    p = new NullPointerProduction<Nonterminal>(target, cost, postCallback);
+
+                } else {
+                    throw new IllegalArgumentException(String.format("Unknown production kind %d", kind));
+                }
+
+                productions.add(p);
+            }
+        }
+
+        Operator<Nonterminal, NodeType> readOperator()
+        {
+            NodeType nodeType = nodeType(buffer.getInt());
+            int arity = buffer.getInt();
+            boolean isVarArgs = buffer.get() != 0;
+            byte kind = buffer.get();
+
+            if (kind == LEAF_STATE) {
+                Operator<Nonterminal, NodeType> operator = new Operator<Nonterminal, NodeType>(nodeType, 0, productionTable);
+                operator.setLeafState(readLeaf());
+                return operator;
+
+            } else if (kind == TRANSITION_TABLE) {
+                Operator<Nonterminal, NodeType> operator = new Operator<Nonterminal, NodeType>(nodeType, arity, productionTable);
+                operator.transitionTable = readPlane();
+                operator.setArityKind(isVarArgs? ArityKind.Variadic: ArityKind.Fixed);
+                return operator;
+
+            } else {
+                throw new IllegalArgumentException(String.format("Unknown operator kind %d", kind));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        TransitionPlane<Nonterminal, NodeType> readPlane()
+        {
+            byte kind = buffer.get();
+
+            if (kind == PLANE_REFERENCE) {
+                return planes.get(buffer.getInt());
+            }
+
+            int dimension = buffer.getInt();
+            Map<Integer, Integer> indexMap = readIndexMap();
+            TransitionPlane<Nonterminal, NodeType> result;
+
+            if (kind == FINAL_DIMENSION) {
+                TransitionTableLeaf<Nonterminal, NodeType>[] finalDimension = new TransitionTableLeaf[buffer.getInt()];
+                result = new TransitionPlane<Nonterminal, NodeType>(productionTable, indexMap, finalDimension, dimension);
+                planes.add(result);
+
+                for (int i = 0; i < finalDimension.length; i++) {
+                    finalDimension[i] = readLeaf();
+                }
+
+            } else if (kind == NEXT_DIMENSION) {
+                // The plane is registered before its children are read,
+                // and its dimension list is a view of the array, so the
+                // children can refer back to the plane.
+                TransitionPlane<Nonterminal, NodeType>[] nextDimension = new TransitionPlane[buffer.getInt()];
+                result = new TransitionPlane<Nonterminal, NodeType>(productionTable, indexMap, nextDimension, dimension);
+                planes.add(result);
+
+                for (int i = 0; i < nextDimension.length; i++) {
+                    nextDimension[i] = readPlane();
+                }
+
+            } else {
+                throw new IllegalArgumentException(String.format("Unknown transition plane kind %d", kind));
+            }
+
+            return result;
+        }
+
+        Map<Integer, Integer> readIndexMap()
+        {
+            int size = buffer.getInt();
+            Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+
+            for (int i = 0; i < size; i++) {
+                int stateNumber = buffer.getInt();
+                result.put(stateNumber, buffer.getInt());
+            }
+
+            return result;
+        }
+
+        TransitionTableLeaf<Nonterminal, NodeType> readLeaf()
+        {
+            int stateCount = buffer.getInt();
+            List<State<Nonterminal, NodeType>> states = new ArrayList<State<Nonterminal, NodeType>>(stateCount);
+
+            for (int i = 0; i < stateCount; i++) {
+                states.add(readState());
+            }
+
+            return new TransitionTableLeaf<Nonterminal, NodeType>(states);
+        }
+
+        State<Nonterminal, NodeType> readState()
+        {
+            State<Nonterminal, NodeType> result = new State<Nonterminal, NodeType>();
+            result.number = buffer.getInt();
+
+            int patternCount = buffer.getInt();
+
+            for (int i = 0; i < patternCount; i++) {
+                Production<Nonterminal> p = production(buffer.getInt());
+                result.setNonClosureProduction(p, buffer.getLong());
+            }
+
+            for (Production<Nonterminal> closure: readProductionList()) {
+                result.addClosure((Closure<Nonterminal>)closure);
+            }
+
+            int predicateCount = buffer.getInt();
+
+            if (predicateCount > 0) {
+
+                for (int i = 0; i < predicateCount; i++) {
+                    result.predicates.add(routine(buffer.getInt()));
+                }
+
+                sortPredicates(result.predicates);
+            }
+
+            productionTable.loadState(result);
+            return result;
+        }
+
+        /**
+         * Sort a state's predicates into the canonical order the
+         * table was written in. HostRoutine implements the raw type
+         * Comparable&lt;HostRoutine&gt;, so sorting a list of them is
+         * an unchecked invocation; every HostRoutine compares to every
+         * other HostRoutine, whatever its parameter type, so it's safe.
+         */
+        @SuppressWarnings("unchecked")
+        private void sortPredicates(List<HostRoutine> predicates)
+        {
+            Collections.sort(predicates);
+        }
+
+        List<Production<Nonterminal>> readProductionList()
+        {
+            int size = buffer.getInt();
+            List<Production<Nonterminal>> result = new ArrayList<Production<Nonterminal>>(size);
+
+            for (int i = 0; i < size; i++) {
+                result.add(production(buffer.getInt()));
+            }
+
+            return result;
+        }
+
+        String string(int index)
+        {
+            return index >= 0? strings[index]: null;
+        }
+
+        Object nonterminal(int index)
+        {
+            return semantics.getNonterminal(string(index));
+        }
+
+        HostRoutine routine(int index)
+        {
+            return index >= 0? routines[index]: null;
+        }
+
+        Production<Nonterminal> production(int index)
+        {
+            return productions.get(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        NodeType nodeType(int index)
+        {
+            String name = string(index);
+
+            if (name == null) {
+                return null;
+            }
+
+            for (Object nt: nodeTypeClass.getEnumConstants()) {
+                if (nt.toString().equals(name)) {
+                    return (NodeType)nt;
+                }
+            }
+
+            throw new IllegalArgumentException(String.format("enumeration %s does not contain %s", nodeTypeClass, name));
+        }
+    }
+}
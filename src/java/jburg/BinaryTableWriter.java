@@ -0,0 +1,366 @@
+package jburg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * A BinaryTableWriter serializes a finished ProductionTable
+ * into the binary format read by BinaryTableLoader.
+ * <p>The format is a header, followed by tables of strings,
+ * host routines, and productions, which the rest of the dump
+ * refers to by index; then the error handler, null pointer
+ * productions, and operators, with their transition tables.
+ * All values are big-endian; an index of -1 denotes null.
+ */
+class BinaryTableWriter<Nonterminal, NodeType>
+{
+    /**
+     * The production table to write.
+     */
+    private final ProductionTable<Nonterminal, NodeType> productionTable;
+
+    /**
+     * Strings, in order of first reference.
+     */
+    private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+
+    /**
+     * Host routines, in order of first reference.
+     */
+    private final Map<HostRoutine, Integer> routines = new IdentityHashMap<HostRoutine, Integer>();
+    private final List<HostRoutine> routinesInOrder = new ArrayList<HostRoutine>();
+
+    /**
+     * Productions, in order of first reference, and their encodings.
+     */
+    private final Map<Production<Nonterminal>, Integer> productions = new IdentityHashMap<Production<Nonterminal>, Integer>();
+    private final ByteArrayOutputStream productionBytes = new ByteArrayOutputStream();
+    private final DataOutputStream productionData = new DataOutputStream(productionBytes);
+
+    /**
+     * Transition planes written so far; a plane that is
+     * referenced more than once is written once.
+     */
+    private final Map<TransitionPlane<Nonterminal, NodeType>, Integer> planes = new IdentityHashMap<TransitionPlane<Nonterminal, NodeType>, Integer>();
+
+    BinaryTableWriter(ProductionTable<Nonterminal, NodeType> productionTable)
+    {
+        this.productionTable = productionTable;
+    }
+
+    /**
+     * Write the production table.
+     * @param out   the output stream.
+     * @throws IOException if the stream cannot be written.
+     */
+    void write(OutputStream out)
+    throws IOException
+    {
+        // Write the body first, to find the strings,
+        // routines, and productions it refers to.
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        writeErrorHandler(body);
+
+        body.writeInt(productionTable.nullProductions.size());
+
+        for (NullPointerProduction<Nonterminal> np: productionTable.nullProductions) {
+            body.writeInt(production(np));
+        }
+
+        List<Operator<Nonterminal, NodeType>> operators = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+        for (List<Operator<Nonterminal, NodeType>> opList: productionTable.getOperators()) {
+
+            for (Operator<Nonterminal, NodeType> op: opList) {
+                if (op != null) {
+                    operators.add(op);
+                }
+            }
+        }
+
+        body.writeInt(operators.size());
+
+        for (Operator<Nonterminal, NodeType> op: operators) {
+            writeOperator(op, body);
+        }
+
+        body.flush();
+        productionData.flush();
+
+        // Routines refer to strings, so encode them before
+        // writing the string table; productions refer to both,
+        // so the production table is complete at this point.
+        ByteArrayOutputStream routineBytes = new ByteArrayOutputStream();
+        DataOutputStream routineData = new DataOutputStream(routineBytes);
+        routineData.writeInt(routinesInOrder.size());
+
+        for (HostRoutine routine: routinesInOrder) {
+            writeRoutine(routine, routineData);
+        }
+
+        routineData.flush();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(BinaryTableLoader.MAGIC);
+        data.writeInt(BinaryTableLoader.VERSION);
+
+        data.writeInt(strings.size());
+
+        for (String s: strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+
+        routineBytes.writeTo(data);
+        data.writeInt(productions.size());
+        productionBytes.writeTo(data);
+        bodyBytes.writeTo(data);
+        data.flush();
+    }
+
+    private void writeErrorHandler(DataOutputStream out)
+    throws IOException
+    {
+        ErrorState<Nonterminal, NodeType> errorState = productionTable.errorState;
+
+        if (productionTable.hasErrorHandler()) {
+            out.writeBoolean(true);
+            out.writeInt(string(errorState.getNonterminal()));
+            out.writeInt(routine(errorState.getErrorHandler().preCallback));
+            writeProductions(errorState.closures.values(), out);
+        } else {
+            out.writeBoolean(false);
+        }
+    }
+
+    private void writeOperator(Operator<Nonterminal, NodeType> op, DataOutputStream out)
+    throws IOException
+    {
+        out.writeInt(string(op.nodeType));
+        out.writeInt(op.size());
+        out.writeBoolean(op.isVarArgs());
+
+        if (op.transitionTable != null) {
+            out.writeByte(BinaryTableLoader.TRANSITION_TABLE);
+            writePlane(op.transitionTable, out);
+        } else {
+            out.writeByte(BinaryTableLoader.LEAF_STATE);
+            writeLeaf(op.leafState, out);
+        }
+    }
+
+    private void writePlane(TransitionPlane<Nonterminal, NodeType> plane, DataOutputStream out)
+    throws IOException
+    {
+        if (planes.containsKey(plane)) {
+            out.writeByte(BinaryTableLoader.PLANE_REFERENCE);
+            out.writeInt(planes.get(plane));
+            return;
+        }
+
+        planes.put(plane, planes.size());
+
+        // A plane under construction has both dimensions, one of them empty.
+        if (plane.nextDimension != null && !plane.nextDimension.isEmpty()) {
+            out.writeByte(BinaryTableLoader.NEXT_DIMENSION);
+            out.writeInt(plane.dimension);
+            writeIndexMap(plane.nextDimIndexMap, out);
+            out.writeInt(plane.nextDimension.size());
+
+            for (TransitionPlane<Nonterminal, NodeType> child: plane.nextDimension) {
+                writePlane(child, out);
+            }
+
+        } else {
+            out.writeByte(BinaryTableLoader.FINAL_DIMENSION);
+            out.writeInt(plane.dimension);
+            writeIndexMap(plane.finalDimIndexMap, out);
+            out.writeInt(plane.finalDimension.size());
+
+            for (TransitionTableLeaf<Nonterminal, NodeType> leaf: plane.finalDimension) {
+                writeLeaf(leaf, out);
+            }
+        }
+    }
+
+    private void writeIndexMap(Map<Integer, Integer> indexMap, DataOutputStream out)
+    throws IOException
+    {
+        out.writeInt(indexMap.size());
+
+        for (Map.Entry<Integer, Integer> entry: indexMap.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private void writeLeaf(TransitionTableLeaf<Nonterminal, NodeType> leaf, DataOutputStream out)
+    throws IOException
+    {
+        Collection<State<Nonterminal, NodeType>> states = leaf.getStates();
+        out.writeInt(states.size());
+
+        for (State<Nonterminal, NodeType> state: states) {
+            writeState(state, out);
+        }
+    }
+
+    private void writeState(State<Nonterminal, NodeType> state, DataOutputStream out)
+    throws IOException
+    {
+        out.writeInt(state.number);
+
+        // A pattern's cost in the state includes its subtrees' costs.
+        out.writeInt(state.nonClosureProductions.size());
+
+        for (Production<Nonterminal> p: state.nonClosureProductions.values()) {
+            out.writeInt(production(p));
+            out.writeLong(state.patternCosts.get(p.target.toString()));
+        }
+
+        writeProductions(state.closures.values(), out);
+
+        out.writeInt(state.predicates.size());
+
+        for (HostRoutine predicate: state.predicates) {
+            out.writeInt(routine(predicate));
+        }
+    }
+
+    private void writeProductions(Collection<? extends Production<Nonterminal>> prods, DataOutputStream out)
+    throws IOException
+    {
+        out.writeInt(prods.size());
+
+        for (Production<Nonterminal> p: prods) {
+            out.writeInt(production(p));
+        }
+    }
+
+    private void writeRoutine(HostRoutine routine, DataOutputStream out)
+    throws IOException
+    {
+        out.writeInt(string(getTypeName(routine.getDeclaringClass())));
+        out.writeInt(string(routine.getName()));
+
+        Object[] parameterTypes = routine.getParameterTypes();
+        out.writeInt(parameterTypes.length);
+
+        for (Object parameterType: parameterTypes) {
+            out.writeInt(string(getTypeName(parameterType)));
+        }
+    }
+
+    /**
+     * @return the name of a host type.
+     */
+    private static String getTypeName(Object type)
+    {
+        return type instanceof Class? ((Class<?>)type).getName(): type.toString();
+    }
+
+    /**
+     * Get a string's index, adding it to the string table if necessary.
+     * @param o the string, or an object to be written as its string form.
+     * @return the string's index, or -1 if o is null.
+     */
+    private int string(Object o)
+    {
+        if (o == null) {
+            return -1;
+        }
+
+        String s = o.toString();
+
+        if (!strings.containsKey(s)) {
+            strings.put(s, strings.size());
+        }
+
+        return strings.get(s);
+    }
+
+    /**
+     * Get a routine's index, adding it to the routine table if necessary.
+     * @param routine   the routine.
+     * @return the routine's index, or -1 if routine is null.
+     */
+    private int routine(HostRoutine routine)
+    {
+        if (routine == null) {
+            return -1;
+        }
+
+        if (!routines.containsKey(routine)) {
+            routines.put(routine, routinesInOrder.size());
+            routinesInOrder.add(routine);
+        }
+
+        return routines.get(routine);
+    }
+
+    /**
+     * Get a production's index, adding it to the production table if necessary.
+     * @param p the production.
+     * @return the production's index.
+     */
+    private int production(Production<Nonterminal> p)
+    throws IOException
+    {
+        if (productions.containsKey(p)) {
+            return productions.get(p);
+        }
+
+        int result = productions.size();
+        productions.put(p, result);
+
+        if (p instanceof PatternMatcher) {
+            @SuppressWarnings("unchecked")
+            PatternMatcher<Nonterminal, NodeType> pm = (PatternMatcher<Nonterminal, NodeType>)p;
+            productionData.writeByte(BinaryTableLoader.PATTERN_MATCHER);
+            productionData.writeInt(string(pm.target));
+            productionData.writeInt(string(pm.nodeType));
+            productionData.writeInt(pm.ownCost);
+            productionData.writeBoolean(pm.isVarArgs);
+            productionData.writeInt(pm.childTypes.size());
+
+            for (String childType: pm.childTypes) {
+                productionData.writeInt(string(childType));
+            }
+
+            productionData.writeInt(routine(pm.predicate));
+
+        } else if (p instanceof Closure) {
+            Closure<Nonterminal> closure = (Closure<Nonterminal>)p;
+            productionData.writeByte(BinaryTableLoader.CLOSURE);
+            productionData.writeInt(string(closure.target));
+            productionData.writeInt(string(closure.source));
+            productionData.writeInt(closure.ownCost);
+
+        } else if (p instanceof NullPointerProduction) {
+            productionData.writeByte(BinaryTableLoader.NULL_POINTER_PRODUCTION);
+            productionData.writeInt(string(p.target));
+            productionData.writeInt(p.ownCost);
+
+        } else {
+            throw new IllegalArgumentException(String.format("Cannot write %s", p));
+        }
+
+        productionData.writeInt(routine(p.preCallback));
+        productionData.writeInt(routine(p.postCallback));
+        return result;
+    }
+}
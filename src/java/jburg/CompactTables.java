@@ -0,0 +1,631 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * CompactTables encodes a finished ProductionTable's transition
+ * tables, predicate masks, and closure chains as flat int arrays,
+ * for emitters that generate table-driven BURMs: the generated
+ * code decodes the arrays once when it's loaded, and labels and
+ * reduces with one generic driver, so its size doesn't grow with
+ * the number of states and transition table leaves.
+ * <p>The index maps of every transition plane and the goals of
+ * every state are overlaid in one comb vector, as in an Operator's
+ * TransitionIndex; the generated driver looks up a row's entries
+ * exactly as TransitionIndex.lookup() does. The arrays are:
+ * <ul>
+ * <li>DISPATCH_BASE, DISPATCH: each node type's row of the operator
+ * dispatch table, as built for the labeler; DISPATCH_BASE has a
+ * trailing entry, so a row's length is the difference of its base
+ * and the next row's base.
+ * <li>OPERATOR_ARITY, OPERATOR_VARIADIC: each operator's arity and
+ * variadic flag.
+ * <li>OPERATOR_PLANE, OPERATOR_LEAF: each operator's first transition
+ * plane, which labels nodes with subtrees, and its leaf, which labels
+ * nodes without subtrees; or NO_ENTRY.
+ * <li>PLANE_NEXT_ROW, PLANE_FINAL_ROW: each plane's comb vector rows
+ * for its next dimension (state number to plane) and its final
+ * dimension (state number to leaf), or NO_ENTRY.
+ * <li>LEAF_PREDICATE_BASE, LEAF_PREDICATES: each leaf's predicates,
+ * in mask bit order; LEAF_PREDICATE_BASE has a trailing entry.
+ * <li>LEAF_STATE_BASE, LEAF_STATES: each leaf's state numbers,
+ * indexed by the mask of the predicates a node satisfies; a mask
+ * with no state maps to NO_ENTRY, as the leaf's empty state does.
+ * <li>STATE_ROW: each state's comb vector row, which maps
+ * a goal's nonterminal index to its closure chain.
+ * <li>CHAIN_BASE, CHAIN_PRODUCTIONS: each closure chain's productions:
+ * the goal's production, the closures it depends on, and the production
+ * that starts the chain; CHAIN_BASE has a trailing entry.
+ * <li>COMB_BASE, COMB_VALUE, COMB_CHECK: the comb vector.
+ * </ul>
+ * Productions that start closure chains are numbered before closures,
+ * so an emitter can split the reductions into contiguous groups.
+ */
+public class CompactTables<Nonterminal, NodeType>
+{
+    /** The value of an array entry that has no corresponding entry in the table. */
+    public static final int NO_ENTRY = TransitionIndex.NO_ENTRY;
+
+    /** The number of reductions in each of the generated reducer's reduction groups. */
+    public static final int REDUCTION_GROUP_SIZE = 32;
+
+    /**
+     * The largest number of predicates a leaf may have; each leaf's
+     * states are indexed by predicate mask, so a leaf with n predicates
+     * occupies 2<sup>n</sup> entries of LEAF_STATES.
+     */
+    public static final int MAX_MASK_PREDICATES = 16;
+
+    /**
+     * The largest number of characters in one chunk of an encoded array;
+     * this keeps each chunk's constant pool entry within the class file's
+     * limit of 65535 bytes, even if every character takes three bytes.
+     */
+    public static final int MAX_CHUNK_LENGTH = 16384;
+
+    /**
+     * Encoded ints are offset by one, so NO_ENTRY encodes as zero;
+     * offset values that don't fit in one character are written as
+     * this escape character, followed by their high and low halves.
+     */
+    public static final char ESCAPE = '\uffff';
+
+    /**
+     * The production table.
+     */
+    private final ProductionTable<Nonterminal, NodeType> productionTable;
+
+    /** Node types, by node type index. */
+    private final List<Object> nodeTypes = new ArrayList<Object>();
+
+    /** Nonterminals, by nonterminal index; states' rows are keyed by these indexes. */
+    private final Map<Object, Integer> nonterminals = new LinkedHashMap<Object, Integer>();
+
+    /** Operators, by operator number. */
+    private final Map<Operator<Nonterminal, NodeType>, Integer> operators = new IdentityHashMap<Operator<Nonterminal, NodeType>, Integer>();
+    private final List<Operator<Nonterminal, NodeType>> operatorsInOrder = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+    /** Transition planes, by plane number. */
+    private final Map<TransitionPlane<Nonterminal, NodeType>, Integer> planes = new IdentityHashMap<TransitionPlane<Nonterminal, NodeType>, Integer>();
+    private final List<TransitionPlane<Nonterminal, NodeType>> planesInOrder = new ArrayList<TransitionPlane<Nonterminal, NodeType>>();
+
+    /** Transition table leaves, by leaf number; planes share equal leaves. */
+    private final Map<TransitionTableLeaf<Nonterminal, NodeType>, Integer> leaves = new HashMap<TransitionTableLeaf<Nonterminal, NodeType>, Integer>();
+    private final List<TransitionTableLeaf<Nonterminal, NodeType>> leavesInOrder = new ArrayList<TransitionTableLeaf<Nonterminal, NodeType>>();
+
+    /** Predicates, by predicate number. */
+    private final Map<HostRoutine, Integer> predicates = new IdentityHashMap<HostRoutine, Integer>();
+    private final List<Entry> predicateEntries = new ArrayList<Entry>();
+
+    /** The states the reducer uses, by state number. */
+    private final Map<Integer, State<Nonterminal, NodeType>> states = new HashMap<Integer, State<Nonterminal, NodeType>>();
+
+    /** Productions, by production number. */
+    private final Map<Production<Nonterminal>, Integer> productions = new IdentityHashMap<Production<Nonterminal>, Integer>();
+    private final List<Production<Nonterminal>> productionsInOrder = new ArrayList<Production<Nonterminal>>();
+
+    /** The encoded arrays, in the order the generated code declares them. */
+    private final List<EncodedArray> arrays = new ArrayList<EncodedArray>();
+
+    /**
+     * Encode a production table.
+     * @param productionTable   the production table, whose states must be generated.
+     */
+    CompactTables(ProductionTable<Nonterminal, NodeType> productionTable)
+    {
+        this.productionTable = productionTable;
+
+        TransitionIndex comb = new TransitionIndex();
+
+        // Number the operators and their planes, leaves, and states
+        // first; the arrays are laid out by these numbers.
+        List<Operator<Nonterminal, NodeType>[]> dispatchRows = new ArrayList<Operator<Nonterminal, NodeType>[]>();
+
+        for (Map.Entry<NodeType, List<Operator<Nonterminal, NodeType>>> entry: productionTable.getOperatorsByNodeType().entrySet()) {
+            Operator<Nonterminal, NodeType>[] row = ProductionTable.buildDispatchRow(entry.getValue());
+            nodeTypes.add(entry.getKey());
+            dispatchRows.add(row);
+
+            for (Operator<Nonterminal, NodeType> op: row) {
+                if (op != null && !operators.containsKey(op)) {
+                    operators.put(op, operatorsInOrder.size());
+                    operatorsInOrder.add(op);
+
+                    if (op.transitionTable != null) {
+                        addPlane(op.transitionTable);
+                    } else if (op.leafState != null) {
+                        addLeaf(op.leafState);
+                    }
+                }
+            }
+        }
+
+        states.put(ProductionTable.ERROR_STATE_NUM, productionTable.getErrorState());
+        states.put(ProductionTable.NULL_STATE_NUM, productionTable.getNullPointerState());
+
+        // Number the productions that start closure chains
+        // before the closures, then add the states' goals.
+        List<Integer> stateNumbers = new ArrayList<Integer>(states.keySet());
+        Collections.sort(stateNumbers);
+        int stateCount = stateNumbers.get(stateNumbers.size()-1) + 1;
+
+        for (boolean startsChain: new boolean[] { true, false }) {
+
+            for (Integer stateNumber: stateNumbers) {
+                State<Nonterminal, NodeType> state = states.get(stateNumber);
+
+                for (Object nt: state.getNonterminals()) {
+                    Production<Nonterminal>[] chain = state.getClosureChain(nt);
+
+                    for (int i = 0; i < chain.length; i++) {
+                        if ((i == chain.length - 1) == startsChain && !productions.containsKey(chain[i])) {
+                            productions.put(chain[i], productionsInOrder.size());
+                            productionsInOrder.add(chain[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] stateRows = new int[stateCount];
+        Arrays.fill(stateRows, NO_ENTRY);
+
+        Map<List<Integer>, Integer> chains = new LinkedHashMap<List<Integer>, Integer>();
+
+        for (Integer stateNumber: stateNumbers) {
+            State<Nonterminal, NodeType> state = states.get(stateNumber);
+            Map<Integer, Integer> row = new HashMap<Integer, Integer>();
+
+            for (Object nt: state.getNonterminals()) {
+                List<Integer> chain = new ArrayList<Integer>();
+
+                for (Production<Nonterminal> p: state.getClosureChain(nt)) {
+                    chain.add(productions.get(p));
+                }
+
+                if (!chains.containsKey(chain)) {
+                    chains.put(chain, chains.size());
+                }
+
+                row.put(nonterminal(nt), chains.get(chain));
+            }
+
+            stateRows[stateNumber] = comb.addRow(row);
+        }
+
+        // Add the planes' rows to the comb vector, with their
+        // indexes translated into plane and leaf numbers.
+        int[] planeNextRows = new int[planesInOrder.size()];
+        int[] planeFinalRows = new int[planesInOrder.size()];
+
+        for (int i = 0; i < planesInOrder.size(); i++) {
+            TransitionPlane<Nonterminal, NodeType> plane = planesInOrder.get(i);
+            planeNextRows[i] = NO_ENTRY;
+            planeFinalRows[i] = NO_ENTRY;
+
+            if (plane.nextDimIndexMap != null) {
+                Map<Integer, Integer> row = new HashMap<Integer, Integer>();
+
+                for (Map.Entry<Integer, Integer> entry: plane.nextDimIndexMap.entrySet()) {
+                    row.put(entry.getKey(), planes.get(plane.nextDimension.get(entry.getValue())));
+                }
+
+                planeNextRows[i] = comb.addRow(row);
+            }
+
+            if (plane.finalDimIndexMap != null) {
+                Map<Integer, Integer> row = new HashMap<Integer, Integer>();
+
+                for (Map.Entry<Integer, Integer> entry: plane.finalDimIndexMap.entrySet()) {
+                    row.put(entry.getKey(), leaves.get(plane.finalDimension.get(entry.getValue())));
+                }
+
+                planeFinalRows[i] = comb.addRow(row);
+            }
+        }
+
+        comb.pack();
+
+        // Lay out the arrays.
+        int[] dispatchBase = new int[dispatchRows.size() + 1];
+        List<Integer> dispatch = new ArrayList<Integer>();
+
+        for (int i = 0; i < dispatchRows.size(); i++) {
+            dispatchBase[i] = dispatch.size();
+
+            for (Operator<Nonterminal, NodeType> op: dispatchRows.get(i)) {
+                dispatch.add(op != null? operators.get(op): NO_ENTRY);
+            }
+        }
+
+        dispatchBase[dispatchRows.size()] = dispatch.size();
+
+        int[] operatorArity = new int[operatorsInOrder.size()];
+        int[] operatorVariadic = new int[operatorsInOrder.size()];
+        int[] operatorPlane = new int[operatorsInOrder.size()];
+        int[] operatorLeaf = new int[operatorsInOrder.size()];
+
+        for (int i = 0; i < operatorsInOrder.size(); i++) {
+            Operator<Nonterminal, NodeType> op = operatorsInOrder.get(i);
+            operatorArity[i] = op.size();
+            operatorVariadic[i] = op.isVarArgs()? 1: 0;
+            operatorPlane[i] = op.transitionTable != null? planes.get(op.transitionTable): NO_ENTRY;
+            operatorLeaf[i] = op.leafState != null? leaves.get(op.leafState): NO_ENTRY;
+        }
+
+        int[] leafPredicateBase = new int[leavesInOrder.size() + 1];
+        int[] leafStateBase = new int[leavesInOrder.size()];
+        List<Integer> leafPredicates = new ArrayList<Integer>();
+        List<Integer> leafStates = new ArrayList<Integer>();
+
+        for (int i = 0; i < leavesInOrder.size(); i++) {
+            TransitionTableLeaf<Nonterminal, NodeType> leaf = leavesInOrder.get(i);
+            leafPredicateBase[i] = leafPredicates.size();
+            leafStateBase[i] = leafStates.size();
+
+            for (HostRoutine predicate: leaf.predicates) {
+                leafPredicates.add(predicates.get(predicate));
+            }
+
+            Integer[] statesByMask = new Integer[1 << leaf.predicates.size()];
+            Arrays.fill(statesByMask, NO_ENTRY);
+
+            for (Map.Entry<List<HostRoutine>, State<Nonterminal, NodeType>> entry: leaf.states.entrySet()) {
+                int mask = 0;
+
+                for (HostRoutine m: entry.getKey()) {
+                    mask |= 1 << leaf.predicates.indexOf(m);
+                }
+
+                statesByMask[mask] = entry.getValue().number;
+            }
+
+            leafStates.addAll(Arrays.asList(statesByMask));
+        }
+
+        leafPredicateBase[leavesInOrder.size()] = leafPredicates.size();
+
+        int[] chainBase = new int[chains.size() + 1];
+        List<Integer> chainProductions = new ArrayList<Integer>();
+
+        for (List<Integer> chain: chains.keySet()) {
+            chainBase[chains.get(chain)] = chainProductions.size();
+            chainProductions.addAll(chain);
+        }
+
+        chainBase[chains.size()] = chainProductions.size();
+
+        addArray("DISPATCH_BASE", dispatchBase);
+        addArray("DISPATCH", toArray(dispatch));
+        addArray("OPERATOR_ARITY", operatorArity);
+        addArray("OPERATOR_VARIADIC", operatorVariadic);
+        addArray("OPERATOR_PLANE", operatorPlane);
+        addArray("OPERATOR_LEAF", operatorLeaf);
+        addArray("PLANE_NEXT_ROW", planeNextRows);
+        addArray("PLANE_FINAL_ROW", planeFinalRows);
+        addArray("LEAF_PREDICATE_BASE", leafPredicateBase);
+        addArray("LEAF_PREDICATES", toArray(leafPredicates));
+        addArray("LEAF_STATE_BASE", leafStateBase);
+        addArray("LEAF_STATES", toArray(leafStates));
+        addArray("STATE_ROW", stateRows);
+        addArray("CHAIN_BASE", chainBase);
+        addArray("CHAIN_PRODUCTIONS", toArray(chainProductions));
+        addArray("COMB_BASE", comb.getRowBases());
+        addArray("COMB_VALUE", comb.getValues());
+        addArray("COMB_CHECK", comb.getCheck());
+    }
+
+    /**
+     * Number a transition plane, and the planes and leaves it refers to.
+     * @param plane the plane; a variadic plane may be its own next dimension.
+     */
+    private void addPlane(TransitionPlane<Nonterminal, NodeType> plane)
+    {
+        if (planes.containsKey(plane)) {
+            return;
+        }
+
+        planes.put(plane, planesInOrder.size());
+        planesInOrder.add(plane);
+
+        if (plane.nextDimension != null) {
+            for (TransitionPlane<Nonterminal, NodeType> child: plane.nextDimension) {
+                addPlane(child);
+            }
+        }
+
+        if (plane.finalDimension != null) {
+            for (TransitionTableLeaf<Nonterminal, NodeType> leaf: plane.finalDimension) {
+                addLeaf(leaf);
+            }
+        }
+    }
+
+    /**
+     * Number a transition table leaf, its predicates, and its states.
+     * @param leaf  the leaf.
+     */
+    private void addLeaf(TransitionTableLeaf<Nonterminal, NodeType> leaf)
+    {
+        if (leaves.containsKey(leaf)) {
+            return;
+        }
+
+        if (leaf.predicates.size() > MAX_MASK_PREDICATES) {
+            throw new IllegalStateException(String.format("%s has too many predicates to index by mask", leaf));
+        }
+
+        leaves.put(leaf, leavesInOrder.size());
+        leavesInOrder.add(leaf);
+
+        for (HostRoutine predicate: leaf.predicates) {
+            if (!predicates.containsKey(predicate)) {
+                predicates.put(predicate, predicateEntries.size());
+                predicateEntries.add(new Entry(predicateEntries.size(), predicate, null));
+            }
+        }
+
+        // Leaves hold their own copies of states; any copy
+        // of a state derives its goals the same way.
+        for (State<Nonterminal, NodeType> state: leaf.getStates()) {
+            if (!states.containsKey(state.number)) {
+                states.put(state.number, state);
+            }
+        }
+    }
+
+    /**
+     * Get a nonterminal's index, assigning it an index if necessary.
+     */
+    private int nonterminal(Object nt)
+    {
+        if (!nonterminals.containsKey(nt)) {
+            nonterminals.put(nt, nonterminals.size());
+        }
+
+        return nonterminals.get(nt);
+    }
+
+    private void addArray(String name, int[] values)
+    {
+        arrays.add(new EncodedArray(name, values));
+    }
+
+    private static int[] toArray(List<Integer> values)
+    {
+        int[] result = new int[values.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the node types, by node type index.
+     */
+    public List<Object> getNodeTypes()
+    {
+        return nodeTypes;
+    }
+
+    /**
+     * @return the nonterminals, by nonterminal index.
+     */
+    public List<Object> getNonterminals()
+    {
+        return new ArrayList<Object>(nonterminals.keySet());
+    }
+
+    /**
+     * @return the encoded arrays.
+     */
+    public List<EncodedArray> getArrays()
+    {
+        return arrays;
+    }
+
+    /**
+     * @return the predicates, by predicate number.
+     */
+    public List<Entry> getPredicates()
+    {
+        return predicateEntries;
+    }
+
+    /**
+     * @return the productions with pre callbacks, other than error handlers,
+     * whose error handling routine is their reduction.
+     */
+    public List<Entry> getPreCallbacks()
+    {
+        List<Entry> result = new ArrayList<Entry>();
+
+        for (int i = 0; i < productionsInOrder.size(); i++) {
+            Production<Nonterminal> p = productionsInOrder.get(i);
+
+            if (p.preCallback != null && !(p instanceof ErrorHandlerProduction)) {
+                result.add(new Entry(i, null, p));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the productions that start closure chains, by production
+     * number, in groups of REDUCTION_GROUP_SIZE productions.
+     */
+    public List<List<Entry>> getReductionGroups()
+    {
+        List<List<Entry>> result = new ArrayList<List<Entry>>();
+
+        for (int i = 0; i < productionsInOrder.size(); i++) {
+            Production<Nonterminal> p = productionsInOrder.get(i);
+
+            if (p instanceof Closure) {
+                break;
+            }
+
+            if (i % REDUCTION_GROUP_SIZE == 0) {
+                result.add(new ArrayList<Entry>());
+            }
+
+            result.get(result.size()-1).add(new Entry(i, null, p));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the closures with post callbacks.
+     */
+    public List<Entry> getClosures()
+    {
+        List<Entry> result = new ArrayList<Entry>();
+
+        for (int i = 0; i < productionsInOrder.size(); i++) {
+            Production<Nonterminal> p = productionsInOrder.get(i);
+
+            if (p instanceof Closure && p.postCallback != null) {
+                result.add(new Entry(i, null, p));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the size of the generated reducer's reduction groups.
+     */
+    public int getReductionGroupSize()
+    {
+        return REDUCTION_GROUP_SIZE;
+    }
+
+    /**
+     * @return the total number of ints in the encoded arrays.
+     */
+    public int getEncodedSize()
+    {
+        int result = 0;
+
+        for (EncodedArray array: arrays) {
+            result += array.length;
+        }
+
+        return result;
+    }
+
+    /**
+     * An Entry is a numbered predicate or production, for
+     * the emitter's switch on predicate or production number.
+     */
+    public static class Entry
+    {
+        public final int id;
+        public final HostRoutine routine;
+        public final Production<?> production;
+
+        Entry(int id, HostRoutine routine, Production<?> production)
+        {
+            this.id = id;
+            this.routine = routine;
+            this.production = production;
+        }
+
+        public int getId()                  { return id; }
+        public HostRoutine getRoutine()     { return routine; }
+        public Production<?> getProduction() { return production; }
+
+        public boolean isPatternMatcher()   { return production instanceof PatternMatcher; }
+        public boolean isNullPointer()      { return production instanceof NullPointerProduction; }
+        public boolean isErrorHandler()     { return production instanceof ErrorHandlerProduction; }
+    }
+
+    /**
+     * An EncodedArray is an int array encoded as strings of
+     * characters: each int is offset by one, so NO_ENTRY is
+     * zero, and an offset value that doesn't fit in a character,
+     * e.g., a comb vector row's negative displacement, is written
+     * as the ESCAPE character and the value's high and low halves. The characters are split into chunks of
+     * at most MAX_CHUNK_LENGTH characters.
+     */
+    public static class EncodedArray
+    {
+        public final String name;
+        public final int length;
+        public final List<String> chunks = new ArrayList<String>();
+
+        EncodedArray(String name, int[] values)
+        {
+            this.name = name;
+            this.length = values.length;
+
+            StringBuilder chunk = new StringBuilder();
+
+            for (int value: values) {
+
+                if (chunk.length() > MAX_CHUNK_LENGTH - 3) {
+                    chunks.add(chunk.toString());
+                    chunk.setLength(0);
+                }
+
+                int offsetValue = value + 1;
+
+                if (offsetValue >= 0 && offsetValue < ESCAPE) {
+                    chunk.append((char)offsetValue);
+                } else {
+                    chunk.append(ESCAPE);
+                    chunk.append((char)(offsetValue >>> 16));
+                    chunk.append((char)(offsetValue & 0xffff));
+                }
+            }
+
+            chunks.add(chunk.toString());
+        }
+
+        public String getName()         { return name; }
+        public int getLength()          { return length; }
+        public List<String> getChunks() { return chunks; }
+
+        /**
+         * Decode an encoded array; this is the algorithm the
+         * generated code uses to decode its arrays.
+         * @param length    the number of ints in the array.
+         * @param chunks    the encoded chunks.
+         * @return the decoded array.
+         */
+        public static int[] decode(int length, String... chunks)
+        {
+            int[] result = new int[length];
+            int n = 0;
+
+            for (String chunk: chunks) {
+
+                for (int i = 0; i < chunk.length(); i++) {
+                    char c = chunk.charAt(i);
+
+                    if (c != ESCAPE) {
+                        result[n++] = c - 1;
+                    } else {
+                        result[n++] = ((chunk.charAt(i+1) << 16) | chunk.charAt(i+2)) - 1;
+                        i += 2;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CompiledProductionTable is the frozen, immutable runtime form
+ * of a ProductionTable: its states, its operators' transition tables,
+ * and the operator dispatch table, without the data structures that
+ * generated them. Its fields are final, and its states and transition
+ * tables aren't modified after it's built, so a CompiledProductionTable
+ * can be published to any number of threads without synchronization;
+ * each thread labels and reduces its trees with its own Reducer.
+ * <p>The table is not deeply immutable, though:
+ * <ul>
+ * <li>It shares its NonterminalIndex with the ProductionTable it was
+ * frozen from. The frozen table can't intern more nonterminals, and
+ * lookups only replace the index's cache of enum ordinals, an immutable
+ * object whose fields are final.
+ * <li>compileRoutines() rewires the table's states, leaves, and
+ * operators to compiled copies of its routines; call it before
+ * publishing the table to other threads.
+ * <li>With predicate statistics enabled, labeling counts predicate
+ * invocations in LongAdders, which labeling threads update concurrently.
+ * </ul>
+ * @see ProductionTable#freeze(), which builds a CompiledProductionTable.
+ */
+public final class CompiledProductionTable<Nonterminal, NodeType> extends AbstractProductionTable<Nonterminal, NodeType>
+{
+    /**
+     * A rough estimate, not a measurement, of the memory held by each
+     * collection entry freezing releases: a hash map node or list slot,
+     * its share of the map's table, and a boxed key or value. The actual
+     * size depends on the JVM's object layout and the maps' load.
+     */
+    public static final int ESTIMATED_BYTES_PER_ENTRY = 48;
+
+    /**
+     * The states, by state number.
+     */
+    private final State<Nonterminal, NodeType>[] states;
+
+    /**
+     * The state that derives null pointers.
+     */
+    private final State<Nonterminal, NodeType> nullState;
+
+    /**
+     * Operators by node type; each node type's operators are
+     * laid out as in a row of the operator dispatch table.
+     */
+    private final Map<NodeType, Operator<Nonterminal,NodeType>[]> operators;
+
+    /**
+     * The operator dispatch table, or null if the node types aren't enums.
+     */
+    private final Operator<Nonterminal,NodeType>[][] operatorDispatch;
+
+    /**
+     * The number of compile-time collection entries freezing released.
+     */
+    private final int reclaimedEntries;
+
+    /**
+     * Construct a CompiledProductionTable; see ProductionTable.freeze().
+     * @param errorState        the error state.
+     * @param nonterminalIndex  the nonterminal ordinals.
+     * @param states            the states, by state number.
+     * @param nullState         the null pointer state.
+     * @param operators         operators by node type, in dispatch table rows.
+     * @param operatorDispatch  the operator dispatch table, or null.
+     * @param reclaimedEntries  the number of compile-time entries released.
+     */
+    CompiledProductionTable(
+        ErrorState<Nonterminal,NodeType> errorState,
+        NonterminalIndex nonterminalIndex,
+        State<Nonterminal, NodeType>[] states,
+        State<Nonterminal, NodeType> nullState,
+        Map<NodeType, Operator<Nonterminal,NodeType>[]> operators,
+        Operator<Nonterminal,NodeType>[][] operatorDispatch,
+        int reclaimedEntries
+        )
+    {
+        super(errorState, nonterminalIndex);
+        this.states = states;
+        this.nullState = nullState;
+        this.operators = Collections.unmodifiableMap(new HashMap<NodeType, Operator<Nonterminal,NodeType>[]>(operators));
+        this.operatorDispatch = operatorDispatch;
+        this.reclaimedEntries = reclaimedEntries;
+    }
+
+    @Override
+    public State<Nonterminal, NodeType> getNullPointerState()
+    {
+        return nullState;
+    }
+
+    @Override
+    State<Nonterminal, NodeType> getState(int stateNumber)
+    {
+        return stateNumber >= 0 && stateNumber < states.length? states[stateNumber]: errorState;
+    }
+
+    @Override
+    Operator<Nonterminal, NodeType> getOperator(NodeType nodeType, int arity)
+    {
+        Operator<Nonterminal, NodeType>[] row;
+
+        if (operatorDispatch != null && nodeType instanceof Enum) {
+            int ordinal = ((Enum<?>)nodeType).ordinal();
+            row = ordinal < operatorDispatch.length? operatorDispatch[ordinal]: null;
+        } else {
+            row = operators.get(nodeType);
+        }
+
+        return row != null? row[Math.min(arity, row.length - 1)]: null;
+    }
+
+    @Override
+    public Operator<Nonterminal,NodeType>[][] getOperatorDispatch()
+    {
+        return operatorDispatch;
+    }
+
+    @Override
+    Collection<Operator<Nonterminal, NodeType>> getAllOperators()
+    {
+        List<Operator<Nonterminal, NodeType>> result = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+        for (Operator<Nonterminal,NodeType>[] row: operators.values()) {
+            for (Operator<Nonterminal,NodeType> op: row) {
+                if (op != null) {
+                    result.add(op);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int getStateCount()
+    {
+        return states.length;
+    }
+
+    /**
+     * Can a labeled node produce a nonterminal?
+     * @param node  the node, which may be null.
+     * @param goal  the nonterminal of interest.
+     * @return true if the node's state can produce the goal.
+     */
+    public boolean canProduce(BurgInput<Nonterminal,NodeType> node, Object goal)
+    {
+        State<Nonterminal, NodeType> state = node != null? getState(node.getStateNumber()): nullState;
+        return state.getCost(goal) < Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of compile-time collection entries,
+     * e.g., map entries and list elements, that freezing released.
+     */
+    public int getReclaimedEntries()
+    {
+        return reclaimedEntries;
+    }
+
+    /**
+     * Estimate the memory freezing released. This is the released entries
+     * times ESTIMATED_BYTES_PER_ENTRY, not a measurement of the heap, so
+     * report it as an estimate.
+     * @return the estimated memory freezing released, in bytes.
+     */
+    public long getEstimatedReclaimedBytes()
+    {
+        return (long)reclaimedEntries * ESTIMATED_BYTES_PER_ENTRY;
+    }
+}
@@ -0,0 +1,77 @@
+package jburg;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * CompiledRoutines map a production table's routines to the copies
+ * JavaSemantics.compileRoutines() compiled, and the productions of
+ * the table's states to copies that call the compiled routines.
+ * Each table that compiles its routines has its own copies, so
+ * other tables that share the table's productions and routines
+ * keep calling them as they did.
+ */
+class CompiledRoutines<Nonterminal>
+{
+    /**
+     * The compiled copies, keyed by the routines they copy.
+     */
+    private final Map<HostRoutine, HostRoutine> routines;
+
+    /**
+     * Productions' copies, keyed by the productions they copy;
+     * each production gets one copy, so closure chains that
+     * shared a production share its copy.
+     */
+    private final Map<Production<Nonterminal>, Production<Nonterminal>> productions = new IdentityHashMap<Production<Nonterminal>, Production<Nonterminal>>();
+
+    /**
+     * @param routines  the compiled copies, keyed by the routines they copy.
+     */
+    CompiledRoutines(Map<HostRoutine, HostRoutine> routines)
+    {
+        this.routines = routines;
+    }
+
+    /**
+     * @return the number of routines compiled.
+     */
+    int size()
+    {
+        return routines.size();
+    }
+
+    /**
+     * Get the routine that calls a routine's method.
+     * @param routine   the routine, which may be null.
+     * @return the routine's compiled copy, or the routine
+     * itself if it wasn't compiled. A lazily loaded routine's
+     * copy is the copy of the routine it resolves to.
+     */
+    HostRoutine getRoutine(HostRoutine routine)
+    {
+        HostRoutine resolved = routine instanceof LazyHostRoutine? ((LazyHostRoutine)routine).resolve(): routine;
+        HostRoutine result = resolved != null? routines.get(resolved): null;
+        return result != null? result: routine;
+    }
+
+    /**
+     * Get the production that calls a production's compiled routines.
+     * @param p the production.
+     * @return the production's copy, or the production itself
+     * if none of its routines were compiled.
+     */
+    synchronized Production<Nonterminal> getProduction(Production<Nonterminal> p)
+    {
+        Production<Nonterminal> result = productions.get(p);
+
+        if (result == null) {
+            result = p.copyWithRoutines(this);
+            productions.put(p, result);
+        }
+
+        return result;
+    }
+}
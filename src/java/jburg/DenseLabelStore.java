@@ -0,0 +1,91 @@
+package jburg;
+
+import java.util.Arrays;
+
+/**
+ * A DenseLabelStore keeps nodes' state numbers in an array
+ * indexed by the nodes' ids, for trees whose nodes carry
+ * small, dense integer ids, e.g., their position in an
+ * arena or a numbering assigned by the front end.
+ */
+public class DenseLabelStore<Nonterminal, NodeType> implements LabelStore<Nonterminal, NodeType>
+{
+    /**
+     * NodeIds maps a node to its id.
+     */
+    public interface NodeIds<Nonterminal, NodeType>
+    {
+        /**
+         * @param node  a node.
+         * @return the node's id, a non-negative integer
+         * that no other node in the tree shares.
+         */
+        public int getNodeId(BurgInput<Nonterminal, NodeType> node);
+    }
+
+    /**
+     * The map of nodes to their ids.
+     */
+    private final NodeIds<Nonterminal, NodeType> nodeIds;
+
+    /**
+     * The state numbers, indexed by node id; -1 if not stored.
+     */
+    private int[] stateNumbers;
+
+    /**
+     * Construct a DenseLabelStore.
+     * @param nodeIds   the map of nodes to their ids.
+     * @param capacity  one more than the largest expected node id;
+     * the store grows as necessary.
+     */
+    public DenseLabelStore(NodeIds<Nonterminal, NodeType> nodeIds, int capacity)
+    {
+        this.nodeIds = nodeIds;
+        this.stateNumbers = new int[Math.max(capacity, 1)];
+        Arrays.fill(stateNumbers, -1);
+    }
+
+    @Override
+    public int getStateNumber(BurgInput<Nonterminal, NodeType> node)
+    {
+        int id = getNodeId(node);
+        return id < stateNumbers.length? stateNumbers[id]: -1;
+    }
+
+    @Override
+    public void setStateNumber(BurgInput<Nonterminal, NodeType> node, int stateNumber)
+    {
+        int id = getNodeId(node);
+
+        if (id >= stateNumbers.length) {
+            int oldCapacity = stateNumbers.length;
+            stateNumbers = Arrays.copyOf(stateNumbers, Math.max(oldCapacity * 2, id + 1));
+            Arrays.fill(stateNumbers, oldCapacity, stateNumbers.length, -1);
+        }
+
+        stateNumbers[id] = stateNumber;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(stateNumbers, -1);
+    }
+
+    /**
+     * @param node  a node.
+     * @return the node's id.
+     * @throws IllegalArgumentException if the id is negative.
+     */
+    private int getNodeId(BurgInput<Nonterminal, NodeType> node)
+    {
+        int id = nodeIds.getNodeId(node);
+
+        if (id < 0) {
+            throw new IllegalArgumentException(String.format("node %s has negative id %d", node, id));
+        }
+
+        return id;
+    }
+}
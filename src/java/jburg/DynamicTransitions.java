@@ -0,0 +1,333 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * DynamicTransitions label nodes for an operator whose transition
+ * table exceeded the production table's transition budget. Instead
+ * of looking up the node's state in a precomputed table, they compute
+ * it at label time, as an iburg-style labeler would: the operator's
+ * patterns are costed against the children's states' cost vectors,
+ * the patterns whose predicates the node satisfies are coalesced,
+ * and the resulting state is mapped to the equivalent state the
+ * production table generated.
+ * <p>The operator still takes part in state generation, since its
+ * states can be other operators' children; only its transition
+ * table is discarded. DynamicTransitions don't change after they're
+ * built, except when the production table compiles its routines,
+ * so concurrent labelers can share them.
+ */
+class DynamicTransitions<Nonterminal, NodeType>
+{
+    /**
+     * The operator's node type.
+     */
+    private final NodeType nodeType;
+
+    /**
+     * The operator's arity; the last dimension
+     * of a variadic operator is its variadic tail.
+     */
+    private final int arity;
+
+    /**
+     * The patterns that match the operator's nodes.
+     */
+    private final List<PatternMatcher<Nonterminal, NodeType>> patterns;
+
+    /**
+     * The nonterminals the patterns use in each dimension; a child
+     * state's costs for other nonterminals don't affect the result.
+     */
+    private final List<List<Object>> nonterminalsByDim;
+
+    /**
+     * The production table's states, by state number.
+     */
+    private final State<Nonterminal, NodeType>[] states;
+
+    /**
+     * The states the operator's transition table held, keyed by
+     * copies of themselves; the copies keep the productions and
+     * predicates the states are identified by, even after the
+     * production table releases its compile-time data.
+     */
+    private final Map<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>> resultStates = new HashMap<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>>();
+
+    /**
+     * The state assigned to nodes no pattern matches.
+     */
+    private final State<Nonterminal, NodeType> errorState;
+
+    /**
+     * The routines that run the patterns' predicates, by the patterns'
+     * positions, once the production table has compiled its routines;
+     * null until then, when the predicates run themselves.
+     */
+    private HostRoutine[] predicateRoutines = null;
+
+    /**
+     * Set if these transitions count the predicates they run;
+     * see AbstractProductionTable.setPredicateStatistics().
+     */
+    boolean countPredicates = false;
+
+    /** The number of predicates run while labeling. */
+    private final LongAdder predicateInvocations = new LongAdder();
+
+    /**
+     * @param nodeType      the operator's node type.
+     * @param arity         the operator's arity.
+     * @param patterns      the patterns that match the operator's nodes.
+     * @param states        the production table's states, by state number.
+     * @param resultStates  the canonical states the operator's transitions produced.
+     * @param errorState    the production table's error state.
+     */
+    DynamicTransitions(NodeType nodeType, int arity, List<PatternMatcher<Nonterminal, NodeType>> patterns, State<Nonterminal, NodeType>[] states, Collection<State<Nonterminal, NodeType>> resultStates, State<Nonterminal, NodeType> errorState)
+    {
+        this.nodeType = nodeType;
+        this.arity = arity;
+        this.patterns = new ArrayList<PatternMatcher<Nonterminal, NodeType>>(patterns);
+        this.states = states;
+        this.errorState = errorState;
+        this.nonterminalsByDim = new ArrayList<List<Object>>();
+
+        for (int dim = 0; dim < arity; dim++) {
+            List<Object> nonterminals = new ArrayList<Object>();
+
+            for (PatternMatcher<Nonterminal, NodeType> p: patterns) {
+                Object nt = p.getNonterminal(dim);
+
+                if (!nonterminals.contains(nt)) {
+                    nonterminals.add(nt);
+                }
+            }
+
+            nonterminalsByDim.add(nonterminals);
+        }
+
+        for (State<Nonterminal, NodeType> state: resultStates) {
+            this.resultStates.put(new State<Nonterminal, NodeType>(state), state);
+        }
+    }
+
+    /**
+     * Construct a copy of existing dynamic transitions
+     * that uses a renumbered production table's states.
+     * @param source    the existing dynamic transitions.
+     * @param states    the renumbered states, by state number;
+     * the source's result states must already be renumbered.
+     */
+    private DynamicTransitions(DynamicTransitions<Nonterminal, NodeType> source, State<Nonterminal, NodeType>[] states)
+    {
+        this.nodeType = source.nodeType;
+        this.arity = source.arity;
+        this.patterns = source.patterns;
+        this.nonterminalsByDim = source.nonterminalsByDim;
+        this.states = states;
+        this.errorState = source.errorState;
+        this.predicateRoutines = source.predicateRoutines;
+        this.countPredicates = source.countPredicates;
+
+        for (Map.Entry<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>> entry: source.resultStates.entrySet()) {
+            this.resultStates.put(entry.getKey(), states[entry.getValue().number]);
+        }
+    }
+
+    /**
+     * Get dynamic transitions that produce a renumbered production
+     * table's states; states that were merged into another state
+     * produce the state they were merged into.
+     * @param states    the renumbered states, by state number.
+     * @return the renumbered dynamic transitions.
+     */
+    DynamicTransitions<Nonterminal, NodeType> renumbered(State<Nonterminal, NodeType>[] states)
+    {
+        return new DynamicTransitions<Nonterminal, NodeType>(this, states);
+    }
+
+    /**
+     * Get the state of a node.
+     * @param childStates   the state numbers of the node's children.
+     * @param node          the node, which is passed to the predicates;
+     * a BurgInput, or the object a FlatTree's node carries.
+     * @param visitor       the receiver for predicate methods.
+     * @return the node's state, or the error state if no pattern matches.
+     * @throws IllegalStateException if the production table didn't
+     * generate the state the node's patterns coalesce into.
+     */
+    @SuppressWarnings("unchecked")
+    State<Nonterminal, NodeType> getState(int[] childStates, Object node, Object visitor)
+    throws Exception
+    {
+        if (childStates.length < arity) {
+            return errorState;
+        }
+
+        // Project the children's costs into the patterns' dimensions;
+        // the variadic tail's cost comes from its last child, and its
+        // other children need only be able to produce its nonterminal,
+        // as in the transition table.
+        List<RepresenterState<Nonterminal,NodeType>> costs = new ArrayList<RepresenterState<Nonterminal,NodeType>>(arity);
+
+        for (int dim = 0; dim < arity; dim++) {
+            int childState = dim == arity - 1? childStates[childStates.length - 1]: childStates[dim];
+            RepresenterState<Nonterminal,NodeType> projection = project(dim, childState);
+
+            if (projection == null) {
+                return errorState;
+            }
+
+            costs.add(projection);
+        }
+
+        for (int i = arity - 1; i < childStates.length - 1; i++) {
+            if (project(arity - 1, childStates[i]) == null) {
+                return errorState;
+            }
+        }
+
+        // Coalesce the patterns the node matches; the last state
+        // coalesced has all the predicates the node satisfied.
+        List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
+        newStates.add(new State<Nonterminal,NodeType>(nodeType));
+
+        List<HostRoutine> satisfied = new ArrayList<HostRoutine>();
+        List<HostRoutine> unsatisfied = new ArrayList<HostRoutine>();
+        boolean matched = false;
+
+        HostRoutine[] routines = this.predicateRoutines;
+
+        for (int i = 0; i < patterns.size(); i++) {
+            PatternMatcher<Nonterminal, NodeType> p = patterns.get(i);
+
+            if (!isFeasible(p, costs)) {
+                continue;
+            }
+
+            matched = true;
+
+            if (p.hasPredicate() && !satisfied.contains(p.predicate)) {
+
+                if (unsatisfied.contains(p.predicate)) {
+                    continue;
+                }
+
+                if (countPredicates) {
+                    predicateInvocations.increment();
+                }
+
+                if ((Boolean)(routines != null? routines[i]: p.predicate).invoke1(visitor, node)) {
+                    satisfied.add(p.predicate);
+                } else {
+                    unsatisfied.add(p.predicate);
+                    continue;
+                }
+            }
+
+            ProductionTable.coalesceProduction(costs, p, newStates);
+        }
+
+        // As in the transition table, a node that matches patterns
+        // but satisfies none of their predicates gets the empty state.
+        State<Nonterminal, NodeType> result = newStates.get(newStates.size() - 1);
+
+        if (!matched) {
+            return errorState;
+        } else if (result.isEmpty()) {
+            return (State<Nonterminal, NodeType>)TransitionTableLeaf.s_emptyState;
+        }
+
+        State<Nonterminal, NodeType> canonical = resultStates.get(result);
+
+        if (canonical == null) {
+            throw new IllegalStateException(String.format("%s not generated for %s", result, nodeType));
+        }
+
+        return canonical;
+    }
+
+    /**
+     * Run the patterns' predicates through compiled routines.
+     * @param compiled  the production table's compiled routines.
+     */
+    void compileRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        HostRoutine[] predicateRoutines = new HostRoutine[patterns.size()];
+
+        for (int i = 0; i < predicateRoutines.length; i++) {
+            predicateRoutines[i] = compiled.getRoutine(patterns.get(i).predicate);
+        }
+
+        this.predicateRoutines = predicateRoutines;
+    }
+
+    /**
+     * Project a child's state into a dimension.
+     * @param dim           the dimension.
+     * @param stateNumber   the child's state number.
+     * @return the child's costs for the nonterminals the patterns
+     * use in that dimension, or null if it produces none of them.
+     */
+    private RepresenterState<Nonterminal,NodeType> project(int dim, int stateNumber)
+    {
+        if (stateNumber < 0 || stateNumber >= states.length) {
+            return null;
+        }
+
+        State<Nonterminal, NodeType> state = states[stateNumber];
+        RepresenterState<Nonterminal,NodeType> result = new RepresenterState<Nonterminal,NodeType>(state.nodeType);
+
+        for (Object nt: nonterminalsByDim.get(dim)) {
+            long cost = state.getCost(nt);
+
+            if (cost < Integer.MAX_VALUE) {
+                result.setCost(nt, cost);
+            }
+        }
+
+        return result.isEmpty()? null: result;
+    }
+
+    /**
+     * Can a pattern match, given its children's costs?
+     * @param p     the pattern.
+     * @param costs the children's projected costs.
+     * @return true if the children can produce all the pattern's nonterminals.
+     */
+    private boolean isFeasible(PatternMatcher<Nonterminal, NodeType> p, List<RepresenterState<Nonterminal,NodeType>> costs)
+    {
+        long cost = p.ownCost;
+
+        for (int j = 0; j < costs.size() && cost < Integer.MAX_VALUE; j++) {
+            cost += costs.get(j).getCost(p.getNonterminal(j));
+        }
+
+        return cost < Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the states the operator's nodes can be labeled with.
+     */
+    Collection<State<Nonterminal, NodeType>> getStates()
+    {
+        return Collections.unmodifiableCollection(resultStates.values());
+    }
+
+    /**
+     * @return the number of predicates run while labeling,
+     * if these transitions count them; zero otherwise.
+     */
+    long getPredicateInvocations()
+    {
+        return predicateInvocations.sum();
+    }
+}
@@ -40,6 +40,23 @@ public class ErrorState<Nonterminal, NodeType> extends State<Nonterminal, NodeTy
         }
     }
 
+    /**
+     * Get the chain of productions that derive a nonterminal.
+     * @param goal  the Nonterminal to be produced.
+     * @return the error handler's production and the closures it feeds.
+     * @throws IllegalArgumentException if this state
+     * has no production for the specified nonterminal.
+     */
+    @Override
+    Production<Nonterminal>[] getClosureChain(Object goal)
+    {
+        try {
+            return super.getClosureChain(goal);
+        } catch(IllegalArgumentException noProduction) {
+            throw new IllegalArgumentException(String.format("No error handler produces %s", goal));
+        }
+    }
+
     /**
      * @return the nonterminal state the error handler's production produces.
      */
@@ -66,9 +83,17 @@ public class ErrorState<Nonterminal, NodeType> extends State<Nonterminal, NodeTy
         return null;
     }
 
-    void finishCompilation()
+    @Override
+    void resetCompilation()
+    {
+        super.resetCompilation();
+        viableNonterminals.clear();
+    }
+
+    @Override
+    void finishCompilation(NonterminalIndex nonterminalIndex)
     {
-        super.finishCompilation();
+        super.finishCompilation(nonterminalIndex);
 
         Object nt = getNonterminal();
 
@@ -0,0 +1,118 @@
+package jburg;
+
+import java.util.Arrays;
+
+/**
+ * A FlatReduction holds the in-flight state of a FlatTree's
+ * reduction, in arrays indexed by the nodes' indexes in the
+ * tree. The Reducer reduces the nodes in the order they're
+ * stored, i.e., in post order, so each node's subtrees' results
+ * are in hand by the time the node's post callback runs.
+ */
+class FlatReduction<Nonterminal, NodeType>
+{
+    /**
+     * The tree being reduced.
+     */
+    final FlatTree<Nonterminal, NodeType> tree;
+
+    /**
+     * Each node's parent's index, or FlatTree.NULL_NODE for the root.
+     */
+    final int[] parents;
+
+    /**
+     * Each node's position among its parent's subtrees.
+     */
+    final int[] positions;
+
+    /**
+     * The nonterminal each node is reduced to, which is set when
+     * its parent is entered; null if the node isn't reduced, e.g.,
+     * it's a subtree of a node labeled with the error state.
+     */
+    final Object[] goals;
+
+    /**
+     * Each entered node's closure chain for its goal,
+     * or null if the node was labeled with the error state.
+     */
+    final Production<Nonterminal>[][] closureChains;
+
+    /**
+     * Set once a node's pre callbacks have run.
+     */
+    final boolean[] entered;
+
+    /**
+     * Each reduced node's result.
+     */
+    final Object[] results;
+
+    /**
+     * The results of null subtrees, by their parent's index
+     * and then by their position; allocated as needed.
+     */
+    private Object[][] nullSubtreeResults = null;
+
+    /**
+     * @param tree  the tree to reduce, which must be labeled.
+     */
+    @SuppressWarnings("unchecked")
+    FlatReduction(FlatTree<Nonterminal, NodeType> tree)
+    {
+        int size = tree.size();
+        this.tree = tree;
+        this.parents = new int[size];
+        this.positions = new int[size];
+        this.goals = new Object[size];
+        this.closureChains = new Production[size][];
+        this.entered = new boolean[size];
+        this.results = new Object[size];
+
+        Arrays.fill(parents, FlatTree.NULL_NODE);
+
+        for (int index = 0; index < size; index++) {
+
+            for (int position = 0; position < tree.getSubtreeCount(index); position++) {
+                int subtree = tree.getSubtree(index, position);
+
+                if (subtree != FlatTree.NULL_NODE) {
+                    parents[subtree] = index;
+                    positions[subtree] = position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the result of reducing one of a node's subtrees.
+     * @param index     the node's index.
+     * @param position  the subtree's position.
+     * @return the subtree's result.
+     */
+    Object getSubtreeResult(int index, int position)
+    {
+        int subtree = tree.getSubtree(index, position);
+        return subtree != FlatTree.NULL_NODE? results[subtree]: nullSubtreeResults[index][position];
+    }
+
+    /**
+     * Record the result of reducing a null subtree.
+     * @param index     its parent's index.
+     * @param position  the subtree's position.
+     * @param result    the result.
+     */
+    void setNullSubtreeResult(int index, int position, Object result)
+    {
+        if (nullSubtreeResults == null) {
+            nullSubtreeResults = new Object[tree.size()][];
+        }
+
+        if (nullSubtreeResults[index] == null) {
+            nullSubtreeResults[index] = new Object[tree.getSubtreeCount(index)];
+        }
+
+        nullSubtreeResults[index][position] = result;
+    }
+}
@@ -0,0 +1,326 @@
+package jburg;
+
+import java.util.Arrays;
+
+/**
+ * A FlatTree is a tree stored as parallel arrays of primitives,
+ * an alternative to a tree of BurgInput objects. Each node is
+ * identified by its index; the node's type, its subtrees, and
+ * the state number the labeler assigns it are array elements.
+ *
+ * <p>Nodes are stored in post order: a node is added after its
+ * subtrees, so its subtrees' indexes are less than its own and
+ * the last node added is the root. The labeler labels a FlatTree
+ * in one sequential scan of its arrays, and each subtree the
+ * reducer visits occupies a contiguous range of them.
+ *
+ * <p>The node types must be enums; a node's type is stored as
+ * its ordinal, and the production table that labels the tree
+ * dispatches on it through its operator dispatch table.
+ *
+ * <p>Each node may carry an object, e.g., the BurgInput node
+ * it was built from or a leaf's value, which the labeler passes
+ * to predicates and the reducer passes to callbacks in place
+ * of a BurgInput node.
+ */
+public class FlatTree<Nonterminal, NodeType>
+{
+    /**
+     * The subtree index of a null subtree.
+     */
+    public static final int NULL_NODE = -1;
+
+    /**
+     * The number of nodes in the tree.
+     */
+    private int size = 0;
+
+    /**
+     * The nodes' node type ordinals.
+     */
+    private int[] nodeTypes;
+
+    /**
+     * The offset of each node's first subtree in the subtrees array.
+     */
+    private int[] firstSubtree;
+
+    /**
+     * The nodes' subtree counts.
+     */
+    private int[] subtreeCounts;
+
+    /**
+     * The nodes' state numbers, -1 until the node is labeled.
+     */
+    private int[] stateNumbers;
+
+    /**
+     * The objects passed to predicates and callbacks.
+     */
+    private Object[] nodes;
+
+    /**
+     * The subtrees' indexes, in runs of each node's subtrees.
+     */
+    private int[] subtrees;
+
+    /**
+     * The number of entries in the subtrees array.
+     */
+    private int subtreesSize = 0;
+
+    /**
+     * The node type enum's constants, by ordinal.
+     */
+    private Object[] nodeTypeConstants = null;
+
+    /**
+     * Construct a FlatTree with a default initial capacity.
+     */
+    public FlatTree()
+    {
+        this(64);
+    }
+
+    /**
+     * Construct a FlatTree.
+     * @param capacity  the tree's initial capacity, in nodes.
+     */
+    public FlatTree(int capacity)
+    {
+        capacity = Math.max(capacity, 1);
+        this.nodeTypes = new int[capacity];
+        this.firstSubtree = new int[capacity];
+        this.subtreeCounts = new int[capacity];
+        this.stateNumbers = new int[capacity];
+        this.nodes = new Object[capacity];
+        this.subtrees = new int[capacity];
+    }
+
+    /**
+     * Flatten a tree of BurgInput nodes. Each node of the flat tree
+     * carries the BurgInput node it was built from, so predicates and
+     * callbacks written for the BurgInput tree work on the flat tree.
+     * The input tree's state numbers are neither read nor written.
+     * @param root  the root of the tree.
+     * @return the flat tree, which is empty if the root is null.
+     */
+    public static <Nonterminal, NodeType> FlatTree<Nonterminal, NodeType> fromTree(BurgInput<Nonterminal, NodeType> root)
+    {
+        FlatTree<Nonterminal, NodeType> result = new FlatTree<Nonterminal, NodeType>();
+
+        if (root == null) {
+            return result;
+        }
+
+        // Walk the tree in post order without recursion; each stack
+        // entry is a node and the next subtree to visit, and the indexes
+        // of visited subtrees accumulate on the index stack until their
+        // parent is added.
+        Object[] nodeStack = new Object[64];
+        int[] nextSubtree = new int[64];
+        int[] indexStack = new int[64];
+        int[] indexBase = new int[64];
+        int depth = 0;
+        int indexDepth = 0;
+
+        nodeStack[depth] = root;
+        nextSubtree[depth] = 0;
+        indexBase[depth] = indexDepth;
+        depth++;
+
+        while (depth > 0) {
+            int top = depth - 1;
+            @SuppressWarnings("unchecked")
+            BurgInput<Nonterminal, NodeType> node = (BurgInput<Nonterminal, NodeType>)nodeStack[top];
+
+            if (nextSubtree[top] < node.getSubtreeCount()) {
+                BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(nextSubtree[top]++);
+
+                if (subtree == null) {
+                    if (indexDepth == indexStack.length) {
+                        indexStack = Arrays.copyOf(indexStack, indexDepth * 2);
+                    }
+                    indexStack[indexDepth++] = NULL_NODE;
+
+                } else {
+                    if (depth == nodeStack.length) {
+                        nodeStack = Arrays.copyOf(nodeStack, depth * 2);
+                        nextSubtree = Arrays.copyOf(nextSubtree, depth * 2);
+                        indexBase = Arrays.copyOf(indexBase, depth * 2);
+                    }
+
+                    nodeStack[depth] = subtree;
+                    nextSubtree[depth] = 0;
+                    indexBase[depth] = indexDepth;
+                    depth++;
+                }
+            } else {
+                nodeStack[--depth] = null;
+                int base = indexBase[top];
+                int index = result.addNode(node.getNodeType(), node, indexStack, base, indexDepth - base);
+                indexDepth = base;
+
+                if (indexDepth == indexStack.length) {
+                    indexStack = Arrays.copyOf(indexStack, indexDepth * 2);
+                }
+                indexStack[indexDepth++] = index;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Add a node whose subtrees have been added.
+     * @param nodeType  the node's type, which must be an enum.
+     * @param node      the object passed to predicates and callbacks; may be null.
+     * @param subtrees  the indexes of the node's subtrees,
+     * or NULL_NODE for null subtrees.
+     * @return the new node's index.
+     * @throws IllegalArgumentException if the node type isn't an
+     * enum, or if a subtree hasn't been added.
+     */
+    public int addNode(NodeType nodeType, Object node, int... subtrees)
+    {
+        return addNode(nodeType, node, subtrees, 0, subtrees.length);
+    }
+
+    /**
+     * Add a node whose subtrees have been added.
+     * @param nodeType      the node's type.
+     * @param node          the object passed to predicates and callbacks.
+     * @param subtreeIndexes    an array that holds the subtrees' indexes.
+     * @param offset        the offset of the first subtree in subtreeIndexes.
+     * @param subtreeCount  the number of subtrees.
+     * @return the new node's index.
+     */
+    private int addNode(NodeType nodeType, Object node, int[] subtreeIndexes, int offset, int subtreeCount)
+    {
+        if (!(nodeType instanceof Enum)) {
+            throw new IllegalArgumentException(String.format("FlatTree node types must be enums, not %s", nodeType));
+        }
+
+        Enum<?> nodeTypeEnum = (Enum<?>)nodeType;
+
+        if (nodeTypeConstants == null) {
+            nodeTypeConstants = nodeTypeEnum.getDeclaringClass().getEnumConstants();
+        }
+
+        if (size == nodeTypes.length) {
+            int capacity = size * 2;
+            nodeTypes = Arrays.copyOf(nodeTypes, capacity);
+            firstSubtree = Arrays.copyOf(firstSubtree, capacity);
+            subtreeCounts = Arrays.copyOf(subtreeCounts, capacity);
+            stateNumbers = Arrays.copyOf(stateNumbers, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+        }
+
+        if (subtreesSize + subtreeCount > subtrees.length) {
+            subtrees = Arrays.copyOf(subtrees, Math.max(subtrees.length * 2, subtreesSize + subtreeCount));
+        }
+
+        for (int i = 0; i < subtreeCount; i++) {
+            int subtree = subtreeIndexes[offset + i];
+
+            if (subtree != NULL_NODE && (subtree < 0 || subtree >= size)) {
+                throw new IllegalArgumentException(String.format("subtree %d of node %d has not been added", subtree, size));
+            }
+
+            subtrees[subtreesSize + i] = subtree;
+        }
+
+        nodeTypes[size] = nodeTypeEnum.ordinal();
+        firstSubtree[size] = subtreesSize;
+        subtreeCounts[size] = subtreeCount;
+        stateNumbers[size] = -1;
+        nodes[size] = node;
+        subtreesSize += subtreeCount;
+
+        return size++;
+    }
+
+    /**
+     * @return the number of nodes in the tree.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the index of the root, the last node added,
+     * or NULL_NODE if the tree is empty.
+     */
+    public int getRoot()
+    {
+        return size - 1;
+    }
+
+    /**
+     * @param index a node's index.
+     * @return the node's type.
+     */
+    @SuppressWarnings("unchecked")
+    public NodeType getNodeType(int index)
+    {
+        return (NodeType)nodeTypeConstants[nodeTypes[index]];
+    }
+
+    /**
+     * @param index a node's index.
+     * @return the ordinal of the node's type.
+     */
+    public int getNodeTypeOrdinal(int index)
+    {
+        return nodeTypes[index];
+    }
+
+    /**
+     * @param index a node's index.
+     * @return the node's number of subtrees.
+     */
+    public int getSubtreeCount(int index)
+    {
+        return subtreeCounts[index];
+    }
+
+    /**
+     * @param index     a node's index.
+     * @param position  a subtree's position in the range 0..getSubtreeCount(index)-1.
+     * @return the subtree's index, or NULL_NODE if the subtree is null.
+     */
+    public int getSubtree(int index, int position)
+    {
+        return subtrees[firstSubtree[index] + position];
+    }
+
+    /**
+     * @param index a node's index.
+     * @return the object the node carries.
+     */
+    public Object getNode(int index)
+    {
+        return nodes[index];
+    }
+
+    /**
+     * @param index a node's index.
+     * @return the node's state number, or -1 if it's not labeled.
+     */
+    public int getStateNumber(int index)
+    {
+        return stateNumbers[index];
+    }
+
+    /**
+     * Set a node's state number.
+     * @param index         the node's index.
+     * @param stateNumber   the state number.
+     */
+    void setStateNumber(int index, int stateNumber)
+    {
+        stateNumbers[index] = stateNumber;
+    }
+}
@@ -0,0 +1,138 @@
+package jburg;
+
+import java.util.Arrays;
+
+/**
+ * An IdentityLabelStore keeps nodes' state numbers in an
+ * open-addressed hash table keyed by the nodes' identity,
+ * with the state numbers in a primitive array alongside.
+ * The store holds its nodes strongly until it's cleared;
+ * a Reducer clears its store before labeling each tree,
+ * and callers that label into a store directly should
+ * clear it once they've reduced the tree.
+ */
+public class IdentityLabelStore<Nonterminal, NodeType> implements LabelStore<Nonterminal, NodeType>
+{
+    /**
+     * The nodes, at their hashed slots; null slots are empty.
+     */
+    private Object[] nodes;
+
+    /**
+     * The state numbers, at their nodes' slots.
+     */
+    private int[] stateNumbers;
+
+    /**
+     * The number of nodes in the table.
+     */
+    private int size = 0;
+
+    /**
+     * Construct an IdentityLabelStore with a default initial capacity.
+     */
+    public IdentityLabelStore()
+    {
+        this(64);
+    }
+
+    /**
+     * Construct an IdentityLabelStore.
+     * @param expectedSize  the number of nodes the store
+     * is expected to hold; it grows as necessary.
+     */
+    public IdentityLabelStore(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) * 2;
+        this.nodes = new Object[capacity];
+        this.stateNumbers = new int[capacity];
+    }
+
+    @Override
+    public int getStateNumber(BurgInput<Nonterminal, NodeType> node)
+    {
+        int mask = nodes.length - 1;
+
+        for (int slot = hash(node) & mask; nodes[slot] != null; slot = (slot + 1) & mask) {
+            if (nodes[slot] == node) {
+                return stateNumbers[slot];
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void setStateNumber(BurgInput<Nonterminal, NodeType> node, int stateNumber)
+    {
+        int mask = nodes.length - 1;
+        int slot = hash(node) & mask;
+
+        while (nodes[slot] != null) {
+            if (nodes[slot] == node) {
+                stateNumbers[slot] = stateNumber;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        nodes[slot] = node;
+        stateNumbers[slot] = stateNumber;
+
+        // Keep the table at most half full.
+        if (++size * 2 > nodes.length) {
+            grow();
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(nodes, null);
+        size = 0;
+    }
+
+    /**
+     * @return the number of nodes in the store.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Double the table's capacity and rehash its nodes.
+     */
+    private void grow()
+    {
+        Object[] oldNodes = this.nodes;
+        int[] oldStateNumbers = this.stateNumbers;
+
+        this.nodes = new Object[oldNodes.length * 2];
+        this.stateNumbers = new int[oldNodes.length * 2];
+        int mask = nodes.length - 1;
+
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != null) {
+                int slot = hash(oldNodes[i]) & mask;
+
+                while (nodes[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                nodes[slot] = oldNodes[i];
+                stateNumbers[slot] = oldStateNumbers[i];
+            }
+        }
+    }
+
+    /**
+     * Spread a node's identity hash code, so
+     * nearby codes don't collide in the table.
+     */
+    private static int hash(Object node)
+    {
+        int h = System.identityHashCode(node) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
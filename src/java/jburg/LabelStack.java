@@ -0,0 +1,132 @@
+package jburg;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * A LabelStack is the work stack of the iterative labeler.
+ * Each entry is a node and the index of the next child
+ * to visit; a node is labeled when it's popped, after all
+ * its children have been labeled. A LabelStack grows as
+ * needed and can be reused for any number of trees, but
+ * it can only label one tree at a time.
+ */
+public class LabelStack<Nonterminal, NodeType>
+{
+    /**
+     * The nodes on the stack.
+     */
+    private BurgInput<Nonterminal, NodeType>[] nodes;
+
+    /**
+     * The index of the next child to visit for each node on the stack.
+     */
+    private int[] nextChild;
+
+    /**
+     * The number of entries on the stack.
+     */
+    private int depth = 0;
+
+    /**
+     * Construct a LabelStack with a default initial capacity.
+     */
+    public LabelStack()
+    {
+        this(64);
+    }
+
+    /**
+     * Construct a LabelStack.
+     * @param capacity  the stack's initial capacity.
+     */
+    @SuppressWarnings("unchecked")
+    public LabelStack(int capacity)
+    {
+        this.nodes = new BurgInput[Math.max(capacity, 1)];
+        this.nextChild = new int[nodes.length];
+    }
+
+    /**
+     * Label a tree in post order without recursion.
+     * @param productionTable   the production table that assigns the states.
+     * @param root              the root of the tree; may be null.
+     * @param visitor           the receiver for predicate methods.
+     */
+    void label(AbstractProductionTable<Nonterminal, NodeType> productionTable, BurgInput<Nonterminal, NodeType> root, Object visitor)
+    throws Exception
+    {
+        label(productionTable, root, visitor, null, null);
+    }
+
+    /**
+     * Label a tree or a directed acyclic graph in post order without recursion.
+     * @param productionTable   the production table that assigns the states.
+     * @param root              the root of the tree; may be null.
+     * @param visitor           the receiver for predicate methods.
+     * @param labeledNodes      if not null, nodes that are already labeled,
+     * which are skipped; the nodes this method labels are added to the set.
+     * @param store             if not null, the label store that receives
+     * the nodes' state numbers; if null, the nodes are labeled themselves.
+     */
+    void label(AbstractProductionTable<Nonterminal, NodeType> productionTable, BurgInput<Nonterminal, NodeType> root, Object visitor, Set<BurgInput<Nonterminal, NodeType>> labeledNodes, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        if (root == null || (labeledNodes != null && !labeledNodes.add(root))) {
+            return;
+        }
+
+        assert depth == 0: "LabelStack is already in use";
+
+        try {
+            push(root);
+
+            while (depth > 0) {
+                int top = depth - 1;
+                BurgInput<Nonterminal, NodeType> node = nodes[top];
+
+                if (nextChild[top] < node.getSubtreeCount()) {
+                    BurgInput<Nonterminal, NodeType> child = node.getSubtree(nextChild[top]++);
+
+                    // Null subtrees share the null pointer state,
+                    // which is precomputed; they need no labeling.
+                    // Shared subtrees of a DAG are labeled once.
+                    if (child != null && (labeledNodes == null || labeledNodes.add(child))) {
+                        push(child);
+                    }
+                } else {
+                    nodes[--depth] = null;
+                    productionTable.labelNode(node, visitor, store);
+                }
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Push a node with its first child as its next child to visit.
+     * @param node  the node.
+     */
+    private void push(BurgInput<Nonterminal, NodeType> node)
+    {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            nextChild = Arrays.copyOf(nextChild, depth * 2);
+        }
+
+        nodes[depth] = node;
+        nextChild[depth] = 0;
+        depth++;
+    }
+
+    /**
+     * Empty the stack, releasing its references to the tree.
+     */
+    private void clear()
+    {
+        while (depth > 0) {
+            nodes[--depth] = null;
+        }
+    }
+}
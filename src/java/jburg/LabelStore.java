@@ -0,0 +1,36 @@
+package jburg;
+
+/**
+ * A LabelStore holds the state numbers the labeler assigns
+ * to a tree's nodes, in place of the nodes themselves.
+ * Labeling into a store leaves the tree untouched, so the
+ * nodes need not be mutable, and one tree can be labeled
+ * concurrently by several production tables, each labeling
+ * into its own store.
+ * <p>A store is not thread-safe while it's being written;
+ * one labeling pass at a time may write to a given store.
+ * @see IdentityLabelStore, which identifies nodes by identity.
+ * @see DenseLabelStore, which identifies nodes by dense integer ids.
+ */
+public interface LabelStore<Nonterminal, NodeType>
+{
+    /**
+     * Get a node's state number.
+     * @param node  the node.
+     * @return the state number stored for the node,
+     * or -1 if no state number has been stored.
+     */
+    public int getStateNumber(BurgInput<Nonterminal, NodeType> node);
+
+    /**
+     * Store a node's state number.
+     * @param node          the node.
+     * @param stateNumber   the node's state number.
+     */
+    public void setStateNumber(BurgInput<Nonterminal, NodeType> node, int stateNumber);
+
+    /**
+     * Discard all stored state numbers.
+     */
+    public void clear();
+}
@@ -0,0 +1,176 @@
+package jburg;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import jburg.semantics.BURMSemantics;
+import jburg.semantics.HostRoutine;
+import jburg.semantics.JavaSemantics;
+
+/**
+ * A LazyHostRoutine names a Java method, and only looks the
+ * method up via reflection when the routine is first used,
+ * so loading a production table doesn't resolve every
+ * callback and predicate the table refers to.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class LazyHostRoutine extends HostRoutine<Class>
+{
+    /**
+     * The semantics that wraps the method once it's resolved.
+     */
+    private final JavaSemantics<?,?> semantics;
+
+    /**
+     * The name of the method's declaring class.
+     */
+    private final String className;
+
+    /**
+     * The method's name.
+     */
+    private final String name;
+
+    /**
+     * The names of the method's parameter types.
+     */
+    private final String[] parameterTypeNames;
+
+    /**
+     * The resolved method, or null until it's needed.
+     */
+    private volatile HostRoutine<Class> resolved = null;
+
+    /**
+     * Construct a LazyHostRoutine.
+     * @param semantics             the semantics that wraps the resolved method.
+     * @param className             the name of the method's declaring class.
+     * @param name                  the method's name.
+     * @param parameterTypeNames    the names of the method's parameter types.
+     */
+    LazyHostRoutine(JavaSemantics<?,?> semantics, String className, String name, String[] parameterTypeNames)
+    {
+        this.semantics = semantics;
+        this.className = className;
+        this.name = name;
+        this.parameterTypeNames = parameterTypeNames;
+    }
+
+    /**
+     * Resolve the method, if it's not already resolved.
+     * @return the resolved method's HostRoutine.
+     * @throws IllegalStateException if the method cannot be found.
+     */
+    HostRoutine<Class> resolve()
+    {
+        HostRoutine<Class> result = this.resolved;
+
+        if (result == null) {
+
+            try {
+                Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.length];
+
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    parameterTypes[i] = Class.forName(parameterTypeNames[i]);
+                }
+
+                Method m = Class.forName(className).getDeclaredMethod(name, parameterTypes);
+                result = semantics.getHostRoutine(m);
+
+            } catch (Exception cannotResolve) {
+                throw new IllegalStateException(String.format("Unable to resolve %s.%s due to %s", className, name, cannotResolve), cannotResolve);
+            }
+
+            this.resolved = result;
+        }
+
+        return result;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Object getDeclaringClass()
+    {
+        return resolve().getDeclaringClass();
+    }
+
+    public int getParameterCount()
+    {
+        return parameterTypeNames.length;
+    }
+
+    public Class[] getParameterTypes()
+    {
+        return resolve().getParameterTypes();
+    }
+
+    public Class getParameterType(int index)
+    {
+        return resolve().getParameterType(index);
+    }
+
+    public Class getVariadicComponentType()
+    {
+        return resolve().getVariadicComponentType();
+    }
+
+    public boolean isVarArgs()
+    {
+        return resolve().isVarArgs();
+    }
+
+    public int getVariadicOffset()
+    {
+        return resolve().getVariadicOffset();
+    }
+
+    public Object invoke(Object receiver, Object... args)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke(receiver, args);
+    }
+
+    public Object invoke0(Object receiver)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke0(receiver);
+    }
+
+    public Object invoke1(Object receiver, Object arg0)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke1(receiver, arg0);
+    }
+
+    public Object invoke2(Object receiver, Object arg0, Object arg1)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke2(receiver, arg0, arg1);
+    }
+
+    public Object invoke3(Object receiver, Object arg0, Object arg1, Object arg2)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke3(receiver, arg0, arg1, arg2);
+    }
+
+    public Object invoke4(Object receiver, Object arg0, Object arg1, Object arg2, Object arg3)
+    throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+    {
+        return resolve().invoke4(receiver, arg0, arg1, arg2, arg3);
+    }
+
+    public BURMSemantics getSemantics()
+    {
+        return semantics;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s.%s", className, name);
+    }
+}
@@ -0,0 +1,673 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * A LazyProductionTable labels trees with a ProductionTable's grammar
+ * without generating the grammar's states up front. The first time a
+ * node type is seen with a particular tuple of child states, the table
+ * computes the states its productions can assign, as generateStates()
+ * would for that permutation, and caches them in a transition entry;
+ * subsequent nodes with the same node type and child states reuse the
+ * entry. States are interned as they're found, so a state's number is
+ * stable for the life of the table.
+ * <p>Transition entries are kept in concurrent maps, so any number
+ * of threads may label trees with a LazyProductionTable at once. If
+ * the table is bounded, a thread that adds an entry past the bound
+ * evicts entries that haven't been used since the clock hand last
+ * passed them until the table is back within the bound; entries that
+ * other threads are adding meanwhile may briefly exceed it. An evicted
+ * entry is computed again when it's next needed.
+ * States aren't evicted, since labeled nodes refer to them by number.
+ * <p>A LazyProductionTable keys its entries by child state numbers,
+ * not by the representer states of the eager tables, and it costs
+ * variadic tails' children like fixed children; its node types need
+ * not be enums, and it has no operators, so it can't be dumped or
+ * compiled into a reducer.
+ * @see ProductionTable#createLazyTable(int), which builds a LazyProductionTable.
+ */
+public class LazyProductionTable<Nonterminal, NodeType> extends AbstractProductionTable<Nonterminal, NodeType>
+{
+    /**
+     * The pattern matchers, by node type.
+     */
+    private final Map<NodeType, List<PatternMatcher<Nonterminal,NodeType>>> patternMatchersByNodeType;
+
+    /**
+     * The closures, in entry order.
+     */
+    private final List<Closure<Nonterminal>> closures;
+
+    /**
+     * The state that derives null pointers.
+     */
+    private final State<Nonterminal, NodeType> nullState;
+
+    /**
+     * The unique states found so far, mapped to themselves.
+     * Guarded by this table's monitor.
+     */
+    private final Map<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>> uniqueStates = new HashMap<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>>();
+
+    /**
+     * The states, by state number; written under this table's
+     * monitor, and published to unsynchronized readers by the
+     * volatile write of stateCount.
+     */
+    private volatile State<Nonterminal, NodeType>[] stateTable;
+
+    /**
+     * The number of states found so far.
+     */
+    private volatile int stateCount;
+
+    /**
+     * Transition entries, keyed by node type and child states.
+     */
+    private final ConcurrentHashMap<TransitionKey, Transition<Nonterminal, NodeType>> transitions = new ConcurrentHashMap<TransitionKey, Transition<Nonterminal, NodeType>>();
+
+    /**
+     * The largest number of transition entries to keep,
+     * or zero if the number of entries is unbounded.
+     */
+    private final int maxTransitions;
+
+    /**
+     * The eviction sweeps' clock hand, or null before the first sweep.
+     * Guarded by this table's monitor.
+     */
+    private Iterator<Transition<Nonterminal, NodeType>> clockHand = null;
+
+    /** The number of transition entries computed. */
+    private final LongAdder transitionsComputed = new LongAdder();
+
+    /** The number of transition entries evicted. */
+    private final LongAdder transitionsEvicted = new LongAdder();
+
+    /** Predicate invocations counted by evicted entries' leaves. */
+    private final LongAdder evictedPredicateInvocations = new LongAdder();
+
+    /** Predicate invocations saved by evicted entries' leaves. */
+    private final LongAdder evictedPredicateInvocationsSaved = new LongAdder();
+
+    /**
+     * The compiled routines that states and leaves found from now on
+     * call, or null if this table's routines haven't been compiled.
+     */
+    private volatile CompiledRoutines<Nonterminal> compiledRoutines = null;
+
+    /**
+     * Set if the leaves found from now on count their predicates.
+     */
+    private volatile boolean predicateStatistics = false;
+
+    /**
+     * A transition entry's key: a node type and the state
+     * numbers of a node's children, in order.
+     */
+    private static class TransitionKey
+    {
+        final Object nodeType;
+        final int[]  childStates;
+        final int    hash;
+
+        TransitionKey(Object nodeType, int[] childStates)
+        {
+            this.nodeType = nodeType;
+            this.childStates = childStates;
+            this.hash = nodeType.hashCode() * 31 + Arrays.hashCode(childStates);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (o instanceof TransitionKey) {
+                TransitionKey other = (TransitionKey)o;
+                return this.nodeType.equals(other.nodeType) && Arrays.equals(this.childStates, other.childStates);
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * A transition entry: the leaf that selects the states a node
+     * type's productions assign to a tuple of child states.
+     */
+    private static class Transition<Nonterminal, NodeType>
+    {
+        /** The leaf, or null if no production matches. */
+        final TransitionTableLeaf<Nonterminal, NodeType> leaf;
+
+        /** Set when the entry is used; cleared by eviction sweeps. */
+        volatile boolean referenced = true;
+
+        Transition(TransitionTableLeaf<Nonterminal, NodeType> leaf)
+        {
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * Construct a LazyProductionTable; see ProductionTable.createLazyTable().
+     * @param errorState                the error state, with its closures.
+     * @param nonterminalIndex          the nonterminal ordinals.
+     * @param nullState                 the null pointer state, with its closures.
+     * @param patternMatchersByNodeType the pattern matchers, by node type.
+     * @param closures                  the closures, in entry order.
+     * @param maxTransitions            the largest number of transition
+     * entries to keep, or zero to keep all of them.
+     */
+    @SuppressWarnings("unchecked")
+    LazyProductionTable(
+        ErrorState<Nonterminal,NodeType> errorState,
+        NonterminalIndex nonterminalIndex,
+        State<Nonterminal, NodeType> nullState,
+        Map<NodeType, List<PatternMatcher<Nonterminal,NodeType>>> patternMatchersByNodeType,
+        List<Closure<Nonterminal>> closures,
+        int maxTransitions
+        )
+    {
+        super(errorState, nonterminalIndex);
+
+        if (maxTransitions < 0) {
+            throw new IllegalArgumentException(String.format("transition bound %d must not be negative", maxTransitions));
+        }
+
+        this.patternMatchersByNodeType = patternMatchersByNodeType;
+        this.closures = closures;
+        this.nullState = nullState;
+        this.maxTransitions = maxTransitions;
+
+        this.stateTable = new State[16];
+        this.stateTable[ProductionTable.ERROR_STATE_NUM] = errorState;
+        this.stateTable[ProductionTable.NULL_STATE_NUM] = nullState;
+        nullState.number = ProductionTable.NULL_STATE_NUM;
+        uniqueStates.put(nullState, nullState);
+        this.stateCount = 2;
+    }
+
+    @Override
+    public State<Nonterminal, NodeType> getNullPointerState()
+    {
+        return nullState;
+    }
+
+    @Override
+    State<Nonterminal, NodeType> getState(int stateNumber)
+    {
+        // Read the count first; it publishes the table.
+        int count = stateCount;
+        return stateNumber >= 0 && stateNumber < count? stateTable[stateNumber]: errorState;
+    }
+
+    /**
+     * A LazyProductionTable has no operators; nodes are labeled by
+     * this table's transition entries, and a labeler that looks for
+     * an operator treats the node as an error, so goal-directed
+     * labeling falls back to labeling the node's whole subtree.
+     */
+    @Override
+    Operator<Nonterminal, NodeType> getOperator(NodeType nodeType, int arity)
+    {
+        return null;
+    }
+
+    @Override
+    public Operator<Nonterminal,NodeType>[][] getOperatorDispatch()
+    {
+        return null;
+    }
+
+    @Override
+    Collection<Operator<Nonterminal, NodeType>> getAllOperators()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return the number of states found so far.
+     */
+    @Override
+    public int getStateCount()
+    {
+        return stateCount;
+    }
+
+    /**
+     * @return the number of transition entries currently cached.
+     */
+    public int getTransitionCount()
+    {
+        return transitions.size();
+    }
+
+    /**
+     * @return the number of transition entries computed, including
+     * entries computed again after they were evicted.
+     */
+    public long getTransitionsComputed()
+    {
+        return transitionsComputed.sum();
+    }
+
+    /**
+     * @return the number of transition entries evicted.
+     */
+    public long getTransitionsEvicted()
+    {
+        return transitionsEvicted.sum();
+    }
+
+    @Override
+    public long getPredicateInvocations()
+    {
+        long result = evictedPredicateInvocations.sum();
+
+        for (Transition<Nonterminal, NodeType> transition: transitions.values()) {
+            if (transition.leaf != null) {
+                result += transition.leaf.getPredicateInvocations();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public long getPredicateInvocationsSaved()
+    {
+        long result = evictedPredicateInvocationsSaved.sum();
+
+        for (Transition<Nonterminal, NodeType> transition: transitions.values()) {
+            if (transition.leaf != null) {
+                result += transition.leaf.getPredicateInvocationsSaved();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * A LazyProductionTable compiles the routines of all its
+     * productions, since it finds most of its states later.
+     */
+    @Override
+    void collectRoutines(Collection<HostRoutine> routines)
+    {
+        super.collectRoutines(routines);
+
+        for (List<PatternMatcher<Nonterminal,NodeType>> patterns: patternMatchersByNodeType.values()) {
+            for (PatternMatcher<Nonterminal,NodeType> p: patterns) {
+                p.collectRoutines(routines);
+            }
+        }
+
+        for (Closure<Nonterminal> closure: closures) {
+            closure.collectRoutines(routines);
+        }
+    }
+
+    /**
+     * Compile the states and the transition entries' leaves found so
+     * far; the states and leaves found from now on are compiled as
+     * they're found.
+     */
+    @Override
+    synchronized void installRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        this.compiledRoutines = compiled;
+        super.installRoutines(compiled);
+
+        for (Transition<Nonterminal, NodeType> transition: transitions.values()) {
+            if (transition.leaf != null) {
+                transition.leaf.compileRoutines(compiled);
+            }
+        }
+    }
+
+    /**
+     * Set the transition entries' leaves found so far;
+     * the leaves found from now on are set as they're found.
+     */
+    @Override
+    public synchronized void setPredicateStatistics(boolean enabled)
+    {
+        this.predicateStatistics = enabled;
+
+        for (Transition<Nonterminal, NodeType> transition: transitions.values()) {
+            if (transition.leaf != null) {
+                transition.leaf.countPredicates = enabled;
+            }
+        }
+    }
+
+    @Override
+    void labelNode(BurgInput<Nonterminal, NodeType> node, Object visitor)
+    throws Exception
+    {
+        State<Nonterminal, NodeType> state = getState(node, null, visitor);
+        node.setStateNumber(state.number);
+        node.setTransitionTableLeaf(state);
+    }
+
+    @Override
+    void labelNode(BurgInput<Nonterminal, NodeType> node, Object visitor, LabelStore<Nonterminal, NodeType> store)
+    throws Exception
+    {
+        if (store == null) {
+            labelNode(node, visitor);
+        } else {
+            store.setStateNumber(node, getState(node, store, visitor).number);
+        }
+    }
+
+    /**
+     * Label a FlatTree in one sequential scan of its nodes.
+     * Unlike a finished ProductionTable, a LazyProductionTable
+     * doesn't require the tree's node types to be enums.
+     * @param tree      the tree to label.
+     * @param visitor   the receiver for predicate methods.
+     */
+    @Override
+    public void labelFlatTree(FlatTree<Nonterminal, NodeType> tree, Object visitor)
+    throws Exception
+    {
+        for (int i = 0; i < tree.size(); i++) {
+            int subtreeCount = tree.getSubtreeCount(i);
+            int[] childStates = new int[subtreeCount];
+
+            for (int dim = 0; dim < subtreeCount; dim++) {
+                int subtree = tree.getSubtree(i, dim);
+                childStates[dim] = subtree != FlatTree.NULL_NODE? tree.getStateNumber(subtree): ProductionTable.NULL_STATE_NUM;
+            }
+
+            tree.setStateNumber(i, getState(tree.getNodeType(i), childStates, tree.getNode(i), visitor).number);
+        }
+    }
+
+    /**
+     * Get the state of a node whose subtrees are labeled.
+     * @param node      the node.
+     * @param store     the label store that holds the subtrees' state
+     * numbers, or null if the subtrees hold their own state numbers.
+     * @param visitor   the semantic predicate receiver.
+     * @return the node's state, or the error state if no production matches.
+     */
+    private State<Nonterminal, NodeType> getState(BurgInput<Nonterminal, NodeType> node, LabelStore<Nonterminal, NodeType> store, Object visitor)
+    throws Exception
+    {
+        int subtreeCount = node.getSubtreeCount();
+        int[] childStates = new int[subtreeCount];
+
+        for (int dim = 0; dim < subtreeCount; dim++) {
+            BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(dim);
+
+            if (subtree == null) {
+                childStates[dim] = ProductionTable.NULL_STATE_NUM;
+            } else if (store != null) {
+                childStates[dim] = store.getStateNumber(subtree);
+            } else {
+                childStates[dim] = subtree.getStateNumber();
+            }
+        }
+
+        return getState(node.getNodeType(), childStates, node, visitor);
+    }
+
+    /**
+     * Get the state of a node, computing its transition entry if need be.
+     * @param nodeType      the node's node type.
+     * @param childStates   the node's children's state numbers.
+     * @param node          the node, which is passed to predicates.
+     * @param visitor       the semantic predicate receiver.
+     * @return the node's state, or the error state if no production matches.
+     */
+    private State<Nonterminal, NodeType> getState(NodeType nodeType, int[] childStates, Object node, Object visitor)
+    throws Exception
+    {
+        if (nodeType == null) {
+            return errorState;
+        }
+
+        for (int childState: childStates) {
+            // A child that no production matched has no
+            // transitions; the eager tables have no entry for it.
+            if (childState < 0) {
+                return errorState;
+            }
+        }
+
+        TransitionKey key = new TransitionKey(nodeType, childStates);
+        Transition<Nonterminal, NodeType> transition = transitions.get(key);
+
+        if (transition == null) {
+            transition = computeTransition(nodeType, childStates);
+            Transition<Nonterminal, NodeType> previous = transitions.putIfAbsent(key, transition);
+
+            if (previous != null) {
+                // Another thread computed the same entry; its states
+                // were interned, so the two entries are equivalent.
+                transition = previous;
+            } else {
+                transitionsComputed.increment();
+
+                if (maxTransitions > 0 && transitions.size() > maxTransitions) {
+                    evictColdTransitions();
+                }
+            }
+        } else if (!transition.referenced) {
+            transition.referenced = true;
+        }
+
+        return transition.leaf != null? transition.leaf.getState(node, visitor): errorState;
+    }
+
+    /**
+     * Compute a transition entry: coalesce the node type's productions
+     * with the child states' costs, as generateStates() coalesces them
+     * with a permutation of representer states.
+     * @param nodeType      the node type.
+     * @param childStates   the children's state numbers.
+     * @return the transition entry.
+     */
+    private Transition<Nonterminal, NodeType> computeTransition(NodeType nodeType, int[] childStates)
+    {
+        List<RepresenterState<Nonterminal,NodeType>> childCosts = new ArrayList<RepresenterState<Nonterminal,NodeType>>();
+
+        for (int childState: childStates) {
+            childCosts.add(getCosts(getState(childState)));
+        }
+
+        List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
+        newStates.add(new State<Nonterminal,NodeType>(nodeType));
+
+        for (PatternMatcher<Nonterminal, NodeType> p: getPatterns(nodeType, childStates.length)) {
+            ProductionTable.coalesceProduction(childCosts, p, newStates);
+        }
+
+        List<State<Nonterminal, NodeType>> resultStates = new ArrayList<State<Nonterminal, NodeType>>();
+
+        for (State<Nonterminal, NodeType> state: newStates) {
+
+            if (!state.isEmpty()) {
+                closure(state);
+                resultStates.add(intern(state));
+            }
+        }
+
+        if (resultStates.isEmpty()) {
+            return new Transition<Nonterminal, NodeType>(null);
+        }
+
+        TransitionTableLeaf<Nonterminal, NodeType> leaf = new TransitionTableLeaf<Nonterminal, NodeType>(resultStates);
+        leaf.finishCompilation(nonterminalIndex);
+        leaf.countPredicates = predicateStatistics;
+        CompiledRoutines<Nonterminal> compiled = compiledRoutines;
+
+        if (compiled != null) {
+            leaf.compileRoutines(compiled);
+        }
+
+        return new Transition<Nonterminal, NodeType>(leaf);
+    }
+
+    /**
+     * Get the pattern matchers that can match a node.
+     * @param nodeType      the node's node type.
+     * @param subtreeCount  the node's number of children.
+     * @return the node type's fixed-arity pattern matchers with that
+     * many children if there are any, as the operator of that arity
+     * would be chosen; otherwise, its variadic pattern matchers
+     * that accept that many children.
+     */
+    private List<PatternMatcher<Nonterminal, NodeType>> getPatterns(NodeType nodeType, int subtreeCount)
+    {
+        List<PatternMatcher<Nonterminal, NodeType>> fixed = new ArrayList<PatternMatcher<Nonterminal, NodeType>>();
+        List<PatternMatcher<Nonterminal, NodeType>> variadic = new ArrayList<PatternMatcher<Nonterminal, NodeType>>();
+        List<PatternMatcher<Nonterminal, NodeType>> patterns = patternMatchersByNodeType.get(nodeType);
+
+        if (patterns != null) {
+
+            for (PatternMatcher<Nonterminal, NodeType> p: patterns) {
+
+                if (p.acceptsDimension(subtreeCount)) {
+
+                    if (p.isVarArgs) {
+                        variadic.add(p);
+                    } else {
+                        fixed.add(p);
+                    }
+                }
+            }
+        }
+
+        return fixed.isEmpty()? variadic: fixed;
+    }
+
+    /**
+     * Get the costs of the nonterminals a state produces.
+     * @param state the state.
+     * @return a representer state with the state's costs.
+     */
+    private RepresenterState<Nonterminal,NodeType> getCosts(State<Nonterminal, NodeType> state)
+    {
+        RepresenterState<Nonterminal,NodeType> result = new RepresenterState<Nonterminal,NodeType>(state.nodeType);
+
+        for (int ordinal = 0; ordinal < nonterminalIndex.size(); ordinal++) {
+            long cost = state.getCost(ordinal);
+
+            if (cost < Integer.MAX_VALUE) {
+                result.setCost(nonterminalIndex.getNonterminal(ordinal), cost);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Record a state's closure set.
+     * @param state the state.
+     */
+    private void closure(State<Nonterminal,NodeType> state)
+    {
+        boolean closureRecorded;
+
+        do {
+            closureRecorded = false;
+
+            for (Closure<Nonterminal> closure: this.closures) {
+                closureRecorded |= state.addClosure(closure);
+            }
+
+        } while (closureRecorded);
+    }
+
+    /**
+     * Find or add the canonical version of a state.
+     * @param state a potentially novel state, with its closures.
+     * @return the canonical, finished version of the state.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized State<Nonterminal, NodeType> intern(State<Nonterminal, NodeType> state)
+    {
+        State<Nonterminal, NodeType> result = uniqueStates.get(state);
+
+        if (result == null) {
+            result = state;
+            int number = stateCount;
+            result.number = number;
+            result.finishCompilation(nonterminalIndex);
+
+            if (compiledRoutines != null) {
+                result.compileRoutines(compiledRoutines);
+            }
+
+            uniqueStates.put(result, result);
+
+            State<Nonterminal, NodeType>[] table = stateTable;
+
+            if (number == table.length) {
+                table = Arrays.copyOf(table, number * 2);
+                stateTable = table;
+            }
+
+            table[number] = result;
+            stateCount = number + 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Evict transition entries until no more than maxTransitions remain.
+     * This is the "clock" approximation of evicting the least recently
+     * used: the clock hand advances over the entries, marking used
+     * entries unused and evicting entries that are still unused when
+     * the hand comes back around to them. The hand keeps its place
+     * between sweeps, so each sweep starts where the last one stopped.
+     */
+    private synchronized void evictColdTransitions()
+    {
+        while (transitions.size() > maxTransitions) {
+
+            if (clockHand == null || !clockHand.hasNext()) {
+                clockHand = transitions.values().iterator();
+
+                if (!clockHand.hasNext()) {
+                    break;
+                }
+            }
+
+            Transition<Nonterminal, NodeType> transition = clockHand.next();
+
+            if (transition.referenced) {
+                transition.referenced = false;
+            } else {
+                clockHand.remove();
+                transitionsEvicted.increment();
+
+                if (transition.leaf != null) {
+                    evictedPredicateInvocations.add(transition.leaf.getPredicateInvocations());
+                    evictedPredicateInvocationsSaved.add(transition.leaf.getPredicateInvocationsSaved());
+                }
+            }
+        }
+    }
+}
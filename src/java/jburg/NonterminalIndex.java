@@ -0,0 +1,146 @@
+package jburg;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A NonterminalIndex assigns each of a production table's
+ * nonterminals a small integer, its ordinal in the table,
+ * so that finished States can store their costs and
+ * productions in arrays indexed by nonterminal.
+ *
+ * <p>Nonterminals are identified by name, as they are
+ * in the States' maps. Ordinals are assigned while the
+ * table is compiled; lookups are safe to run concurrently
+ * once compilation is complete. Lookups of enum nonterminals
+ * are cached by the enum's ordinal, so they don't hash.
+ */
+class NonterminalIndex
+{
+    /**
+     * Ordinals by nonterminal name.
+     */
+    private final Map<String,Integer> ordinalsByName = new HashMap<String,Integer>();
+
+    /**
+     * Nonterminals by ordinal.
+     */
+    private Object[] nonterminals = new Object[8];
+
+    /**
+     * Cached ordinals of the most recently looked-up enum class's constants.
+     */
+    private EnumOrdinals enumOrdinals = null;
+
+    /**
+     * EnumOrdinals is an immutable map of an enum's constants
+     * to their nonterminal ordinals; it's immutable so that it
+     * can be safely shared by concurrent lookups.
+     */
+    private static class EnumOrdinals
+    {
+        final Class<?>  enumClass;
+        final int[]     ordinals;
+
+        EnumOrdinals(Class<?> enumClass, int[] ordinals)
+        {
+            this.enumClass = enumClass;
+            this.ordinals = ordinals;
+        }
+    }
+
+    /**
+     * Get a nonterminal's ordinal, assigning one if necessary.
+     * @param nt    the nonterminal.
+     * @return the nonterminal's ordinal.
+     */
+    int intern(Object nt)
+    {
+        String name = nt.toString();
+        Integer ordinal = ordinalsByName.get(name);
+
+        if (ordinal == null) {
+            ordinal = ordinalsByName.size();
+            ordinalsByName.put(name, ordinal);
+
+            if (ordinal == nonterminals.length) {
+                nonterminals = Arrays.copyOf(nonterminals, ordinal * 2);
+            }
+
+            nonterminals[ordinal] = name;
+        }
+
+        return ordinal;
+    }
+
+    /**
+     * Get a nonterminal's ordinal.
+     * @param nt    the nonterminal.
+     * @return the nonterminal's ordinal, or -1 if it has none.
+     */
+    int lookup(Object nt)
+    {
+        if (nt instanceof Enum) {
+            int enumOrdinal = ((Enum<?>)nt).ordinal();
+            EnumOrdinals cache = this.enumOrdinals;
+
+            // Constants with bodies are instances of anonymous
+            // subclasses; the cache is keyed by the enum itself.
+            Class<?> enumClass = ((Enum<?>)nt).getDeclaringClass();
+
+            if (cache == null || cache.enumClass != enumClass) {
+                cache = cacheEnumOrdinals(enumClass);
+            }
+
+            int result = cache.ordinals[enumOrdinal];
+
+            if (result >= 0) {
+                return result;
+            }
+            // else the nonterminal may have been interned
+            // after the cache was built; look it up by name.
+        }
+
+        Integer ordinal = ordinalsByName.get(nt.toString());
+        return ordinal != null? ordinal: -1;
+    }
+
+    /**
+     * Cache the ordinals of an enum's constants.
+     * @param enumClass the enum's class.
+     * @return the cached ordinals.
+     */
+    private EnumOrdinals cacheEnumOrdinals(Class<?> enumClass)
+    {
+        Object[] constants = enumClass.getEnumConstants();
+        int[] ordinals = new int[constants.length];
+
+        for (int i = 0; i < constants.length; i++) {
+            Integer ordinal = ordinalsByName.get(constants[i].toString());
+            ordinals[i] = ordinal != null? ordinal: -1;
+        }
+
+        EnumOrdinals result = new EnumOrdinals(enumClass, ordinals);
+        this.enumOrdinals = result;
+        return result;
+    }
+
+    /**
+     * @return the number of nonterminals with ordinals.
+     */
+    int size()
+    {
+        return ordinalsByName.size();
+    }
+
+    /**
+     * Get a nonterminal by ordinal.
+     * @param ordinal   the ordinal.
+     * @return the name of the nonterminal with that ordinal.
+     */
+    Object getNonterminal(int ordinal)
+    {
+        return nonterminals[ordinal];
+    }
+}
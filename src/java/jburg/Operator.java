@@ -1,10 +1,15 @@
 package jburg;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An Operator represents an opcode(operand...) tuple.
@@ -42,6 +47,23 @@ public class Operator<Nonterminal, NodeType>
      */
     TransitionTableLeaf<Nonterminal, NodeType> leafState = null;
 
+    /**
+     * If this operator's transition table exceeded the production
+     * table's transition budget, the dynamic transitions that
+     * label its nodes in place of the transition table.
+     */
+    DynamicTransitions<Nonterminal, NodeType> dynamicTransitions = null;
+
+    /**
+     * @return true if this operator labels its nodes by dynamic
+     * programming, because its transition table exceeded the
+     * production table's transition budget.
+     */
+    public boolean isDynamic()
+    {
+        return dynamicTransitions != null;
+    }
+
     /**
      * This operator's arity kind: unknown, fixed-arity, or variadic.
      * The arity kind starts out unknown, and is set by the first state
@@ -55,21 +77,42 @@ public class Operator<Nonterminal, NodeType>
 
     /**
      * The production table that created this operator; used to look up
-     * the null pointer state, etc.
+     * the nonterminal index, etc., while the table is compiled. Null once
+     * the production table is frozen.
      */
     ProductionTable<Nonterminal, NodeType> productionTable = null;
 
+    /**
+     * The production table's error state, which the labeler
+     * assigns to nodes that match no transition.
+     */
+    final ErrorState<Nonterminal, NodeType> errorState;
+
     /**
      * The compiler compile-time representation of the productions
      * that will create the production table.
      */
     TransitionTableBuilder<Nonterminal, NodeType> builder;
 
+    /**
+     * The representer state each state projected in each dimension;
+     * kept across generations if the production table generates its
+     * states incrementally, so it can find the states that are still
+     * reachable without projecting them again. Null if not kept.
+     */
+    List<Map<State<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>>> projections = null;
+
     /**
      * The operator's minumum number of children.
      */
     final int arity;
 
+    /**
+     * The goals of each child, keyed by the goals of the node;
+     * built on demand as nodes are labeled for their goals.
+     */
+    private final Map<BitSet, BitSet[]> childGoals = new ConcurrentHashMap<BitSet, BitSet[]>();
+
     /**
      * @param nodeType  the Operator's node type.
      * @param arity     the Operator's arity.
@@ -79,7 +122,16 @@ public class Operator<Nonterminal, NodeType>
         assert nodeType != null : "Node type cannot be null";
         this.nodeType = nodeType;
         this.productionTable = productionTable;
+        this.errorState = productionTable.errorState;
         this.arity = arity;
+        startCompilation();
+    }
+
+    /**
+     * Set up the compiler compile-time data structures.
+     */
+    private void startCompilation()
+    {
         this.builder = new TransitionTableBuilder<Nonterminal, NodeType>(productionTable, arity);
 
         if (arity > 0) {
@@ -94,6 +146,121 @@ public class Operator<Nonterminal, NodeType>
         }
     }
 
+    /**
+     * Discard the transition table and the intermediate results
+     * of the last generation, so the production table can
+     * generate the operator's transitions again.
+     */
+    void resetCompilation()
+    {
+        this.transitionTable = null;
+        this.leafState = null;
+        this.dynamicTransitions = null;
+        this.arityKind = null;
+        this.projections = null;
+        startCompilation();
+    }
+
+    /**
+     * Record the representer state a state projected in a dimension.
+     * @param dim       the dimension.
+     * @param state     the state.
+     * @param pState    the representer state.
+     */
+    void recordProjection(int dim, State<Nonterminal,NodeType> state, RepresenterState<Nonterminal,NodeType> pState)
+    {
+        if (projections == null) {
+            projections = new ArrayList<Map<State<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>>>();
+
+            for (int i = 0; i < arity; i++) {
+                projections.add(new IdentityHashMap<State<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>>());
+            }
+        }
+
+        projections.get(dim).put(state, pState);
+    }
+
+    /**
+     * Get the representer state a state projected in a dimension.
+     * @param dim       the dimension.
+     * @param state     the state.
+     * @return the representer state, or null if the
+     * state's projection in the dimension was empty.
+     */
+    RepresenterState<Nonterminal,NodeType> getProjection(int dim, State<Nonterminal,NodeType> state)
+    {
+        return projections != null? projections.get(dim).get(state): null;
+    }
+
+    /**
+     * Discard the transitions whose representer states no longer
+     * represent any reachable state, after an incremental generation
+     * finds which of the states are still reachable.
+     * @param liveReps      the representer states that represent
+     * reachable states, by dimension.
+     * @param liveStates    the reachable states.
+     */
+    void retainTransitions(List<Set<RepresenterState<Nonterminal,NodeType>>> liveReps, Set<State<Nonterminal,NodeType>> liveStates)
+    {
+        builder.retainTransitions(liveReps);
+
+        for (int dim = 0; dim < arity; dim++) {
+            reps.get(dim).retainAll(liveReps.get(dim));
+
+            if (projections != null) {
+                projections.get(dim).keySet().retainAll(liveStates);
+            }
+        }
+
+        // The arity kind depends on the states that remain.
+        this.arityKind = null;
+
+        for (State<Nonterminal,NodeType> state: builder.getStates()) {
+
+            if (this.arityKind == null) {
+                this.arityKind = state.arityKind;
+            } else if (this.arityKind != state.arityKind) {
+                this.arityKind = ArityKind.Variadic;
+            }
+        }
+    }
+
+    /**
+     * Release the compile-time data structures a finished
+     * operator keeps for incremental generation and dumping,
+     * and the operator's reference to its production table;
+     * the operator can label nodes, but can't be recompiled.
+     * @return the number of collection entries released.
+     */
+    int releaseCompileTimeData()
+    {
+        int result = 0;
+
+        if (builder != null) {
+            result += builder.size();
+        }
+
+        if (projections != null) {
+
+            for (Map<State<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>> projectionsForDim: projections) {
+                result += projectionsForDim.size();
+            }
+        }
+
+        if (transitionTable != null) {
+            Set<TransitionPlane<Nonterminal,NodeType>> planes = Collections.newSetFromMap(new IdentityHashMap<TransitionPlane<Nonterminal,NodeType>,Boolean>());
+            result += transitionTable.releaseCompileTimeData(planes);
+        } else if (leafState != null) {
+            result += leafState.releaseCompileTimeData();
+        }
+
+        this.builder = null;
+        this.reps = null;
+        this.projections = null;
+        this.productionTable = null;
+        return result;
+    }
+
     /**
      * Get this Operator's size, i.e., its arity.
      * @return the operator's fixed arity.
@@ -109,22 +276,158 @@ public class Operator<Nonterminal, NodeType>
     }
 
     /**
-     * Build the transition table, and flush compiler-compile-time data structures.
+     * Build the transition table, and flush compiler-compile-time data
+     * structures unless the production table generates its states
+     * incrementally; an operator that keeps them can build its table
+     * again, from its new and remaining transitions, after the next
+     * generation.
      */
     void finishCompilation()
     {
-        assert builder != null: String.format("Operator %s has already flushed compiler compile time data");
-        if (!builder.isEmpty()) {
+        assert builder != null: String.format("Operator %s has already flushed compiler compile time data", this);
+        int transitionBudget = productionTable.getTransitionBudget();
+
+        // The last generation's tables are stale.
+        this.transitionTable = null;
+        this.dynamicTransitions = null;
+        childGoals.clear();
+
+        if (transitionBudget > 0 && builder.size() > transitionBudget) {
+            // Don't build the transition table; label nodes
+            // by costing their children's states instead.
+            List<PatternMatcher<Nonterminal,NodeType>> patterns = new ArrayList<PatternMatcher<Nonterminal,NodeType>>();
+
+            for (PatternMatcher<Nonterminal,NodeType> p: productionTable.getPatternsForNodeType(nodeType)) {
+                if (p.acceptsDimension(arity)) {
+                    patterns.add(p);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            State<Nonterminal,NodeType>[] states = productionTable.getStateTable().toArray(new State[0]);
+            this.dynamicTransitions = new DynamicTransitions<Nonterminal, NodeType>(nodeType, arity, patterns, states, builder.getStates(), errorState);
+        } else if (!builder.isEmpty()) {
             this.transitionTable = builder.buildTransitionTable();
+            compileTransitionIndex();
         } else if (this.leafState != null) {
-            this.leafState.finishCompilation();
+            this.leafState.finishCompilation(productionTable.nonterminalIndex);
 
         } else {
             throw new IllegalStateException(String.format("%s is not a leaf or non-leaf -- probably because there is a child nonterminal with no productions.", this));
         }
 
+        if (!productionTable.isIncrementalGeneration()) {
+            builder = null;
+            reps = null;
+        }
+    }
+
+    /**
+     * Replace this finished operator's transition table with the
+     * equivalent table for the production table's minimized states.
+     * @param transitionTable   the new transition table, or null if
+     * the operator is a leaf operator or labels by dynamic programming.
+     * @param states            the minimized states, by state number.
+     */
+    void statesMinimized(TransitionPlane<Nonterminal, NodeType> transitionTable, State<Nonterminal, NodeType>[] states)
+    {
+        if (this.transitionTable != null) {
+            this.transitionTable = transitionTable;
+            compileTransitionIndex();
+        } else if (this.dynamicTransitions != null) {
+            this.dynamicTransitions = dynamicTransitions.renumbered(states);
+        }
+
+        // The children's goals were computed from the old states,
+        // and the intermediate results refer to the merged states.
+        childGoals.clear();
         builder = null;
         reps = null;
+        projections = null;
+    }
+
+    /**
+     * Finish compilation of a loaded operator: finish its
+     * states' compilation and compile its transition index.
+     */
+    void finishLoading()
+    {
+        if (this.transitionTable != null) {
+            this.transitionTable.finishCompilation();
+        } else if (this.leafState != null) {
+            this.leafState.finishCompilation(productionTable.nonterminalIndex);
+        }
+
+        compileTransitionIndex();
+    }
+
+    /**
+     * Compile the transition table's state-number-to-index
+     * maps into a TransitionIndex, which the labeler uses
+     * in place of the maps.
+     */
+    void compileTransitionIndex()
+    {
+        if (transitionTable != null) {
+            TransitionIndex index = new TransitionIndex();
+            Set<TransitionPlane<Nonterminal,NodeType>> planes = Collections.newSetFromMap(new IdentityHashMap<TransitionPlane<Nonterminal,NodeType>,Boolean>());
+            transitionTable.addToTransitionIndex(index, planes);
+            index.pack();
+
+            for (TransitionPlane<Nonterminal,NodeType> plane: planes) {
+                plane.transitionIndex = index;
+            }
+        }
+    }
+
+    /**
+     * Collect this operator's transition table leaves.
+     * @param planes    [in/out] planes already visited.
+     * @param leaves    [out] the leaves.
+     */
+    void collectLeaves(Set<TransitionPlane<Nonterminal,NodeType>> planes, Set<TransitionTableLeaf<Nonterminal,NodeType>> leaves)
+    {
+        if (transitionTable != null) {
+            transitionTable.collectLeaves(planes, leaves);
+        } else if (leafState != null) {
+            leaves.add(leafState);
+        }
+    }
+
+    /**
+     * Run this operator's dynamic transitions' predicates through
+     * compiled routines; its transition table leaves are compiled
+     * with the production table's other leaves.
+     * @param compiled  the production table's compiled routines.
+     */
+    void compileRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        if (dynamicTransitions != null) {
+            dynamicTransitions.compileRoutines(compiled);
+        }
+    }
+
+    /**
+     * Count the predicates this operator's dynamic transitions run;
+     * its transition table leaves are set with the production
+     * table's other leaves.
+     * @param enabled   true to count predicates.
+     */
+    void setPredicateStatistics(boolean enabled)
+    {
+        if (dynamicTransitions != null) {
+            dynamicTransitions.countPredicates = enabled;
+        }
+    }
+
+    /**
+     * @return the number of predicates this operator's dynamic
+     * transitions have run while labeling, or zero if the
+     * operator labels its nodes with its transition table.
+     */
+    long getDynamicPredicateInvocations()
+    {
+        return dynamicTransitions != null? dynamicTransitions.getPredicateInvocations(): 0;
     }
 
     /**
@@ -134,13 +437,114 @@ public class Operator<Nonterminal, NodeType>
      */
     void setLeafState(BurgInput<Nonterminal, NodeType> node, Object visitor)
     throws Exception
+    {
+        setLeafState(node, visitor, null);
+    }
+
+    /**
+     * Set a leaf Operator's state number into a node
+     * that's labeled for a set of goals.
+     * @param node      the node.
+     * @param visitor   the semantic predicate receiver.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     */
+    void setLeafState(BurgInput<Nonterminal, NodeType> node, Object visitor, BitSet goals)
+    throws Exception
     {
         assert leafState != null;
-        State<Nonterminal, NodeType> result = leafState.getState(node, visitor);
+        State<Nonterminal, NodeType> result = leafState.getState(node, visitor, goals);
         node.setStateNumber(result.number);
         node.setTransitionTableLeaf(result);
     }
 
+    /**
+     * Get the goals of a child of a node labeled for a set of goals:
+     * the child nonterminals of the pattern matchers that start the
+     * goals' closure chains in any of this operator's states.
+     * @param goals             the ordinals of the node's goals.
+     * @param dim               the child's position.
+     * @param nonterminalIndex  the production table's nonterminal ordinals.
+     * @return the ordinals of the child's goals. The caller must not modify them.
+     */
+    BitSet getChildGoals(BitSet goals, int dim, NonterminalIndex nonterminalIndex)
+    {
+        BitSet[] result = childGoals.get(goals);
+
+        if (result == null) {
+            result = computeChildGoals(goals, nonterminalIndex);
+            childGoals.put(goals, result);
+        }
+
+        return result[Math.min(dim, result.length - 1)];
+    }
+
+    /**
+     * Compute the goals of each of a node's children.
+     * @param goals             the ordinals of the node's goals.
+     * @param nonterminalIndex  the production table's nonterminal ordinals.
+     * @return the ordinals of each child's goals, by position;
+     * a variadic tail's children share the last position's goals.
+     */
+    private BitSet[] computeChildGoals(BitSet goals, NonterminalIndex nonterminalIndex)
+    {
+        BitSet[] result = new BitSet[Math.max(arity, 1)];
+
+        for (int dim = 0; dim < result.length; dim++) {
+            result[dim] = new BitSet();
+        }
+
+        Set<TransitionPlane<Nonterminal,NodeType>> planes = Collections.newSetFromMap(new IdentityHashMap<TransitionPlane<Nonterminal,NodeType>, Boolean>());
+        Set<TransitionTableLeaf<Nonterminal,NodeType>> leaves = Collections.newSetFromMap(new IdentityHashMap<TransitionTableLeaf<Nonterminal,NodeType>, Boolean>());
+        collectLeaves(planes, leaves);
+
+        List<State<Nonterminal,NodeType>> states = new ArrayList<State<Nonterminal,NodeType>>();
+
+        for (TransitionTableLeaf<Nonterminal,NodeType> leaf: leaves) {
+            states.addAll(leaf.getStates());
+        }
+
+        if (dynamicTransitions != null) {
+            states.addAll(dynamicTransitions.getStates());
+        }
+
+        for (State<Nonterminal,NodeType> state: states) {
+            for (int goal = goals.nextSetBit(0); goal >= 0; goal = goals.nextSetBit(goal+1)) {
+                Production<Nonterminal>[] chain = state.getClosureChain(goal);
+
+                if (chain != null && chain[chain.length-1] instanceof PatternMatcher) {
+                    PatternMatcher<?,?> patternMatcher = (PatternMatcher<?,?>)chain[chain.length-1];
+
+                    for (int dim = 0; dim < result.length; dim++) {
+
+                        if (dim < patternMatcher.size() || (patternMatcher.isVarArgs && patternMatcher.size() > 0)) {
+                            int childGoal = nonterminalIndex.lookup(patternMatcher.getNonterminal(dim));
+
+                            if (childGoal >= 0) {
+                                result[dim].set(childGoal);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the state of a leaf node of a FlatTree.
+     * @param node      the object the node carries, which is passed to predicates.
+     * @param visitor   the semantic predicate receiver.
+     * @return the node's state.
+     */
+    State<Nonterminal, NodeType> getLeafState(Object node, Object visitor)
+    throws Exception
+    {
+        assert leafState != null;
+        return leafState.getState(node, visitor);
+    }
+
     /**
      * Create the leaf state.
      * @param states the set of leaf states.
@@ -347,7 +751,98 @@ public class Operator<Nonterminal, NodeType>
     void assignState(BurgInput<Nonterminal, NodeType> node, Object visitor)
     throws Exception
     {
-        int subtreeCount = node.getSubtreeCount();
+        assignState(node, visitor, null);
+    }
+
+    /**
+     * Assign a state to a non-leaf node whose subtrees are labeled.
+     * @param node      the node.
+     * @param visitor   the semantic predicate receiver.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     */
+    void assignState(BurgInput<Nonterminal, NodeType> node, Object visitor, BitSet goals)
+    throws Exception
+    {
+        State<Nonterminal, NodeType> result = getState(node, null, visitor, goals);
+        node.setStateNumber(result.number);
+        node.setTransitionTableLeaf(result);
+    }
+
+    /**
+     * Get the state of a non-leaf node whose subtrees are labeled.
+     * @param node      the node.
+     * @param store     the label store that holds the subtrees' state
+     * numbers, or null if the subtrees hold their own state numbers.
+     * @param visitor   the semantic predicate receiver.
+     * @return the node's state, or the error state if no transition matches.
+     */
+    State<Nonterminal, NodeType> getState(BurgInput<Nonterminal, NodeType> node, LabelStore<Nonterminal, NodeType> store, Object visitor)
+    throws Exception
+    {
+        return getState(node, store, visitor, null);
+    }
+
+    /**
+     * Get the state of a non-leaf node whose subtrees are labeled.
+     * @param node      the node.
+     * @param store     the label store that holds the subtrees' state
+     * numbers, or null if the subtrees hold their own state numbers.
+     * @param visitor   the semantic predicate receiver.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     * @return the node's state, or the error state if no transition matches.
+     */
+    State<Nonterminal, NodeType> getState(BurgInput<Nonterminal, NodeType> node, LabelStore<Nonterminal, NodeType> store, Object visitor, BitSet goals)
+    throws Exception
+    {
+        return getState(node, store, null, FlatTree.NULL_NODE, visitor, goals);
+    }
+
+    /**
+     * Get the state of a non-leaf node of a FlatTree whose
+     * subtrees are labeled; this follows the same path through
+     * the transition table as assignState() does for a BurgInput.
+     * @param tree      the tree.
+     * @param index     the node's index.
+     * @param visitor   the semantic predicate receiver.
+     * @return the node's state, or the error state if no transition matches.
+     */
+    State<Nonterminal, NodeType> getState(FlatTree<Nonterminal, NodeType> tree, int index, Object visitor)
+    throws Exception
+    {
+        return getState(null, null, tree, index, visitor, null);
+    }
+
+    /**
+     * Get the state of a non-leaf node whose subtrees are labeled,
+     * either a BurgInput or a node of a FlatTree.
+     * @param node      the BurgInput node, or null if the node is in a FlatTree.
+     * @param store     the label store that holds the BurgInput's subtrees'
+     * state numbers, or null if the subtrees hold their own state numbers.
+     * @param tree      the FlatTree, or null if the node is a BurgInput.
+     * @param index     the node's index in the FlatTree.
+     * @param visitor   the semantic predicate receiver.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     * @return the node's state, or the error state if no transition matches.
+     */
+    private State<Nonterminal, NodeType> getState(BurgInput<Nonterminal, NodeType> node, LabelStore<Nonterminal, NodeType> store, FlatTree<Nonterminal, NodeType> tree, int index, Object visitor, BitSet goals)
+    throws Exception
+    {
+        // Predicates receive the BurgInput, or the object the FlatTree's node carries.
+        Object predicateNode = tree != null? tree.getNode(index): node;
+        int subtreeCount = tree != null? tree.getSubtreeCount(index): node.getSubtreeCount();
+
+        if (dynamicTransitions != null) {
+            int[] childStates = new int[subtreeCount];
+
+            for (int dim = 0; dim < subtreeCount; dim++) {
+                childStates[dim] = getSubtreeStateNumber(node, store, tree, index, dim);
+            }
+
+            return dynamicTransitions.getState(childStates, predicateNode, visitor);
+        }
 
         // Start at the root of the transition table, which is keyed
         // by the input node's subtrees' state numbers; each subtree
@@ -355,42 +850,59 @@ public class Operator<Nonterminal, NodeType>
         // If no match then label the input node as an error.
         TransitionPlane<Nonterminal, NodeType> current = this.transitionTable;
 
-        for (int dim = 0; dim < subtreeCount; dim++) {
-            BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(dim);
-            int stateNumber = subtree != null? subtree.getStateNumber(): productionTable.getNullPointerState().number;
-
-            if (current != null) {
-                boolean isLastChild = dim == subtreeCount - 1;
-                boolean isVariadicTail = isVarArgs() && dim >= arity - 1;
+        for (int dim = 0; dim < subtreeCount && current != null; dim++) {
+            int stateNumber = getSubtreeStateNumber(node, store, tree, index, dim);
 
-                if (!isLastChild) {
+            boolean isLastChild = dim == subtreeCount - 1;
+            boolean isVariadicTail = isVarArgs() && dim >= arity - 1;
 
-                    // If we're processing a variadic operator's
-                    // variadic tail, continue "traversing" the
-                    // current dimension; but check to ensure that
-                    // the child is a valid input.
-                    if (isVariadicTail) {
+            if (isLastChild) {
+                return current.getState(stateNumber, predicateNode, visitor, goals);
 
-                        if (current.isValidVariadicChild(stateNumber)) {
-                            continue;
-                        } else {
-                            node.setStateNumber(ProductionTable.ERROR_STATE_NUM);
-                            node.setTransitionTableLeaf(productionTable.errorState);
-                            break;
-                        }
-                    } else {
-                        // A non-variadic child; traverse this dimension
-                        // of the transition table.
-                        current = current.getNextDimension(stateNumber);
-                    }
-                } else {
-                    current.assignStateNumber(stateNumber, node, visitor);
+            } else if (isVariadicTail) {
+                // If we're processing a variadic operator's
+                // variadic tail, continue "traversing" the
+                // current dimension; but check to ensure that
+                // the child is a valid input.
+                if (!current.isValidVariadicChild(stateNumber)) {
+                    break;
                 }
             } else {
-                node.setStateNumber(ProductionTable.ERROR_STATE_NUM);
-                node.setTransitionTableLeaf(productionTable.errorState);
-                break;
+                // A non-variadic child; traverse this dimension
+                // of the transition table.
+                current = current.getNextDimension(stateNumber);
             }
         }
+
+        return errorState;
+    }
+
+    /**
+     * Get the state number of one of a node's subtrees.
+     * @param node      the BurgInput node, or null if the node is in a FlatTree.
+     * @param store     the label store that holds the BurgInput's subtrees'
+     * state numbers, or null if the subtrees hold their own state numbers.
+     * @param tree      the FlatTree, or null if the node is a BurgInput.
+     * @param index     the node's index in the FlatTree.
+     * @param dim       the subtree's position.
+     * @return the subtree's state number, or the null
+     * pointer state's number if the subtree is null.
+     */
+    private int getSubtreeStateNumber(BurgInput<Nonterminal, NodeType> node, LabelStore<Nonterminal, NodeType> store, FlatTree<Nonterminal, NodeType> tree, int index, int dim)
+    {
+        if (tree != null) {
+            int subtree = tree.getSubtree(index, dim);
+            return subtree != FlatTree.NULL_NODE? tree.getStateNumber(subtree): ProductionTable.NULL_STATE_NUM;
+        }
+
+        BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(dim);
+
+        if (subtree == null) {
+            return ProductionTable.NULL_STATE_NUM;
+        } else if (store != null) {
+            return store.getStateNumber(subtree);
+        } else {
+            return subtree.getStateNumber();
+        }
     }
 }
@@ -0,0 +1,272 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A ParallelLabelTask labels a subtree. Where a node has several
+ * subtrees at least as large as the threshold, the task forks a new
+ * task for each of them; smaller subtrees are labeled iteratively by
+ * the task that finds them. A node is labeled once all its subtrees' tasks
+ * have completed, so every node is still labeled after its subtrees;
+ * but sibling subtrees are labeled in no particular order.
+ */
+class ParallelLabelTask<Nonterminal, NodeType> extends RecursiveAction
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The production table that assigns the states.
+     */
+    private final AbstractProductionTable<Nonterminal, NodeType> productionTable;
+
+    /**
+     * The root of the subtree this task labels.
+     */
+    private final BurgInput<Nonterminal, NodeType> root;
+
+    /**
+     * The receiver for predicate methods.
+     */
+    private final Object visitor;
+
+    /**
+     * The smallest subtree that gets its own task.
+     */
+    private final int threshold;
+
+    /**
+     * Construct a ParallelLabelTask.
+     * @param productionTable   the production table that assigns the states.
+     * @param root              the root of the subtree to label; must not be null.
+     * @param visitor           the receiver for predicate methods.
+     * @param threshold         the smallest subtree that gets its own task.
+     */
+    ParallelLabelTask(AbstractProductionTable<Nonterminal, NodeType> productionTable, BurgInput<Nonterminal, NodeType> root, Object visitor, int threshold)
+    {
+        this.productionTable = productionTable;
+        this.root = root;
+        this.visitor = visitor;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute()
+    {
+        try {
+            label();
+        } catch (RuntimeException unchecked) {
+            throw unchecked;
+        } catch (Exception checked) {
+            throw new LabelingException(checked);
+        }
+    }
+
+    /**
+     * Label this task's subtree. Forking only pays off at nodes
+     * with several large subtrees; the task walks down through
+     * other nodes, labeling their small subtrees as it goes, and
+     * labels the nodes on its way back up. This keeps deep, narrow
+     * trees from nesting tasks.
+     */
+    private void label()
+    throws Exception
+    {
+        List<BurgInput<Nonterminal, NodeType>> pendingNodes = new ArrayList<BurgInput<Nonterminal, NodeType>>();
+        List<ParallelLabelTask<Nonterminal, NodeType>> forkedTasks = new ArrayList<ParallelLabelTask<Nonterminal, NodeType>>();
+        LabelStack<Nonterminal, NodeType> workStack = new LabelStack<Nonterminal, NodeType>();
+        BurgInput<Nonterminal, NodeType> current = root;
+
+        while (current != null) {
+            pendingNodes.add(current);
+            List<SubtreeCounter<Nonterminal, NodeType>> subtrees = classifySubtrees(current, threshold);
+            BurgInput<Nonterminal, NodeType> next = null;
+
+            for (SubtreeCounter<Nonterminal, NodeType> subtree: subtrees) {
+                if (subtree.isSmall()) {
+                    workStack.label(productionTable, subtree.root, visitor);
+                } else if (subtrees.size() - countSmall(subtrees) == 1) {
+                    next = subtree.root;
+                } else {
+                    ParallelLabelTask<Nonterminal, NodeType> task = new ParallelLabelTask<Nonterminal, NodeType>(productionTable, subtree.root, visitor, threshold);
+                    task.fork();
+                    forkedTasks.add(task);
+                }
+            }
+
+            current = next;
+        }
+
+        for (ParallelLabelTask<Nonterminal, NodeType> task: forkedTasks) {
+            task.join();
+        }
+
+        for (int i = pendingNodes.size() - 1; i >= 0; i--) {
+            productionTable.labelNode(pendingNodes.get(i), visitor);
+        }
+    }
+
+    /**
+     * Classify a node's non-null subtrees as small or not.
+     * The subtrees are counted a node at a time, in rotation,
+     * until either all of them are classified, or only one of
+     * them might be large; that subtree is left unclassified.
+     * A subtree is small if it has fewer nodes than the threshold.
+     * @param node      the node whose subtrees are to be classified.
+     * @param threshold the threshold.
+     * @return counters for the node's non-null subtrees.
+     */
+    private static <Nonterminal, NodeType> List<SubtreeCounter<Nonterminal, NodeType>> classifySubtrees(BurgInput<Nonterminal, NodeType> node, int threshold)
+    {
+        List<SubtreeCounter<Nonterminal, NodeType>> result = new ArrayList<SubtreeCounter<Nonterminal, NodeType>>();
+
+        for (int i = 0; i < node.getSubtreeCount(); i++) {
+            BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(i);
+
+            // Null subtrees share the precomputed null pointer state.
+            if (subtree != null) {
+                result.add(new SubtreeCounter<Nonterminal, NodeType>(subtree, threshold));
+            }
+        }
+
+        int unclassified = result.size();
+        int large = 0;
+
+        while (unclassified > 0 && unclassified + large > 1) {
+
+            for (SubtreeCounter<Nonterminal, NodeType> counter: result) {
+
+                if (!counter.isClassified()) {
+                    counter.step();
+
+                    if (counter.isClassified()) {
+                        unclassified--;
+
+                        if (!counter.isSmall()) {
+                            large++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of subtrees known to be small.
+     */
+    private static <Nonterminal, NodeType> int countSmall(List<SubtreeCounter<Nonterminal, NodeType>> subtrees)
+    {
+        int result = 0;
+
+        for (SubtreeCounter<Nonterminal, NodeType> subtree: subtrees) {
+            if (subtree.isSmall()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * A SubtreeCounter counts a subtree's nodes a node at a time.
+     */
+    private static class SubtreeCounter<Nonterminal, NodeType>
+    {
+        final BurgInput<Nonterminal, NodeType> root;
+        final List<BurgInput<Nonterminal, NodeType>> pending = new ArrayList<BurgInput<Nonterminal, NodeType>>();
+        final int threshold;
+        int count = 0;
+
+        SubtreeCounter(BurgInput<Nonterminal, NodeType> root, int threshold)
+        {
+            this.root = root;
+            this.threshold = threshold;
+            this.pending.add(root);
+        }
+
+        /**
+         * Count the next node.
+         */
+        void step()
+        {
+            BurgInput<Nonterminal, NodeType> node = pending.remove(pending.size() - 1);
+            count++;
+
+            for (int i = 0; i < node.getSubtreeCount(); i++) {
+                BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(i);
+
+                if (subtree != null) {
+                    pending.add(subtree);
+                }
+            }
+        }
+
+        /**
+         * @return true if the whole subtree has been counted,
+         * and it has fewer nodes than the threshold.
+         */
+        boolean isSmall()
+        {
+            return pending.isEmpty() && count < threshold;
+        }
+
+        /**
+         * @return true if the subtree is known to be small, or known to be large.
+         */
+        boolean isClassified()
+        {
+            return pending.isEmpty() || count >= threshold;
+        }
+    }
+
+    /**
+     * Is a subtree at least as large as a threshold?
+     * The subtree is only counted until its size reaches
+     * the threshold, so the check's cost is bounded by the
+     * threshold rather than by the size of the subtree.
+     * @param root      the root of the subtree.
+     * @param threshold the threshold.
+     * @return true if the subtree has at least threshold nodes.
+     */
+    static <Nonterminal, NodeType> boolean isLarge(BurgInput<Nonterminal, NodeType> root, int threshold)
+    {
+        List<BurgInput<Nonterminal, NodeType>> pending = new ArrayList<BurgInput<Nonterminal, NodeType>>();
+        pending.add(root);
+        int count = 0;
+
+        while (!pending.isEmpty()) {
+            BurgInput<Nonterminal, NodeType> node = pending.remove(pending.size() - 1);
+
+            if (++count >= threshold) {
+                return true;
+            }
+
+            for (int i = 0; i < node.getSubtreeCount(); i++) {
+                BurgInput<Nonterminal, NodeType> subtree = node.getSubtree(i);
+
+                if (subtree != null) {
+                    pending.add(subtree);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A LabelingException carries a checked exception
+     * thrown while labeling out of a task's compute() method.
+     */
+    static class LabelingException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        LabelingException(Exception cause)
+        {
+            super(cause);
+        }
+    }
+}
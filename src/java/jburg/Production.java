@@ -1,5 +1,7 @@
 package jburg;
 
+import java.util.Collection;
+
 import jburg.semantics.HostRoutine;
 
 /**
@@ -10,7 +12,7 @@ import jburg.semantics.HostRoutine;
  * further transforming an initial nonterminal
  * to a new nonterminal (a Closure).
  */
-public abstract class Production<Nonterminal>
+public abstract class Production<Nonterminal> implements Cloneable
 {
     /**
      * The Nonterminal "goal state" this Production produces.
@@ -84,6 +86,54 @@ public abstract class Production<Nonterminal>
         this.postCallback   = postCallback;
     }
 
+    /**
+     * Add this production's predicate and callbacks to a collection.
+     * Lazily loaded routines are resolved and their resolved
+     * routines are collected.
+     * @param routines  the collection.
+     */
+    void collectRoutines(Collection<HostRoutine> routines)
+    {
+        for (HostRoutine routine: new HostRoutine[] { predicate, preCallback, postCallback }) {
+
+            if (routine instanceof LazyHostRoutine) {
+                routines.add(((LazyHostRoutine)routine).resolve());
+            } else if (routine != null) {
+                routines.add(routine);
+            }
+        }
+    }
+
+    /**
+     * Copy this production, with its compiled routines in place
+     * of its routines; the copy shares everything else.
+     * @param compiled  the compiled routines.
+     * @return the copy, or this production if none
+     * of its routines were compiled.
+     */
+    @SuppressWarnings("unchecked")
+    Production<Nonterminal> copyWithRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        HostRoutine predicate = compiled.getRoutine(this.predicate);
+        HostRoutine preCallback = compiled.getRoutine(this.preCallback);
+        HostRoutine postCallback = compiled.getRoutine(this.postCallback);
+
+        if (predicate == this.predicate && preCallback == this.preCallback && postCallback == this.postCallback) {
+            return this;
+        }
+
+        try {
+            Production<Nonterminal> result = (Production<Nonterminal>)clone();
+            result.predicate = predicate;
+            result.preCallback = preCallback;
+            result.postCallback = postCallback;
+            return result;
+        } catch (CloneNotSupportedException cannotCopy) {
+            // Production is Cloneable.
+            throw new IllegalStateException(cannotCopy);
+        }
+    }
+
     /**
      * @return true if this production has a semantic predicate.
      */
@@ -2,6 +2,12 @@ package jburg;
 
 import jburg.semantics.HostRoutine;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import jburg.emitter.*;
 import jburg.semantics.BURMSemantics;
@@ -11,20 +17,14 @@ import jburg.semantics.BURMSemantics;
  * describe the client's BURS system, and the logic
  * that translates them into a transition table.
  */
-public class ProductionTable<Nonterminal, NodeType>
+public class ProductionTable<Nonterminal, NodeType> extends AbstractProductionTable<Nonterminal, NodeType>
 {
     /**
      * Patterns applicable to null pointers; these are assembled
      * into a singleton state, with no operator, and the resulting
      * state is applied to all null pointers.
      */
-    private List<NullPointerProduction<Nonterminal>> nullProductions = new ArrayList<NullPointerProduction<Nonterminal>>();;
-
-    /**
-     * The State that is assigned to inputs that don't
-     * match any transition in the table.
-     */
-     ErrorState<Nonterminal,NodeType> errorState = new ErrorState<Nonterminal, NodeType>();
+    List<NullPointerProduction<Nonterminal>> nullProductions = new ArrayList<NullPointerProduction<Nonterminal>>();
 
     /**
      * The State that "derives" all null pointers.
@@ -71,10 +71,31 @@ public class ProductionTable<Nonterminal, NodeType>
     }
 
     /**
-     * Operators computed from the specification, keyed by their node type.
+     * Operators computed from the specification, keyed by their node type,
+     * in the order their first patterns were added; generation visits the
+     * operators in this order, so it numbers the states the same way in
+     * every run, whatever the node types' hash codes.
      */
     Map<NodeType, List<Operator<Nonterminal,NodeType>>> operators =
-        new HashMap<NodeType, List<Operator<Nonterminal,NodeType>>>();
+        new LinkedHashMap<NodeType, List<Operator<Nonterminal,NodeType>>>();
+
+    /**
+     * Operators indexed by their node type's ordinal and their arity;
+     * built when the table is finished, if the node types are enums.
+     * Each node type's row has one more entry than its operator list;
+     * the last entry is the node type's variadic operator, if any,
+     * which handles arities beyond the list. Null if the table isn't
+     * finished, or if its node types aren't enums.
+     */
+    private Operator<Nonterminal,NodeType>[][] operatorDispatch = null;
+
+    /**
+     * Construct an empty ProductionTable.
+     */
+    public ProductionTable()
+    {
+        super(new ErrorState<Nonterminal, NodeType>(), new NonterminalIndex());
+    }
 
     /**
      * @return the operators in this production table.
@@ -84,6 +105,22 @@ public class ProductionTable<Nonterminal, NodeType>
         return operators.values();
     }
 
+    @Override
+    Collection<Operator<Nonterminal,NodeType>> getAllOperators()
+    {
+        List<Operator<Nonterminal,NodeType>> result = new ArrayList<Operator<Nonterminal,NodeType>>();
+
+        for (List<Operator<Nonterminal,NodeType>> ops: operators.values()) {
+            for (Operator<Nonterminal,NodeType> op: ops) {
+                if (op != null) {
+                    result.add(op);
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * @return the node type to operator mappings in this production table.
      */
@@ -92,12 +129,26 @@ public class ProductionTable<Nonterminal, NodeType>
         return operators;
     }
 
+    /**
+     * Get the operator dispatch table of a finished production table
+     * whose node types are enums: the operator for a node is found at
+     * [nodeType.ordinal()][min(arity, row.length-1)]. Callers must
+     * not modify the table.
+     * @return the dispatch table, or null if the table isn't finished
+     * or if its node types aren't enums.
+     */
+    @Override
+    public Operator<Nonterminal,NodeType>[][] getOperatorDispatch()
+    {
+        return operatorDispatch;
+    }
+
     /**
      * RepresenterStates, mapped to themselves
      * so they can be efficaciously retrieved.
      */
-    private Map<RepresenterState<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>> repStates =
-        new HashMap<RepresenterState<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>>();
+    private ConcurrentMap<RepresenterState<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>> repStates =
+        new ConcurrentHashMap<RepresenterState<Nonterminal,NodeType>, RepresenterState<Nonterminal,NodeType>>();
 
     /**
      * Pattern matchers by node type and nominal arity.
@@ -108,7 +159,7 @@ public class ProductionTable<Nonterminal, NodeType>
      * the variadic tail.
      */
     private Map<NodeType, List<PatternMatcher<Nonterminal,NodeType>>> patternMatchersByNodeType =
-        new HashMap<NodeType, List<PatternMatcher<Nonterminal, NodeType>>>();
+        new LinkedHashMap<NodeType, List<PatternMatcher<Nonterminal, NodeType>>>();
 
     /**
      * The predetermined state number of the error state.
@@ -126,6 +177,52 @@ public class ProductionTable<Nonterminal, NodeType>
     /** If an operator matches this pattern (when it's set), turn on verbose mode for its state transition computations. */
     String  verboseTrigger = null;
 
+    /**
+     * When set, operators keep their transitions and their states'
+     * projections, so the states can be generated again, after
+     * patterns are added or removed, without recomputing the
+     * transitions of operators whose patterns didn't change.
+     */
+    private boolean incrementalGeneration = false;
+
+    /**
+     * Set when the states were generated incrementally, and cleared
+     * by changes the operators' transitions don't account for, e.g.,
+     * new closures or error handlers; the next generation starts over
+     * if this isn't set.
+     */
+    private boolean canRegenerateIncrementally = false;
+
+    /**
+     * The transition that first produced each non-leaf state, whose
+     * costs are the state's costs; kept if the states are generated
+     * incrementally, to check that the transition still exists.
+     */
+    private Map<State<Nonterminal, NodeType>, Derivation> derivations = new IdentityHashMap<State<Nonterminal, NodeType>, Derivation>();
+
+    /**
+     * The largest number of transitions an operator's transition
+     * table may have; operators with more transitions label their
+     * nodes by dynamic programming. Zero if there is no budget.
+     */
+    private int transitionBudget = 0;
+
+    /**
+     * Node types whose patterns have been added or removed since the states were generated.
+     */
+    private Set<NodeType> changedNodeTypes = new HashSet<NodeType>();
+
+    /**
+     * Set when the states have been generated or loaded, and
+     * cleared when patterns are added or removed.
+     */
+    private boolean finished = false;
+
+    /**
+     * Set when the table has been frozen into a CompiledProductionTable.
+     */
+    private boolean frozen = false;
+
     /**
      * Add a pattern-matching production to the grammar, with unit cost.
      * @param nt            the nonterminal this production produces.
@@ -273,9 +370,24 @@ public class ProductionTable<Nonterminal, NodeType>
      */
     public PatternMatcher<Nonterminal, NodeType> addPatternMatch(Object nt, NodeType nodeType, int cost, HostRoutine predicate, HostRoutine preCallback, HostRoutine postCallback, boolean isVarArgs, List<Object> childTypes)
     {
-        PatternMatcher<Nonterminal,NodeType> patternMatcher = new PatternMatcher<Nonterminal,NodeType>(nt, nodeType, cost, predicate, preCallback, postCallback, isVarArgs, childTypes);
-        nonterminals.add(nt);
+        return addPatternMatch(new PatternMatcher<Nonterminal,NodeType>(nt, nodeType, cost, predicate, preCallback, postCallback, isVarArgs, childTypes));
+    }
+
+    /**
+     * Add a pattern matcher to its operator, e.g., to
+     * restore a pattern matcher removed by removePatternMatch.
+     * @param patternMatcher    the pattern matcher.
+     * @return the pattern matcher.
+     */
+    public PatternMatcher<Nonterminal, NodeType> addPatternMatch(PatternMatcher<Nonterminal, NodeType> patternMatcher)
+    {
+        checkNotFrozen();
+        NodeType nodeType = patternMatcher.nodeType;
+        nonterminals.add(patternMatcher.target);
         getPatternsForNodeType(nodeType).add(patternMatcher);
+        changedNodeTypes.add(nodeType);
+        operatorDispatch = null;
+        finished = false;
 
         // Add an Operator to handle this pattern, if one is not already present.
         if (fetchOperator(nodeType, patternMatcher.size()) == null) {
@@ -296,6 +408,50 @@ public class ProductionTable<Nonterminal, NodeType>
         return patternMatcher;
     }
 
+    /**
+     * Remove a pattern-matching production from the grammar,
+     * e.g., to replace it with a production with a different cost.
+     * The production table's states must be generated again to
+     * remove the production from the transition tables.
+     * @param patternMatcher    the pattern matcher to remove.
+     * @return true if the pattern matcher was in the grammar.
+     */
+    public boolean removePatternMatch(PatternMatcher<Nonterminal, NodeType> patternMatcher)
+    {
+        checkNotFrozen();
+        List<PatternMatcher<Nonterminal, NodeType>> patterns = patternMatchersByNodeType.get(patternMatcher.nodeType);
+
+        if (patterns == null || !patterns.remove(patternMatcher)) {
+            return false;
+        }
+
+        changedNodeTypes.add(patternMatcher.nodeType);
+        operatorDispatch = null;
+        finished = false;
+
+        // Remove the pattern's operator if no
+        // other pattern matcher has its arity.
+        for (PatternMatcher<Nonterminal, NodeType> p: patterns) {
+            if (p.size() == patternMatcher.size()) {
+                return true;
+            }
+        }
+
+        operators.get(patternMatcher.nodeType).set(patternMatcher.size(), null);
+        return true;
+    }
+
+    /**
+     * Get the pattern matchers for a node type.
+     * @param nodeType  the node type of interest.
+     * @return the node type's pattern matchers, in the order they were added.
+     */
+    public List<PatternMatcher<Nonterminal,NodeType>> getPatternMatchers(NodeType nodeType)
+    {
+        List<PatternMatcher<Nonterminal,NodeType>> result = patternMatchersByNodeType.get(nodeType);
+        return result != null? Collections.unmodifiableList(result): Collections.<PatternMatcher<Nonterminal,NodeType>>emptyList();
+    }
+
     /**
      * Add a closure to the grammar.
      * @param targetNt      the nonterminal this closure produces.
@@ -305,6 +461,8 @@ public class ProductionTable<Nonterminal, NodeType>
      */
     public Closure<Nonterminal> addClosure(Object targetNt, Object sourceNt, int cost, HostRoutine method)
     {
+        checkNotFrozen();
+        canRegenerateIncrementally = false;
         Closure<Nonterminal> closure = new Closure<Nonterminal>(targetNt, sourceNt, cost, method);
         closures.add(closure);
         nonterminals.add(targetNt);
@@ -334,93 +492,979 @@ public class ProductionTable<Nonterminal, NodeType>
     }
 
     /**
-     * Add a closure to the grammar, with unit cost and no callbacks.
+     * Add a closure to the grammar, with unit cost and no callbacks.
+     */
+    public Closure<Nonterminal> addClosure(Object targetNt, Object sourceNt)
+    {
+        return addClosure(targetNt, sourceNt, 1, noPostCallback);
+    }
+
+    /**
+     * Add an error-handling production.
+     * @param targetNt      the nonterminal this error handler produces.
+     * @param errorCallback the error-handling callback method.
+     */
+    public void addErrorHandler(Object targetNt, HostRoutine errorCallback)
+    {
+        checkNotFrozen();
+        canRegenerateIncrementally = false;
+        nonterminals.add(targetNt);
+        this.errorState.setNonClosureProduction(new ErrorHandlerProduction<Nonterminal>(targetNt, errorCallback), 1);
+    }
+
+    /**
+     * @return true if any error handling productions are present.
+     */
+    public boolean hasErrorHandler()
+    {
+        return this.errorState.size() > 0;
+    }
+
+    /**
+     * Keep the operators' intermediate results, so the states can be
+     * generated again incrementally after patterns are added or removed.
+     * The next generation only permutes the existing states with the
+     * operators whose node types have new or removed patterns, and the
+     * new states that finds with all the operators; it then discards the
+     * states and transitions that are no longer reachable, and rebuilds
+     * the transition tables. New closures, error handlers, or null pointer
+     * productions make the next generation start over.
+     * If a remaining state's costs came from a transition the change
+     * removed, its costs and projections would change, and the next
+     * generation starts over, too.
+     * <p>The regenerated states and transitions are equivalent to a new
+     * production table's, but they may be numbered differently, and
+     * a state that several transitions produce may keep another
+     * transition's costs; a state keeps the costs of the transition
+     * that first produced it.
+     * @param incremental   true to keep the intermediate results.
+     * @return the previous setting.
+     * @see #isEquivalent(ProductionTable)
+     */
+    public boolean setIncrementalGeneration(boolean incremental)
+    {
+        boolean result = this.incrementalGeneration;
+        this.incrementalGeneration = incremental;
+        return result;
+    }
+
+    /**
+     * @return true if the operators keep their intermediate
+     * results, so the states can be generated incrementally.
+     */
+    boolean isIncrementalGeneration()
+    {
+        return incrementalGeneration;
+    }
+
+    /**
+     * Set the transition budget: an operator whose transition table
+     * would have more transitions, i.e., tuples of representer states,
+     * than the budget doesn't keep its transition table; it labels its
+     * nodes by dynamic programming instead, costing its patterns with
+     * its children's states' costs at label time. The operator's states
+     * are generated as usual, so other operators' transition tables
+     * are unaffected. Takes effect when the states are next generated.
+     * <p>Tables with dynamic operators can label and reduce trees, and
+     * they can be frozen, but they can't be dumped or encoded.
+     * @param maxTransitions    the budget, or zero for no budget.
+     * @return the previous budget.
+     */
+    public int setTransitionBudget(int maxTransitions)
+    {
+        if (maxTransitions < 0) {
+            throw new IllegalArgumentException(String.format("transition budget %d must not be negative", maxTransitions));
+        }
+
+        int result = this.transitionBudget;
+        this.transitionBudget = maxTransitions;
+        return result;
+    }
+
+    /**
+     * @return the transition budget, or zero if there is no budget.
+     */
+    int getTransitionBudget()
+    {
+        return transitionBudget;
+    }
+
+    /**
+     * @return the number of operators that label their nodes
+     * by dynamic programming, because their transition tables
+     * exceeded the transition budget.
+     */
+    public int getDynamicOperatorCount()
+    {
+        int result = 0;
+
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            if (op.isDynamic()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Generate the states and transition tables for a grammar.
+     * <p>If the states have already been generated, they are discarded
+     * and generated again, or generated incrementally if the table keeps
+     * its intermediate results; nodes labeled by the previous states must
+     * be labeled again.
+     * @see #setIncrementalGeneration(boolean)
+     * <ul>
+     * <li> Begin by computing states for all leaf operators;
+     * this forms the initial worklist.
+     * <li> While the worklist contains candidate entries,
+     * compute potentially novel transition table entries for
+     * every non-leaf operator. This process generates new states,
+     * which are appended to the worklist; the algorithm terminates
+     * when all operators have processed all relevant transitions
+     * and the worklist empties.
+     * </ul>
+     * @post states contains all state entries for the grammar,
+     * and each operator's transition table contains mappings
+     * to the corresponding states.
+     */
+    public void generateStates()
+    {
+        if (incrementalGeneration && canRegenerateIncrementally) {
+            regenerateStates();
+            return;
+        }
+
+        Queue<State<Nonterminal, NodeType>> worklist = startGeneration();
+        computeWorklistTransitions(worklist);
+        finishGeneration();
+    }
+
+    /**
+     * Examine all permutations of states as operands to the
+     * non-leaf operators; novel (or better) combinations of
+     * operators and operands generate new states, which
+     * replenish the worklist.
+     * @param worklist  the worklist.
+     */
+    private void computeWorklistTransitions(Queue<State<Nonterminal, NodeType>> worklist)
+    {
+        while (worklist.peek() != null) {
+            State<Nonterminal, NodeType> state = worklist.remove();
+
+            for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
+
+                // Skip leaf operators; they're already done.
+                for (int i = 1; i < opList.size(); i++) {
+                    computeTransitions(opList.get(i), state, worklist);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate the states again, incrementally, after patterns have
+     * been added or removed: recompute the leaf states of leaf operators
+     * whose node types changed, and permute the existing states with the
+     * non-leaf operators whose node types changed; then permute the new
+     * states this finds with all the operators. Finally, discard the
+     * states and transitions that are no longer reachable, renumber
+     * the remaining states, and rebuild the transition tables.
+     */
+    private void regenerateStates()
+    {
+        checkNotFrozen();
+        canRegenerateIncrementally = false;
+        operatorDispatch = null;
+        finished = false;
+
+        List<State<Nonterminal, NodeType>> previousStates = new ArrayList<State<Nonterminal, NodeType>>(statesInEntryOrder);
+        Queue<State<Nonterminal, NodeType>> worklist = new ArrayDeque<State<Nonterminal, NodeType>>();
+        List<Operator<Nonterminal, NodeType>> changedOperators = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+        for (Operator<Nonterminal, NodeType> op: getAllOperators()) {
+
+            if (changedNodeTypes.contains(op.nodeType)) {
+                op.resetCompilation();
+
+                if (op.size() == 0) {
+                    generateLeafStates(op, worklist);
+                } else {
+                    changedOperators.add(op);
+                }
+            }
+        }
+
+        changedNodeTypes.clear();
+
+        // The error state is only permuted if it has handlers.
+        if (errorState.size() == 0) {
+            previousStates.remove(ERROR_STATE_NUM);
+        }
+
+        for (Operator<Nonterminal, NodeType> op: changedOperators) {
+
+            for (State<Nonterminal, NodeType> state: previousStates) {
+                computeTransitions(op, state, worklist);
+            }
+        }
+
+        computeWorklistTransitions(worklist);
+        discardUnreachableStates();
+
+        if (!derivationsAreLive()) {
+            // Some state's costs came from a transition the change
+            // removed; with new costs, its projections would change,
+            // so start over.
+            worklist = startGeneration();
+            computeWorklistTransitions(worklist);
+            finishGeneration();
+            return;
+        }
+
+        for (State<Nonterminal, NodeType> state: statesInEntryOrder) {
+            state.finishCompilation(nonterminalIndex);
+        }
+
+        for (Operator<Nonterminal, NodeType> op: getAllOperators()) {
+            op.finishCompilation();
+        }
+
+        buildOperatorDispatch();
+        finished = true;
+        canRegenerateIncrementally = true;
+    }
+
+    /**
+     * @return true if every state's costs come from a transition that
+     * the operators still have; states are canonicalized by their
+     * productions and predicates, and keep the costs of the transition
+     * that first produced them.
+     */
+    private boolean derivationsAreLive()
+    {
+        for (Map.Entry<State<Nonterminal, NodeType>, Derivation> entry: derivations.entrySet()) {
+            Derivation d = entry.getValue();
+            Set<State<Nonterminal, NodeType>> resultStates = d.op.builder != null? d.op.builder.getStates(d.repStates): null;
+
+            if (fetchOperator(d.op.nodeType, d.op.size()) != d.op || resultStates == null || !resultStates.contains(entry.getKey())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Discard the states that are no longer reachable after an
+     * incremental generation, and the transitions and representer
+     * states that only they produced; number the remaining states
+     * in the order they were found.
+     * <p>The states reachable from the error state, the null pointer
+     * state, and the leaf states are found by following the operators'
+     * transitions: a transition is live once each of its representer
+     * states represents a reachable state, and its result states are
+     * then reachable, too.
+     */
+    private void discardUnreachableStates()
+    {
+        Set<State<Nonterminal, NodeType>> liveStates = Collections.newSetFromMap(new IdentityHashMap<State<Nonterminal, NodeType>, Boolean>());
+        Queue<State<Nonterminal, NodeType>> worklist = new ArrayDeque<State<Nonterminal, NodeType>>();
+
+        List<State<Nonterminal, NodeType>> roots = new ArrayList<State<Nonterminal, NodeType>>();
+        roots.add(errorState);
+        roots.add(getNullPointerState());
+
+        List<Operator<Nonterminal, NodeType>> nonLeafOperators = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+        for (Operator<Nonterminal, NodeType> op: getAllOperators()) {
+
+            if (op.size() == 0) {
+                roots.addAll(op.leafState.getStates());
+            } else {
+                nonLeafOperators.add(op);
+            }
+        }
+
+        for (State<Nonterminal, NodeType> root: roots) {
+            if (root == states.get(root) || root == errorState) {
+                liveStates.add(root);
+                worklist.add(root);
+            }
+        }
+
+        // Each operator's transitions, by the representer
+        // state in each dimension, and the live representer
+        // states in each dimension.
+        List<List<Map<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>>>> transitionsByRep = new ArrayList<List<Map<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>>>>();
+        List<List<Set<RepresenterState<Nonterminal,NodeType>>>> liveReps = new ArrayList<List<Set<RepresenterState<Nonterminal,NodeType>>>>();
+
+        for (Operator<Nonterminal, NodeType> op: nonLeafOperators) {
+            List<Map<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>>> opTransitions = new ArrayList<Map<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>>>();
+            List<Set<RepresenterState<Nonterminal,NodeType>>> opLiveReps = new ArrayList<Set<RepresenterState<Nonterminal,NodeType>>>();
+
+            for (int dim = 0; dim < op.size(); dim++) {
+                Map<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>> byRep = new HashMap<RepresenterState<Nonterminal,NodeType>, List<List<RepresenterState<Nonterminal,NodeType>>>>();
+
+                for (List<RepresenterState<Nonterminal,NodeType>> repStates: op.builder.getTuples()) {
+
+                    if (!byRep.containsKey(repStates.get(dim))) {
+                        byRep.put(repStates.get(dim), new ArrayList<List<RepresenterState<Nonterminal,NodeType>>>());
+                    }
+
+                    byRep.get(repStates.get(dim)).add(repStates);
+                }
+
+                opTransitions.add(byRep);
+                opLiveReps.add(new HashSet<RepresenterState<Nonterminal,NodeType>>());
+            }
+
+            transitionsByRep.add(opTransitions);
+            liveReps.add(opLiveReps);
+        }
+
+        // The represented states are rebuilt from the live states.
+        for (RepresenterState<Nonterminal, NodeType> rs: repStates.keySet()) {
+            rs.representedStates.clear();
+        }
+
+        while (worklist.peek() != null) {
+            State<Nonterminal, NodeType> state = worklist.remove();
+
+            for (int i = 0; i < nonLeafOperators.size(); i++) {
+                Operator<Nonterminal, NodeType> op = nonLeafOperators.get(i);
+
+                for (int dim = 0; dim < op.size(); dim++) {
+                    RepresenterState<Nonterminal,NodeType> pState = op.getProjection(dim, state);
+
+                    if (pState == null) {
+                        continue;
+                    }
+
+                    pState.representedStates.add(state);
+
+                    if (liveReps.get(i).get(dim).add(pState) && transitionsByRep.get(i).get(dim).containsKey(pState)) {
+
+                        for (List<RepresenterState<Nonterminal,NodeType>> repStates: transitionsByRep.get(i).get(dim).get(pState)) {
+
+                            if (TransitionTableBuilder.isLive(repStates, liveReps.get(i))) {
+
+                                for (State<Nonterminal, NodeType> resultState: op.builder.getStates(repStates)) {
+                                    if (liveStates.add(resultState)) {
+                                        worklist.add(resultState);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < nonLeafOperators.size(); i++) {
+            nonLeafOperators.get(i).retainTransitions(liveReps.get(i), liveStates);
+        }
+
+        derivations.keySet().retainAll(liveStates);
+        Iterator<RepresenterState<Nonterminal, NodeType>> rsIterator = repStates.keySet().iterator();
+
+        while (rsIterator.hasNext()) {
+            if (rsIterator.next().representedStates.isEmpty()) {
+                rsIterator.remove();
+            }
+        }
+
+        // Renumber the live states; the error state and
+        // the null pointer state keep their numbers.
+        List<State<Nonterminal, NodeType>> previousStates = new ArrayList<State<Nonterminal, NodeType>>(statesInEntryOrder);
+        statesInEntryOrder.clear();
+        states.clear();
+
+        for (State<Nonterminal, NodeType> state: previousStates) {
+
+            if (state == errorState) {
+                statesInEntryOrder.add(state);
+            } else if (liveStates.contains(state)) {
+                states.put(state, state);
+                state.number = statesInEntryOrder.size();
+                statesInEntryOrder.add(state);
+            }
+        }
+
+        assert nullState.number == NULL_STATE_NUM;
+    }
+
+    /**
+     * Generate the states and transition tables for a grammar,
+     * permuting the operators' representer states in parallel.
+     * <p>The worklist is processed in rounds; each round takes all
+     * the states on the worklist, and runs a task per operator that
+     * permutes the operator's representer states with each of the
+     * round's states in turn. Each operator's representer states
+     * are only touched by its own task, and a task does not intern
+     * the states it finds; once all the round's tasks are done, their
+     * results are interned in the same order as generateStates()
+     * would intern them, so the states are numbered identically and
+     * the resulting tables are the same as generateStates()'s tables.
+     * <p>The verbose trigger is ignored during parallel generation;
+     * an incremental generation runs serially, since it only permutes
+     * the states with the operators its changes affect.
+     * @param pool  the pool that runs the tasks.
+     */
+    public void generateStatesInParallel(ForkJoinPool pool)
+    {
+        if (incrementalGeneration && canRegenerateIncrementally) {
+            regenerateStates();
+            return;
+        }
+
+        Queue<State<Nonterminal, NodeType>> worklist = startGeneration();
+
+        // Non-leaf operators, in the order generateStates() visits them.
+        List<Operator<Nonterminal, NodeType>> nonLeafOperators = new ArrayList<Operator<Nonterminal, NodeType>>();
+
+        for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
+
+            for (int i = 1; i < opList.size(); i++) {
+                if (opList.get(i) != null) {
+                    nonLeafOperators.add(opList.get(i));
+                }
+            }
+        }
+
+        // The tasks only read the pattern matcher lists,
+        // so create any missing lists before they start.
+        for (Operator<Nonterminal, NodeType> op: nonLeafOperators) {
+            getPatternsForNodeType(op.nodeType);
+        }
+
+        verbose = false;
+
+        while (worklist.peek() != null) {
+            final List<State<Nonterminal, NodeType>> round = new ArrayList<State<Nonterminal, NodeType>>(worklist);
+            worklist.clear();
+
+            List<Callable<List<PendingTransitions>>> tasks = new ArrayList<Callable<List<PendingTransitions>>>();
+
+            for (final Operator<Nonterminal, NodeType> op: nonLeafOperators) {
+                tasks.add(new Callable<List<PendingTransitions>>() {
+                    public List<PendingTransitions> call()
+                    {
+                        List<PendingTransitions> result = new ArrayList<PendingTransitions>();
+
+                        for (State<Nonterminal, NodeType> state: round) {
+                            result.add(permuteTransitions(op, state));
+                        }
+
+                        return result;
+                    }
+                });
+            }
+
+            List<List<PendingTransitions>> results = new ArrayList<List<PendingTransitions>>();
+
+            for (Future<List<PendingTransitions>> future: pool.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException taskFailed) {
+                    Throwable cause = taskFailed.getCause();
+
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error)cause;
+                    } else {
+                        throw new IllegalStateException(cause);
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("state generation interrupted", interrupted);
+                }
+            }
+
+            for (int i = 0; i < round.size(); i++) {
+
+                for (int j = 0; j < nonLeafOperators.size(); j++) {
+                    recordTransitions(nonLeafOperators.get(j), round.get(i), results.get(j).get(i), worklist);
+                }
+            }
+        }
+
+        finishGeneration();
+    }
+
+    /**
+     * Generate the states and transition tables for a grammar,
+     * permuting the operators' representer states in parallel
+     * in the common fork/join pool.
+     */
+    public void generateStatesInParallel()
+    {
+        generateStatesInParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Start generating states: number the error state and the null
+     * pointer state, and generate the leaf operators' states.
+     * @return the initial worklist.
+     */
+    private Queue<State<Nonterminal, NodeType>> startGeneration()
+    {
+        if (!statesInEntryOrder.isEmpty()) {
+            resetGeneration();
+        }
+
+        checkNotFrozen();
+        changedNodeTypes.clear();
+        canRegenerateIncrementally = false;
+        operatorDispatch = null;
+        finished = false;
+
+        // The error state outlives the generations; its
+        // handlers or the closures may have changed.
+        errorState.resetCompilation();
+
+        // Put the error state at index zero so it has a consistent number.
+        statesInEntryOrder.add(this.errorState);
+
+        // Bootstrap the worklist with the null pointer state -- again, placed
+        // at a known index in the state table -- and the states generated by
+        // leaf operators.
+        Queue<State<Nonterminal, NodeType>> worklist = new ArrayDeque<State<Nonterminal, NodeType>>();
+        worklist.add(getNullPointerState());
+        generateLeafStates(worklist);
+
+        if (errorState.size() > 0) {
+            closure(errorState);
+            worklist.add(errorState);
+        }
+
+        return worklist;
+    }
+
+    /**
+     * Discard the states and transition tables from
+     * a previous generation, so they can be generated again.
+     */
+    private void resetGeneration()
+    {
+        states.clear();
+        statesInEntryOrder.clear();
+        derivations.clear();
+        nullState = null;
+
+        // Don't keep the old states alive.
+        for (RepresenterState<Nonterminal, NodeType> rs: repStates.keySet()) {
+            rs.representedStates.clear();
+        }
+
+        repStates.clear();
+
+        for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
+
+            for (Operator<Nonterminal, NodeType> op: opList) {
+                if (op != null) {
+                    op.resetCompilation();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finish generating states: compile the
+     * operators' transition tables and the states.
+     */
+    private void finishGeneration()
+    {
+        errorState.finishCompilation(nonterminalIndex);
+
+        // Compile the operators' transition tables.
+        for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
+
+            for (Operator<Nonterminal, NodeType> op: opList) {
+                if (op != null) {
+                    op.finishCompilation();
+                }
+            }
+        }
+
+        // The transition tables hold copies of the states;
+        // finish the canonical states, too, so lookups
+        // by state number get the compiled cost tables.
+        for (State<Nonterminal, NodeType> state: statesInEntryOrder) {
+            state.finishCompilation(nonterminalIndex);
+        }
+
+        buildOperatorDispatch();
+        finished = true;
+        canRegenerateIncrementally = incrementalGeneration;
+    }
+
+    /**
+     * Build the operator dispatch table, if the node types are enums.
+     */
+    @SuppressWarnings("unchecked")
+    private void buildOperatorDispatch()
+    {
+        Class<?> enumClass = null;
+
+        for (NodeType nodeType: operators.keySet()) {
+
+            if (!(nodeType instanceof Enum)) {
+                operatorDispatch = null;
+                return;
+            }
+
+            enumClass = ((Enum<?>)nodeType).getDeclaringClass();
+        }
+
+        if (enumClass == null) {
+            operatorDispatch = null;
+            return;
+        }
+
+        Operator<Nonterminal,NodeType>[][] dispatch = new Operator[enumClass.getEnumConstants().length][];
+
+        for (Map.Entry<NodeType, List<Operator<Nonterminal,NodeType>>> entry: operators.entrySet()) {
+            dispatch[((Enum<?>)entry.getKey()).ordinal()] = buildDispatchRow(entry.getValue());
+        }
+
+        this.operatorDispatch = dispatch;
+    }
+
+    /**
+     * Build a node type's row of the operator dispatch table.
+     * @param opsForNodeType    the node type's operators, by arity.
+     * @return the row, which has one more entry than the operator
+     * list; the last entry is the node type's variadic operator, if any.
+     */
+    @SuppressWarnings("unchecked")
+    static <Nonterminal, NodeType> Operator<Nonterminal,NodeType>[] buildDispatchRow(List<Operator<Nonterminal,NodeType>> opsForNodeType)
+    {
+        int size = opsForNodeType.size();
+        Operator<Nonterminal,NodeType>[] row = new Operator[size + 1];
+
+        // Only complete operators can label nodes;
+        // the others' arities get the error state.
+        for (int arity = 0; arity < size; arity++) {
+            Operator<Nonterminal,NodeType> op = opsForNodeType.get(arity);
+            row[arity] = op != null && op.isComplete()? op: null;
+        }
+
+        if (size > 0 && row[size-1] != null && row[size-1].isVarArgs()) {
+            row[size] = row[size-1];
+        }
+
+        return row;
+    }
+
+    /**
+     * Freeze this production table into a CompiledProductionTable:
+     * an immutable copy of its runtime tables, which is safe to share
+     * between threads without synchronization. Freezing releases the
+     * compile-time data structures that generating the states built,
+     * e.g., the map of unique states, the representer states, the
+     * pattern matchers and closures, and the operators' transitions,
+     * projections, and index maps; the compiled table reports how
+     * many entries it released, and an estimate of their size.
+     * <p>This production table is consumed: it can't be modified,
+     * generated, dumped, or used to label or reduce trees once it's
+     * frozen; reducers must use the compiled table instead.
+     * @return the compiled production table.
+     * @throws IllegalStateException if the table's states have not
+     * been generated or loaded, or if it's already frozen.
      */
-    public Closure<Nonterminal> addClosure(Object targetNt, Object sourceNt)
+    public CompiledProductionTable<Nonterminal, NodeType> freeze()
     {
-        return addClosure(targetNt, sourceNt, 1, noPostCallback);
+        checkNotFrozen();
+
+        if (!finished) {
+            throw new IllegalStateException("Freezing a production table requires its states to be generated or loaded");
+        }
+
+        State<Nonterminal, NodeType> nullPointerState = getNullPointerState();
+
+        @SuppressWarnings("unchecked")
+        State<Nonterminal, NodeType>[] compiledStates = statesInEntryOrder.toArray(new State[statesInEntryOrder.size()]);
+        Map<NodeType, Operator<Nonterminal,NodeType>[]> operatorRows = new HashMap<NodeType, Operator<Nonterminal,NodeType>[]>();
+
+        for (Map.Entry<NodeType, List<Operator<Nonterminal,NodeType>>> entry: operators.entrySet()) {
+            operatorRows.put(entry.getKey(), buildDispatchRow(entry.getValue()));
+        }
+
+        int reclaimedEntries = releaseCompileTimeData();
+
+        CompiledProductionTable<Nonterminal, NodeType> result = new CompiledProductionTable<Nonterminal, NodeType>(
+            errorState,
+            nonterminalIndex,
+            compiledStates,
+            nullPointerState,
+            operatorRows,
+            operatorDispatch,
+            reclaimedEntries
+        );
+
+        // The compiled table owns the runtime tables now.
+        statesInEntryOrder.clear();
+        operators.clear();
+        operatorDispatch = null;
+        nullState = null;
+        frozen = true;
+
+        if (verbose) {
+            System.out.printf("Froze %d states; released %d compile-time entries, an estimated %d bytes\n", compiledStates.length, reclaimedEntries, result.getEstimatedReclaimedBytes());
+        }
+
+        return result;
     }
 
     /**
-     * Add an error-handling production.
-     * @param targetNt      the nonterminal this error handler produces.
-     * @param errorCallback the error-handling callback method.
+     * Create a production table with this table's productions; the
+     * new table shares this table's pattern matchers, closures, and
+     * error handlers, but not its states, which it must generate.
+     * @return the new production table.
+     * @throws IllegalStateException if this table has been frozen.
      */
-    public void addErrorHandler(Object targetNt, HostRoutine errorCallback)
+    public ProductionTable<Nonterminal, NodeType> copyProductions()
     {
-        nonterminals.add(targetNt);
-        this.errorState.setNonClosureProduction(new ErrorHandlerProduction<Nonterminal>(targetNt, errorCallback), 1);
+        checkNotFrozen();
+        ProductionTable<Nonterminal, NodeType> result = new ProductionTable<Nonterminal, NodeType>();
+        result.setVerboseTrigger(verboseTrigger);
+        result.setTransitionBudget(transitionBudget);
+
+        for (List<PatternMatcher<Nonterminal, NodeType>> patterns: patternMatchersByNodeType.values()) {
+
+            for (PatternMatcher<Nonterminal, NodeType> p: patterns) {
+                result.addPatternMatch(p);
+            }
+        }
+
+        result.closures.addAll(closures);
+        result.nullProductions.addAll(nullProductions);
+        result.nonterminals.addAll(nonterminals);
+
+        for (Production<Nonterminal> p: errorState.getNonClosureProductions()) {
+            result.errorState.setNonClosureProduction(p, errorState.getCost(p.target));
+        }
+
+        return result;
     }
 
     /**
-     * @return true if any error handling productions are present.
+     * Check whether another production table's states and transitions
+     * are equivalent to this table's: each table has the same states,
+     * as given by their productions and predicates, though they may be
+     * numbered differently, and each operator's transitions take the
+     * same tuples of states to the same states. The tables' costs
+     * may differ where several transitions produce the same state.
+     * @param other the other production table; its productions must be
+     * the same objects as this table's, e.g., a copy of this table made
+     * by copyProductions().
+     * @return true if the tables' states and transitions are equivalent.
+     * @throws IllegalStateException if either table's states have not
+     * been generated, or if either table has been frozen.
      */
-    public boolean hasErrorHandler()
+    public boolean isEquivalent(ProductionTable<Nonterminal, NodeType> other)
     {
-        return this.errorState.size() > 0;
+        checkNotFrozen();
+        other.checkNotFrozen();
+
+        if (!finished || !other.finished) {
+            throw new IllegalStateException("Comparing production tables requires their states to be generated");
+        }
+
+        return new TableEquivalence<Nonterminal, NodeType>(this, other).isEquivalent();
     }
 
     /**
-     * Generate the states and transition tables for a grammar.
+     * Create a table that labels trees with this table's grammar, but
+     * computes its states and transitions when a node first needs them,
+     * rather than generating all the grammar's states up front; this
+     * table's states need not be generated.
+     * <p>The lazy table copies this table's lists of pattern matchers
+     * and closures, so productions added to this table afterwards don't
+     * affect it, but it shares a good deal with this table:
      * <ul>
-     * <li> Begin by computing states for all leaf operators;
-     * this forms the initial worklist.
-     * <li> While the worklist contains candidate entries,
-     * compute potentially novel transition table entries for
-     * every non-leaf operator. This process generates new states,
-     * which are appended to the worklist; the algorithm terminates
-     * when all operators have processed all relevant transitions
-     * and the worklist empties.
+     * <li>the productions themselves, and their routines;
+     * <li>the error state, which this method closes and finishes
+     * compiling, as generateStates() would;
+     * <li>the NonterminalIndex, which this method fills with the
+     * ordinals of all the grammar's nonterminals.
      * </ul>
-     * @post states contains all state entries for the grammar,
-     * and each operator's transition table contains mappings
-     * to the corresponding states.
+     * @param maxTransitions    the largest number of transition entries
+     * the lazy table keeps; when an entry is added past this bound, the
+     * table evicts entries that haven't been used recently until it's
+     * back within the bound. Zero keeps all its entries.
+     * @return the lazy table.
+     * @throws IllegalStateException if this table has been frozen.
      */
-    public void generateStates()
+    public LazyProductionTable<Nonterminal, NodeType> createLazyTable(int maxTransitions)
     {
-        // Put the error state at index zero so it has a consistent number.
-        statesInEntryOrder.add(this.errorState);
+        checkNotFrozen();
+
+        // Assign every nonterminal its ordinal now; the lazy table
+        // finishes its states while other threads look up ordinals,
+        // so the index must not change once labeling starts.
+        for (List<PatternMatcher<Nonterminal,NodeType>> matchers: patternMatchersByNodeType.values()) {
+            for (PatternMatcher<Nonterminal,NodeType> p: matchers) {
+                nonterminalIndex.intern(p.target);
+            }
+        }
 
-        // Bootstrap the worklist with the null pointer state -- again, placed
-        // at a known index in the state table -- and the states generated by
-        // leaf operators.
-        Queue<State<Nonterminal, NodeType>> worklist = new ArrayDeque<State<Nonterminal, NodeType>>();
-        worklist.add(getNullPointerState());
-        generateLeafStates(worklist);
+        for (Closure<Nonterminal> closure: closures) {
+            nonterminalIndex.intern(closure.target);
+        }
+
+        for (NullPointerProduction<Nonterminal> p: nullProductions) {
+            nonterminalIndex.intern(p.target);
+        }
 
         if (errorState.size() > 0) {
             closure(errorState);
-            worklist.add(errorState);
         }
 
-        // Examine all permutations of states
-        // as operands to the non-leaf operators;
-        // novel (or better) combinations of operators
-        // and operands generate new states, which
-        // replenish the worklist.
-        while (worklist.peek() != null) {
-            State<Nonterminal, NodeType> state = worklist.remove();
+        errorState.finishCompilation(nonterminalIndex);
 
-            for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
+        State<Nonterminal, NodeType> lazyNullState = new State<Nonterminal, NodeType>();
 
-                // Skip leaf operators; they're already done.
-                for (int i = 1; i < opList.size(); i++) {
-                    computeTransitions(opList.get(i), state, worklist);
-                }
+        for (NullPointerProduction<Nonterminal> p: nullProductions) {
+
+            if (p.ownCost < lazyNullState.getCost(p.target)) {
+                lazyNullState.setNonClosureProduction(p, p.ownCost);
             }
         }
 
-        errorState.finishCompilation();
+        closure(lazyNullState);
+        lazyNullState.finishCompilation(nonterminalIndex);
+
+        Map<NodeType, List<PatternMatcher<Nonterminal,NodeType>>> patterns = new HashMap<NodeType, List<PatternMatcher<Nonterminal,NodeType>>>();
+
+        for (Map.Entry<NodeType, List<PatternMatcher<Nonterminal,NodeType>>> entry: patternMatchersByNodeType.entrySet()) {
+            patterns.put(entry.getKey(), new ArrayList<PatternMatcher<Nonterminal,NodeType>>(entry.getValue()));
+        }
+
+        return new LazyProductionTable<Nonterminal, NodeType>(
+            errorState,
+            nonterminalIndex,
+            lazyNullState,
+            patterns,
+            new ArrayList<Closure<Nonterminal>>(closures),
+            maxTransitions
+        );
+    }
+
+    /**
+     * Release the compile-time data structures: this table's
+     * and those of its operators, transition tables, and states.
+     * @return the number of collection entries released.
+     */
+    private int releaseCompileTimeData()
+    {
+        int result = states.size() + repStates.size() + closures.size() + nonterminals.size() + nullProductions.size() + changedNodeTypes.size() + derivations.size();
+
+        for (RepresenterState<Nonterminal, NodeType> rs: repStates.keySet()) {
+            result += rs.representedStates.size() + rs.costMap.size();
+        }
+
+        for (List<PatternMatcher<Nonterminal, NodeType>> patterns: patternMatchersByNodeType.values()) {
+            result += patterns.size();
+        }
 
-        // Compile the operators' transition tables.
         for (List<Operator<Nonterminal,NodeType>> opList: operators.values()) {
 
             for (Operator<Nonterminal, NodeType> op: opList) {
                 if (op != null) {
-                    op.finishCompilation();
+                    result += op.releaseCompileTimeData();
                 }
             }
         }
+
+        for (State<Nonterminal, NodeType> state: statesInEntryOrder) {
+            result += state.releaseCompileTimeData();
+        }
+
+        states.clear();
+        repStates.clear();
+        patternMatchersByNodeType.clear();
+        closures.clear();
+        nonterminals.clear();
+        nullProductions.clear();
+        changedNodeTypes.clear();
+        derivations.clear();
+
+        return result;
+    }
+
+    /**
+     * Minimize the generated states: merge states that are equivalent
+     * for labeling and reduction, i.e., states that reduce every
+     * nonterminal with the same productions and that every operator's
+     * transition table treats alike as children, and renumber the
+     * remaining states. The operators' transition tables are rebuilt
+     * with the new state numbers, so the table can be dumped, encoded,
+     * or frozen as usual; trees labeled before minimization must be
+     * labeled again.
+     * <p>The states that generation produces are distinct in their
+     * productions or predicates; states that differ only in productions
+     * that no reduction can tell apart, e.g., pattern matchers whose
+     * closures always win, are the states this can merge.
+     * @return the number of states merged into other states.
+     * @throws IllegalStateException if the table's states have
+     * not been generated or loaded, or if it's been frozen.
+     */
+    public int minimizeStates()
+    {
+        checkNotFrozen();
+
+        if (!finished) {
+            throw new IllegalStateException("Minimizing a production table requires its states to be generated or loaded");
+        }
+
+        int result = new StateMinimizer<Nonterminal, NodeType>(this, statesInEntryOrder, new ArrayList<Operator<Nonterminal,NodeType>>(getAllOperators())).minimize();
+
+        // The operators' transitions refer to the merged states.
+        canRegenerateIncrementally = false;
+        derivations.clear();
+        return result;
+    }
+
+    /**
+     * Replace the states with their minimized equivalents;
+     * the unique states map maps each merged state to the
+     * state it was merged into.
+     * @param minimizedStates   the minimized states, by their new numbers.
+     */
+    void statesMinimized(List<State<Nonterminal, NodeType>> minimizedStates)
+    {
+        for (Map.Entry<State<Nonterminal, NodeType>, State<Nonterminal, NodeType>> entry: states.entrySet()) {
+            entry.setValue(minimizedStates.get(entry.getValue().number));
+        }
+
+        statesInEntryOrder.clear();
+        statesInEntryOrder.addAll(minimizedStates);
+    }
+
+    /**
+     * @throws IllegalStateException if this table has been frozen.
+     */
+    private void checkNotFrozen()
+    {
+        if (frozen) {
+            throw new IllegalStateException("Production table has been frozen");
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if any operator labels its nodes
+     * by dynamic programming; it has no transition table to dump.
+     */
+    private void checkNoDynamicOperators()
+    {
+        for (Operator<Nonterminal,NodeType> op: getAllOperators()) {
+            if (op.isDynamic()) {
+                throw new IllegalStateException(String.format("%s exceeded the transition budget and has no transition table", op));
+            }
+        }
     }
 
     /**
@@ -431,6 +1475,8 @@ public class ProductionTable<Nonterminal, NodeType>
      */
     public Production<Nonterminal> addNullPointerProduction(Object nt, int cost, HostRoutine postCallback)
     {
+        checkNotFrozen();
+        canRegenerateIncrementally = false;
         NullPointerProduction<Nonterminal> np = new NullPointerProduction<Nonterminal>(nt, cost, postCallback);
         nullProductions.add(np);
         nonterminals.add(nt);
@@ -442,8 +1488,11 @@ public class ProductionTable<Nonterminal, NodeType>
      * If the grammar did not record any null productions, then this state is empty.
      * @return the state that specifies valid transitions for a null pointer.
      */
+    @Override
     public State<Nonterminal, NodeType> getNullPointerState()
     {
+        checkNotFrozen();
+
         if (nullState == null) {
             nullState = new State<Nonterminal, NodeType>();
 
@@ -455,7 +1504,7 @@ public class ProductionTable<Nonterminal, NodeType>
             }
 
             closure(nullState);
-            nullState.finishCompilation();
+            nullState.finishCompilation(nonterminalIndex);
             State<Nonterminal, NodeType> canonicalNullState = addState(nullState);
             assert canonicalNullState == nullState && nullState.number == NULL_STATE_NUM;
         }
@@ -497,28 +1546,47 @@ public class ProductionTable<Nonterminal, NodeType>
             Operator<Nonterminal, NodeType> leafOperator = fetchOperator(nodeType, 0);
 
             if (leafOperator != null) {
-                List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
-                newStates.add(new State<Nonterminal,NodeType>(leafOperator.nodeType));
+                generateLeafStates(leafOperator, worklist);
+            }
+        }
+    }
 
-                for (PatternMatcher<Nonterminal, NodeType> p: getPatternsForNodeType(nodeType)) {
-                    if (p.isLeaf()) {
-                        coalesceProduction(Collections.emptyList(), p, newStates);
-                    }
-                }
+    /**
+     * Generate a leaf operator's states.
+     * @param leafOperator  the leaf operator.
+     * @param worklist      the compilation's worklist.
+     * @post the worklist is populated with the novel leaf states.
+     */
+    private void generateLeafStates(Operator<Nonterminal, NodeType> leafOperator, Queue<State<Nonterminal, NodeType>> worklist)
+    {
+        List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
+        newStates.add(new State<Nonterminal,NodeType>(leafOperator.nodeType));
 
-                // The set of non-empty leaf states is the basis for
-                // computing the transition table.
-                for (State<Nonterminal, NodeType> state: newStates) {
+        for (PatternMatcher<Nonterminal, NodeType> p: getPatternsForNodeType(leafOperator.nodeType)) {
+            if (p.isLeaf()) {
+                coalesceProduction(Collections.emptyList(), p, newStates);
+            }
+        }
 
-                    if (state.size() > 0) {
-                        closure(state);
-                        worklist.add(addState(state));
-                    }
-                }
+        // The set of non-empty leaf states is the basis for
+        // computing the transition table. An incremental
+        // generation may already have some of the states;
+        // the leaf uses the existing states.
+        for (int i = 0; i < newStates.size(); i++) {
+            State<Nonterminal, NodeType> state = newStates.get(i);
+
+            if (state.size() > 0) {
 
-                leafOperator.createLeafState(newStates);
+                if (!states.containsKey(state)) {
+                    closure(state);
+                    worklist.add(addState(state));
+                } else {
+                    newStates.set(i, states.get(state));
+                }
             }
         }
+
+        leafOperator.createLeafState(newStates);
     }
 
     /**
@@ -555,17 +1623,67 @@ public class ProductionTable<Nonterminal, NodeType>
             return;
         }
 
-        int arity = op.size();
-
         verbose = verboseTrigger != null && op.toString().matches(verboseTrigger);
         if (verbose) System.out.printf("\ncomputeTransitions(%s,%s)\n",op,state);
 
+        recordTransitions(op, state, permuteTransitions(op, state), workList);
+    }
+
+    /**
+     * A Derivation is a transition that produced a state:
+     * an operator and a tuple of its representer states.
+     */
+    private class Derivation
+    {
+        final Operator<Nonterminal,NodeType> op;
+        final List<RepresenterState<Nonterminal,NodeType>> repStates;
+
+        Derivation(Operator<Nonterminal,NodeType> op, List<RepresenterState<Nonterminal,NodeType>> repStates)
+        {
+            this.op = op;
+            this.repStates = repStates;
+        }
+    }
+
+    /**
+     * PendingTransitions holds the results of permuting an operator's
+     * representer states with a new state, which have not yet been
+     * recorded in the production table and the operator.
+     */
+    private class PendingTransitions
+    {
+        /** The representer states the new state projected, by dimension; null where the projection is empty. */
+        final List<RepresenterState<Nonterminal,NodeType>> projections = new ArrayList<RepresenterState<Nonterminal,NodeType>>();
+
+        /** The tuples of representer states that produced result states. */
+        final List<List<RepresenterState<Nonterminal,NodeType>>> repStateTuples = new ArrayList<List<RepresenterState<Nonterminal,NodeType>>>();
+
+        /** The result states, which may be novel, parallel to repStateTuples. */
+        final List<State<Nonterminal,NodeType>> resultStates = new ArrayList<State<Nonterminal,NodeType>>();
+    }
+
+    /**
+     * Permute an operator's representer states with a new state.
+     * This only modifies the operator's representer states, so
+     * it can run concurrently with other operators' permutations.
+     * @param op        the operator.
+     * @param state     the new state.
+     * @return the transitions found, which must be recorded in order.
+     */
+    private PendingTransitions permuteTransitions(Operator<Nonterminal,NodeType> op, State<Nonterminal,NodeType> state)
+    {
+        PendingTransitions result = new PendingTransitions();
+        int arity = op.size();
+
         for (int dim = 0; dim < arity; dim++) {
 
             RepresenterState<Nonterminal,NodeType> pState = project(op, dim, state);
 
-            if (!pState.isEmpty()) {
+            if (pState.isEmpty()) {
+                result.projections.add(null);
+            } else {
 
+                result.projections.add(pState);
                 boolean novelPState = !op.reps.get(dim).contains(pState);
 
                 if (novelPState) {
@@ -580,40 +1698,97 @@ public class ProductionTable<Nonterminal, NodeType>
                 // as operands to the pattern matching productions applicable
                 // to the operator.
                 for (List<RepresenterState<Nonterminal,NodeType>> repStates: op.generatePermutations(pState, dim)) {
-                    List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
-                    newStates.add(new State<Nonterminal,NodeType>(op.nodeType));
 
-                    for (PatternMatcher<Nonterminal, NodeType> p: getPatternsForNodeType(op.nodeType)) {
-                        if (p.acceptsDimension(arity)) {
-                            coalesceProduction(repStates, p, newStates);
-                        }
+                    for (State<Nonterminal, NodeType> resultState: coalescePermutation(op, repStates)) {
+                        result.repStateTuples.add(repStates);
+                        result.resultStates.add(resultState);
                     }
+                }
+            }
+        }
 
-                    for (State<Nonterminal, NodeType> resultState: newStates) {
-
-                        if (!resultState.isEmpty()) {
-
-                            if (!this.states.containsKey(resultState)) {
-                                // This is a novel state to the production table as a whole;
-                                // add it to the operator and the table, and put it on the
-                                // worklist to see if it can generate additional transitions.
-                                addState(resultState);
-                                closure(resultState);
-                                workList.add(resultState);
-                                if (verbose) System.out.printf("\tadding novel %s->%s to %s\n",repStates, resultState, op);
-                                op.addTransition(repStates, resultState);
-                            } else {
-                                // An equivalent state is already known to the production table;
-                                // use the previously stored state as the canonical representation.
-                                State<Nonterminal, NodeType> canonicalState = addState(resultState);
-                                if (verbose) System.out.printf("\tadding canonical %s->%s to %s\n", repStates, canonicalState, op);
-                                op.addTransition(repStates, canonicalState);
-                            }
-                        }
-                    }
+        return result;
+    }
+
+    /**
+     * Coalesce the productions of an operator's node
+     * type into the states a permutation produces.
+     * @param op        the operator.
+     * @param repStates the permutation of the operator's representer states.
+     * @return the non-empty states the permutation produces.
+     */
+    private List<State<Nonterminal,NodeType>> coalescePermutation(Operator<Nonterminal,NodeType> op, List<RepresenterState<Nonterminal,NodeType>> repStates)
+    {
+        List<State<Nonterminal, NodeType>> newStates = new ArrayList<State<Nonterminal, NodeType>>();
+        newStates.add(new State<Nonterminal,NodeType>(op.nodeType));
+
+        for (PatternMatcher<Nonterminal, NodeType> p: getPatternsForNodeType(op.nodeType)) {
+            if (p.acceptsDimension(op.size())) {
+                coalesceProduction(repStates, p, newStates);
+            }
+        }
+
+        List<State<Nonterminal, NodeType>> result = new ArrayList<State<Nonterminal, NodeType>>();
+
+        for (State<Nonterminal, NodeType> resultState: newStates) {
+
+            if (!resultState.isEmpty()) {
+                result.add(resultState);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Record the transitions found by permuting an
+     * operator's representer states with a new state.
+     * @param op            the operator.
+     * @param state         the new state.
+     * @param transitions   the transitions.
+     * @param workList      [out] the work list of states to process;
+     * novel states are appended to the work list.
+     */
+    private void recordTransitions(Operator<Nonterminal,NodeType> op, State<Nonterminal,NodeType> state, PendingTransitions transitions, Queue<State<Nonterminal, NodeType>> workList)
+    {
+        for (int dim = 0; dim < transitions.projections.size(); dim++) {
+            RepresenterState<Nonterminal,NodeType> pState = transitions.projections.get(dim);
+
+            if (pState != null) {
+                pState.representedStates.add(state);
+
+                if (incrementalGeneration) {
+                    op.recordProjection(dim, state, pState);
                 }
             }
         }
+
+        for (int i = 0; i < transitions.resultStates.size(); i++) {
+            List<RepresenterState<Nonterminal,NodeType>> repStates = transitions.repStateTuples.get(i);
+            State<Nonterminal, NodeType> resultState = transitions.resultStates.get(i);
+
+            if (!this.states.containsKey(resultState)) {
+                // This is a novel state to the production table as a whole;
+                // add it to the operator and the table, and put it on the
+                // worklist to see if it can generate additional transitions.
+                addState(resultState);
+                closure(resultState);
+                workList.add(resultState);
+
+                if (incrementalGeneration) {
+                    derivations.put(resultState, new Derivation(op, repStates));
+                }
+
+                if (verbose) System.out.printf("\tadding novel %s->%s to %s\n",repStates, resultState, op);
+                op.addTransition(repStates, resultState);
+            } else {
+                // An equivalent state is already known to the production table;
+                // use the previously stored state as the canonical representation.
+                State<Nonterminal, NodeType> canonicalState = addState(resultState);
+                if (verbose) System.out.printf("\tadding canonical %s->%s to %s\n", repStates, canonicalState, op);
+                op.addTransition(repStates, canonicalState);
+            }
+        }
     }
 
     /**
@@ -636,7 +1811,7 @@ public class ProductionTable<Nonterminal, NodeType>
      * PatternMatcher's target nonterminal if the State can satisfy the
      * predicate method and the new PatternMatcher is the best fit.
      */
-    void coalesceProduction(List<RepresenterState<Nonterminal,NodeType>> repStates, PatternMatcher<Nonterminal, NodeType> p, List<State<Nonterminal, NodeType>> newStates)
+    static <Nonterminal, NodeType> void coalesceProduction(List<RepresenterState<Nonterminal,NodeType>> repStates, PatternMatcher<Nonterminal, NodeType> p, List<State<Nonterminal, NodeType>> newStates)
     {
         long cost = p.ownCost;
 
@@ -735,9 +1910,9 @@ public class ProductionTable<Nonterminal, NodeType>
             }
         }
 
-        RepresenterState<Nonterminal, NodeType> result = addRepresenterState(candidate);
-        result.representedStates.add(state);
-        return result;
+        // The caller records the state in the
+        // representer state's represented states.
+        return addRepresenterState(candidate);
     }
 
     /**
@@ -746,7 +1921,7 @@ public class ProductionTable<Nonterminal, NodeType>
      * @return the list of pattern matchers for this node type.
      * @post If no list was present, it has been created.
      */
-    private List<PatternMatcher<Nonterminal,NodeType>> getPatternsForNodeType(NodeType nodeType)
+    List<PatternMatcher<Nonterminal,NodeType>> getPatternsForNodeType(NodeType nodeType)
     {
         if (!patternMatchersByNodeType.containsKey(nodeType)) {
             patternMatchersByNodeType.put(nodeType, new ArrayList<PatternMatcher<Nonterminal,NodeType>>());
@@ -773,6 +1948,17 @@ public class ProductionTable<Nonterminal, NodeType>
         return states.get(state);
     }
 
+    /**
+     * Find the canonical state equivalent to a state.
+     * @param state the state of interest.
+     * @return the equivalent state in the table of
+     * unique states, or null if there is none.
+     */
+    State<Nonterminal, NodeType> getCanonicalState(State<Nonterminal, NodeType> state)
+    {
+        return states.get(state);
+    }
+
     /**
      * Add a potentially novel representer state.
      * It is not as important to create a minimized set of representer states
@@ -784,41 +1970,43 @@ public class ProductionTable<Nonterminal, NodeType>
      */
     private RepresenterState<Nonterminal,NodeType> addRepresenterState(RepresenterState<Nonterminal,NodeType> rs)
     {
-        if (!repStates.containsKey(rs)) {
-            repStates.put(rs, rs);
-        }
-
-        return repStates.get(rs);
+        RepresenterState<Nonterminal,NodeType> result = repStates.putIfAbsent(rs, rs);
+        return result != null? result: rs;
     }
 
     /**
      * Get a state by number.
      */
+    @Override
     State<Nonterminal, NodeType> getState(int stateNumber) {
 
-        if (stateNumber < 0 || stateNumber > statesInEntryOrder.size()) {
-            return getErrorState();
-        } else {
-            return statesInEntryOrder.get(stateNumber);
-        }
+        State<Nonterminal, NodeType> result = stateNumber >= 0 && stateNumber < statesInEntryOrder.size()? statesInEntryOrder.get(stateNumber): null;
+        return result != null? result: getErrorState();
     }
 
-    /**
-     * Get the error state.
-     */
-    public State<Nonterminal, NodeType> getErrorState()
+    @Override
+    public int getStateCount()
     {
-        return this.errorState;
+        return statesInEntryOrder.size();
     }
 
-
     /**
      * Get the Operator that handles a nodeType(nt*) tuple.
      * @param nodeType  the node type of interest.
      * @param arity     the actual arity of the subtree.
      */
+    @Override
     Operator<Nonterminal, NodeType> getOperator(NodeType nodeType, int arity)
     {
+        checkNotFrozen();
+
+        Operator<Nonterminal, NodeType>[][] dispatch = this.operatorDispatch;
+
+        if (dispatch != null && nodeType instanceof Enum) {
+            Operator<Nonterminal, NodeType>[] row = dispatch[((Enum<?>)nodeType).ordinal()];
+            return row != null? row[Math.min(arity, row.length - 1)]: null;
+        }
+
         List<Operator<Nonterminal, NodeType>> opsForNodeType = operators.get(nodeType);
 
         if (opsForNodeType != null) {
@@ -855,6 +2043,30 @@ public class ProductionTable<Nonterminal, NodeType>
         }
     }
 
+    /**
+     * Dump the production table in binary form;
+     * see BinaryTableLoader for the corresponding loader.
+     * @param dumpPath  a pathname for the dump.
+     * @return true if the dump succeeded.
+     */
+    public boolean dumpBinary(String dumpPath)
+    {
+        checkNotFrozen();
+        checkNoDynamicOperators();
+
+        try {
+            java.io.OutputStream out = new java.io.BufferedOutputStream(new java.io.FileOutputStream(dumpPath));
+            new BinaryTableWriter<Nonterminal, NodeType>(this).write(out);
+            out.close();
+
+        } catch (java.io.IOException cannotDump) {
+            cannotDump.printStackTrace();
+            return false;
+        }
+
+        return true;
+    }
+
     /**
      * Load an operator into the operator table.
      * @param op    the operator to be loaded.
@@ -875,6 +2087,50 @@ public class ProductionTable<Nonterminal, NodeType>
         }
 
         opsForNodeType.set(arity, op);
+        op.finishLoading();
+        operatorDispatch = null;
+        finished = false;
+    }
+
+    /**
+     * Record a state loaded from a dump, so it can be found by number.
+     * States are loaded once per transition table leaf that refers to
+     * them; the first state loaded with a given number is kept.
+     * @param state the loaded state.
+     */
+    void loadState(State<Nonterminal, NodeType> state)
+    {
+        while (statesInEntryOrder.size() <= state.number) {
+            statesInEntryOrder.add(null);
+        }
+
+        if (statesInEntryOrder.get(state.number) == null) {
+            statesInEntryOrder.set(state.number, state);
+        }
+    }
+
+    /**
+     * Finish loading a production table: finish
+     * compilation of the error state, whose productions
+     * and closures are loaded separately from the operators,
+     * and put the error state and the null pointer state
+     * at their known indexes in the state table.
+     */
+    void finishLoading()
+    {
+        errorState.finishCompilation(nonterminalIndex);
+
+        List<State<Nonterminal, NodeType>> loadedStates = new ArrayList<State<Nonterminal, NodeType>>(statesInEntryOrder);
+        statesInEntryOrder.clear();
+        statesInEntryOrder.add(errorState);
+        getNullPointerState();
+
+        for (int i = statesInEntryOrder.size(); i < loadedStates.size(); i++) {
+            statesInEntryOrder.add(loadedStates.get(i));
+        }
+
+        buildOperatorDispatch();
+        finished = true;
     }
 
     /**
@@ -887,6 +2143,9 @@ public class ProductionTable<Nonterminal, NodeType>
      */
     public boolean dump(String dumpPath, String templateGroup, Map<String,String> attributes, Map<String,Object> defaultAttributes, BURMSemantics<?,?> semantics)
     {
+        checkNotFrozen();
+        checkNoDynamicOperators();
+
         if (dumpPath != null) {
 
             try {
@@ -978,42 +2237,25 @@ public class ProductionTable<Nonterminal, NodeType>
     }
 
     /**
-     * Label a tree; this is the first pass
-     * of the rewrite engine. After a tree
-     * is labeled, it can be analyzed by walking
-     * it with a visitor, or by directly querying
-     * the available nonterminal states of its root's
-     * transition table leaf.
-     * @param node the root of the tree to label.
+     * Encode this table's transition tables, predicates, and closure
+     * chains as flat int arrays, for templates that emit table-driven
+     * BURMs; templates get the encoding as the table's compactTables.
+     * @return the encoded tables.
+     * @throws IllegalStateException if the table's states have not
+     * been generated or loaded, or if an operator exceeded the
+     * transition budget.
      */
-    public void label(BurgInput<Nonterminal, NodeType> node, Object visitor, boolean labelSubtrees)
-    throws Exception
+    public CompactTables<Nonterminal, NodeType> getCompactTables()
     {
-        // Null subtrees all share a singleton state in the production table;
-        // it's precomputed into the transition table and the operators use it
-        // when they encounter a null subtree.
-        if (node != null) {
+        checkNotFrozen();
 
-            int subtreeCount = node.getSubtreeCount();
-
-            for (int i = 0; labelSubtrees && i < subtreeCount; i++) {
-                label(node.getSubtree(i), visitor, labelSubtrees);
-            }
-
-            Operator<Nonterminal, NodeType> op = getOperator(node.getNodeType(), node.getSubtreeCount());
+        if (!finished) {
+            throw new IllegalStateException("Encoding a production table requires its states to be generated or loaded");
+        }
 
-            if (op != null) {
+        checkNoDynamicOperators();
 
-                if (subtreeCount > 0) {
-                    op.assignState(node, visitor);
-                } else {
-                    op.setLeafState(node, visitor);
-                }
-            } else {
-                node.setStateNumber(0);
-                node.setTransitionTableLeaf(errorState);
-            }
-        } 
+        return new CompactTables<Nonterminal, NodeType>(this);
     }
 
     public boolean canProduce(BurgInput<Nonterminal,NodeType> node, Nonterminal goal, Object visitor)
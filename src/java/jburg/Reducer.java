@@ -1,7 +1,10 @@
 package jburg;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
+import jburg.semantics.HostRoutine;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A Reducer is the actual tree parsing automaton.
@@ -25,19 +28,251 @@ public class Reducer<Nonterminal, NodeType>
     /**
      * The production table this Reducer will use to derive its inputs.
      */
-    final ProductionTable<Nonterminal, NodeType> productionTable;
+    final AbstractProductionTable<Nonterminal, NodeType> productionTable;
+
+    /**
+     * When set, label() and reduce() run iteratively,
+     * driven by explicit work stacks, instead of recursing
+     * once per level of the tree.
+     */
+    private boolean iterative = false;
+
+    /**
+     * How label() and reduce() treat subtrees that are shared by several parents.
+     */
+    public enum SharedSubtrees
+    {
+        /**
+         * The input is treated as a tree: a shared subtree is
+         * labeled once per parent, and reduced once per parent.
+         */
+        Relabel,
+        /**
+         * The input is a directed acyclic graph: each distinct node
+         * is labeled once, but a shared subtree is still reduced,
+         * and its callbacks run, once per parent.
+         */
+        LabelOnce,
+        /**
+         * The input is a directed acyclic graph: each distinct node
+         * is labeled once, and reduced at most once per goal; parents
+         * that reduce a node to the same goal reuse the first result.
+         */
+        ReduceOnce
+    }
+
+    /**
+     * How this reducer treats shared subtrees.
+     */
+    private SharedSubtrees sharedSubtrees = SharedSubtrees.Relabel;
+
+    /**
+     * Results of reductions, by node and goal ordinal, when
+     * reducing shared subtrees once; valid until the next label().
+     */
+    private final Map<BurgInput<Nonterminal, NodeType>, Object[]> reductions = new IdentityHashMap<BurgInput<Nonterminal, NodeType>, Object[]>();
+
+    /**
+     * Marks goals that have not been reduced in a node's memoized reductions.
+     */
+    private static final Object NOT_REDUCED = new Object();
+
+    /**
+     * Frames used by iterative reductions; the frames
+     * are reused across calls to reduce().
+     */
+    private final List<ReductionFrame<Nonterminal, NodeType>> frames = new ArrayList<ReductionFrame<Nonterminal, NodeType>>();
+
+    /**
+     * The number of frames currently in use.
+     */
+    private int frameDepth = 0;
+
+    /**
+     * The work stack for iterative labeling; reused across calls to label().
+     */
+    private final LabelStack<Nonterminal, NodeType> labelStack = new LabelStack<Nonterminal, NodeType>();
+
+    /**
+     * The label store that receives the nodes' state numbers,
+     * or null to label the nodes themselves.
+     */
+    private LabelStore<Nonterminal, NodeType> labelStore = null;
+
+    /**
+     * The pool that labels sibling subtrees in parallel,
+     * or null to label trees in the calling thread.
+     */
+    private ForkJoinPool labelingPool = null;
+
+    /**
+     * The smallest subtree that's labeled by a task of its own
+     * when labeling in parallel.
+     */
+    private int parallelLabelingThreshold = DEFAULT_PARALLEL_LABELING_THRESHOLD;
+
+    /**
+     * The default parallel labeling threshold.
+     */
+    public static final int DEFAULT_PARALLEL_LABELING_THRESHOLD = 1024;
+
+    /**
+     * The reducer generated by compile(), or null
+     * to reduce trees by interpreting the production table.
+     */
+    private SpecializedReducer specializedReducer = null;
 
     /**
      * Construct a Reducer.
      * @param visitor           the visitor.
      * @param productionTable   the productions this reducer can use to derive its inputs.
      */
-    public Reducer(Object visitor, ProductionTable<Nonterminal, NodeType> productionTable)
+    public Reducer(Object visitor, AbstractProductionTable<Nonterminal, NodeType> productionTable)
     {
         this.visitor = visitor;
         this.productionTable = productionTable;
     }
 
+    /**
+     * Select recursive or iterative labeling and reduction.
+     * The iterative labeler and reducer run the same predicates
+     * and callbacks in the same order as their recursive
+     * counterparts, but they keep their pending work in
+     * explicit stacks rather than on the Java stack, so they
+     * can label and reduce arbitrarily deep trees.
+     * @param iterative true to label and reduce iteratively.
+     * @return the previous setting.
+     */
+    public boolean setIterative(boolean iterative)
+    {
+        boolean result = this.iterative;
+        this.iterative = iterative;
+        return result;
+    }
+
+    /**
+     * Select how shared subtrees are labeled and reduced.
+     * When the input is a directed acyclic graph rather than
+     * a tree, e.g., when a front end shares common subexpressions,
+     * labeling each distinct node once avoids relabeling shared
+     * subtrees once per path to them; reducing each (node, goal)
+     * pair once also avoids rerunning their callbacks, which is
+     * only correct if the callbacks' results can be shared.
+     * Nodes are identified by identity, not by equals().
+     * Parallel labeling is only used when shared subtrees are relabeled.
+     * @param sharedSubtrees    the treatment of shared subtrees.
+     * @return the previous setting.
+     */
+    public SharedSubtrees setSharedSubtrees(SharedSubtrees sharedSubtrees)
+    {
+        SharedSubtrees result = this.sharedSubtrees;
+        this.sharedSubtrees = sharedSubtrees;
+        this.reductions.clear();
+        return result;
+    }
+
+    /**
+     * Label sibling subtrees in parallel, or stop doing so.
+     * Parallel labeling requires thread-safe predicate methods;
+     * see ProductionTable.labelInParallel() for the details.
+     * Reduction is unaffected.
+     * @param pool  the pool that runs the labeling tasks,
+     * or null to label trees in the calling thread.
+     * @return the previous pool.
+     */
+    public ForkJoinPool setLabelingPool(ForkJoinPool pool)
+    {
+        ForkJoinPool result = this.labelingPool;
+        this.labelingPool = pool;
+        return result;
+    }
+
+    /**
+     * Label trees into a label store, or stop doing so.
+     * When a label store is set, label() leaves the tree's nodes
+     * untouched and stores their state numbers in the label store,
+     * and reduce() and canProduce() read them from it; so an
+     * immutable tree can be labeled, and one tree can be labeled
+     * concurrently by several reducers, each with its own production
+     * table and label store. label() clears the store before it
+     * labels each tree, so the store doesn't keep the nodes of
+     * previous trees reachable.
+     * Parallel labeling is not used when a label store is set.
+     * @param store the label store, or null to label the nodes themselves.
+     * @return the previous label store.
+     */
+    public LabelStore<Nonterminal, NodeType> setLabelStore(LabelStore<Nonterminal, NodeType> store)
+    {
+        LabelStore<Nonterminal, NodeType> result = this.labelStore;
+        this.labelStore = store;
+        return result;
+    }
+
+    /**
+     * Compile the production table into a reducer specialized to it.
+     * A reducer class is generated whose code switches on each node's
+     * state number and the goal, and calls the callbacks of the goal's
+     * closure chain without reflection.
+     * The specialized reducer is used by recursive reductions of nodes
+     * labeled by this reducer's production table, when no label store is set;
+     * reductions it doesn't cover are interpreted as before.
+     * <p>Compiling a reducer doesn't modify its production table, which
+     * other threads' reducers may be using. The table's routines must
+     * already have been compiled by the table's compileRoutines(), which
+     * rewires the table and so must be called before the table is
+     * published to other threads; the reductions this reducer interprets,
+     * and its labeling, then call the routines through the compiled copies.
+     * @param lookup    a lookup with full privilege access whose class
+     * can access the visitor's callbacks; the generated classes are
+     * defined as hidden classes in its package.
+     * @return the number of (state, goal) reductions compiled.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     * @throws IllegalStateException if the production table's routines
+     * haven't been compiled.
+     * @see AbstractProductionTable#compileRoutines
+     */
+    public int compile(MethodHandles.Lookup lookup)
+    throws IllegalAccessException
+    {
+        if (!productionTable.hasCompiledRoutines()) {
+            throw new IllegalStateException("Compiling a reducer requires its production table's routines to be compiled; call compileRoutines() before publishing the table");
+        }
+
+        ReducerGenerator<Nonterminal, NodeType> generator = new ReducerGenerator<Nonterminal, NodeType>(productionTable, lookup);
+        this.specializedReducer = generator.generate(
+            new SpecializedReducer()
+            {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object reduce(Object visitor, BurgInput<?,?> node, Object goal, int goalOrdinal)
+                throws Exception
+                {
+                    return reduceRecursively((BurgInput<Nonterminal, NodeType>)node, goal);
+                }
+            }
+        );
+
+        return generator.getReductionCount();
+    }
+
+    /**
+     * Set the smallest subtree that's labeled by a task of its own
+     * when labeling in parallel; smaller subtrees are labeled by
+     * their parent's task.
+     * @param threshold the threshold, in nodes.
+     * @return the previous threshold.
+     */
+    public int setParallelLabelingThreshold(int threshold)
+    {
+        if (threshold < 1) {
+            throw new IllegalArgumentException(String.format("parallel labeling threshold %d must be positive", threshold));
+        }
+
+        int result = this.parallelLabelingThreshold;
+        this.parallelLabelingThreshold = threshold;
+        return result;
+    }
+
     /**
      * First pass: label a tree.
      * @param node the root of the tree to label.
@@ -45,7 +280,55 @@ public class Reducer<Nonterminal, NodeType>
     public void label(BurgInput<Nonterminal, NodeType> node)
     throws Exception
     {
-        productionTable.label(node, visitor, ProductionTable.LABEL_DEEP);
+        reductions.clear();
+
+        if (labelStore != null) {
+            labelStore.clear();
+        }
+
+        if (sharedSubtrees != SharedSubtrees.Relabel) {
+            Set<BurgInput<Nonterminal, NodeType>> labeledNodes = Collections.newSetFromMap(new IdentityHashMap<BurgInput<Nonterminal, NodeType>, Boolean>());
+
+            if (iterative) {
+                productionTable.labelDagIteratively(node, visitor, labelStack, labeledNodes, labelStore);
+            } else {
+                productionTable.labelDag(node, visitor, labeledNodes, labelStore);
+            }
+        } else if (labelStore != null) {
+
+            if (iterative) {
+                productionTable.labelIteratively(node, visitor, labelStack, labelStore);
+            } else {
+                productionTable.label(node, visitor, labelStore);
+            }
+        } else if (labelingPool != null) {
+            productionTable.labelInParallel(node, visitor, labelingPool, parallelLabelingThreshold);
+        } else if (iterative) {
+            productionTable.labelIteratively(node, visitor, labelStack);
+        } else {
+            productionTable.label(node, visitor, ProductionTable.LABEL_DEEP);
+        }
+    }
+
+    /**
+     * First pass: label a tree that will be reduced to a known goal,
+     * running only the predicates that can change its reduction.
+     * A tree whose subtrees may be shared, or that's labeled into a
+     * label store, is labeled by label() instead, since a shared
+     * subtree may be reduced to different goals by different parents.
+     * @param node  the root of the tree to label.
+     * @param goal  the nonterminal the root will be reduced to.
+     * @see AbstractProductionTable#labelForGoal(BurgInput, Object, Object)
+     */
+    public void labelForGoal(BurgInput<Nonterminal, NodeType> node, Object goal)
+    throws Exception
+    {
+        if (sharedSubtrees != SharedSubtrees.Relabel || labelStore != null) {
+            label(node);
+        } else {
+            reductions.clear();
+            productionTable.labelForGoal(node, visitor, goal);
+        }
     }
 
     /**
@@ -56,7 +339,16 @@ public class Reducer<Nonterminal, NodeType>
      */
     public boolean canProduce(BurgInput<Nonterminal, NodeType> node, Object goal)
     {
-        State<Nonterminal,NodeType> state = node != null? productionTable.getState(node.getStateNumber()): productionTable.getNullPointerState();
+        State<Nonterminal,NodeType> state;
+
+        if (node == null) {
+            state = productionTable.getNullPointerState();
+        } else if (labelStore != null) {
+            state = productionTable.getState(labelStore.getStateNumber(node));
+        } else {
+            state = productionTable.getState(node.getStateNumber());
+        }
+
         return state.getCost(goal) < Integer.MAX_VALUE;
     }
 
@@ -71,30 +363,291 @@ public class Reducer<Nonterminal, NodeType>
     public Object reduce(BurgInput<Nonterminal, NodeType> node, Object goal)
     throws Exception
     {
-        // TODO: Run the entire algorithm iteratively, using the stack.
-        Stack<Production<Nonterminal>> productions = new Stack<Production<Nonterminal>>();
-        return reduce(node, goal, productions);
+        if (iterative) {
+            return reduceIteratively(node, goal);
+        } else if (sharedSubtrees == SharedSubtrees.ReduceOnce && node != null) {
+            return reduceOnce(node, goal);
+        } else if (specializedReducer != null && labelStore == null) {
+            return specializedReducer.reduce(visitor, node, goal, productionTable.nonterminalIndex.lookup(goal));
+        }
+
+        return reduceRecursively(node, goal);
     }
 
     /**
-     * Recursively reduce subtrees.
-     * @param node the root of a subtree.
-     * @param goal the subtree's state.
-     * @param pendingProductions    a stack of productions whose
-     * antecedent production has yet to be completed; passed here
-     * to avoid extra object creation, and eventually to be used
-     * to run the algorithm iteratively.
+     * Reduce a node to a goal, or reuse the result
+     * of its previous reduction to the same goal.
+     * @param node  the root of a subtree; not null.
+     * @param goal  the nonterminal to reduce it to.
      * @return the result of deriving the subtree.
-     * @throws Exception from the production's semantic action routines,
-     * and a few diagnostics for unlabeled trees or mismatched parameters.
+     */
+    private Object reduceOnce(BurgInput<Nonterminal, NodeType> node, Object goal)
+    throws Exception
+    {
+        Object result = getReduction(node, goal);
+
+        if (result == NOT_REDUCED) {
+            result = reduceRecursively(node, goal);
+            setReduction(node, goal, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the memoized result of reducing a node to a goal.
+     * @param node  the node.
+     * @param goal  the goal.
+     * @return the result, or NOT_REDUCED if there is none.
+     */
+    private Object getReduction(BurgInput<Nonterminal, NodeType> node, Object goal)
+    {
+        Object[] nodeReductions = reductions.get(node);
+        int ordinal = productionTable.nonterminalIndex.lookup(goal);
+
+        if (nodeReductions != null && ordinal >= 0 && ordinal < nodeReductions.length) {
+            return nodeReductions[ordinal];
+        }
+
+        return NOT_REDUCED;
+    }
+
+    /**
+     * Memoize the result of reducing a node to a goal.
+     * @param node      the node.
+     * @param goal      the goal.
+     * @param result    the result of the reduction.
+     */
+    private void setReduction(BurgInput<Nonterminal, NodeType> node, Object goal, Object result)
+    {
+        int ordinal = productionTable.nonterminalIndex.lookup(goal);
+
+        if (ordinal < 0) {
+            return;
+        }
+
+        Object[] nodeReductions = reductions.get(node);
+
+        if (nodeReductions == null) {
+            nodeReductions = new Object[productionTable.nonterminalIndex.size()];
+            Arrays.fill(nodeReductions, NOT_REDUCED);
+            reductions.put(node, nodeReductions);
+        }
+
+        nodeReductions[ordinal] = result;
+    }
+
+    /**
+     * First pass: label a FlatTree.
+     * @param tree  the tree to label.
+     * @see AbstractProductionTable#labelFlatTree(FlatTree, Object)
+     */
+    public void labelFlatTree(FlatTree<Nonterminal, NodeType> tree)
+    throws Exception
+    {
+        productionTable.labelFlatTree(tree, visitor);
+    }
+
+    /**
+     * Can a node of a FlatTree produce the given nonterminal?
+     * @param tree  the tree.
+     * @param index the node's index, or FlatTree.NULL_NODE.
+     * @param goal  the nonterminal of interest.
+     * @return true if node's state can produce the goal.
+     */
+    public boolean canProduce(FlatTree<Nonterminal, NodeType> tree, int index, Object goal)
+    {
+        State<Nonterminal,NodeType> state = index != FlatTree.NULL_NODE? productionTable.getState(tree.getStateNumber(index)): productionTable.getNullPointerState();
+        return state.getCost(goal) < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Second pass: reduce a FlatTree to the desired goal.
+     * The reduction runs the same callbacks in the same order
+     * as reducing the equivalent tree of BurgInput nodes; the
+     * callbacks receive the objects the tree's nodes carry.
+     * The nodes are reduced in the order they're stored, which
+     * is post order, so deep trees don't exhaust the stack.
+     * @param tree  the tree, which must be labeled.
+     * @param goal  the nonterminal corresponding to the
+     * desired result object.
+     * @return the result of deriving the tree.
+     */
+    public Object reduceFlatTree(FlatTree<Nonterminal, NodeType> tree, Object goal)
+    throws Exception
+    {
+        int root = tree.getRoot();
+
+        if (root == FlatTree.NULL_NODE) {
+            return reduceRecursively(null, goal);
+        }
+
+        FlatReduction<Nonterminal, NodeType> flat = new FlatReduction<Nonterminal, NodeType>(tree);
+        flat.goals[root] = goal;
+
+        // The nodes that are entered before the current node is reduced.
+        int[] entering = new int[16];
+
+        for (int index = 0; index <= root; index++) {
+
+            if (!flat.entered[index]) {
+                // The node is the first in its subtree, and in the subtrees
+                // of any ancestors that haven't been entered; enter them,
+                // outermost first, so their pre callbacks run in the order
+                // the recursive reducer runs them.
+                int depth = 0;
+
+                for (int n = index; n != FlatTree.NULL_NODE && !flat.entered[n]; n = flat.parents[n]) {
+
+                    if (depth == entering.length) {
+                        entering = Arrays.copyOf(entering, depth * 2);
+                    }
+
+                    entering[depth++] = n;
+                }
+
+                while (depth > 0) {
+                    enterFlatNode(flat, entering[--depth]);
+                }
+            }
+
+            if (flat.goals[index] != null) {
+                flat.results[index] = completeFlatNode(flat, index);
+            }
+        }
+
+        return flat.results[root];
+    }
+
+    /**
+     * Enter a node of a FlatTree: reduce any null subtrees
+     * of its parent that precede it, then run the pre callbacks
+     * of the closures and pattern matcher that derive the node,
+     * and set its subtrees' goals.
+     * @param flat  the reduction.
+     * @param index the node's index.
+     */
+    private void enterFlatNode(FlatReduction<Nonterminal, NodeType> flat, int index)
+    throws Exception
+    {
+        FlatTree<Nonterminal, NodeType> tree = flat.tree;
+        Object goal = flat.goals[index];
+        flat.entered[index] = true;
+
+        if (goal == null) {
+            // The node's parent doesn't reduce its subtrees.
+            return;
+        } else if (tree.getStateNumber(index) < 0) {
+            throw new IllegalStateException(String.format("Unlabeled node %d", index));
+        }
+
+        if (flat.parents[index] != FlatTree.NULL_NODE) {
+            reduceNullSubtrees(flat, flat.parents[index], flat.positions[index]);
+        }
+
+        State<Nonterminal,NodeType> state = productionTable.getState(tree.getStateNumber(index));
+
+        if (state instanceof ErrorState) {
+            // The error handler runs when the node is completed.
+            return;
+        }
+
+        Production<Nonterminal>[] closureChain = state.getClosureChain(goal);
+        @SuppressWarnings("unchecked")
+        PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)runPreCallbacks(tree.getNode(index), goal, closureChain);
+        flat.closureChains[index] = closureChain;
+
+        for (int i = 0; i < tree.getSubtreeCount(index); i++) {
+            int subtree = tree.getSubtree(index, i);
+
+            if (subtree != FlatTree.NULL_NODE) {
+                flat.goals[subtree] = patternMatcher.getNonterminal(i);
+            }
+        }
+    }
+
+    /**
+     * Reduce the null subtrees of a FlatTree's node that
+     * precede a subtree, back to the previous non-null subtree.
+     * @param flat      the reduction.
+     * @param index     the node's index; the node has been entered.
+     * @param position  the subtree's position, or the node's
+     * subtree count to reduce its trailing null subtrees.
+     */
+    private void reduceNullSubtrees(FlatReduction<Nonterminal, NodeType> flat, int index, int position)
+    throws Exception
+    {
+        int first = position;
+
+        while (first > 0 && flat.tree.getSubtree(index, first - 1) == FlatTree.NULL_NODE) {
+            first--;
+        }
+
+        if (first < position) {
+            Production<Nonterminal>[] closureChain = flat.closureChains[index];
+            @SuppressWarnings("unchecked")
+            PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)closureChain[closureChain.length-1];
+
+            for (int i = first; i < position; i++) {
+                flat.setNullSubtreeResult(index, i, reduceRecursively(null, patternMatcher.getNonterminal(i)));
+            }
+        }
+    }
+
+    /**
+     * Complete a node of a FlatTree whose subtrees have all been
+     * reduced: run the post callbacks of its pattern matcher and
+     * closures, or its error handler.
+     * @param flat  the reduction.
+     * @param index the node's index; the node has been entered.
+     * @return the result of deriving the node.
+     */
+    private Object completeFlatNode(FlatReduction<Nonterminal, NodeType> flat, int index)
+    throws Exception
+    {
+        Object node = flat.tree.getNode(index);
+        Production<Nonterminal>[] closureChain = flat.closureChains[index];
+
+        if (closureChain == null) {
+            return handleError(node, flat.goals[index]);
+        }
+
+        int subtreeCount = flat.tree.getSubtreeCount(index);
+        reduceNullSubtrees(flat, index, subtreeCount);
+
+        @SuppressWarnings("unchecked")
+        PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)closureChain[closureChain.length-1];
+        Object result = null;
+
+        if (patternMatcher.postCallback != null) {
+            result = runPostCallback(patternMatcher, node, subtreeCount, null, flat, index);
+        }
+
+        return runClosurePostCallbacks(node, closureChain, result);
+    }
+
+    /**
+     * Get the state that a node was labeled with.
+     * @param node  the node, which may be null.
+     * @return the node's state, or the null pointer
+     * state if the node is null.
+     * @throws IllegalStateException if the node is unlabeled.
      */
     @SuppressWarnings("unchecked")
-    private Object reduce(BurgInput<Nonterminal, NodeType> node, Object goal, Stack<Production<Nonterminal>> pendingProductions)
+    private State<Nonterminal,NodeType> getReductionState(BurgInput<Nonterminal, NodeType> node)
     throws Exception
     {
         State<Nonterminal,NodeType> state;
 
-        if (node != null) {
+        if (node != null && labelStore != null) {
+            int stateNumber = labelStore.getStateNumber(node);
+
+            if (stateNumber < 0) {
+                throw new IllegalStateException(String.format("Unlabeled node %s",node));
+            }
+
+            state = productionTable.getState(stateNumber);
+        } else if (node != null) {
             state = (State<Nonterminal,NodeType>)node.getTransitionTableLeaf();
 
             if (state == null) {
@@ -106,154 +659,476 @@ public class Reducer<Nonterminal, NodeType>
             state = productionTable.getNullPointerState();
         }
 
-        // Run pre-callbacks on any closures to get to
-        // the pattern matcher or abnormal node handler.
-        Production<Nonterminal> current = state.getProduction(goal);
+        return state;
+    }
 
-        while(current instanceof Closure) {
-            if (current.preCallback != null) {
-                current.preCallback.invoke(visitor, node, goal);
-            }
-            pendingProductions.push(current);
-            current = state.getProduction(((Closure<Nonterminal>)current).source);
-        }
+    /**
+     * Recursively reduce subtrees.
+     * @param node the root of a subtree.
+     * @param goal the subtree's state.
+     * @return the result of deriving the subtree.
+     * @throws Exception from the production's semantic action routines,
+     * and a few diagnostics for unlabeled trees or mismatched parameters.
+     */
+    private Object reduceRecursively(BurgInput<Nonterminal, NodeType> node, Object goal)
+    throws Exception
+    {
+        State<Nonterminal,NodeType> state = getReductionState(node);
 
-        if (current.preCallback != null) {
-            current.preCallback.invoke(visitor, node, goal);
+        if (state instanceof ErrorState) {
+            return handleError(node, goal);
         }
 
+        // Run pre-callbacks on any closures, then on
+        // the pattern matcher or abnormal node handler.
+        Production<Nonterminal>[] closureChain = state.getClosureChain(goal);
+        Production<Nonterminal> current = runPreCallbacks(node, goal, closureChain);
+
         Object result = null;
 
         // Reduce children and collect results
-        if (state instanceof ErrorState) {
-            result = handleError(node, goal, pendingProductions);
-        } else if (current instanceof NullPointerProduction) {
+        if (current instanceof NullPointerProduction) {
             if (current.postCallback != null) {
-                result = current.postCallback.invoke(visitor, node, goal);
+                result = current.postCallback.invoke2(visitor, node, goal);
             }
         } else if (current.postCallback != null) {
 
             assert current instanceof PatternMatcher: String.format("Expected PatternMatcher, got %s\n", current);
             @SuppressWarnings("unchecked")
             PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)current;
+            result = runPostCallback(patternMatcher, node, node.getSubtreeCount(), node, null, FlatTree.NULL_NODE);
+        } else {
+            result = null;
 
-            int formalCount = current.postCallback.getParameterCount();
-            // The actual parameters are the root of the subtree itself,
-            // plus the result of reducing each of the root's children.
-            int actualCount = node.getSubtreeCount() + 1;
+            if (node != null) {
+                // Reduce the children; there may be side effects.
+                assert current instanceof PatternMatcher: String.format("Expected PatternMatcher, got %s\n", current);
+                @SuppressWarnings("unchecked")
+                PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)current;
 
-            if (!current.postCallback.isVarArgs()) {
+                for (int i = 0; i < node.getSubtreeCount(); i++) {
+                    reduce(node.getSubtree(i), patternMatcher.getNonterminal(i));
+                }
+            }
+        }
 
-                switch(node.getSubtreeCount()) {
-                    case 0:
-                        result = current.postCallback.invoke(visitor, node);
-                        break;
+        return runClosurePostCallbacks(node, closureChain, result);
+    }
 
-                    case 1:
-                        result = current.postCallback.invoke(visitor, node, reduce(node.getSubtree(0), patternMatcher.getNonterminal(0)));
-                        break;
+    /**
+     * Run a pattern matcher's post callback, passing it the node
+     * and the results of reducing the node's subtrees.
+     * @param patternMatcher    the pattern matcher that derives the node.
+     * @param node              the node passed to the callback: a BurgInput,
+     * or the object a FlatTree's node carries.
+     * @param subtreeCount      the node's subtree count.
+     * @param input             the BurgInput node, whose subtrees are reduced
+     * as their results are needed; null if the node is in a FlatTree.
+     * @param flat              the FlatTree's reduction, which holds the
+     * results of the node's subtrees; null if the node is a BurgInput.
+     * @param index             the node's index in the FlatTree.
+     * @return the callback's result.
+     */
+    private Object runPostCallback(PatternMatcher<Nonterminal, NodeType> patternMatcher, Object node, int subtreeCount, BurgInput<Nonterminal, NodeType> input, FlatReduction<Nonterminal, NodeType> flat, int index)
+    throws Exception
+    {
+        HostRoutine postCallback = patternMatcher.postCallback;
+        int formalCount = postCallback.getParameterCount();
+        // The actual parameters are the root of the subtree itself,
+        // plus the result of reducing each of the root's children.
+        int actualCount = subtreeCount + 1;
+
+        if (!postCallback.isVarArgs()) {
 
-                    case 2:
-                        result = current.postCallback.invoke(
-                            visitor,
-                            node,
-                            reduce(node.getSubtree(0), patternMatcher.getNonterminal(0)),
-                            reduce(node.getSubtree(1), patternMatcher.getNonterminal(1))
-                            );
-                        break;
+            switch(subtreeCount) {
+                case 0:
+                    return postCallback.invoke1(visitor, node);
 
-                    default: {
+                case 1:
+                    return postCallback.invoke2(visitor, node, getSubtreeResult(patternMatcher, input, flat, index, 0));
 
-                        Object[] actuals = new Object[formalCount];
-                        actuals[0] = node;
+                case 2:
+                    return postCallback.invoke3(
+                        visitor,
+                        node,
+                        getSubtreeResult(patternMatcher, input, flat, index, 0),
+                        getSubtreeResult(patternMatcher, input, flat, index, 1)
+                        );
 
-                        if (formalCount == actualCount) {
+                default: {
 
-                            for (int i = 0; i < node.getSubtreeCount(); i++) {
-                                actuals[i+1] = reduce(node.getSubtree(i), patternMatcher.getNonterminal(i));
-                            }
+                    if (formalCount != actualCount) {
+                        throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", postCallback, formalCount, actualCount));
+                    }
 
-                        } else {
-                            throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", current.postCallback, formalCount, actualCount));
-                        }
+                    Object[] actuals = new Object[formalCount];
+                    actuals[0] = node;
 
-                        result = current.postCallback.invoke(visitor, actuals);
+                    for (int i = 0; i < subtreeCount; i++) {
+                        actuals[i+1] = getSubtreeResult(patternMatcher, input, flat, index, i);
                     }
+
+                    return invoke(postCallback, actuals);
                 }
-            } else if (actualCount >= formalCount - 1) {
+            }
+        } else if (actualCount >= formalCount - 1) {
 
-                Object[] actuals = new Object[formalCount];
-                int variadicFormalPos = formalCount - 1;
-                int lastFixedSubtree = variadicFormalPos - 1;
+            int variadicFormalPos = formalCount - 1;
+            int lastFixedSubtree = variadicFormalPos - 1;
+            int nVarArgs = Math.max(0, actualCount - variadicFormalPos);
+
+            // Callbacks that take the node and at most one fixed
+            // argument before the variadic tail are called directly;
+            // others get their actuals packaged in an array.
+            Object[] actuals = null;
+            Object fixedActual = null;
+
+            if (formalCount == 3) {
+                fixedActual = getSubtreeResult(patternMatcher, input, flat, index, 0);
+            } else if (formalCount != 2) {
+                actuals = new Object[formalCount];
                 actuals[0] = node;
 
                 for (int i = 0; i < lastFixedSubtree; i++) {
-                    actuals[i+1] = reduce(node.getSubtree(i), patternMatcher.getNonterminal(i));
+                    actuals[i+1] = getSubtreeResult(patternMatcher, input, flat, index, i);
                 }
+            }
 
-                int nVarArgs = Math.max(0, actualCount - variadicFormalPos);
-                Class<?> variadicFormalClass = (Class<?>)current.postCallback.getVariadicComponentType();
-                Object variadicActuals = actuals[variadicFormalPos] = Array.newInstance(variadicFormalClass, nVarArgs);
+            Object variadicActuals = newVariadicActuals(postCallback, nVarArgs);
 
-                for (int i = 0; i < nVarArgs; i++) {
-                    Object actual = reduce(node.getSubtree(i+lastFixedSubtree), patternMatcher.getNonterminal(i+lastFixedSubtree));
-                    Array.set(variadicActuals, i, actual);
-                }
-
-                result = current.postCallback.invoke(visitor, actuals);
+            for (int i = 0; i < nVarArgs; i++) {
+                setVariadicActual(variadicActuals, i, getSubtreeResult(patternMatcher, input, flat, index, i+lastFixedSubtree));
+            }
 
+            if (formalCount == 2) {
+                return postCallback.invoke2(visitor, node, variadicActuals);
+            } else if (formalCount == 3) {
+                return postCallback.invoke3(visitor, node, fixedActual, variadicActuals);
             } else {
-                throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", current.postCallback, formalCount, actualCount));
+                actuals[variadicFormalPos] = variadicActuals;
+                return invoke(postCallback, actuals);
             }
+
         } else {
-            result = null;
+            throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", postCallback, formalCount, actualCount));
+        }
+    }
 
-            if (node != null) {
-                // Reduce the children; there may be side effects.
-                assert current instanceof PatternMatcher: String.format("Expected PatternMatcher, got %s\n", current);
-                @SuppressWarnings("unchecked")
-                PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)current;
+    /**
+     * Get the result of one of a node's subtrees, either by reducing
+     * a BurgInput's subtree or from a FlatTree's reduction.
+     * @param patternMatcher    the pattern matcher that derives the node.
+     * @param input             the BurgInput node, or null if the node is in a FlatTree.
+     * @param flat              the FlatTree's reduction, or null if the node is a BurgInput.
+     * @param index             the node's index in the FlatTree.
+     * @param position          the subtree's position.
+     * @return the subtree's result.
+     */
+    private Object getSubtreeResult(PatternMatcher<Nonterminal, NodeType> patternMatcher, BurgInput<Nonterminal, NodeType> input, FlatReduction<Nonterminal, NodeType> flat, int index, int position)
+    throws Exception
+    {
+        if (flat != null) {
+            return flat.getSubtreeResult(index, position);
+        }
 
-                for (int i = 0; i < node.getSubtreeCount(); i++) {
-                    reduce(node.getSubtree(i), patternMatcher.getNonterminal(i));
-                }
+        return reduce(input.getSubtree(position), patternMatcher.getNonterminal(position));
+    }
+
+    /**
+     * Run the pre callbacks of the productions in a closure chain,
+     * starting with the closure that produces the goal and ending
+     * with the production that starts the chain.
+     * @param node          the node being reduced.
+     * @param goal          the nonterminal it's being reduced to.
+     * @param closureChain  the state's closure chain for the goal.
+     * @return the production that starts the chain.
+     */
+    private Production<Nonterminal> runPreCallbacks(Object node, Object goal, Production<Nonterminal>[] closureChain)
+    throws Exception
+    {
+        for (Production<Nonterminal> p: closureChain) {
+            if (p.preCallback != null) {
+                p.preCallback.invoke2(visitor, node, goal);
             }
         }
 
-        while (!pendingProductions.isEmpty()) {
-            Production<Nonterminal> closure = pendingProductions.pop();
+        return closureChain[closureChain.length-1];
+    }
+
+    /**
+     * Run the post callbacks of the closures in a closure chain,
+     * in the reverse order of their pre callbacks; each closure's
+     * post callback transforms the result of its source production.
+     * @param node          the node being reduced.
+     * @param closureChain  the state's closure chain for the goal.
+     * @param result        the result of the production that starts the chain.
+     * @return the result of the last closure.
+     */
+    private Object runClosurePostCallbacks(Object node, Production<Nonterminal>[] closureChain, Object result)
+    throws Exception
+    {
+        for (int i = closureChain.length - 2; i >= 0; i--) {
+            Production<Nonterminal> closure = closureChain[i];
             if (closure.postCallback != null) {
-                result = closure.postCallback.invoke(visitor, node, result);
+                result = closure.postCallback.invoke2(visitor, node, result);
             }
         }
 
         return result;
     }
 
-    Object handleError(BurgInput<Nonterminal, NodeType> node, Object goal, Stack<Production<Nonterminal>> pendingProductions)
+    /**
+     * Reduce a tree iteratively. Each frame on the frame stack
+     * corresponds to an activation of the recursive reducer;
+     * a frame reduces its children by pushing a frame for each
+     * child in turn, and completes once all its children's
+     * results are in hand.
+     * @param node the root of the tree.
+     * @param goal the nonterminal corresponding to the
+     * desired result object.
+     * @return the result of deriving the tree.
+     */
+    private Object reduceIteratively(BurgInput<Nonterminal, NodeType> node, Object goal)
     throws Exception
     {
-        Production<Nonterminal> current = productionTable.getErrorState().getProduction(goal);
+        // Callbacks may reenter the reducer; a reentrant
+        // reduction uses the frames above this one's.
+        final int baseDepth = frameDepth;
+
+        try {
+            enterFrame(node, goal);
+
+            while (true) {
+                ReductionFrame<Nonterminal, NodeType> frame = frames.get(frameDepth-1);
+
+                if (frame.hasPendingChild()) {
+                    int childIndex = frame.nextChild;
+                    @SuppressWarnings("unchecked")
+                    PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)frame.production;
+                    enterFrame(frame.node.getSubtree(childIndex), patternMatcher.getNonterminal(childIndex));
+
+                } else {
+                    Object result = completeFrame(frame);
+                    frame.exit();
+                    frameDepth--;
+
+                    if (frameDepth == baseDepth) {
+                        return result;
+                    }
+
+                    ReductionFrame<Nonterminal, NodeType> parent = frames.get(frameDepth-1);
+                    parent.setChildResult(parent.nextChild, result);
+                    parent.nextChild++;
+                }
+            }
+        } finally {
 
-        while(current instanceof Closure) {
-            if (current.preCallback != null) {
-                current.preCallback.invoke(visitor, node, goal);
+            // Unwind any frames abandoned by an exception.
+            while (frameDepth > baseDepth) {
+                frames.get(--frameDepth).exit();
             }
-            pendingProductions.push(current);
-            current = productionTable.getErrorState().getProduction(((Closure<Nonterminal>)current).source);
         }
+    }
 
-        Object result = current.preCallback != null?
-            current.preCallback.invoke(visitor,node,goal):
-            null;
+    /**
+     * Push a frame for a node, and run the pre callbacks
+     * of the closures and pattern matcher that derive it.
+     * @param node the root of a subtree.
+     * @param goal the nonterminal to reduce it to.
+     */
+    private void enterFrame(BurgInput<Nonterminal, NodeType> node, Object goal)
+    throws Exception
+    {
+        if (frameDepth == frames.size()) {
+            frames.add(new ReductionFrame<Nonterminal, NodeType>());
+        }
 
-        while (!pendingProductions.isEmpty()) {
-            Production<Nonterminal> closure = pendingProductions.pop();
-            if (closure.postCallback != null) {
-                result = closure.postCallback.invoke(visitor, node, result);
+        ReductionFrame<Nonterminal, NodeType> frame = frames.get(frameDepth++);
+        frame.enter(node, goal);
+
+        if (sharedSubtrees == SharedSubtrees.ReduceOnce && node != null) {
+            Object reduction = getReduction(node, goal);
+
+            if (reduction != NOT_REDUCED) {
+                frame.result = reduction;
+                return;
             }
+
+            frame.memoize = true;
+        }
+
+        State<Nonterminal,NodeType> state = getReductionState(node);
+
+        if (state instanceof ErrorState) {
+            frame.result = handleError(node, goal);
+            return;
+        }
+
+        // Run pre-callbacks on any closures, then on
+        // the pattern matcher or abnormal node handler.
+        Production<Nonterminal>[] closureChain = state.getClosureChain(goal);
+        Production<Nonterminal> current = runPreCallbacks(node, goal, closureChain);
+
+        frame.production = current;
+        frame.closureChain = closureChain;
+
+        if (current instanceof NullPointerProduction) {
+            if (current.postCallback != null) {
+                frame.result = current.postCallback.invoke2(visitor, node, goal);
+            }
+
+        } else if (current.postCallback != null) {
+            assert current instanceof PatternMatcher: String.format("Expected PatternMatcher, got %s\n", current);
+
+            int formalCount = current.postCallback.getParameterCount();
+            int subtreeCount = node.getSubtreeCount();
+            // The actual parameters are the root of the subtree itself,
+            // plus the result of reducing each of the root's children.
+            int actualCount = subtreeCount + 1;
+
+            if (!current.postCallback.isVarArgs()) {
+
+                if (subtreeCount > 2 && formalCount != actualCount) {
+                    throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", current.postCallback, formalCount, actualCount));
+                }
+
+                frame.allocateActuals(actualCount);
+                frame.fixedChildCount = subtreeCount;
+                frame.childCount = subtreeCount;
+
+            } else if (actualCount >= formalCount - 1) {
+                int variadicFormalPos = formalCount - 1;
+                int lastFixedSubtree = variadicFormalPos - 1;
+                int nVarArgs = Math.max(0, actualCount - variadicFormalPos);
+
+                frame.allocateActuals(formalCount);
+                frame.variadicActuals = frame.actuals[variadicFormalPos] = newVariadicActuals(current.postCallback, nVarArgs);
+                frame.fixedChildCount = lastFixedSubtree;
+                frame.childCount = lastFixedSubtree + nVarArgs;
+
+            } else {
+                throw new IllegalStateException(String.format("Method %s expected %d actuals, received %d", current.postCallback, formalCount, actualCount));
+            }
+
+            frame.actuals[0] = node;
+
+        } else if (node != null) {
+            // Reduce the children; there may be side effects.
+            assert current instanceof PatternMatcher: String.format("Expected PatternMatcher, got %s\n", current);
+            frame.childCount = node.getSubtreeCount();
+        }
+    }
+
+    /**
+     * Complete a frame whose children have all been reduced:
+     * run the post callbacks of its pattern matcher and closures.
+     * @param frame the frame.
+     * @return the result of the frame's reduction.
+     */
+    private Object completeFrame(ReductionFrame<Nonterminal, NodeType> frame)
+    throws Exception
+    {
+        Object result = frame.result;
+
+        if (frame.actuals != null) {
+            result = invoke(frame.production.postCallback, frame.actuals);
+        }
+
+        if (frame.closureChain != null) {
+            result = runClosurePostCallbacks(frame.node, frame.closureChain, result);
+        }
+
+        if (frame.memoize) {
+            setReduction(frame.node, frame.goal, result);
         }
 
         return result;
     }
+
+    /**
+     * Allocate the array that packages a variadic callback's
+     * tail arguments. Arrays of reference types are filled by
+     * {@link #setVariadicActual} with ordinary array stores;
+     * only arrays of primitives are filled reflectively.
+     * @param routine   the variadic callback.
+     * @param length    the number of tail arguments.
+     * @return an array of the routine's variadic component type.
+     */
+    static Object newVariadicActuals(HostRoutine routine, int length)
+    {
+        Class<?> componentType = (Class<?>)routine.getVariadicComponentType();
+        return componentType == Object.class? new Object[length]: Array.newInstance(componentType, length);
+    }
+
+    /**
+     * Store one of a variadic callback's tail arguments.
+     * @param variadicActuals   the array from newVariadicActuals().
+     * @param index             the argument's index in the array.
+     * @param actual            the argument.
+     */
+    static void setVariadicActual(Object variadicActuals, int index, Object actual)
+    {
+        if (variadicActuals instanceof Object[]) {
+            ((Object[])variadicActuals)[index] = actual;
+        } else {
+            Array.set(variadicActuals, index, actual);
+        }
+    }
+
+    /**
+     * Call a routine with an array of actual parameters,
+     * through the routine's arity-specialized entry point
+     * if there is one for the number of actuals.
+     * @param routine   the routine.
+     * @param actuals   the actual parameters.
+     * @return the routine's result.
+     */
+    private Object invoke(HostRoutine routine, Object[] actuals)
+    throws Exception
+    {
+        switch(actuals.length) {
+            case 1:
+                return routine.invoke1(visitor, actuals[0]);
+            case 2:
+                return routine.invoke2(visitor, actuals[0], actuals[1]);
+            case 3:
+                return routine.invoke3(visitor, actuals[0], actuals[1], actuals[2]);
+            case 4:
+                return routine.invoke4(visitor, actuals[0], actuals[1], actuals[2], actuals[3]);
+            default:
+                return routine.invoke(visitor, actuals);
+        }
+    }
+
+    /**
+     * Reduce a node that was labeled with the error state
+     * by running the error handler, and any closures
+     * that derive the goal from the error handler's result.
+     * @param node  the node, which matched no pattern; a BurgInput,
+     * or the object a FlatTree's node carries.
+     * @param goal  the nonterminal to reduce it to.
+     * @return the result of the error handler and its closures.
+     * @throws IllegalArgumentException if no error handler
+     * produces the goal.
+     */
+    Object handleError(Object node, Object goal)
+    throws Exception
+    {
+        Production<Nonterminal>[] closureChain = productionTable.getErrorState().getClosureChain(goal);
+        int handlerPos = closureChain.length - 1;
+
+        for (int i = 0; i < handlerPos; i++) {
+            Production<Nonterminal> closure = closureChain[i];
+            if (closure.preCallback != null) {
+                closure.preCallback.invoke2(visitor, node, goal);
+            }
+        }
+
+        Production<Nonterminal> handler = closureChain[handlerPos];
+        Object result = handler.preCallback != null?
+            handler.preCallback.invoke2(visitor, node, goal):
+            null;
+
+        return runClosurePostCallbacks(node, closureChain, result);
+    }
 }
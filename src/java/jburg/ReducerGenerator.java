@@ -0,0 +1,630 @@
+package jburg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import jburg.semantics.ClassAssembler;
+import jburg.semantics.HostRoutine;
+import jburg.semantics.JavaSemantics;
+
+import static jburg.semantics.ClassAssembler.*;
+
+/**
+ * A ReducerGenerator generates a SpecializedReducer for a production
+ * table and defines it as a hidden class. The generated reduce method
+ * switches on the node's state number to a method per state, which
+ * switches on the goal's ordinal to code that runs the goal's closure
+ * chain: the pre callbacks, the reduction of the node's subtrees to
+ * the pattern's nonterminals by recursive calls to reduce, the pattern's
+ * post callback, and the closures' post callbacks. Callbacks are called
+ * with invokevirtual or invokeinterface, and exceptions they throw are
+ * wrapped in an InvocationTargetException, as HostRoutines wrap them.
+ * <p>Reductions the generated code doesn't cover go to a fallback
+ * reducer: reductions of nodes in the error state, of unlabeled nodes,
+ * to goals the node's state doesn't produce, and of states whose
+ * callbacks the lookup's class can't call directly or whose callbacks'
+ * arity doesn't follow from the pattern.
+ */
+class ReducerGenerator<Nonterminal, NodeType>
+{
+    /**
+     * The simple name of the generated class; the JVM
+     * appends a suffix to make hidden classes' names unique.
+     */
+    private static final String CLASS_NAME = "JBurgReducer";
+
+    private static final String REDUCER_INTERFACE = "jburg/SpecializedReducer";
+    private static final String BURG_INPUT = "jburg/BurgInput";
+    private static final String REDUCE_DESCRIPTOR = "(Ljava/lang/Object;Ljburg/BurgInput;Ljava/lang/Object;I)Ljava/lang/Object;";
+    private static final String CONSTRUCTOR_DESCRIPTOR = "(Ljburg/SpecializedReducer;[Ljava/lang/Object;)V";
+    private static final String INVOCATION_TARGET_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+
+    /*
+     * Locals of the reduce method and the state methods.
+     */
+    private static final int THIS = 0;
+    private static final int VISITOR = 1;
+    private static final int NODE = 2;
+    private static final int GOAL = 3;
+    private static final int GOAL_ORDINAL = 4;
+    private static final int RESULT = 5;
+    private static final int VARIADIC_ACTUALS = 6;
+    private static final int INDEX = 7;
+    private static final int COUNT = 8;
+    /** The first of the locals that hold a variadic callback's fixed actuals. */
+    private static final int FIXED_ACTUALS = 9;
+
+    /**
+     * The operand stack depth needed by a subtree's reduction,
+     * in addition to the arguments already on the stack.
+     */
+    private static final int REDUCE_SUBTREE_DEPTH = 6;
+
+    /**
+     * The production table.
+     */
+    private final AbstractProductionTable<Nonterminal, NodeType> productionTable;
+
+    /**
+     * The lookup whose class' package hosts the generated class.
+     */
+    private final MethodHandles.Lookup lookup;
+
+    /**
+     * The subtrees' goals, which the generated class loads
+     * by index from its goals array.
+     */
+    private final List<Object> subtreeGoals = new ArrayList<Object>();
+
+    /**
+     * The assembler of the generated class.
+     */
+    private ClassAssembler assembler;
+
+    /**
+     * The number of (state, goal) reductions generated.
+     */
+    private int reductionCount = 0;
+
+    /*
+     * Frame sizes of the state method being generated.
+     */
+    private int maxStack;
+    private int maxLocals;
+
+    /**
+     * Offsets of the callback invocations in the state method being
+     * generated, in pairs of start and end offsets; the exception
+     * handler that wraps the callbacks' exceptions covers them.
+     */
+    private final List<Integer> callbackRanges = new ArrayList<Integer>();
+
+    /**
+     * @param productionTable   the production table.
+     * @param lookup            a lookup with full privilege access
+     * whose class can call the visitor's callbacks.
+     */
+    ReducerGenerator(AbstractProductionTable<Nonterminal, NodeType> productionTable, MethodHandles.Lookup lookup)
+    {
+        this.productionTable = productionTable;
+        this.lookup = lookup;
+    }
+
+    /**
+     * @return the number of (state, goal) reductions generated.
+     */
+    int getReductionCount()
+    {
+        return reductionCount;
+    }
+
+    /**
+     * Generate the reducer and define it as a hidden class.
+     * @param fallback  the reducer of the reductions the generated code doesn't cover.
+     * @return an instance of the generated reducer.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     * @throws IllegalStateException if the reducer is too large for a class file.
+     */
+    SpecializedReducer generate(SpecializedReducer fallback)
+    throws IllegalAccessException
+    {
+        assembler = new ClassAssembler(ClassAssembler.classNameInPackage(lookup, CLASS_NAME), "java/lang/Object", REDUCER_INTERFACE);
+        assembler.addField(ACC_PRIVATE | ACC_FINAL, "fallback", "Ljburg/SpecializedReducer;");
+        assembler.addField(ACC_PRIVATE | ACC_FINAL, "goals", "[Ljava/lang/Object;");
+
+        ClassAssembler.Code constructor = assembler.addMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR);
+        constructor.aload(THIS);
+        constructor.op(INVOKESPECIAL, assembler.methodConstant("java/lang/Object", "<init>", "()V", false));
+        constructor.aload(THIS);
+        constructor.aload(1);
+        constructor.op(PUTFIELD, fallbackField());
+        constructor.aload(THIS);
+        constructor.aload(2);
+        constructor.op(PUTFIELD, goalsField());
+        constructor.op(RETURN);
+        constructor.setFrameSize(2, 3);
+
+        int stateCount = productionTable.getStateCount();
+        boolean[] hasStateMethod = new boolean[stateCount];
+
+        for (int i = 0; i < stateCount; i++) {
+            hasStateMethod[i] = addStateMethod(productionTable.getState(i), i);
+        }
+
+        // reduce() dispatches on the node's state number; null nodes
+        // are in the null pointer state.
+        ClassAssembler.Code code = assembler.addMethod(ACC_PUBLIC, "reduce", REDUCE_DESCRIPTOR);
+        code.aload(NODE);
+        int nonNull = code.branch(IFNONNULL);
+        code.pushInt(ProductionTable.NULL_STATE_NUM);
+        int haveStateNumber = code.branch(GOTO);
+        code.setTarget(nonNull, code.position());
+        code.aload(NODE);
+        code.invokeInterface(BURG_INPUT, "getStateNumber", "()I", 1);
+        code.setTarget(haveStateNumber, code.position());
+
+        ClassAssembler.Switch stateSwitch = code.tableswitch(stateCount);
+
+        for (int i = 0; i < stateCount; i++) {
+
+            if (hasStateMethod[i]) {
+                code.setCase(stateSwitch, i);
+                loadReduceArguments(code);
+                code.op(INVOKESPECIAL, assembler.methodConstant(assembler.getClassName(), stateMethodName(i), REDUCE_DESCRIPTOR, false));
+                code.op(ARETURN);
+            }
+        }
+
+        code.setDefault(stateSwitch);
+        addFallback(code);
+        code.setFrameSize(5, 5);
+
+        Class<?> reducerClass = assembler.defineHiddenClass(lookup);
+
+        try {
+            return (SpecializedReducer)reducerClass.getDeclaredConstructor(SpecializedReducer.class, Object[].class).newInstance(fallback, subtreeGoals.toArray());
+        } catch (ReflectiveOperationException cannotInstantiate) {
+            throw new IllegalStateException(String.format("Unable to instantiate %s", reducerClass), cannotInstantiate);
+        }
+    }
+
+    /**
+     * Add the method that reduces nodes in a state, if
+     * the generated code covers any of the state's goals.
+     * @param state         the state.
+     * @param stateNumber   the state's number.
+     * @return true if the method was added.
+     */
+    private boolean addStateMethod(State<Nonterminal, NodeType> state, int stateNumber)
+    {
+        if (state.number != stateNumber || state instanceof ErrorState || state.closureChains == null) {
+            return false;
+        }
+
+        Production<Nonterminal>[][] closureChains = state.closureChains;
+        boolean[] covered = new boolean[closureChains.length];
+        boolean anyCovered = false;
+
+        for (int goal = 0; goal < closureChains.length; goal++) {
+            covered[goal] = closureChains[goal] != null && canGenerate(closureChains[goal]);
+            anyCovered |= covered[goal];
+        }
+
+        if (!anyCovered) {
+            return false;
+        }
+
+        ClassAssembler.Code code = assembler.addMethod(ACC_PRIVATE, stateMethodName(stateNumber), REDUCE_DESCRIPTOR);
+        maxStack = 5;
+        maxLocals = FIXED_ACTUALS;
+        callbackRanges.clear();
+
+        code.iload(GOAL_ORDINAL);
+        ClassAssembler.Switch goalSwitch = code.tableswitch(closureChains.length);
+
+        for (int goal = 0; goal < closureChains.length; goal++) {
+
+            if (covered[goal]) {
+                code.setCase(goalSwitch, goal);
+                addReduction(code, closureChains[goal]);
+                reductionCount++;
+            }
+        }
+
+        code.setDefault(goalSwitch);
+        addFallback(code);
+
+        if (!callbackRanges.isEmpty()) {
+            // Wrap the callbacks' exceptions: [ex] -> [ite, ite, ex] -> [ite]
+            int handler = code.position();
+            code.op(NEW, assembler.classConstant(INVOCATION_TARGET_EXCEPTION));
+            code.op(DUP_X1);
+            code.op(SWAP);
+            code.op(INVOKESPECIAL, assembler.methodConstant(INVOCATION_TARGET_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V", false));
+            code.op(ATHROW);
+
+            for (int i = 0; i < callbackRanges.size(); i += 2) {
+                code.addExceptionHandler(callbackRanges.get(i), callbackRanges.get(i+1), handler, null);
+            }
+        }
+
+        code.setFrameSize(maxStack, maxLocals);
+        return true;
+    }
+
+    /**
+     * Can the generated code run a closure chain?
+     * @param closureChain  the chain: the goal's production, the closures
+     * it depends on, and the production that starts the chain.
+     * @return true if the lookup's class can call all the chain's
+     * callbacks, and each callback's arity is known.
+     */
+    private boolean canGenerate(Production<Nonterminal>[] closureChain)
+    {
+        int last = closureChain.length - 1;
+
+        for (int i = 0; i < closureChain.length; i++) {
+            Production<Nonterminal> p = closureChain[i];
+
+            if (p.preCallback != null && !canCall(p.preCallback, 2)) {
+                return false;
+            }
+
+            if (i < last && p.postCallback != null && !canCall(p.postCallback, 2)) {
+                return false;
+            }
+        }
+
+        Production<Nonterminal> current = closureChain[last];
+
+        if (current.postCallback == null) {
+            return current instanceof NullPointerProduction || current instanceof PatternMatcher;
+
+        } else if (current instanceof NullPointerProduction) {
+            return canCall(current.postCallback, 2);
+
+        } else if (current instanceof PatternMatcher) {
+            @SuppressWarnings("unchecked")
+            PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)current;
+            Method m = getMethod(current.postCallback);
+
+            if (m == null || !ClassAssembler.canCall(lookup, m)) {
+                return false;
+            } else if (!m.isVarArgs()) {
+                return !patternMatcher.isVarArgs && m.getParameterCount() == patternMatcher.size() + 1;
+            } else {
+                // The variadic tail must reduce to one nonterminal,
+                // and its elements must be stored without conversion.
+                int fixedCount = m.getParameterCount() - 2;
+                Class<?> componentType = m.getParameterTypes()[m.getParameterCount() - 1].getComponentType();
+                return patternMatcher.isVarArgs && patternMatcher.size() > 0 && fixedCount >= patternMatcher.size() - 1 && !componentType.isPrimitive();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Can the generated code call a routine of known arity?
+     */
+    private boolean canCall(HostRoutine routine, int parameterCount)
+    {
+        Method m = getMethod(routine);
+        return m != null && !m.isVarArgs() && m.getParameterCount() == parameterCount && ClassAssembler.canCall(lookup, m);
+    }
+
+    /**
+     * @return the method a routine calls, or null if it doesn't call a Java method.
+     */
+    private static Method getMethod(HostRoutine routine)
+    {
+        return JavaSemantics.getMethod(routine instanceof LazyHostRoutine? ((LazyHostRoutine)routine).resolve(): routine);
+    }
+
+    /**
+     * Add the code that runs a closure chain; it leaves the result
+     * of the chain's last closure on the stack, and returns it.
+     */
+    private void addReduction(ClassAssembler.Code code, Production<Nonterminal>[] closureChain)
+    {
+        int last = closureChain.length - 1;
+
+        for (Production<Nonterminal> p: closureChain) {
+
+            if (p.preCallback != null) {
+                Method m = getMethod(p.preCallback);
+                loadReceiver(code, m);
+                code.aload(NODE);
+                code.unbox(m.getParameterTypes()[0]);
+                code.aload(GOAL);
+                code.unbox(m.getParameterTypes()[1]);
+                invokeCallback(code, m, 3);
+                code.op(POP);
+            }
+        }
+
+        Production<Nonterminal> current = closureChain[last];
+
+        if (current instanceof NullPointerProduction) {
+
+            if (current.postCallback != null) {
+                Method m = getMethod(current.postCallback);
+                loadReceiver(code, m);
+                code.aload(NODE);
+                code.unbox(m.getParameterTypes()[0]);
+                code.aload(GOAL);
+                code.unbox(m.getParameterTypes()[1]);
+                invokeCallback(code, m, 3);
+            } else {
+                code.op(ACONST_NULL);
+            }
+
+        } else {
+            @SuppressWarnings("unchecked")
+            PatternMatcher<Nonterminal, NodeType> patternMatcher = (PatternMatcher<Nonterminal, NodeType>)current;
+
+            if (current.postCallback == null) {
+                addSubtreeReductions(code, patternMatcher);
+                code.op(ACONST_NULL);
+            } else {
+                Method m = getMethod(current.postCallback);
+
+                if (m.isVarArgs()) {
+                    addVariadicCall(code, patternMatcher, m);
+                } else {
+                    addFixedArityCall(code, patternMatcher, m);
+                }
+            }
+        }
+
+        code.astore(RESULT);
+
+        for (int i = last - 1; i >= 0; i--) {
+            Production<Nonterminal> closure = closureChain[i];
+
+            if (closure.postCallback != null) {
+                Method m = getMethod(closure.postCallback);
+                loadReceiver(code, m);
+                code.aload(NODE);
+                code.unbox(m.getParameterTypes()[0]);
+                code.aload(RESULT);
+                code.unbox(m.getParameterTypes()[1]);
+                invokeCallback(code, m, 3);
+                code.astore(RESULT);
+            }
+        }
+
+        code.aload(RESULT);
+        code.op(ARETURN);
+    }
+
+    /**
+     * Call a pattern's fixed-arity post callback with the node
+     * and the results of reducing its subtrees.
+     */
+    private void addFixedArityCall(ClassAssembler.Code code, PatternMatcher<Nonterminal, NodeType> patternMatcher, Method m)
+    {
+        Class<?>[] parameterTypes = m.getParameterTypes();
+        loadReceiver(code, m);
+        code.aload(NODE);
+        code.unbox(parameterTypes[0]);
+
+        int depth = 1 + ClassAssembler.slots(parameterTypes[0]);
+
+        for (int i = 0; i < patternMatcher.size(); i++) {
+            code.pushInt(i);
+            reduceSubtree(code, patternMatcher.getNonterminal(i), depth);
+            code.unbox(parameterTypes[i+1]);
+            depth += ClassAssembler.slots(parameterTypes[i+1]);
+        }
+
+        invokeCallback(code, m, depth);
+    }
+
+    /**
+     * Call a pattern's variadic post callback with the node, the
+     * results of reducing its fixed subtrees, and an array of the
+     * results of reducing its variadic tail.
+     */
+    private void addVariadicCall(ClassAssembler.Code code, PatternMatcher<Nonterminal, NodeType> patternMatcher, Method m)
+    {
+        Class<?>[] parameterTypes = m.getParameterTypes();
+        int fixedCount = parameterTypes.length - 2;
+        Class<?> componentType = parameterTypes[parameterTypes.length - 1].getComponentType();
+        Object variadicGoal = patternMatcher.getNonterminal(fixedCount);
+
+        // The node must have the fixed subtrees; if it doesn't,
+        // the fallback reducer reports the mismatch.
+        code.aload(NODE);
+        code.invokeInterface(BURG_INPUT, "getSubtreeCount", "()I", 1);
+        code.pushInt(fixedCount);
+        int haveFixedSubtrees = code.branch(IF_ICMPGE);
+        addFallback(code);
+        code.setTarget(haveFixedSubtrees, code.position());
+
+        for (int i = 0; i < fixedCount; i++) {
+            code.pushInt(i);
+            reduceSubtree(code, patternMatcher.getNonterminal(i), 0);
+            code.astore(FIXED_ACTUALS + i);
+        }
+
+        maxLocals = Math.max(maxLocals, FIXED_ACTUALS + fixedCount);
+
+        code.aload(NODE);
+        code.invokeInterface(BURG_INPUT, "getSubtreeCount", "()I", 1);
+        code.pushInt(fixedCount);
+        code.op(ISUB);
+        code.istore(COUNT);
+        code.iload(COUNT);
+        code.op(ANEWARRAY, assembler.classConstant(ClassAssembler.internalName(componentType)));
+        code.astore(VARIADIC_ACTUALS);
+
+        code.pushInt(0);
+        code.istore(INDEX);
+        int loop = code.position();
+        code.iload(INDEX);
+        code.iload(COUNT);
+        int done = code.branch(IF_ICMPGE);
+        code.aload(VARIADIC_ACTUALS);
+        code.iload(INDEX);
+        code.iload(INDEX);
+        code.pushInt(fixedCount);
+        code.op(IADD);
+        reduceSubtree(code, variadicGoal, 2);
+        code.op(AASTORE);
+        code.op(IINC);
+        code.u1(INDEX);
+        code.u1(1);
+        code.branchTo(GOTO, loop);
+        code.setTarget(done, code.position());
+
+        loadReceiver(code, m);
+        code.aload(NODE);
+        code.unbox(parameterTypes[0]);
+
+        for (int i = 0; i < fixedCount; i++) {
+            code.aload(FIXED_ACTUALS + i);
+            code.unbox(parameterTypes[i+1]);
+        }
+
+        code.aload(VARIADIC_ACTUALS);
+        invokeCallback(code, m, 2 + fixedCount + 1);
+    }
+
+    /**
+     * Reduce a pattern's subtrees for their side effects,
+     * when the pattern has no post callback.
+     */
+    private void addSubtreeReductions(ClassAssembler.Code code, PatternMatcher<Nonterminal, NodeType> patternMatcher)
+    {
+        int fixedCount = patternMatcher.isVarArgs? patternMatcher.size() - 1: patternMatcher.size();
+
+        for (int i = 0; i < fixedCount; i++) {
+            code.pushInt(i);
+            reduceSubtree(code, patternMatcher.getNonterminal(i), 0);
+            code.op(POP);
+        }
+
+        if (patternMatcher.isVarArgs) {
+            code.pushInt(fixedCount);
+            code.istore(INDEX);
+            int loop = code.position();
+            code.iload(INDEX);
+            code.aload(NODE);
+            code.invokeInterface(BURG_INPUT, "getSubtreeCount", "()I", 1);
+            int done = code.branch(IF_ICMPGE);
+            code.iload(INDEX);
+            reduceSubtree(code, patternMatcher.getNonterminal(fixedCount), 0);
+            code.op(POP);
+            code.op(IINC);
+            code.u1(INDEX);
+            code.u1(1);
+            code.branchTo(GOTO, loop);
+            code.setTarget(done, code.position());
+        }
+    }
+
+    /**
+     * Reduce one of the node's subtrees by a recursive call to reduce.
+     * The subtree's index is on the stack; the result replaces it.
+     * @param goal  the subtree's goal.
+     * @param depth the stack depth below the index.
+     */
+    private void reduceSubtree(ClassAssembler.Code code, Object goal, int depth)
+    {
+        int goalIndex = subtreeGoals.indexOf(goal);
+
+        if (goalIndex < 0) {
+            goalIndex = subtreeGoals.size();
+            subtreeGoals.add(goal);
+        }
+
+        // [index] -> [this, visitor, subtree, goal, ordinal]
+        code.istore(INDEX);
+        code.aload(THIS);
+        code.aload(VISITOR);
+        code.aload(NODE);
+        code.iload(INDEX);
+        code.invokeInterface(BURG_INPUT, "getSubtree", "(I)Ljburg/BurgInput;", 2);
+        code.aload(THIS);
+        code.op(GETFIELD, goalsField());
+        code.pushInt(goalIndex);
+        code.op(AALOAD);
+        code.pushInt(productionTable.nonterminalIndex.lookup(goal));
+        code.op(INVOKEVIRTUAL, assembler.methodConstant(assembler.getClassName(), "reduce", REDUCE_DESCRIPTOR, false));
+
+        maxStack = Math.max(maxStack, depth + REDUCE_SUBTREE_DEPTH);
+    }
+
+    /**
+     * Load a callback's receiver, the visitor, unless the callback is static.
+     */
+    private void loadReceiver(ClassAssembler.Code code, Method m)
+    {
+        if (!Modifier.isStatic(m.getModifiers())) {
+            code.aload(VISITOR);
+            code.checkcast(m.getDeclaringClass());
+        }
+    }
+
+    /**
+     * Call a callback whose receiver and arguments are on the
+     * stack, and box its result; exceptions the callback throws
+     * are wrapped in an InvocationTargetException.
+     * @param depth the stack depth of the receiver and arguments.
+     */
+    private void invokeCallback(ClassAssembler.Code code, Method m, int depth)
+    {
+        callbackRanges.add(code.position());
+        code.invoke(m);
+        callbackRanges.add(code.position());
+        code.box(m.getReturnType());
+        // Unboxing an argument and boxing a wide result need two more slots.
+        maxStack = Math.max(maxStack, depth + 3);
+    }
+
+    /**
+     * Load this, the visitor, the node, the goal, and the goal's ordinal.
+     */
+    private void loadReduceArguments(ClassAssembler.Code code)
+    {
+        code.aload(THIS);
+        code.aload(VISITOR);
+        code.aload(NODE);
+        code.aload(GOAL);
+        code.iload(GOAL_ORDINAL);
+    }
+
+    /**
+     * Return the fallback reducer's reduction of the node to the goal.
+     */
+    private void addFallback(ClassAssembler.Code code)
+    {
+        code.aload(THIS);
+        code.op(GETFIELD, fallbackField());
+        code.aload(VISITOR);
+        code.aload(NODE);
+        code.aload(GOAL);
+        code.iload(GOAL_ORDINAL);
+        code.invokeInterface(REDUCER_INTERFACE, "reduce", REDUCE_DESCRIPTOR, 5);
+        code.op(ARETURN);
+    }
+
+    private int fallbackField()
+    {
+        return assembler.fieldConstant(assembler.getClassName(), "fallback", "Ljburg/SpecializedReducer;");
+    }
+
+    private int goalsField()
+    {
+        return assembler.fieldConstant(assembler.getClassName(), "goals", "[Ljava/lang/Object;");
+    }
+
+    private static String stateMethodName(int stateNumber)
+    {
+        return "reduceState" + stateNumber;
+    }
+}
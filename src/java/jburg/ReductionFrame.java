@@ -0,0 +1,157 @@
+package jburg;
+
+import java.util.Arrays;
+
+/**
+ * A ReductionFrame holds the in-flight state of one
+ * node's reduction while the Reducer runs iteratively.
+ * Frames are pooled by their Reducer and reused across
+ * reductions, so a frame's fields are reset each time
+ * it's entered.
+ */
+class ReductionFrame<Nonterminal, NodeType>
+{
+    /**
+     * The node being reduced; may be null.
+     */
+    BurgInput<Nonterminal, NodeType> node;
+
+    /**
+     * The nonterminal the node is being reduced to.
+     */
+    Object goal;
+
+    /**
+     * The pattern matcher, null pointer production, or
+     * error handler at the end of the goal's closure chain.
+     */
+    Production<Nonterminal> production;
+
+    /**
+     * The state's closure chain for the goal, whose closures'
+     * post callbacks run once the production that derives the
+     * node completes; null if there are no closures to run.
+     */
+    Production<Nonterminal>[] closureChain;
+
+    /**
+     * Actual parameters to the production's post callback,
+     * or null if the children's results are discarded.
+     */
+    Object[] actuals;
+
+    /**
+     * The frame's most recently allocated actuals; the post callback's
+     * invocation doesn't retain its actuals, so the buffer is reused by
+     * the next node whose callback takes the same number of actuals.
+     */
+    private Object[] actualsBuffer;
+
+    /**
+     * The array that packages a variadic post callback's tail arguments.
+     */
+    Object variadicActuals;
+
+    /**
+     * The number of children whose results go into actuals[1..n];
+     * results of subsequent children go into variadicActuals.
+     */
+    int fixedChildCount;
+
+    /**
+     * The number of children to reduce.
+     */
+    int childCount;
+
+    /**
+     * The next child to reduce.
+     */
+    int nextChild;
+
+    /**
+     * The result of the reduction, once known.
+     */
+    Object result;
+
+    /**
+     * When set, the result is memoized for the node and goal.
+     */
+    boolean memoize;
+
+    /**
+     * Reset this frame for a new reduction.
+     * @param node  the node to be reduced.
+     * @param goal  the nonterminal to reduce it to.
+     */
+    void enter(BurgInput<Nonterminal, NodeType> node, Object goal)
+    {
+        this.node = node;
+        this.goal = goal;
+        this.production = null;
+        this.closureChain = null;
+        this.actuals = null;
+        this.variadicActuals = null;
+        this.fixedChildCount = 0;
+        this.childCount = 0;
+        this.nextChild = 0;
+        this.result = null;
+        this.memoize = false;
+    }
+
+    /**
+     * Set the actual parameters to a new or reused array.
+     * @param length    the number of actual parameters.
+     */
+    void allocateActuals(int length)
+    {
+        if (actualsBuffer == null || actualsBuffer.length != length) {
+            actualsBuffer = new Object[length];
+        }
+
+        this.actuals = actualsBuffer;
+    }
+
+    /**
+     * @return true if this frame has children left to reduce.
+     */
+    boolean hasPendingChild()
+    {
+        return nextChild < childCount;
+    }
+
+    /**
+     * Store a child's result in the post callback's actuals.
+     * @param childIndex    the child's index.
+     * @param childResult   the result of reducing the child.
+     */
+    void setChildResult(int childIndex, Object childResult)
+    {
+        if (actuals == null) {
+            // The production has no post callback.
+        } else if (childIndex < fixedChildCount) {
+            actuals[childIndex+1] = childResult;
+        } else {
+            Reducer.setVariadicActual(variadicActuals, childIndex - fixedChildCount, childResult);
+        }
+    }
+
+    /**
+     * Release references to the tree and results
+     * so a pooled frame doesn't keep them alive.
+     */
+    void exit()
+    {
+        this.node = null;
+        this.goal = null;
+        this.production = null;
+        this.closureChain = null;
+
+        if (this.actuals != null) {
+            Arrays.fill(this.actuals, null);
+            this.actuals = null;
+        }
+
+        this.variadicActuals = null;
+        this.result = null;
+    }
+}
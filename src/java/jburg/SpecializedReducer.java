@@ -0,0 +1,24 @@
+package jburg;
+
+/**
+ * A SpecializedReducer reduces labeled trees with code specialized
+ * to one production table. Its implementations are hidden classes
+ * generated by {@link Reducer#compile}: they switch on each node's
+ * state number and on the goal's nonterminal ordinal, and call the
+ * productions' callbacks directly, as a BURM generated from the
+ * table would.
+ */
+public interface SpecializedReducer
+{
+    /**
+     * Reduce a labeled subtree.
+     * @param visitor       the visitor that hosts the callbacks.
+     * @param node          the root of the subtree, which may be null.
+     * @param goal          the nonterminal to reduce it to.
+     * @param goalOrdinal   the goal's ordinal in the production
+     * table's nonterminal index, or -1 if it has none.
+     * @return the result of deriving the subtree.
+     */
+    Object reduce(Object visitor, BurgInput<?,?> node, Object goal, int goalOrdinal)
+    throws Exception;
+}
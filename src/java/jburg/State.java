@@ -92,6 +92,33 @@ public class State<Nonterminal, NodeType>
     public final Map<Object,Object> closurePatternPrecursor = new HashMap<Object,Object>();
     boolean isFinished;
 
+    /**
+     * The production table's nonterminal ordinals; set when the state is finished.
+     */
+    private NonterminalIndex nonterminalIndex;
+
+    /**
+     * The cost of each nonterminal, by nonterminal ordinal,
+     * or Integer.MAX_VALUE if the state doesn't produce it.
+     * Nonterminals whose ordinals are past the end of the
+     * array are not produced by this state.
+     */
+    long[] costs;
+
+    /**
+     * The production for each nonterminal, by nonterminal ordinal,
+     * or null if the state doesn't produce it.
+     */
+    Production<Nonterminal>[] productions;
+
+    /**
+     * The chain of productions that derive each nonterminal,
+     * by nonterminal ordinal: the goal's production, the closures
+     * it depends on, and the pattern matcher that starts the chain.
+     * Null if the state doesn't produce the nonterminal.
+     */
+    Production<Nonterminal>[][] closureChains;
+
     /**
      * Construct a state that characterizes non-null nodes.
      * @param nodeType the node type of the nodes.
@@ -165,9 +192,11 @@ public class State<Nonterminal, NodeType>
 
     /**
      * Finish compilation of a state; create denormalized lists of pre and post productions
-     * for the string template's use as it creates closure chains.
+     * for the string template's use as it creates closure chains, and the arrays of costs,
+     * productions, and closure chains indexed by nonterminal ordinal.
+     * @param nonterminalIndex  the production table's nonterminal ordinals.
      */
-    void finishCompilation()
+    void finishCompilation(NonterminalIndex nonterminalIndex)
     {
         if (!this.isFinished) {
 
@@ -179,10 +208,185 @@ public class State<Nonterminal, NodeType>
                 setClosurePrecursor(nt);
             }
 
+            compileNonterminalTables(nonterminalIndex);
             this.isFinished = true;
         }
     }
 
+    /**
+     * Discard a state's closures and its compiled tables, so the
+     * production table can compute them again; the error state is
+     * kept from one generation of the states to the next, and the
+     * grammar's error handlers and closures may change in between.
+     */
+    void resetCompilation()
+    {
+        closures.clear();
+        closurePreProductions.clear();
+        closurePostProductions.clear();
+        closurePatternPrecursor.clear();
+
+        this.nonterminalIndex = null;
+        this.costs = null;
+        this.productions = null;
+        this.closureChains = null;
+        this.isFinished = false;
+    }
+
+    /**
+     * Release a finished state's compile-time data structures: the
+     * pattern costs and the closure maps built for the emitters,
+     * which the labeler and reducer don't use once the arrays
+     * of costs, productions, and closure chains are built.
+     * @return the number of collection entries released.
+     */
+    int releaseCompileTimeData()
+    {
+        assert this.isFinished: "State not finished";
+        int result = patternCosts.size() + closurePreProductions.size() + closurePostProductions.size() + closurePatternPrecursor.size();
+
+        patternCosts.clear();
+        closurePreProductions.clear();
+        closurePostProductions.clear();
+        closurePatternPrecursor.clear();
+
+        return result;
+    }
+
+    /**
+     * Add the predicates and callbacks of this state's
+     * productions and closures to a collection.
+     * @param routines  the collection.
+     */
+    void collectRoutines(Collection<HostRoutine> routines)
+    {
+        for (HostRoutine predicate: predicates) {
+
+            if (predicate instanceof LazyHostRoutine) {
+                routines.add(((LazyHostRoutine)predicate).resolve());
+            } else {
+                routines.add(predicate);
+            }
+        }
+
+        for (Production<Nonterminal> p: nonClosureProductions.values()) {
+            p.collectRoutines(routines);
+        }
+
+        for (Closure<Nonterminal> closure: closures.values()) {
+            closure.collectRoutines(routines);
+        }
+
+        if (closureChains != null) {
+
+            for (Production<Nonterminal>[] chain: closureChains) {
+
+                if (chain != null) {
+
+                    for (Production<Nonterminal> p: chain) {
+                        p.collectRoutines(routines);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Route a finished state's reductions through compiled routines:
+     * the arrays of productions and closure chains get the productions'
+     * copies that call the compiled routines. The state's predicates
+     * and production maps, which identify the state, are not changed.
+     * @param compiled  the production table's compiled routines.
+     */
+    @SuppressWarnings("unchecked")
+    void compileRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        if (closureChains == null) {
+            return;
+        }
+
+        Production<Nonterminal>[] productions = new Production[this.productions.length];
+        Production<Nonterminal>[][] closureChains = new Production[this.closureChains.length][];
+        boolean changed = false;
+
+        for (int ordinal = 0; ordinal < productions.length; ordinal++) {
+
+            if (this.productions[ordinal] != null) {
+                productions[ordinal] = compiled.getProduction(this.productions[ordinal]);
+                changed |= productions[ordinal] != this.productions[ordinal];
+            }
+        }
+
+        for (int ordinal = 0; ordinal < closureChains.length; ordinal++) {
+            Production<Nonterminal>[] chain = this.closureChains[ordinal];
+
+            if (chain != null) {
+                closureChains[ordinal] = new Production[chain.length];
+
+                for (int i = 0; i < chain.length; i++) {
+                    closureChains[ordinal][i] = compiled.getProduction(chain[i]);
+                    changed |= closureChains[ordinal][i] != chain[i];
+                }
+            }
+        }
+
+        // Leave states that call no compiled routines, e.g.,
+        // the empty state that all leaves share, untouched.
+        if (changed) {
+            this.productions = productions;
+            this.closureChains = closureChains;
+        }
+    }
+
+    /**
+     * Build the arrays of costs, productions, and closure chains.
+     * @param nonterminalIndex  the production table's nonterminal ordinals.
+     */
+    @SuppressWarnings("unchecked")
+    private void compileNonterminalTables(NonterminalIndex nonterminalIndex)
+    {
+        Set<Object> nonterminals = getNonterminals();
+
+        // Assign ordinals first, so the arrays can
+        // be sized to cover all this state's nonterminals.
+        for (Object nt: nonterminals) {
+            nonterminalIndex.intern(nt);
+        }
+
+        int size = nonterminalIndex.size();
+        long[] costs = new long[size];
+        Production<Nonterminal>[] productions = new Production[size];
+        Production<Nonterminal>[][] closureChains = new Production[size][];
+
+        Arrays.fill(costs, Integer.MAX_VALUE);
+
+        for (Object nt: nonterminals) {
+            int ordinal = nonterminalIndex.lookup(nt);
+            costs[ordinal] = getCost(nt);
+            productions[ordinal] = getProduction(nt);
+
+            List<Production<Nonterminal>> chain = new ArrayList<Production<Nonterminal>>();
+            Object goal = nt;
+
+            while (closures.containsKey(goal)) {
+                Closure<Nonterminal> c = closures.get(goal);
+                chain.add(c);
+                goal = c.getSource();
+            }
+
+            assert nonClosureProductions.containsKey(goal);
+            chain.add(nonClosureProductions.get(goal));
+            closureChains[ordinal] = chain.toArray(new Production[chain.size()]);
+        }
+
+        // Publish the tables; getCost() and getProduction()
+        // use them as soon as the index is set.
+        this.costs = costs;
+        this.productions = productions;
+        this.closureChains = closureChains;
+        this.nonterminalIndex = nonterminalIndex;
+    }
+
     /**
      * @return the number of pattern matching productions in this state.
      */
@@ -211,6 +415,54 @@ public class State<Nonterminal, NodeType>
         return this.predicates.contains(predicate);
     }
 
+    /**
+     * Does this state label nodes the same way as another state?
+     * States that differ only in their predicate guards have
+     * the same costs after closure, the same reductions, and
+     * the same representer states in every transition plane.
+     * @param s the other state.
+     * @return true if s is this state, or has this state's
+     * node type and pattern map.
+     */
+    boolean labelsLike(State<Nonterminal, NodeType> s)
+    {
+        if (this.number == s.number) {
+            return true;
+        } else if (this.nodeType == null || s.nodeType == null) {
+            return this.nodeType == s.nodeType && this.nonClosureProductions.equals(s.nonClosureProductions);
+        } else {
+            return this.nodeType.equals(s.nodeType) && this.nonClosureProductions.equals(s.nonClosureProductions);
+        }
+    }
+
+    /**
+     * Does this finished state reduce nodes to a set of goals
+     * the same way as another state? Such states may differ in
+     * other nonterminals, which a node labeled for the goals is
+     * never reduced to, and which its parent's transitions on
+     * the goals therefore can't depend on.
+     * @param s     the other state.
+     * @param goals the goals' nonterminal ordinals.
+     * @return true if both states produce each goal with the
+     * same cost and closure chain, or neither produces it.
+     */
+    boolean labelsLike(State<Nonterminal, NodeType> s, BitSet goals)
+    {
+        for (int goal = goals.nextSetBit(0); goal >= 0; goal = goals.nextSetBit(goal+1)) {
+            // The empty state isn't finished, and produces nothing.
+            Production<Nonterminal>[] chain = this.closureChains != null? this.getClosureChain(goal): null;
+            Production<Nonterminal>[] otherChain = s.closureChains != null? s.getClosureChain(goal): null;
+
+            if (!Arrays.equals(chain, otherChain)) {
+                return false;
+            } else if (chain != null && this.getCost(goal) != s.getCost(goal)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Get the cost of a nonterminal; this may require
      * navigation of a chain of closure productions back
@@ -223,6 +475,10 @@ public class State<Nonterminal, NodeType>
      */
     long getCost(Object nt)
     {
+        if (nonterminalIndex != null) {
+            return getCost(nonterminalIndex.lookup(nt));
+        }
+
         nt = nt.toString();
 
         if (patternCosts.containsKey(nt)) {
@@ -250,6 +506,16 @@ public class State<Nonterminal, NodeType>
      */
     Production<Nonterminal> getProduction(Object goal)
     {
+        if (nonterminalIndex != null) {
+            Production<Nonterminal> result = getProduction(nonterminalIndex.lookup(goal));
+
+            if (result != null) {
+                return result;
+            } else {
+                throw new IllegalArgumentException(String.format("%s not produced by %s", goal, this));
+            }
+        }
+
         goal = goal.toString();
 
         if (nonClosureProductions.containsKey(goal)) {
@@ -261,6 +527,67 @@ public class State<Nonterminal, NodeType>
         }
     }
 
+    /**
+     * Get the cost of a nonterminal in a finished state.
+     * @param ordinal   the nonterminal's ordinal.
+     * @return the aggregated cost of productions that
+     * produce the nonterminal, or Integer.MAX_VALUE
+     * if there is no production for this nonterminal.
+     */
+    long getCost(int ordinal)
+    {
+        assert costs != null: "State not finished";
+        return ordinal >= 0 && ordinal < costs.length? costs[ordinal]: Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the Production for a nonterminal in a finished state.
+     * @param ordinal   the nonterminal's ordinal.
+     * @return the corresponding Production, or null if
+     * this state has no production for the nonterminal.
+     */
+    Production<Nonterminal> getProduction(int ordinal)
+    {
+        assert productions != null: "State not finished";
+        return ordinal >= 0 && ordinal < productions.length? productions[ordinal]: null;
+    }
+
+    /**
+     * Get the chain of productions that derive a nonterminal in a finished state.
+     * @param ordinal   the nonterminal's ordinal.
+     * @return the goal's production, the closures it depends on,
+     * and the pattern matcher that starts the chain, in that order;
+     * or null if this state has no production for the nonterminal.
+     */
+    Production<Nonterminal>[] getClosureChain(int ordinal)
+    {
+        assert closureChains != null: "State not finished";
+        return ordinal >= 0 && ordinal < closureChains.length? closureChains[ordinal]: null;
+    }
+
+    /**
+     * Get the chain of productions that derive a nonterminal in a finished state.
+     * @param goal  the Nonterminal to be produced.
+     * @return the goal's production, the closures it depends on,
+     * and the pattern matcher that starts the chain, in that order.
+     * @throws IllegalArgumentException if this state
+     * has no production for the specified nonterminal.
+     */
+    Production<Nonterminal>[] getClosureChain(Object goal)
+    {
+        if (nonterminalIndex == null) {
+            throw new IllegalStateException(String.format("State %d not finished", number));
+        }
+
+        Production<Nonterminal>[] result = getClosureChain(nonterminalIndex.lookup(goal));
+
+        if (result != null) {
+            return result;
+        } else {
+            throw new IllegalArgumentException(String.format("%s not produced by %s", goal, this));
+        }
+    }
+
     enum ClosureProductionsType { PreCallback, PostCallback };
 
     /**
@@ -0,0 +1,449 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * A StateMinimizer merges a production table's behaviorally equivalent
+ * states. Two states are equivalent if they reduce every nonterminal
+ * with the same productions and closure chains, and if every operator's
+ * transition table treats them alike as children: they lead to
+ * equivalent planes in every next dimension, and to equivalent
+ * leaves in every final dimension. States that differ only in costs
+ * that never change a decision are merged.
+ * <p>The minimizer refines a partition of the states, planes, and
+ * leaves together, starting from the states' productions, in rounds
+ * that split every block by its members' successors' blocks, as in
+ * Moore's algorithm, until a round splits no block; then it renumbers the states, keeping the lowest
+ * numbered state of each block, and rebuilds the operators' transition
+ * tables with the new numbers, merging equivalent planes and leaves.
+ */
+class StateMinimizer<Nonterminal, NodeType>
+{
+    /** The production table whose states are minimized. */
+    private final ProductionTable<Nonterminal, NodeType> productionTable;
+
+    /** The states, by their original state number. */
+    private final List<State<Nonterminal, NodeType>> states;
+
+    /** The operators. */
+    private final List<Operator<Nonterminal, NodeType>> operators;
+
+    /** The operators' transition table planes. */
+    private final List<TransitionPlane<Nonterminal, NodeType>> planes = new ArrayList<TransitionPlane<Nonterminal, NodeType>>();
+
+    /** The planes' positions in the planes list. */
+    private final Map<TransitionPlane<Nonterminal, NodeType>, Integer> planeIndex = new IdentityHashMap<TransitionPlane<Nonterminal, NodeType>, Integer>();
+
+    /** The planes' final dimension leaves. */
+    private final List<TransitionTableLeaf<Nonterminal, NodeType>> leaves = new ArrayList<TransitionTableLeaf<Nonterminal, NodeType>>();
+
+    /** The leaves' positions in the leaves list. */
+    private final Map<TransitionTableLeaf<Nonterminal, NodeType>, Integer> leafIndex = new IdentityHashMap<TransitionTableLeaf<Nonterminal, NodeType>, Integer>();
+
+    /** Each state's, plane's, and leaf's block in the current partition. */
+    private int[] stateBlocks;
+    private int[] planeBlocks;
+    private int[] leafBlocks;
+
+    /** Entry kinds, for the planes' signatures. */
+    private static final long NEXT_DIMENSION = 0;
+    private static final long FINAL_DIMENSION = 1;
+
+    /**
+     * @param productionTable   the production table.
+     * @param states            the table's states, by state number.
+     * @param operators         the table's operators.
+     */
+    StateMinimizer(ProductionTable<Nonterminal, NodeType> productionTable, List<State<Nonterminal, NodeType>> states, List<Operator<Nonterminal, NodeType>> operators)
+    {
+        this.productionTable = productionTable;
+        this.states = new ArrayList<State<Nonterminal, NodeType>>(states);
+        this.operators = operators;
+
+        for (Operator<Nonterminal, NodeType> op: operators) {
+            if (op.transitionTable != null) {
+                addPlane(op.transitionTable);
+            }
+        }
+    }
+
+    /**
+     * Add a plane and its next dimension's planes and final dimension's leaves.
+     * @param plane the plane; a variadic plane may be its own next dimension.
+     */
+    private void addPlane(TransitionPlane<Nonterminal, NodeType> plane)
+    {
+        if (planeIndex.containsKey(plane)) {
+            return;
+        }
+
+        planeIndex.put(plane, planes.size());
+        planes.add(plane);
+
+        if (plane.nextDimension != null) {
+            for (TransitionPlane<Nonterminal, NodeType> child: plane.nextDimension) {
+                addPlane(child);
+            }
+        }
+
+        if (plane.finalDimension != null) {
+            for (TransitionTableLeaf<Nonterminal, NodeType> leaf: plane.finalDimension) {
+                if (!leafIndex.containsKey(leaf)) {
+                    leafIndex.put(leaf, leaves.size());
+                    leaves.add(leaf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Minimize the production table's states.
+     * @return the number of states merged into equivalent states.
+     */
+    int minimize()
+    {
+        partition();
+
+        // Number the blocks in the order of their lowest-numbered states;
+        // the error state and the null pointer state keep their numbers.
+        int[] newNumbers = new int[states.size()];
+        Map<Integer, Integer> numbersByBlock = new HashMap<Integer, Integer>();
+        List<State<Nonterminal, NodeType>> minimizedStates = new ArrayList<State<Nonterminal, NodeType>>();
+
+        for (int i = 0; i < states.size(); i++) {
+            Integer number = numbersByBlock.get(stateBlocks[i]);
+
+            if (number == null) {
+                number = minimizedStates.size();
+                numbersByBlock.put(stateBlocks[i], number);
+                minimizedStates.add(states.get(i));
+            }
+
+            newNumbers[i] = number;
+        }
+
+        assert newNumbers[ProductionTable.ERROR_STATE_NUM] == ProductionTable.ERROR_STATE_NUM;
+        assert newNumbers.length <= ProductionTable.NULL_STATE_NUM || newNumbers[ProductionTable.NULL_STATE_NUM] == ProductionTable.NULL_STATE_NUM;
+
+        // Build the operators' new transition tables before the
+        // states are renumbered; the old tables are keyed by the
+        // old numbers.
+        Map<Operator<Nonterminal, NodeType>, TransitionPlane<Nonterminal, NodeType>> transitionTables = new IdentityHashMap<Operator<Nonterminal, NodeType>, TransitionPlane<Nonterminal, NodeType>>();
+        Set<TransitionTableLeaf<Nonterminal, NodeType>> keptLeaves = Collections.newSetFromMap(new IdentityHashMap<TransitionTableLeaf<Nonterminal, NodeType>, Boolean>());
+
+        for (Operator<Nonterminal, NodeType> op: operators) {
+
+            if (op.transitionTable != null) {
+                Map<Integer, TransitionPlane<Nonterminal, NodeType>> planesByBlock = new HashMap<Integer, TransitionPlane<Nonterminal, NodeType>>();
+                Map<Integer, TransitionTableLeaf<Nonterminal, NodeType>> leavesByBlock = new HashMap<Integer, TransitionTableLeaf<Nonterminal, NodeType>>();
+                transitionTables.put(op, rebuildPlane(op.transitionTable, newNumbers, planesByBlock, leavesByBlock));
+                keptLeaves.addAll(leavesByBlock.values());
+
+            } else if (op.leafState != null) {
+                keptLeaves.add(op.leafState);
+            }
+        }
+
+        // Renumber the states, and the leaves' copies of them.
+        Set<State<Nonterminal, NodeType>> renumbered = Collections.newSetFromMap(new IdentityHashMap<State<Nonterminal, NodeType>, Boolean>());
+        renumbered.addAll(states);
+
+        for (TransitionTableLeaf<Nonterminal, NodeType> leaf: keptLeaves) {
+            renumbered.addAll(leaf.getStates());
+        }
+
+        renumbered.remove(null);
+
+        for (State<Nonterminal, NodeType> state: renumbered) {
+            if (state.number >= 0 && state.number < newNumbers.length) {
+                state.number = newNumbers[state.number];
+            }
+        }
+
+        for (TransitionTableLeaf<Nonterminal, NodeType> leaf: keptLeaves) {
+            leaf.statesRenumbered();
+        }
+
+        @SuppressWarnings("unchecked")
+        State<Nonterminal, NodeType>[] stateTable = minimizedStates.toArray(new State[minimizedStates.size()]);
+
+        for (Operator<Nonterminal, NodeType> op: operators) {
+            op.statesMinimized(transitionTables.get(op), stateTable);
+        }
+
+        productionTable.statesMinimized(minimizedStates);
+        return states.size() - minimizedStates.size();
+    }
+
+    /**
+     * Partition the states, planes, and leaves into blocks of
+     * equivalent elements: start with blocks of states that
+     * reduce alike, then split blocks whose elements' transitions
+     * lead to different blocks, until no block splits.
+     */
+    private void partition()
+    {
+        boolean hasDynamicOperators = false;
+
+        for (Operator<Nonterminal, NodeType> op: operators) {
+            hasDynamicOperators |= op.isDynamic();
+        }
+
+        Map<Object, Integer> blocks = new HashMap<Object, Integer>();
+        stateBlocks = new int[states.size()];
+        planeBlocks = new int[planes.size()];
+        leafBlocks = new int[leaves.size()];
+
+        for (int i = 0; i < states.size(); i++) {
+
+            if (i == ProductionTable.ERROR_STATE_NUM || i == ProductionTable.NULL_STATE_NUM || states.get(i) == null) {
+                stateBlocks[i] = intern(blocks, Arrays.<Object>asList("fixed", i));
+            } else {
+                // Dynamic operators cost their children's states,
+                // so states with different costs aren't equivalent.
+                State<Nonterminal, NodeType> state = states.get(i);
+                stateBlocks[i] = intern(blocks, Arrays.<Object>asList(reductionSignature(state), hasDynamicOperators? costSignature(state): null));
+            }
+        }
+
+        for (int i = 0; i < planes.size(); i++) {
+            planeBlocks[i] = intern(blocks, Arrays.<Object>asList("plane", planes.get(i).dimension));
+        }
+
+        for (int i = 0; i < leaves.size(); i++) {
+            TransitionTableLeaf<Nonterminal, NodeType> leaf = leaves.get(i);
+            Map<List<HostRoutine>, Object> signature = new HashMap<List<HostRoutine>, Object>();
+
+            for (Map.Entry<List<HostRoutine>, State<Nonterminal, NodeType>> entry: leaf.states.entrySet()) {
+                signature.put(entry.getKey(), reductionSignature(entry.getValue()));
+            }
+
+            leafBlocks[i] = intern(blocks, Arrays.<Object>asList("leaf", leaf.isVarArgs(), signature));
+        }
+
+        int blockCount = blocks.size();
+        int previousCount;
+
+        do {
+            previousCount = blockCount;
+            blocks.clear();
+
+            // Each state's transitions, in plane order.
+            List<List<Integer>> stateTransitions = new ArrayList<List<Integer>>();
+
+            for (int i = 0; i < states.size(); i++) {
+                List<Integer> transitions = new ArrayList<Integer>();
+                transitions.add(stateBlocks[i]);
+                stateTransitions.add(transitions);
+            }
+
+            int[] newPlaneBlocks = new int[planes.size()];
+
+            for (int p = 0; p < planes.size(); p++) {
+                TransitionPlane<Nonterminal, NodeType> plane = planes.get(p);
+                List<Long> planeTransitions = new ArrayList<Long>();
+
+                if (plane.nextDimIndexMap != null) {
+                    for (Map.Entry<Integer, Integer> entry: plane.nextDimIndexMap.entrySet()) {
+                        int target = planeBlocks[planeIndex.get(plane.nextDimension.get(entry.getValue()))];
+                        addTransition(stateTransitions, planeTransitions, p, entry.getKey(), NEXT_DIMENSION, target);
+                    }
+                }
+
+                if (plane.finalDimIndexMap != null) {
+                    for (Map.Entry<Integer, Integer> entry: plane.finalDimIndexMap.entrySet()) {
+                        int target = leafBlocks[leafIndex.get(plane.finalDimension.get(entry.getValue()))];
+                        addTransition(stateTransitions, planeTransitions, p, entry.getKey(), FINAL_DIMENSION, target);
+                    }
+                }
+
+                // A plane's transitions are keyed by the states' blocks, not
+                // the states themselves; once the partition is stable, all
+                // the states in a block have the same transitions, so this
+                // distinguishes the planes as well as the states would.
+                Collections.sort(planeTransitions);
+                newPlaneBlocks[p] = intern(blocks, Arrays.<Object>asList("plane", planeBlocks[p], planeTransitions));
+            }
+
+            int[] newLeafBlocks = new int[leaves.size()];
+
+            for (int i = 0; i < leaves.size(); i++) {
+                Map<List<HostRoutine>, Integer> signature = new HashMap<List<HostRoutine>, Integer>();
+
+                for (Map.Entry<List<HostRoutine>, State<Nonterminal, NodeType>> entry: leaves.get(i).states.entrySet()) {
+                    int number = entry.getValue().number;
+                    signature.put(entry.getKey(), number >= 0 && number < stateBlocks.length? stateBlocks[number]: -1);
+                }
+
+                newLeafBlocks[i] = intern(blocks, Arrays.<Object>asList("leaf", leafBlocks[i], signature));
+            }
+
+            int[] newStateBlocks = new int[states.size()];
+
+            for (int i = 0; i < states.size(); i++) {
+                newStateBlocks[i] = intern(blocks, Arrays.<Object>asList("state", stateTransitions.get(i)));
+            }
+
+            stateBlocks = newStateBlocks;
+            planeBlocks = newPlaneBlocks;
+            leafBlocks = newLeafBlocks;
+            blockCount = blocks.size();
+
+        } while (blockCount != previousCount);
+    }
+
+    /**
+     * Record a transition in the signatures of its state and its plane.
+     * @param stateTransitions  [in/out] the states' signatures.
+     * @param planeTransitions  [in/out] the plane's signature.
+     * @param plane             the plane's index.
+     * @param stateNumber       the state's number.
+     * @param kind              the kind of the transition's target.
+     * @param target            the target's block.
+     */
+    private void addTransition(List<List<Integer>> stateTransitions, List<Long> planeTransitions, int plane, int stateNumber, long kind, int target)
+    {
+        if (stateNumber >= 0 && stateNumber < stateBlocks.length) {
+            List<Integer> transitions = stateTransitions.get(stateNumber);
+            transitions.add(plane);
+            transitions.add((int)kind);
+            transitions.add(target);
+            planeTransitions.add(((long)stateBlocks[stateNumber] << 33) | (kind << 32) | target);
+        }
+    }
+
+    /**
+     * Get the number of a signature's block, assigning one if necessary.
+     */
+    private static int intern(Map<Object, Integer> blocks, Object signature)
+    {
+        Integer result = blocks.get(signature);
+
+        if (result == null) {
+            result = blocks.size();
+            blocks.put(signature, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a finished state's node type, arity kind, and the
+     * closure chain that reduces each nonterminal; productions
+     * are compared by identity.
+     */
+    private List<Object> reductionSignature(State<Nonterminal, NodeType> state)
+    {
+        List<Object> result = new ArrayList<Object>();
+        result.add(state.nodeType);
+        result.add(state.arityKind);
+
+        for (int ordinal = 0; ordinal < productionTable.nonterminalIndex.size(); ordinal++) {
+            Production<Nonterminal>[] chain = state.getClosureChain(ordinal);
+            result.add(chain != null? Arrays.asList(chain): null);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a finished state's cost for each nonterminal.
+     */
+    private List<Long> costSignature(State<Nonterminal, NodeType> state)
+    {
+        List<Long> result = new ArrayList<Long>();
+
+        for (int ordinal = 0; ordinal < productionTable.nonterminalIndex.size(); ordinal++) {
+            result.add(state.getCost(ordinal));
+        }
+
+        return result;
+    }
+
+    /**
+     * Build a plane of an operator's minimized transition table.
+     * @param plane             the original plane.
+     * @param newNumbers        the states' new numbers, by original number.
+     * @param planesByBlock     [in/out] the operator's new planes, by block.
+     * @param leavesByBlock     [in/out] the operator's kept leaves, by block.
+     * @return the new plane.
+     */
+    private TransitionPlane<Nonterminal, NodeType> rebuildPlane(TransitionPlane<Nonterminal, NodeType> plane, int[] newNumbers, Map<Integer, TransitionPlane<Nonterminal, NodeType>> planesByBlock, Map<Integer, TransitionTableLeaf<Nonterminal, NodeType>> leavesByBlock)
+    {
+        int block = planeBlocks[planeIndex.get(plane)];
+
+        if (planesByBlock.containsKey(block)) {
+            return planesByBlock.get(block);
+        }
+
+        // Register the new plane before building its next
+        // dimension; a variadic plane is its own next dimension.
+        TransitionPlane<Nonterminal, NodeType> result = new TransitionPlane<Nonterminal, NodeType>(productionTable, plane.dimension);
+        planesByBlock.put(block, result);
+
+        if (plane.nextDimIndexMap != null) {
+            Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+
+            for (Map.Entry<Integer, Integer> entry: new TreeMap<Integer, Integer>(plane.nextDimIndexMap).entrySet()) {
+                int newNumber = newNumbers[entry.getKey()];
+                TransitionPlane<Nonterminal, NodeType> child = plane.nextDimension.get(entry.getValue());
+                int childBlock = planeBlocks[planeIndex.get(child)];
+
+                if (!result.nextDimIndexMap.containsKey(newNumber)) {
+                    Integer position = positions.get(childBlock);
+
+                    if (position == null) {
+                        position = result.nextDimension.size();
+                        positions.put(childBlock, position);
+                        result.nextDimension.add(null);
+                        result.nextDimension.set(position, rebuildPlane(child, newNumbers, planesByBlock, leavesByBlock));
+                    }
+
+                    result.nextDimIndexMap.put(newNumber, position);
+                } else {
+                    assert positions.get(childBlock).equals(result.nextDimIndexMap.get(newNumber)): String.format("merged state %d has inequivalent transitions", entry.getKey());
+                }
+            }
+        }
+
+        if (plane.finalDimIndexMap != null) {
+            Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+
+            for (Map.Entry<Integer, Integer> entry: new TreeMap<Integer, Integer>(plane.finalDimIndexMap).entrySet()) {
+                int newNumber = newNumbers[entry.getKey()];
+                TransitionTableLeaf<Nonterminal, NodeType> leaf = plane.finalDimension.get(entry.getValue());
+                int leafBlock = leafBlocks[leafIndex.get(leaf)];
+
+                if (!result.finalDimIndexMap.containsKey(newNumber)) {
+                    Integer position = positions.get(leafBlock);
+
+                    if (position == null) {
+                        if (!leavesByBlock.containsKey(leafBlock)) {
+                            leavesByBlock.put(leafBlock, leaf);
+                        }
+
+                        position = result.finalDimension.size();
+                        positions.put(leafBlock, position);
+                        result.finalDimension.add(leavesByBlock.get(leafBlock));
+                    }
+
+                    result.finalDimIndexMap.put(newNumber, position);
+                } else {
+                    assert positions.get(leafBlock).equals(result.finalDimIndexMap.get(newNumber)): String.format("merged state %d has inequivalent transitions", entry.getKey());
+                }
+            }
+        }
+
+        return result;
+    }
+}
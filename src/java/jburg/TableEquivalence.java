@@ -0,0 +1,224 @@
+package jburg;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jburg.semantics.HostRoutine;
+
+/**
+ * A TableEquivalence checks whether two production tables with the
+ * same productions have equivalent states and transitions, e.g., a
+ * table generated incrementally and a table generated from scratch.
+ * The tables' states must correspond one to one, by their productions
+ * and predicates; the tables may number them differently, and their
+ * costs may differ. The operators'
+ * transition tables must then map corresponding states to corresponding
+ * planes and leaves, and the leaves must select corresponding states.
+ */
+class TableEquivalence<Nonterminal, NodeType>
+{
+    /** The production table being checked. */
+    private final ProductionTable<Nonterminal, NodeType> table;
+
+    /** The production table it's checked against. */
+    private final ProductionTable<Nonterminal, NodeType> other;
+
+    /** The number of each state's counterpart in the other table, by state number. */
+    private int[] counterparts;
+
+    /** Planes already found equivalent, mapped to their counterparts. */
+    private final Map<TransitionPlane<Nonterminal, NodeType>, TransitionPlane<Nonterminal, NodeType>> equivalentPlanes = new IdentityHashMap<TransitionPlane<Nonterminal, NodeType>, TransitionPlane<Nonterminal, NodeType>>();
+
+    /**
+     * @param table the production table being checked.
+     * @param other the production table it's checked against.
+     */
+    TableEquivalence(ProductionTable<Nonterminal, NodeType> table, ProductionTable<Nonterminal, NodeType> other)
+    {
+        this.table = table;
+        this.other = other;
+    }
+
+    /**
+     * @return true if the tables' states and transitions are equivalent.
+     */
+    boolean isEquivalent()
+    {
+        return findCounterparts() && operatorsEquivalent(table, other) && operatorsEquivalent(other, table);
+    }
+
+    /**
+     * Find each state's counterpart in the other table.
+     * @return true if the states correspond one to one.
+     */
+    private boolean findCounterparts()
+    {
+        List<State<Nonterminal, NodeType>> states = table.getStateTable();
+        List<State<Nonterminal, NodeType>> otherStates = other.getStateTable();
+
+        if (states.size() != otherStates.size() || !statesAlike(table.errorState, other.errorState)) {
+            return false;
+        }
+
+        counterparts = new int[states.size()];
+        boolean[] matched = new boolean[states.size()];
+        counterparts[ProductionTable.ERROR_STATE_NUM] = ProductionTable.ERROR_STATE_NUM;
+        matched[ProductionTable.ERROR_STATE_NUM] = true;
+
+        for (int i = 0; i < states.size(); i++) {
+
+            if (i != ProductionTable.ERROR_STATE_NUM) {
+                State<Nonterminal, NodeType> counterpart = other.getCanonicalState(states.get(i));
+
+                if (counterpart == null || matched[counterpart.number] || !statesAlike(states.get(i), counterpart)) {
+                    return false;
+                }
+
+                counterparts[i] = counterpart.number;
+                matched[counterpart.number] = true;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if two states have the same productions,
+     * closures, and predicates. Their costs may differ: a state
+     * keeps the costs of the transition that first produced it,
+     * which depends on the order the states were found in.
+     */
+    private boolean statesAlike(State<Nonterminal, NodeType> s1, State<Nonterminal, NodeType> s2)
+    {
+        if (!s1.equals(s2) || !s1.getNonterminals().equals(s2.getNonterminals())) {
+            return false;
+        }
+
+        for (Object nt: s1.getNonterminals()) {
+            if (s1.getProduction(nt) != s2.getProduction(nt)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Check that each of one table's operators has
+     * an equivalent operator in the other table.
+     * @param t1    the table whose operators are checked.
+     * @param t2    the table whose operators they're checked against.
+     * @return true if every operator in t1 has an equivalent in t2.
+     */
+    private boolean operatorsEquivalent(ProductionTable<Nonterminal, NodeType> t1, ProductionTable<Nonterminal, NodeType> t2)
+    {
+        for (Map.Entry<NodeType, List<Operator<Nonterminal, NodeType>>> entry: t1.getOperatorsByNodeType().entrySet()) {
+            List<Operator<Nonterminal, NodeType>> otherOps = t2.getOperatorsByNodeType().get(entry.getKey());
+
+            for (Operator<Nonterminal, NodeType> op: entry.getValue()) {
+
+                if (op != null) {
+                    Operator<Nonterminal, NodeType> otherOp = otherOps != null && op.size() < otherOps.size()? otherOps.get(op.size()): null;
+
+                    if (otherOp == null || op.getArityKind() != otherOp.getArityKind()) {
+                        return false;
+                    } else if (t1 == table && !operatorsEquivalent(op, otherOp)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if two operators' transitions are equivalent.
+     */
+    private boolean operatorsEquivalent(Operator<Nonterminal, NodeType> op, Operator<Nonterminal, NodeType> otherOp)
+    {
+        if (op.leafState != null || otherOp.leafState != null) {
+            return op.leafState != null && otherOp.leafState != null && leavesEquivalent(op.leafState, otherOp.leafState);
+
+        } else if (op.isDynamic() || otherOp.isDynamic()) {
+
+            if (!op.isDynamic() || !otherOp.isDynamic() || op.dynamicTransitions.getStates().size() != otherOp.dynamicTransitions.getStates().size()) {
+                return false;
+            }
+
+            for (State<Nonterminal, NodeType> s: op.dynamicTransitions.getStates()) {
+                if (!otherOp.dynamicTransitions.getStates().contains(s)) {
+                    return false;
+                }
+            }
+
+            return true;
+
+        } else {
+            return planesEquivalent(op.transitionTable, otherOp.transitionTable);
+        }
+    }
+
+    /**
+     * @return true if two planes map corresponding states to
+     * equivalent planes in the next dimension, or to equivalent
+     * leaves in the final dimension.
+     */
+    private boolean planesEquivalent(TransitionPlane<Nonterminal, NodeType> plane, TransitionPlane<Nonterminal, NodeType> otherPlane)
+    {
+        if (plane == null || otherPlane == null) {
+            return plane == otherPlane;
+        } else if (equivalentPlanes.get(plane) == otherPlane) {
+            return true;
+        } else if (plane.nextDimIndexMap.size() != otherPlane.nextDimIndexMap.size() || plane.finalDimIndexMap.size() != otherPlane.finalDimIndexMap.size()) {
+            return false;
+        }
+
+        for (Map.Entry<Integer, Integer> entry: plane.nextDimIndexMap.entrySet()) {
+            Integer otherIndex = otherPlane.nextDimIndexMap.get(counterparts[entry.getKey()]);
+
+            if (otherIndex == null || !planesEquivalent(plane.nextDimension.get(entry.getValue()), otherPlane.nextDimension.get(otherIndex))) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> entry: plane.finalDimIndexMap.entrySet()) {
+            Integer otherIndex = otherPlane.finalDimIndexMap.get(counterparts[entry.getKey()]);
+
+            if (otherIndex == null || !leavesEquivalent(plane.finalDimension.get(entry.getValue()), otherPlane.finalDimension.get(otherIndex))) {
+                return false;
+            }
+        }
+
+        equivalentPlanes.put(plane, otherPlane);
+        return true;
+    }
+
+    /**
+     * @return true if two leaves select corresponding
+     * states for each combination of predicates.
+     */
+    private boolean leavesEquivalent(TransitionTableLeaf<Nonterminal, NodeType> leaf, TransitionTableLeaf<Nonterminal, NodeType> otherLeaf)
+    {
+        if (leaf.states.size() != otherLeaf.states.size()) {
+            return false;
+        }
+
+        for (Map.Entry<List<HostRoutine>, State<Nonterminal, NodeType>> entry: leaf.states.entrySet()) {
+            State<Nonterminal, NodeType> s = entry.getValue();
+            State<Nonterminal, NodeType> otherState = otherLeaf.states.get(entry.getKey());
+
+            if (otherState == null || !s.equals(otherState)) {
+                return false;
+            }
+
+            // A leaf's state is numbered as its canonical state, if it has one.
+            if (table.getCanonicalState(s) != null && counterparts[s.number] != otherState.number) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
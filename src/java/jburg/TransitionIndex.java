@@ -0,0 +1,207 @@
+package jburg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TransitionIndex is the compiled form of an Operator's
+ * state-number-to-index maps. Each map is a row of a sparse
+ * table indexed by state number; the rows are overlaid on
+ * one another in a single pair of int arrays (a "comb vector"
+ * built by row displacement), with a check array that records
+ * which row owns each slot. A lookup is an add, two bounds
+ * checks, and two array loads: it does no hashing, no boxing,
+ * and no allocation.
+ */
+class TransitionIndex
+{
+    /** The value returned by lookup() when a row has no entry for a state. */
+    static final int NO_ENTRY = -1;
+
+    /** Each row's displacement into the value and check arrays. */
+    private int[] rowBase = new int[0];
+
+    /** The index values, overlaid by row displacement. */
+    private int[] values = new int[0];
+
+    /** The row that owns each slot, or NO_ENTRY if the slot is free. */
+    private int[] check = new int[0];
+
+    /** The rows to be packed, in row number order. */
+    private List<Map<Integer,Integer>> pendingRows = new ArrayList<Map<Integer,Integer>>();
+
+    /**
+     * Add a row to the index.
+     * @param row   a state-number-to-index map.
+     * @return the row's number, which the caller passes to lookup().
+     */
+    int addRow(Map<Integer,Integer> row)
+    {
+        assert pendingRows != null: "TransitionIndex already packed";
+        pendingRows.add(row);
+        return pendingRows.size() - 1;
+    }
+
+    /**
+     * Pack the rows into the comb vector. Rows are placed
+     * densest first, each at the lowest displacement where
+     * none of its entries collide with a previously placed row.
+     */
+    void pack()
+    {
+        final List<Map<Integer,Integer>> rows = pendingRows;
+        pendingRows = null;
+
+        rowBase = new int[rows.size()];
+        List<Integer> rowNumbers = new ArrayList<Integer>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            rowNumbers.add(i);
+        }
+
+        Collections.sort(rowNumbers, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b)
+            {
+                return rows.get(b).size() - rows.get(a).size();
+            }
+        });
+
+        int capacity = 16;
+        values = new int[capacity];
+        check = new int[capacity];
+        Arrays.fill(check, NO_ENTRY);
+
+        // The first slot that might be free; rows never
+        // start below it, which keeps packing roughly linear.
+        int firstFree = 0;
+
+        for (Integer rowNumber: rowNumbers) {
+            Map<Integer,Integer> row = rows.get(rowNumber);
+
+            if (row.isEmpty()) {
+                rowBase[rowNumber] = 0;
+                continue;
+            }
+
+            int[] keys = new int[row.size()];
+            int k = 0;
+            for (Integer key: row.keySet()) {
+                keys[k++] = key;
+            }
+            Arrays.sort(keys);
+
+            while (firstFree < check.length && check[firstFree] != NO_ENTRY) {
+                firstFree++;
+            }
+
+            int base = firstFree - keys[0];
+
+            while (!fits(keys, base)) {
+                base++;
+            }
+
+            int maxSlot = base + keys[keys.length-1];
+
+            if (maxSlot >= check.length) {
+                int newCapacity = Math.max(check.length * 2, maxSlot + 1);
+                values = Arrays.copyOf(values, newCapacity);
+                int oldCapacity = check.length;
+                check = Arrays.copyOf(check, newCapacity);
+                Arrays.fill(check, oldCapacity, newCapacity, NO_ENTRY);
+            }
+
+            for (int key: keys) {
+                values[base + key] = row.get(key);
+                check[base + key] = rowNumber;
+            }
+
+            rowBase[rowNumber] = base;
+        }
+
+        // Trim the arrays to their last occupied slot.
+        int length = check.length;
+        while (length > 0 && check[length-1] == NO_ENTRY) {
+            length--;
+        }
+        values = Arrays.copyOf(values, length);
+        check = Arrays.copyOf(check, length);
+    }
+
+    /**
+     * Can a row with the given keys be placed at a displacement?
+     * @param keys  the row's keys, in ascending order.
+     * @param base  the candidate displacement.
+     * @return true if none of the row's slots are occupied.
+     */
+    private boolean fits(int[] keys, int base)
+    {
+        for (int key: keys) {
+            int slot = base + key;
+
+            if (slot < check.length && check[slot] != NO_ENTRY) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Look up a state number in a row.
+     * @param row           the row's number.
+     * @param stateNumber   the state number.
+     * @return the index mapped to the state number in that row, or NO_ENTRY.
+     */
+    int lookup(int row, int stateNumber)
+    {
+        int slot = rowBase[row] + stateNumber;
+
+        if (slot >= 0 && slot < check.length && check[slot] == row) {
+            return values[slot];
+        } else {
+            return NO_ENTRY;
+        }
+    }
+
+    /**
+     * @return the number of slots in the packed table.
+     */
+    int size()
+    {
+        return check.length;
+    }
+
+    /**
+     * @return each row's displacement into the packed table,
+     * by row number; emitters copy the packed table's arrays
+     * into generated code, which must not modify them.
+     */
+    int[] getRowBases()
+    {
+        assert pendingRows == null: "TransitionIndex not packed";
+        return rowBase;
+    }
+
+    /**
+     * @return the packed table's values.
+     */
+    int[] getValues()
+    {
+        assert pendingRows == null: "TransitionIndex not packed";
+        return values;
+    }
+
+    /**
+     * @return the packed table's check array: the row that
+     * owns each slot, or NO_ENTRY if the slot is free.
+     */
+    int[] getCheck()
+    {
+        assert pendingRows == null: "TransitionIndex not packed";
+        return check;
+    }
+}
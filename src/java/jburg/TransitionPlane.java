@@ -58,16 +58,39 @@ public class TransitionPlane<Nonterminal, NodeType>
     public int getDimension() { return dimension; }
 
     /**
-     * The parent ProductionTable.
+     * The parent ProductionTable; null once the production table is frozen.
      */
     ProductionTable<Nonterminal,NodeType> productionTable;
 
+    /**
+     * The parent ProductionTable's error state.
+     */
+    final ErrorState<Nonterminal,NodeType> errorState;
+
+    /**
+     * The compiled form of this plane's index maps, shared
+     * with the other planes of the Operator's transition table.
+     * Null until the table is compiled.
+     */
+    TransitionIndex transitionIndex = null;
+
+    /**
+     * This plane's row in the transition index for its next dimension map.
+     */
+    int nextDimRow = TransitionIndex.NO_ENTRY;
+
+    /**
+     * This plane's row in the transition index for its final dimension map.
+     */
+    int finalDimRow = TransitionIndex.NO_ENTRY;
+
     /**
      * Construct the final dimension of a transition.
      */
     TransitionPlane(ProductionTable<Nonterminal,NodeType> productionTable, Map<Integer,Integer> finalDimIndexMap, TransitionTableLeaf<Nonterminal,NodeType>[] finalDimension, int dim)
     {
         this.productionTable = productionTable;
+        this.errorState = productionTable.errorState;
         this.finalDimIndexMap = finalDimIndexMap;
         this.finalDimension = Arrays.asList(finalDimension);
         this.nextDimIndexMap = null;
@@ -81,6 +104,7 @@ public class TransitionPlane<Nonterminal, NodeType>
     TransitionPlane(ProductionTable<Nonterminal,NodeType> productionTable, Map<Integer,Integer> nextDimIndexMap, TransitionPlane<Nonterminal,NodeType>[] nextDimension, int dim)
     {
         this.productionTable = productionTable;
+        this.errorState = productionTable.errorState;
         this.nextDimIndexMap = nextDimIndexMap;
         this.nextDimension = Arrays.asList(nextDimension);
         this.finalDimIndexMap = null;
@@ -95,6 +119,7 @@ public class TransitionPlane<Nonterminal, NodeType>
     TransitionPlane(ProductionTable<Nonterminal,NodeType> productionTable, int dim)
     {
         this.productionTable = productionTable;
+        this.errorState = productionTable.errorState;
         this.nextDimIndexMap = new HashMap<Integer,Integer>();
         this.nextDimension = new ArrayList<TransitionPlane<Nonterminal,NodeType>>();
         this.finalDimIndexMap = new HashMap<Integer,Integer>();
@@ -111,7 +136,12 @@ public class TransitionPlane<Nonterminal, NodeType>
     boolean isValidVariadicChild(int stateNumber)
     {
         assert finalDimIndexMap != null: "no final dimension";
-        return finalDimIndexMap.containsKey(stateNumber);
+
+        if (transitionIndex != null) {
+            return transitionIndex.lookup(finalDimRow, stateNumber) != TransitionIndex.NO_ENTRY;
+        } else {
+            return finalDimIndexMap.containsKey(stateNumber);
+        }
     }
 
     /**
@@ -146,7 +176,11 @@ public class TransitionPlane<Nonterminal, NodeType>
     {
         assert nextDimIndexMap != null: "No next dimension";
 
-        if (nextDimIndexMap.containsKey(stateNumber)) {
+        if (transitionIndex != null) {
+            int index = transitionIndex.lookup(nextDimRow, stateNumber);
+            return index != TransitionIndex.NO_ENTRY? nextDimension.get(index): null;
+
+        } else if (nextDimIndexMap.containsKey(stateNumber)) {
             assert nextDimIndexMap.get(stateNumber) < nextDimension.size(): String.format("state %d index %d out of range 0..%d",stateNumber, nextDimIndexMap.get(stateNumber), nextDimension.size());
             return nextDimension.get(nextDimIndexMap.get(stateNumber));
         } else {
@@ -155,28 +189,157 @@ public class TransitionPlane<Nonterminal, NodeType>
     }
 
     /**
-     * Assign a state number to a node.
+     * Get the state of a node.
      * @pre this must be the final dimension of the hyperplane.
      * @param stateNumber   the state number of the node's last child
      * (or the number of the null node production, if that child is null).
-     * @param node      the node being labelled.
+     * @param node      the node being labelled, which is passed to predicates.
      * @param visitor   the receiver object for predicate method calls.
-     * @post the node's state number will be assigned.
+     * @return the node's state, or the error state if there is no transition.
      * @throws Exception of arbitrary type from predicate invocation.
      */
-    void assignStateNumber(int stateNumber, BurgInput<Nonterminal, NodeType> node, Object visitor)
+    State<Nonterminal, NodeType> getState(int stateNumber, Object node, Object visitor)
     throws Exception
     {
-        if (finalDimIndexMap.containsKey(stateNumber)) {
-            State<Nonterminal, NodeType> result = finalDimension.get(finalDimIndexMap.get(stateNumber)).getState(node, visitor);
-            node.setStateNumber(result.number);
-            node.setTransitionTableLeaf(result);
+        return getState(stateNumber, node, visitor, null);
+    }
+
+    /**
+     * Get the state of a node that's labeled for a set of goals.
+     * @pre this must be the final dimension of the hyperplane.
+     * @param stateNumber   the state number of the node's last child.
+     * @param node      the node being labelled, which is passed to predicates.
+     * @param visitor   the receiver object for predicate method calls.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     * @return the node's state, or the error state if there is no transition.
+     * @throws Exception of arbitrary type from predicate invocation.
+     */
+    State<Nonterminal, NodeType> getState(int stateNumber, Object node, Object visitor, BitSet goals)
+    throws Exception
+    {
+        int index;
+
+        if (transitionIndex != null) {
+            index = transitionIndex.lookup(finalDimRow, stateNumber);
         } else {
-            node.setStateNumber(ProductionTable.ERROR_STATE_NUM);
-            node.setTransitionTableLeaf(productionTable.errorState);
+            index = finalDimIndexMap.containsKey(stateNumber)? finalDimIndexMap.get(stateNumber): TransitionIndex.NO_ENTRY;
+        }
+
+        if (index != TransitionIndex.NO_ENTRY) {
+            return finalDimension.get(index).getState(node, visitor, goals);
+        } else {
+            return errorState;
         }
     }
 
+    /**
+     * Add this plane's index maps, and those of its
+     * next dimension, to an Operator's transition index.
+     * @param index the transition index.
+     * @param planes    [out] the planes added to the index;
+     * they are given the index once it's packed.
+     */
+    void addToTransitionIndex(TransitionIndex index, Set<TransitionPlane<Nonterminal,NodeType>> planes)
+    {
+        if (planes.contains(this)) {
+            return;
+        }
+
+        planes.add(this);
+
+        if (nextDimIndexMap != null) {
+            nextDimRow = index.addRow(nextDimIndexMap);
+
+            for (TransitionPlane<Nonterminal, NodeType> child: nextDimension) {
+                child.addToTransitionIndex(index, planes);
+            }
+        }
+
+        if (finalDimIndexMap != null) {
+            finalDimRow = index.addRow(finalDimIndexMap);
+        }
+    }
+
+    /**
+     * Collect the leaves of this plane and its next dimension.
+     * @param planes    [in/out] planes already visited;
+     * a variadic plane may be its own next dimension.
+     * @param leaves    [out] the leaves.
+     */
+    void collectLeaves(Set<TransitionPlane<Nonterminal,NodeType>> planes, Set<TransitionTableLeaf<Nonterminal,NodeType>> leaves)
+    {
+        if (!planes.add(this)) {
+            return;
+        }
+
+        if (nextDimension != null) {
+            for (TransitionPlane<Nonterminal, NodeType> child: nextDimension) {
+                child.collectLeaves(planes, leaves);
+            }
+        }
+
+        if (finalDimension != null) {
+            leaves.addAll(finalDimension);
+        }
+    }
+
+    /**
+     * Release the compile-time data structures of this plane
+     * and its next and final dimensions: the index maps, which
+     * the labeler doesn't use once the transition index is
+     * compiled, and the emitters' caches.
+     * @param planes    [in/out] planes already released;
+     * a variadic plane may be its own next dimension.
+     * @return the number of collection entries released.
+     */
+    int releaseCompileTimeData(Set<TransitionPlane<Nonterminal,NodeType>> planes)
+    {
+        if (!planes.add(this)) {
+            return 0;
+        }
+
+        int result = 0;
+
+        if (transitionIndex != null) {
+
+            if (nextDimIndexMap != null) {
+                result += nextDimIndexMap.size();
+                nextDimIndexMap.clear();
+            }
+
+            if (finalDimIndexMap != null) {
+                result += finalDimIndexMap.size();
+                finalDimIndexMap.clear();
+            }
+        }
+
+        if (statesByIndex != null) {
+            result += statesByIndex.size();
+            statesByIndex = null;
+        }
+
+        if (nextDimensionByIndex != null) {
+            result += nextDimensionByIndex.size();
+            nextDimensionByIndex = null;
+        }
+
+        if (nextDimension != null) {
+            for (TransitionPlane<Nonterminal, NodeType> child: nextDimension) {
+                result += child.releaseCompileTimeData(planes);
+            }
+        }
+
+        if (finalDimension != null) {
+            for (TransitionTableLeaf<Nonterminal, NodeType> child: finalDimension) {
+                result += child.releaseCompileTimeData();
+            }
+        }
+
+        this.productionTable = null;
+        return result;
+    }
+
     Map<Integer,TransitionTableLeaf<Nonterminal,NodeType>> statesByIndex = null;
 
     public Map<Integer,TransitionTableLeaf<Nonterminal,NodeType>> getStatesByIndex()
@@ -209,12 +372,17 @@ public class TransitionPlane<Nonterminal, NodeType>
     /** Finish compilation of this planes's next and/or final dimension(s). */
     void finishCompilation()
     {
-        for (TransitionPlane<Nonterminal, NodeType> child: nextDimension) {
-            child.finishCompilation();
+        // A loaded plane only has the dimension it was dumped with.
+        if (nextDimension != null) {
+            for (TransitionPlane<Nonterminal, NodeType> child: nextDimension) {
+                child.finishCompilation();
+            }
         }
 
-        for (TransitionTableLeaf<Nonterminal, NodeType> child: finalDimension) {
-            child.finishCompilation();
+        if (finalDimension != null) {
+            for (TransitionTableLeaf<Nonterminal, NodeType> child: finalDimension) {
+                child.finishCompilation(productionTable.nonterminalIndex);
+            }
         }
     }
 
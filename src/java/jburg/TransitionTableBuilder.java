@@ -2,8 +2,11 @@ package jburg;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +44,81 @@ class TransitionTableBuilder<Nonterminal, NodeType>
         return transitions.isEmpty();
     }
 
+    /**
+     * @return the number of transitions, i.e., tuples of representer states.
+     */
+    int size()
+    {
+        return transitions.size();
+    }
+
+    /**
+     * @return the states the transitions produce.
+     */
+    Set<State<Nonterminal, NodeType>> getStates()
+    {
+        Set<State<Nonterminal, NodeType>> result = new HashSet<State<Nonterminal, NodeType>>();
+
+        for (Set<State<Nonterminal, NodeType>> states: transitions.values()) {
+            result.addAll(states);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the tuples of representer states that have transitions.
+     */
+    Set<List<RepresenterState<Nonterminal, NodeType>>> getTuples()
+    {
+        return transitions.keySet();
+    }
+
+    /**
+     * @param repStates a tuple of representer states.
+     * @return the states the tuple produces.
+     */
+    Set<State<Nonterminal, NodeType>> getStates(List<RepresenterState<Nonterminal, NodeType>> repStates)
+    {
+        return transitions.get(repStates);
+    }
+
+    /**
+     * Discard the transitions whose tuples have a representer state
+     * that no longer represents any reachable state.
+     * @param liveReps  the representer states that represent
+     * reachable states, by dimension.
+     */
+    void retainTransitions(List<Set<RepresenterState<Nonterminal, NodeType>>> liveReps)
+    {
+        Iterator<List<RepresenterState<Nonterminal, NodeType>>> it = transitions.keySet().iterator();
+
+        while (it.hasNext()) {
+
+            if (!isLive(it.next(), liveReps)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @param repStates a tuple of representer states.
+     * @param liveReps  the representer states that represent
+     * reachable states, by dimension.
+     * @return true if every representer state in the tuple is live.
+     */
+    static <Nonterminal, NodeType> boolean isLive(List<RepresenterState<Nonterminal, NodeType>> repStates, List<Set<RepresenterState<Nonterminal, NodeType>>> liveReps)
+    {
+        for (int dim = 0; dim < repStates.size(); dim++) {
+
+            if (!liveReps.get(dim).contains(repStates.get(dim))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     TransitionPlane<Nonterminal, NodeType> buildTransitionTable()
     {
         TransitionPlane<Nonterminal, NodeType> result = buildTransitionPlane(transitions, 0);
@@ -92,6 +170,18 @@ class TransitionTableBuilder<Nonterminal, NodeType>
             }
         }
 
+        // A leaf state that coalesces several states keeps the
+        // number of the first state added, which depends on hash
+        // order; number it as the equivalent canonical state, if
+        // there is one, so its number denotes its productions.
+        for (State<Nonterminal, NodeType> state: result.getStates()) {
+            State<Nonterminal, NodeType> canonical = productionTable.getCanonicalState(state);
+
+            if (canonical != null) {
+                state.number = canonical.number;
+            }
+        }
+
         return result;
     }
 
@@ -217,9 +307,34 @@ class TransitionTableBuilder<Nonterminal, NodeType>
             }
         }
 
+        /**
+         * @return the sets of states that share a transition, ordered by
+         * their lowest state number; the state sets are disjoint, so this
+         * lays out the transition table independently of hash order.
+         */
         Collection<Set<State<Nonterminal, NodeType>>> getStateSets()
         {
-            return mappings.keySet();
+            List<Set<State<Nonterminal, NodeType>>> result = new ArrayList<Set<State<Nonterminal, NodeType>>>(mappings.keySet());
+
+            Collections.sort(result, new Comparator<Set<State<Nonterminal, NodeType>>>() {
+                public int compare(Set<State<Nonterminal, NodeType>> s1, Set<State<Nonterminal, NodeType>> s2)
+                {
+                    return Integer.compare(lowestStateNumber(s1), lowestStateNumber(s2));
+                }
+            });
+
+            return result;
+        }
+
+        private int lowestStateNumber(Set<State<Nonterminal, NodeType>> states)
+        {
+            int result = Integer.MAX_VALUE;
+
+            for (State<Nonterminal, NodeType> s: states) {
+                result = Math.min(result, s.number);
+            }
+
+            return result;
         }
 
         TransitionMap getTransitions(Set<State<Nonterminal, NodeType>> key)
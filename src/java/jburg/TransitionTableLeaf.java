@@ -3,6 +3,8 @@ package jburg;
 import java.lang.reflect.InvocationTargetException;
 import jburg.semantics.HostRoutine;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A TransitionTableLeaf is a composite state whose constituents
@@ -41,6 +43,91 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
      */
     List<HostRoutine> predicates = new ArrayList<HostRoutine>();
 
+    /**
+     * The largest number of predicates a leaf compiles into
+     * a decision tree; leaves with more predicates look up
+     * their states by the list of satisfied predicates.
+     */
+    static final int MAX_MASK_PREDICATES = 10;
+
+    /**
+     * The predicates, in the same order as the predicates list,
+     * or their compiled routines if the production table compiled
+     * them; predicate i sets bit i of a node's predicate mask.
+     * Null until the leaf is finished.
+     */
+    private HostRoutine[] maskPredicates = null;
+
+    /**
+     * The routines that run the predicates, in the same order as
+     * the predicates list, once the production table has compiled
+     * its routines; null until then, when the predicates run
+     * themselves. The predicates still identify the states.
+     */
+    private HostRoutine[] predicateRoutines = null;
+
+    /**
+     * The decision tree that selects a node's state. Null until
+     * the leaf is finished, or if the leaf has too many predicates.
+     */
+    private DecisionTree<Nonterminal, NodeType> decisionTree = null;
+
+    /**
+     * The states, by predicate mask; masks that no state
+     * satisfies select the empty state. Kept to build
+     * decision trees for goal-directed labeling.
+     */
+    private State<Nonterminal, NodeType>[] statesByMask = null;
+
+    /**
+     * Decision trees that select a state which labels nodes
+     * the same way for a set of goals, keyed by the goals'
+     * nonterminal ordinals; built on demand.
+     */
+    private final Map<BitSet, DecisionTree<Nonterminal, NodeType>> goalDecisionTrees = new ConcurrentHashMap<BitSet, DecisionTree<Nonterminal, NodeType>>();
+
+    /**
+     * A decision tree that selects a node's state: each
+     * decision is three ints, the index of the predicate
+     * to run, then the next decision if the node satisfies
+     * the predicate and the next decision if it doesn't.
+     * A decision that's a negative number n is the outcome
+     * outcomes[-n-1]. Predicates whose results can't change
+     * the outcome aren't in the tree, and so they aren't run.
+     */
+    private static class DecisionTree<Nonterminal, NodeType>
+    {
+        final int[] decisions;
+
+        /** The first decision, or the outcome if the tree has no decisions. */
+        final int root;
+
+        /** The decisions' outcomes; the empty state may be an outcome. */
+        final State<Nonterminal, NodeType>[] outcomes;
+
+        DecisionTree(int[] decisions, int root, State<Nonterminal, NodeType>[] outcomes)
+        {
+            this.decisions = decisions;
+            this.root = root;
+            this.outcomes = outcomes;
+        }
+    }
+
+    /**
+     * Set if this leaf counts the predicates it runs and skips;
+     * see AbstractProductionTable.setPredicateStatistics().
+     */
+    boolean countPredicates = false;
+
+    /** The number of predicates this leaf has run. */
+    private final LongAdder predicateInvocations = new LongAdder();
+
+    /**
+     * The number of predicates this leaf didn't run because
+     * their results couldn't change a node's state.
+     */
+    private final LongAdder predicateInvocationsSaved = new LongAdder();
+
     /**
      * The arity kind of the constituent states.
      */
@@ -136,6 +223,9 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
      */
     private void addPredicates(List<HostRoutine> srcPredicates)
     {
+        // Routines compiled for the old list no longer line up with it.
+        this.predicateRoutines = null;
+
         for (HostRoutine m: srcPredicates) {
             if (!this.predicates.contains(m)) {
                 this.predicates.add(m);
@@ -147,14 +237,27 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
      * Get the state that matches an input node, by running
      * all available predicates and matching the resulting
      * list of satisfied methods to the available states.
+     * @param node      the node, which is passed to the predicates;
+     * a BurgInput, or the object a FlatTree's node carries.
+     * @param visitor   the receiver for predicate methods.
      */
-    State<Nonterminal, NodeType> getState(BurgInput<Nonterminal, NodeType> node, Object visitor)
+    State<Nonterminal, NodeType> getState(Object node, Object visitor)
     throws IllegalAccessException, InvocationTargetException
     {
+        if (decisionTree != null) {
+            return getStateByDecisionTree(decisionTree, node, visitor);
+        }
+
+        if (countPredicates && !this.predicates.isEmpty()) {
+            predicateInvocations.add(this.predicates.size());
+        }
+
         List<HostRoutine> satisfiedPredicates = new ArrayList<HostRoutine>();
+        HostRoutine[] routines = this.predicateRoutines;
 
-        for (HostRoutine m: this.predicates) {
-            Boolean success = (Boolean)m.invoke(visitor, node);
+        for (int i = 0; i < this.predicates.size(); i++) {
+            HostRoutine m = this.predicates.get(i);
+            Boolean success = (Boolean)(routines != null? routines[i]: m).invoke1(visitor, node);
 
             if (success) {
                 satisfiedPredicates.add(m);
@@ -173,6 +276,243 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
         }
     }
 
+    /**
+     * Get the state that matches an input node that's labeled
+     * for a set of goals; only the predicates whose results can
+     * change how the node is reduced to those goals are run.
+     * @param node      the node, which is passed to the predicates.
+     * @param visitor   the receiver for predicate methods.
+     * @param goals     the ordinals of the nonterminals the node may be
+     * reduced to, or null if it may be reduced to any nonterminal.
+     */
+    State<Nonterminal, NodeType> getState(Object node, Object visitor, BitSet goals)
+    throws IllegalAccessException, InvocationTargetException
+    {
+        if (goals == null || decisionTree == null || maskPredicates.length == 0) {
+            return getState(node, visitor);
+        }
+
+        DecisionTree<Nonterminal, NodeType> tree = goalDecisionTrees.get(goals);
+
+        if (tree == null) {
+            // Concurrent labelers may build the same tree; they're equivalent.
+            tree = buildDecisionTree(goals);
+            goalDecisionTrees.put(goals, tree);
+        }
+
+        return getStateByDecisionTree(tree, node, visitor);
+    }
+
+    /**
+     * Get the state that matches an input node by walking
+     * a decision tree, running only the predicates whose
+     * results can still change the state.
+     */
+    private State<Nonterminal, NodeType> getStateByDecisionTree(DecisionTree<Nonterminal, NodeType> tree, Object node, Object visitor)
+    throws IllegalAccessException, InvocationTargetException
+    {
+        int decision = tree.root;
+        int invocations = 0;
+
+        while (decision >= 0) {
+            Boolean success = (Boolean)maskPredicates[tree.decisions[decision]].invoke1(visitor, node);
+            invocations++;
+            decision = success? tree.decisions[decision+1]: tree.decisions[decision+2];
+        }
+
+        if (countPredicates && maskPredicates.length > 0) {
+            predicateInvocations.add(invocations);
+            predicateInvocationsSaved.add(maskPredicates.length - invocations);
+        }
+
+        return tree.outcomes[-decision-1];
+    }
+
+    /**
+     * Compile the constituent states into a decision tree
+     * keyed by the predicates each state's nodes satisfy.
+     */
+    @SuppressWarnings("unchecked")
+    private void compileDecisionTree()
+    {
+        if (predicates.size() > MAX_MASK_PREDICATES) {
+            return;
+        }
+
+        HostRoutine[] maskPredicates = predicates.toArray(new HostRoutine[predicates.size()]);
+        State<Nonterminal, NodeType>[] statesByMask = new State[1 << maskPredicates.length];
+
+        for (Map.Entry<List<HostRoutine>, State<Nonterminal, NodeType>> entry: states.entrySet()) {
+            int mask = 0;
+
+            for (HostRoutine m: entry.getKey()) {
+                int bit = predicates.indexOf(m);
+                assert bit >= 0: String.format("predicate %s not in %s", m, predicates);
+                mask |= 1 << bit;
+            }
+
+            statesByMask[mask] = entry.getValue();
+        }
+
+        // The state generator generated all permutations of
+        // the predicates, with the possible exception of the
+        // state that satisfies no predicates; nodes that
+        // satisfy a missing permutation get the empty state.
+        for (int mask = 0; mask < statesByMask.length; mask++) {
+            if (statesByMask[mask] == null) {
+                statesByMask[mask] = emptyState();
+            }
+        }
+
+        this.maskPredicates = maskPredicates;
+        this.statesByMask = statesByMask;
+        this.decisionTree = buildDecisionTree(null);
+    }
+
+    /**
+     * Build a decision tree from the states by predicate mask.
+     * @param goals the ordinals of the nonterminals the tree's
+     * nodes may be reduced to, or null if they may be reduced
+     * to any nonterminal.
+     */
+    @SuppressWarnings("unchecked")
+    private DecisionTree<Nonterminal, NodeType> buildDecisionTree(BitSet goals)
+    {
+        List<Integer> candidates = new ArrayList<Integer>();
+
+        for (int i = 0; i < maskPredicates.length; i++) {
+            candidates.add(i);
+        }
+
+        List<Integer> tree = new ArrayList<Integer>();
+        List<State<Nonterminal, NodeType>> outcomes = new ArrayList<State<Nonterminal, NodeType>>();
+        int root = buildDecision(goals, 0, 0, candidates, tree, outcomes);
+
+        int[] decisions = new int[tree.size()];
+
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = tree.get(i);
+        }
+
+        return new DecisionTree<Nonterminal, NodeType>(decisions, root, outcomes.toArray(new State[outcomes.size()]));
+    }
+
+    /**
+     * Build the decision that selects a state from the masks
+     * whose decided bits have the decided values. The decision
+     * runs the first undecided predicate that can change the
+     * state, so a path through the tree runs predicates in
+     * the same order as the predicates list. A predicate that
+     * only chooses between states that label nodes the same
+     * way, or that reduce nodes to the goals the same way,
+     * isn't run.
+     * @param goals         the ordinals of the goals, or null
+     * if nodes may be reduced to any nonterminal.
+     * @param decidedBits   the bits of predicates already run.
+     * @param decidedValues the results of the predicates already run.
+     * @param candidates    predicates that haven't been run,
+     * which may change the state.
+     * @param tree          [out] the decisions.
+     * @param outcomes      [out] the decisions' outcomes.
+     * @return the decision's index, or its outcome.
+     */
+    private int buildDecision(BitSet goals, int decidedBits, int decidedValues, List<Integer> candidates, List<Integer> tree, List<State<Nonterminal, NodeType>> outcomes)
+    {
+        List<Integer> relevant = new ArrayList<Integer>();
+
+        for (Integer predicate: candidates) {
+            int bit = 1 << predicate;
+
+            for (int mask = 0; mask < statesByMask.length; mask++) {
+
+                if ((mask & decidedBits) == decidedValues && (mask & bit) == 0 && !labelsLike(statesByMask[mask], statesByMask[mask | bit], goals)) {
+                    relevant.add(predicate);
+                    break;
+                }
+            }
+        }
+
+        if (relevant.isEmpty()) {
+            // Every remaining mask selects an equivalent state.
+            outcomes.add(statesByMask[decidedValues]);
+            return -outcomes.size();
+        }
+
+        int predicate = relevant.get(0);
+        int bit = 1 << predicate;
+        List<Integer> remaining = relevant.subList(1, relevant.size());
+
+        int decision = tree.size();
+        tree.add(predicate);
+        tree.add(0);
+        tree.add(0);
+        tree.set(decision+1, buildDecision(goals, decidedBits | bit, decidedValues | bit, remaining, tree, outcomes));
+        tree.set(decision+2, buildDecision(goals, decidedBits | bit, decidedValues, remaining, tree, outcomes));
+        return decision;
+    }
+
+    /**
+     * Do two states label nodes the same way for a set of goals?
+     * @param s1    one state.
+     * @param s2    the other state.
+     * @param goals the ordinals of the goals, or null for all nonterminals.
+     */
+    private boolean labelsLike(State<Nonterminal, NodeType> s1, State<Nonterminal, NodeType> s2, BitSet goals)
+    {
+        return goals != null? s1.labelsLike(s2, goals): s1.labelsLike(s2);
+    }
+
+    /**
+     * Run this finished leaf's predicates through compiled routines,
+     * and reduce its states' nodes with them.
+     * @param compiled  the production table's compiled routines.
+     */
+    void compileRoutines(CompiledRoutines<Nonterminal> compiled)
+    {
+        HostRoutine[] predicateRoutines = new HostRoutine[predicates.size()];
+
+        for (int i = 0; i < predicateRoutines.length; i++) {
+            predicateRoutines[i] = compiled.getRoutine(predicates.get(i));
+        }
+
+        if (maskPredicates != null) {
+            HostRoutine[] compiledMaskPredicates = new HostRoutine[maskPredicates.length];
+
+            for (int i = 0; i < maskPredicates.length; i++) {
+                compiledMaskPredicates[i] = compiled.getRoutine(maskPredicates[i]);
+            }
+
+            this.maskPredicates = compiledMaskPredicates;
+        }
+
+        this.predicateRoutines = predicateRoutines;
+
+        // Labelers set these states into nodes, and reducers use their
+        // closure chains; they needn't be the table's canonical states.
+        for (State<Nonterminal, NodeType> s: states.values()) {
+            s.compileRoutines(compiled);
+        }
+    }
+
+    /**
+     * @return the number of predicates this leaf has run while
+     * labeling nodes, if it counts them; zero otherwise.
+     */
+    long getPredicateInvocations()
+    {
+        return predicateInvocations.sum();
+    }
+
+    /**
+     * @return the number of predicates this leaf didn't run while
+     * labeling nodes, because their results couldn't change a
+     * node's state, if it counts them; zero otherwise.
+     */
+    long getPredicateInvocationsSaved()
+    {
+        return predicateInvocationsSaved.sum();
+    }
+
     static final State<?,?> s_emptyState = new State();
 
     @SuppressWarnings("unchecked")
@@ -215,11 +555,19 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
         return states.values();
     }
 
-    /** Finish compilation of this leaf's states. */
-    void finishCompilation()
+    /**
+     * Finish compilation of this leaf's states. A leaf operator's leaf
+     * is finished again after each incremental generation, since its
+     * states may have been renumbered.
+     * @param nonterminalIndex  the production table's nonterminal ordinals.
+     */
+    void finishCompilation(NonterminalIndex nonterminalIndex)
     {
+        statesProducingNonterminal.clear();
+        goalDecisionTrees.clear();
+
         for (State<Nonterminal, NodeType> state: getStates()) {
-            state.finishCompilation();
+            state.finishCompilation(nonterminalIndex);
 
             for (Object nt: state.getNonterminals()) {
                 if (!statesProducingNonterminal.containsKey(nt)) {
@@ -228,6 +576,60 @@ public class TransitionTableLeaf<Nonterminal, NodeType>
                 statesProducingNonterminal.get(nt).add(state.number);
             }
         }
+
+        compileDecisionTree();
+    }
+
+    /**
+     * Recompile the parts of this finished leaf that depend on its
+     * states' numbers, after the production table renumbers its states:
+     * the map of nonterminals to states, and the decision trees, which
+     * may find more of the states alike once equivalent states share
+     * a number.
+     */
+    void statesRenumbered()
+    {
+        statesProducingNonterminal.clear();
+
+        for (State<Nonterminal, NodeType> state: getStates()) {
+
+            for (Object nt: state.getNonterminals()) {
+                if (!statesProducingNonterminal.containsKey(nt)) {
+                    statesProducingNonterminal.put(nt, new ArrayList<Integer>());
+                }
+
+                if (!statesProducingNonterminal.get(nt).contains(state.number)) {
+                    statesProducingNonterminal.get(nt).add(state.number);
+                }
+            }
+        }
+
+        goalDecisionTrees.clear();
+        compileDecisionTree();
+    }
+
+    /**
+     * Release this leaf's compile-time data structures: the map of
+     * nonterminals to states, which only the emitters use, and the
+     * predicate list if the states are selected by a decision tree;
+     * and its states' compile-time data structures.
+     * @return the number of collection entries released.
+     */
+    int releaseCompileTimeData()
+    {
+        int result = statesProducingNonterminal.size();
+        statesProducingNonterminal.clear();
+
+        if (decisionTree != null) {
+            result += predicates.size();
+            predicates.clear();
+        }
+
+        for (State<Nonterminal, NodeType> state: getStates()) {
+            result += state.releaseCompileTimeData();
+        }
+
+        return result;
     }
 
     @Override
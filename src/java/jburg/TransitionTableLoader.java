@@ -684,6 +684,8 @@ public class TransitionTableLoader<Nonterminal, NodeType> extends DefaultHandler
                 }
             }
 
+            this.productionTable.finishLoading();
+
             return this.productionTable;
         }
 
@@ -720,6 +722,7 @@ public class TransitionTableLoader<Nonterminal, NodeType> extends DefaultHandler
                 Collections.sort(result.predicates);
             }
 
+            productionTable.loadState(result);
             return result;
         }
 
@@ -96,6 +96,9 @@ public class JavaRenderer implements AttributeRenderer
         } else if ("postCallback.variadicOffset".equals(formatString)) {
             return String.valueOf(((HostRoutine<Class>)o).getVariadicOffset());
 
+        } else if ("javaString".equals(formatString)) {
+            return javaString(o.toString());
+
         } else if ("timestamp".equals(formatString)) {
             return new java.util.Date().toString();
 
@@ -136,4 +139,45 @@ public class JavaRenderer implements AttributeRenderer
             return o.toString();
         }
     }
+
+    /**
+     * Escape a string's characters so it can be written as a Java
+     * string literal; characters outside printable ASCII are written
+     * as unicode escapes, except line terminators, quotes, and
+     * backslashes, whose unicode escapes the compiler would translate
+     * before it tokenizes the literal.
+     * @param s the string.
+     * @return the escaped characters, without enclosing quotes.
+     */
+    static String javaString(String s)
+    {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            switch(c) {
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                default:
+                    if (c >= 0x20 && c < 0x7f) {
+                        result.append(c);
+                    } else {
+                        result.append(String.format("\\u%04x", (int)c));
+                    }
+            }
+        }
+
+        return result.toString();
+    }
 }
@@ -3,6 +3,7 @@ package jburg.frontend;
 import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import javax.xml.parsers.*;
 import javax.xml.XMLConstants;
 import javax.xml.transform.stream.StreamSource;
@@ -41,6 +42,32 @@ public class XMLGrammar<Nonterminal, NodeType> extends DefaultHandler
      */
     boolean randomizeProductions = false;
 
+    /**
+     * Set this to generate the production table's states in parallel.
+     */
+    ForkJoinPool generationPool = null;
+
+    /**
+     * Set this to keep the production table's intermediate
+     * results, so its states can be generated incrementally.
+     */
+    boolean incrementalGeneration = false;
+
+    /**
+     * The production table's transition budget; zero if there is none.
+     */
+    int transitionBudget = 0;
+
+    /**
+     * Set this to minimize the production table's states after generating them.
+     */
+    boolean minimizeStates = false;
+
+    /**
+     * Clear this to build a production table without generating its states.
+     */
+    boolean generateStates = true;
+
     public XMLGrammar(String nonterminalClass, String nodeTypeClass)
     {
         this(nonterminalClass, nodeTypeClass, null);
@@ -58,6 +85,59 @@ public class XMLGrammar<Nonterminal, NodeType> extends DefaultHandler
         this.randomizeProductions = randomize;
     }
 
+    /**
+     * Generate the production table's states in parallel.
+     * @param pool  the pool that runs the state generation tasks,
+     * or null to generate states serially.
+     */
+    public void setGenerationPool(ForkJoinPool pool)
+    {
+        this.generationPool = pool;
+    }
+
+    /**
+     * Build a production table whose states can be generated
+     * incrementally after productions are added or removed.
+     * @param incremental   true to generate states incrementally.
+     */
+    public void setIncrementalGeneration(boolean incremental)
+    {
+        this.incrementalGeneration = incremental;
+    }
+
+    /**
+     * Set the production table's transition budget.
+     * @param maxTransitions    the largest number of transitions an
+     * operator's transition table may have, or zero for no budget.
+     * @see ProductionTable#setTransitionBudget(int)
+     */
+    public void setTransitionBudget(int maxTransitions)
+    {
+        this.transitionBudget = maxTransitions;
+    }
+
+    /**
+     * Minimize the production table's states after generating them.
+     * @param minimize  true to merge equivalent states.
+     * @see ProductionTable#minimizeStates()
+     */
+    public void setMinimizeStates(boolean minimize)
+    {
+        this.minimizeStates = minimize;
+    }
+
+    /**
+     * Generate the production table's states when it's built.
+     * A table that only creates a lazy table needn't generate
+     * them, since the lazy table computes its own states.
+     * @param generate  false to build the table without its states.
+     * @see ProductionTable#createLazyTable(int)
+     */
+    public void setGenerateStates(boolean generate)
+    {
+        this.generateStates = generate;
+    }
+
     public void setVerboseTrigger(String trigger)
     {
         this.verboseTrigger = trigger;
@@ -85,6 +165,8 @@ public class XMLGrammar<Nonterminal, NodeType> extends DefaultHandler
 
         ProductionTable<Nonterminal,NodeType> result = new ProductionTable<Nonterminal,NodeType>();
         result.setVerboseTrigger(verboseTrigger);
+        result.setIncrementalGeneration(incrementalGeneration);
+        result.setTransitionBudget(transitionBudget);
 
         if (!randomizeProductions) {
 
@@ -106,7 +188,18 @@ public class XMLGrammar<Nonterminal, NodeType> extends DefaultHandler
             }
         }
 
-        result.generateStates();
+        if (generateStates) {
+
+            if (generationPool != null) {
+                result.generateStatesInParallel(generationPool);
+            } else {
+                result.generateStates();
+            }
+
+            if (minimizeStates) {
+                result.minimizeStates();
+            }
+        }
         return result;
     }
 
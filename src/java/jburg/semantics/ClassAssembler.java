@@ -0,0 +1,853 @@
+package jburg.semantics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ClassAssembler writes a class file from methods assembled
+ * instruction by instruction, and defines the class as a hidden
+ * class. It supports the subset of the class file format that
+ * the runtime BURM compilers need: a constant pool of classes,
+ * fields, and methods, fields without attributes, and methods
+ * whose only attribute is their Code.
+ * <p>Class files are version 49, which the JVM verifies by type
+ * inference, so the assembler needn't compute stack map frames.
+ */
+public class ClassAssembler
+{
+    public static final int ACC_PUBLIC  = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_FINAL   = 0x0010;
+    public static final int ACC_SUPER   = 0x0020;
+
+    public static final int ACONST_NULL         = 0x01;
+    public static final int ICONST_0            = 0x03;
+    public static final int ICONST_1            = 0x04;
+    public static final int BIPUSH              = 0x10;
+    public static final int SIPUSH              = 0x11;
+    public static final int ILOAD               = 0x15;
+    public static final int ALOAD               = 0x19;
+    public static final int AALOAD              = 0x32;
+    public static final int ISTORE              = 0x36;
+    public static final int ASTORE              = 0x3a;
+    public static final int AASTORE             = 0x53;
+    public static final int POP                 = 0x57;
+    public static final int POP2                = 0x58;
+    public static final int DUP                 = 0x59;
+    public static final int DUP_X1              = 0x5a;
+    public static final int SWAP                = 0x5f;
+    public static final int IADD                = 0x60;
+    public static final int ISUB                = 0x64;
+    public static final int IINC                = 0x84;
+    public static final int IF_ICMPGE           = 0xa2;
+    public static final int IF_ICMPLT           = 0xa1;
+    public static final int GOTO                = 0xa7;
+    public static final int TABLESWITCH         = 0xaa;
+    public static final int ARETURN             = 0xb0;
+    public static final int RETURN              = 0xb1;
+    public static final int GETFIELD            = 0xb4;
+    public static final int PUTFIELD            = 0xb5;
+    public static final int INVOKEVIRTUAL       = 0xb6;
+    public static final int INVOKESPECIAL       = 0xb7;
+    public static final int INVOKESTATIC        = 0xb8;
+    public static final int INVOKEINTERFACE     = 0xb9;
+    public static final int NEW                 = 0xbb;
+    public static final int ANEWARRAY           = 0xbd;
+    public static final int ATHROW              = 0xbf;
+    public static final int CHECKCAST           = 0xc0;
+    public static final int IFNONNULL           = 0xc7;
+
+    private static final int CLASS_FILE_VERSION = 49;
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private static final int CONSTANT_UTF8                  = 1;
+    private static final int CONSTANT_CLASS                 = 7;
+    private static final int CONSTANT_FIELDREF              = 9;
+    private static final int CONSTANT_METHODREF             = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF   = 11;
+    private static final int CONSTANT_NAME_AND_TYPE         = 12;
+
+    /**
+     * The class' internal name.
+     */
+    private final String className;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * The constant pool's entries, serialized.
+     */
+    private final ByteArrayOutputStream constantPool = new ByteArrayOutputStream();
+
+    /**
+     * Indexes of the constant pool's entries, by a key
+     * composed of the entry's tag and contents.
+     */
+    private final Map<String,Integer> constants = new HashMap<String,Integer>();
+
+    /**
+     * The index the next constant pool entry will be assigned.
+     */
+    private int nextConstant = 1;
+
+    /**
+     * The class' fields, serialized.
+     */
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+    private int fieldCount = 0;
+
+    /**
+     * The class' methods, in the order they were added.
+     */
+    private final List<Code> methods = new ArrayList<Code>();
+
+    /**
+     * Construct an assembler for a public final class.
+     * @param className     the class' internal name.
+     * @param superName     the internal name of its superclass.
+     * @param interfaceNames    the internal names of the interfaces it implements.
+     */
+    public ClassAssembler(String className, String superName, String... interfaceNames)
+    {
+        this.className = className;
+        this.thisClass = classConstant(className);
+        this.superClass = classConstant(superName);
+        this.interfaces = new int[interfaceNames.length];
+
+        for (int i = 0; i < interfaceNames.length; i++) {
+            this.interfaces[i] = classConstant(interfaceNames[i]);
+        }
+    }
+
+    /**
+     * @return the class' internal name.
+     */
+    public String getClassName()
+    {
+        return className;
+    }
+
+    /**
+     * Add a field.
+     * @param access        the field's access flags.
+     * @param name          the field's name.
+     * @param descriptor    the field's type descriptor.
+     */
+    public void addField(int access, String name, String descriptor)
+    {
+        writeU2(fields, access);
+        writeU2(fields, utf8Constant(name));
+        writeU2(fields, utf8Constant(descriptor));
+        writeU2(fields, 0);
+        fieldCount++;
+    }
+
+    /**
+     * Add a method; its instructions are appended to the Code.
+     * @param access        the method's access flags.
+     * @param name          the method's name.
+     * @param descriptor    the method's descriptor.
+     * @return the method's Code.
+     */
+    public Code addMethod(int access, String name, String descriptor)
+    {
+        Code result = new Code(access, name, descriptor);
+        methods.add(result);
+        return result;
+    }
+
+    /**
+     * Write the class file.
+     * @return the class file.
+     * @throws IllegalStateException if a method's code is too long for a class file.
+     */
+    public byte[] toByteArray()
+    {
+        // Methods' names and descriptors go in the constant pool,
+        // so serialize the methods before writing the pool.
+        ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+
+        for (Code method: methods) {
+            method.writeTo(methodBytes);
+        }
+
+        try {
+            ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+            DataOutputStream classFile = new DataOutputStream(classBytes);
+
+            classFile.writeInt(0xCAFEBABE);
+            classFile.writeShort(0);
+            classFile.writeShort(CLASS_FILE_VERSION);
+            classFile.writeShort(nextConstant);
+            constantPool.writeTo(classFile);
+            classFile.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            classFile.writeShort(thisClass);
+            classFile.writeShort(superClass);
+            classFile.writeShort(interfaces.length);
+
+            for (int iface: interfaces) {
+                classFile.writeShort(iface);
+            }
+
+            classFile.writeShort(fieldCount);
+            fields.writeTo(classFile);
+            classFile.writeShort(methods.size());
+            methodBytes.writeTo(classFile);
+            // No class attributes.
+            classFile.writeShort(0);
+            classFile.flush();
+
+            return classBytes.toByteArray();
+
+        } catch (IOException cannotWrite) {
+            // Byte array streams don't throw.
+            throw new IllegalStateException(cannotWrite);
+        }
+    }
+
+    /**
+     * Define the class as a hidden class in the package and nest
+     * of a lookup's class; the class' name must be in that package.
+     * @param lookup    a lookup with full privilege access.
+     * @return the hidden class.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     */
+    public Class<?> defineHiddenClass(MethodHandles.Lookup lookup)
+    throws IllegalAccessException
+    {
+        return lookup.defineHiddenClass(toByteArray(), true, MethodHandles.Lookup.ClassOption.NESTMATE).lookupClass();
+    }
+
+    /**
+     * Get the internal name of a class in a lookup class' package.
+     * @param lookup    the lookup.
+     * @param simpleName    the class' simple name.
+     * @return the internal name.
+     */
+    public static String classNameInPackage(MethodHandles.Lookup lookup, String simpleName)
+    {
+        String packageName = lookup.lookupClass().getPackageName();
+        return packageName.isEmpty()? simpleName: packageName.replace('.', '/') + "/" + simpleName;
+    }
+
+    /**
+     * Can a class defined by a lookup call a method directly?
+     * @param lookup    the lookup.
+     * @param m         the method.
+     * @return true if the lookup's class can call the method and name
+     * the types of its declaring class, parameters, and result.
+     */
+    public static boolean canCall(MethodHandles.Lookup lookup, Method m)
+    {
+        Class<?> declaringClass = m.getDeclaringClass();
+        boolean isStatic = Modifier.isStatic(m.getModifiers());
+
+        // Calling a static interface method needs a newer class file version;
+        // protected methods of other packages' classes need a subclass.
+        if (declaringClass.isInterface() && isStatic) {
+            return false;
+        } else if (Modifier.isProtected(m.getModifiers()) && !declaringClass.getPackageName().equals(lookup.lookupClass().getPackageName())) {
+            return false;
+        }
+
+        try {
+            lookup.unreflect(m);
+            lookup.accessClass(declaringClass);
+            lookup.accessClass(m.getReturnType());
+
+            for (Class<?> parameterType: m.getParameterTypes()) {
+                lookup.accessClass(parameterType);
+            }
+            return true;
+        } catch (IllegalAccessException inaccessible) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the constant pool index of a class.
+     * @param internalName  the class' internal name, or an array's descriptor.
+     */
+    public int classConstant(String internalName)
+    {
+        Integer index = constants.get("Class:" + internalName);
+
+        if (index == null) {
+            int nameIndex = utf8Constant(internalName);
+            index = writeConstant(CONSTANT_CLASS, nameIndex);
+            constants.put("Class:" + internalName, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Get the constant pool index of a method.
+     * @param owner         the internal name of the method's class.
+     * @param name          the method's name.
+     * @param descriptor    the method's descriptor.
+     * @param isInterface   true if the owner is an interface.
+     */
+    public int methodConstant(String owner, String name, String descriptor, boolean isInterface)
+    {
+        String key = (isInterface? "InterfaceMethod:": "Method:") + owner + "." + name + descriptor;
+        Integer index = constants.get(key);
+
+        if (index == null) {
+            int classIndex = classConstant(owner);
+            int nameAndType = nameAndTypeConstant(name, descriptor);
+            index = writeConstant(isInterface? CONSTANT_INTERFACE_METHODREF: CONSTANT_METHODREF, classIndex, nameAndType);
+            constants.put(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Get the constant pool index of a field.
+     * @param owner         the internal name of the field's class.
+     * @param name          the field's name.
+     * @param descriptor    the field's type descriptor.
+     */
+    public int fieldConstant(String owner, String name, String descriptor)
+    {
+        String key = "Field:" + owner + "." + name + ":" + descriptor;
+        Integer index = constants.get(key);
+
+        if (index == null) {
+            int classIndex = classConstant(owner);
+            int nameAndType = nameAndTypeConstant(name, descriptor);
+            index = writeConstant(CONSTANT_FIELDREF, classIndex, nameAndType);
+            constants.put(key, index);
+        }
+
+        return index;
+    }
+
+    private int utf8Constant(String value)
+    {
+        Integer index = constants.get("Utf8:" + value);
+
+        if (index == null) {
+            try {
+                DataOutputStream out = new DataOutputStream(constantPool);
+                out.writeByte(CONSTANT_UTF8);
+                out.writeUTF(value);
+                out.flush();
+            } catch (IOException cannotWrite) {
+                throw new IllegalStateException(cannotWrite);
+            }
+
+            index = nextConstant++;
+            constants.put("Utf8:" + value, index);
+        }
+
+        return index;
+    }
+
+    private int nameAndTypeConstant(String name, String descriptor)
+    {
+        String key = "NameAndType:" + name + ":" + descriptor;
+        Integer index = constants.get(key);
+
+        if (index == null) {
+            int nameIndex = utf8Constant(name);
+            int descriptorIndex = utf8Constant(descriptor);
+            index = writeConstant(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+            constants.put(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Write a constant pool entry whose contents are constant pool indexes.
+     * @return the entry's index.
+     */
+    private int writeConstant(int tag, int... indexes)
+    {
+        constantPool.write(tag);
+
+        for (int index: indexes) {
+            writeU2(constantPool, index);
+        }
+
+        return nextConstant++;
+    }
+
+    private static void writeU2(ByteArrayOutputStream out, int value)
+    {
+        out.write(value >> 8);
+        out.write(value);
+    }
+
+    private static void writeU4(ByteArrayOutputStream out, int value)
+    {
+        writeU2(out, value >> 16);
+        writeU2(out, value);
+    }
+
+    /**
+     * @return a class' internal name, or an array class' descriptor.
+     */
+    public static String internalName(Class<?> c)
+    {
+        return c.getName().replace('.', '/');
+    }
+
+    /**
+     * @return a method's descriptor.
+     */
+    public static String methodDescriptor(Method m)
+    {
+        StringBuilder result = new StringBuilder("(");
+
+        for (Class<?> parameterType: m.getParameterTypes()) {
+            result.append(descriptor(parameterType));
+        }
+
+        result.append(")");
+        result.append(descriptor(m.getReturnType()));
+        return result.toString();
+    }
+
+    /**
+     * @return a type's descriptor.
+     */
+    public static String descriptor(Class<?> c)
+    {
+        if (c == Void.TYPE) {
+            return "V";
+        } else if (c == Boolean.TYPE) {
+            return "Z";
+        } else if (c == Byte.TYPE) {
+            return "B";
+        } else if (c == Character.TYPE) {
+            return "C";
+        } else if (c == Short.TYPE) {
+            return "S";
+        } else if (c == Integer.TYPE) {
+            return "I";
+        } else if (c == Long.TYPE) {
+            return "J";
+        } else if (c == Float.TYPE) {
+            return "F";
+        } else if (c == Double.TYPE) {
+            return "D";
+        } else if (c.isArray()) {
+            return internalName(c);
+        } else {
+            return "L" + internalName(c) + ";";
+        }
+    }
+
+    /**
+     * @return the wrapper class of a primitive type.
+     */
+    static Class<?> wrapperClass(Class<?> primitive)
+    {
+        if (primitive == Boolean.TYPE) {
+            return Boolean.class;
+        } else if (primitive == Byte.TYPE) {
+            return Byte.class;
+        } else if (primitive == Character.TYPE) {
+            return Character.class;
+        } else if (primitive == Short.TYPE) {
+            return Short.class;
+        } else if (primitive == Integer.TYPE) {
+            return Integer.class;
+        } else if (primitive == Long.TYPE) {
+            return Long.class;
+        } else if (primitive == Float.TYPE) {
+            return Float.class;
+        } else if (primitive == Double.TYPE) {
+            return Double.class;
+        } else {
+            throw new IllegalArgumentException(String.format("%s is not a primitive type", primitive));
+        }
+    }
+
+    /**
+     * @return the number of stack slots or locals a value of the type occupies.
+     */
+    public static int slots(Class<?> type)
+    {
+        return type == Long.TYPE || type == Double.TYPE? 2: 1;
+    }
+
+    /**
+     * Code is a growable buffer of a method's instructions,
+     * with helpers for the instruction sequences the
+     * compilers use.
+     */
+    public class Code
+    {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+
+        private int maxStack = 0;
+        private int maxLocals = 0;
+
+        /**
+         * Exception table entries: start, end, handler, and catch type.
+         */
+        private final List<int[]> exceptionTable = new ArrayList<int[]>();
+
+        private Code(int access, String name, String descriptor)
+        {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * @return the offset of the next instruction.
+         */
+        public int position()
+        {
+            return length;
+        }
+
+        public void op(int opcode)
+        {
+            u1(opcode);
+        }
+
+        public void u1(int value)
+        {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte)value;
+        }
+
+        public void u2(int value)
+        {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        public void u4(int value)
+        {
+            u2(value >> 16);
+            u2(value);
+        }
+
+        /**
+         * Overwrite a four-byte value, e.g., a switch offset.
+         */
+        public void set4(int offset, int value)
+        {
+            bytes[offset]   = (byte)(value >> 24);
+            bytes[offset+1] = (byte)(value >> 16);
+            bytes[offset+2] = (byte)(value >> 8);
+            bytes[offset+3] = (byte)value;
+        }
+
+        /**
+         * Emit a branch whose target is not yet known.
+         * @param opcode    the branch opcode.
+         * @return the branch's offset, for {@link #setTarget}.
+         */
+        public int branch(int opcode)
+        {
+            int result = length;
+            op(opcode);
+            u2(0);
+            return result;
+        }
+
+        /**
+         * Set the target of a branch.
+         * @param branch    the branch's offset.
+         * @param target    the target's offset.
+         */
+        public void setTarget(int branch, int target)
+        {
+            int offset = target - branch;
+            bytes[branch+1] = (byte)(offset >> 8);
+            bytes[branch+2] = (byte)offset;
+        }
+
+        /**
+         * Emit a backward branch.
+         * @param opcode    the branch opcode.
+         * @param target    the target's offset.
+         */
+        public void branchTo(int opcode, int target)
+        {
+            setTarget(branch(opcode), target);
+        }
+
+        /**
+         * Emit a tableswitch over the values 0..caseCount-1 whose
+         * targets are set later by {@link #setCase} and {@link #setDefault}.
+         * @param caseCount the number of cases.
+         * @return the switch, for setCase and setDefault.
+         */
+        public Switch tableswitch(int caseCount)
+        {
+            Switch result = new Switch(length, Math.max(caseCount, 1));
+            op(TABLESWITCH);
+
+            while (length % 4 != 0) {
+                op(0);
+            }
+
+            result.defaultOffset = length;
+            u4(0);
+            u4(0);
+            u4(result.caseCount - 1);
+            result.jumpTable = length;
+
+            for (int i = 0; i < result.caseCount; i++) {
+                u4(0);
+            }
+
+            return result;
+        }
+
+        /**
+         * Set a case's target to the next instruction.
+         */
+        public void setCase(Switch s, int value)
+        {
+            set4(s.jumpTable + 4 * value, length - s.address);
+            s.caseSet[value] = true;
+        }
+
+        /**
+         * Set the default target, and the targets of all
+         * the cases not yet set, to the next instruction.
+         */
+        public void setDefault(Switch s)
+        {
+            set4(s.defaultOffset, length - s.address);
+
+            for (int i = 0; i < s.caseCount; i++) {
+                if (!s.caseSet[i]) {
+                    set4(s.jumpTable + 4 * i, length - s.address);
+                }
+            }
+        }
+
+        /**
+         * Push an int constant.
+         */
+        public void pushInt(int value)
+        {
+            if (value >= -1 && value <= 5) {
+                op(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(BIPUSH);
+                u1(value);
+            } else {
+                op(SIPUSH);
+                u2(value);
+            }
+        }
+
+        /**
+         * Load a reference local.
+         */
+        public void aload(int local)
+        {
+            op(ALOAD);
+            u1(local);
+        }
+
+        /**
+         * Store a reference local.
+         */
+        public void astore(int local)
+        {
+            op(ASTORE);
+            u1(local);
+        }
+
+        public void iload(int local)
+        {
+            op(ILOAD);
+            u1(local);
+        }
+
+        public void istore(int local)
+        {
+            op(ISTORE);
+            u1(local);
+        }
+
+        /**
+         * Emit an instruction that takes a constant pool index.
+         */
+        public void op(int opcode, int constantIndex)
+        {
+            op(opcode);
+            u2(constantIndex);
+        }
+
+        public void checkcast(Class<?> type)
+        {
+            op(CHECKCAST, classConstant(internalName(type)));
+        }
+
+        /**
+         * Convert an Object on the stack to a parameter type.
+         */
+        public void unbox(Class<?> type)
+        {
+            if (type.isPrimitive()) {
+                Class<?> wrapper = wrapperClass(type);
+                checkcast(wrapper);
+                op(INVOKEVIRTUAL, methodConstant(internalName(wrapper), type.getName() + "Value", "()" + descriptor(type), false));
+            } else if (type != Object.class) {
+                checkcast(type);
+            }
+        }
+
+        /**
+         * Convert a method's result on the stack to an Object;
+         * a void method's result is null.
+         */
+        public void box(Class<?> type)
+        {
+            if (type == Void.TYPE) {
+                op(ACONST_NULL);
+            } else if (type.isPrimitive()) {
+                Class<?> wrapper = wrapperClass(type);
+                op(INVOKESTATIC, methodConstant(internalName(wrapper), "valueOf", "(" + descriptor(type) + ")" + descriptor(wrapper), false));
+            }
+        }
+
+        /**
+         * Call a method whose receiver, if it has one,
+         * and arguments are on the stack.
+         * @param m the method.
+         */
+        public void invoke(Method m)
+        {
+            Class<?> declaringClass = m.getDeclaringClass();
+            String owner = internalName(declaringClass);
+            String methodDescriptor = methodDescriptor(m);
+
+            if (Modifier.isStatic(m.getModifiers())) {
+                op(INVOKESTATIC, methodConstant(owner, m.getName(), methodDescriptor, false));
+            } else if (declaringClass.isInterface()) {
+                int argSlots = 1;
+
+                for (Class<?> parameterType: m.getParameterTypes()) {
+                    argSlots += slots(parameterType);
+                }
+
+                op(INVOKEINTERFACE, methodConstant(owner, m.getName(), methodDescriptor, true));
+                u1(argSlots);
+                u1(0);
+            } else {
+                op(INVOKEVIRTUAL, methodConstant(owner, m.getName(), methodDescriptor, false));
+            }
+        }
+
+        /**
+         * Call an interface method.
+         * @param owner         the interface's internal name.
+         * @param name          the method's name.
+         * @param descriptor    the method's descriptor.
+         * @param argSlots      the slots of the receiver and arguments.
+         */
+        public void invokeInterface(String owner, String name, String descriptor, int argSlots)
+        {
+            op(INVOKEINTERFACE, methodConstant(owner, name, descriptor, true));
+            u1(argSlots);
+            u1(0);
+        }
+
+        /**
+         * Add an exception handler.
+         * @param start     the offset of the first covered instruction.
+         * @param end       the offset past the last covered instruction.
+         * @param handler   the offset of the handler.
+         * @param catchType the internal name of the caught class, or null to catch everything.
+         */
+        public void addExceptionHandler(int start, int end, int handler, String catchType)
+        {
+            exceptionTable.add(new int[] { start, end, handler, catchType != null? classConstant(catchType): 0 });
+        }
+
+        /**
+         * Set the method's frame size.
+         * @param maxStack  the operand stack's maximum depth.
+         * @param maxLocals the number of locals, including parameters.
+         */
+        public void setFrameSize(int maxStack, int maxLocals)
+        {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * Write the method_info structure.
+         */
+        private void writeTo(ByteArrayOutputStream out)
+        {
+            if (length > MAX_CODE_LENGTH) {
+                throw new IllegalStateException(String.format("Method %s is too long for a class file: %d bytes", name, length));
+            }
+
+            writeU2(out, access);
+            writeU2(out, utf8Constant(name));
+            writeU2(out, utf8Constant(descriptor));
+            writeU2(out, 1);
+            writeU2(out, utf8Constant("Code"));
+            // max_stack, max_locals, code_length, code,
+            // the exception table, and no attributes.
+            writeU4(out, 2 + 2 + 4 + length + 2 + 8 * exceptionTable.size() + 2);
+            writeU2(out, maxStack);
+            writeU2(out, maxLocals);
+            writeU4(out, length);
+            out.write(bytes, 0, length);
+            writeU2(out, exceptionTable.size());
+
+            for (int[] entry: exceptionTable) {
+                for (int value: entry) {
+                    writeU2(out, value);
+                }
+            }
+
+            writeU2(out, 0);
+        }
+    }
+
+    /**
+     * A Switch is a tableswitch instruction whose targets are being set.
+     */
+    public static class Switch
+    {
+        final int address;
+        final int caseCount;
+        final boolean[] caseSet;
+        int defaultOffset;
+        int jumpTable;
+
+        Switch(int address, int caseCount)
+        {
+            this.address = address;
+            this.caseCount = caseCount;
+            this.caseSet = new boolean[caseCount];
+        }
+    }
+}
@@ -17,6 +17,52 @@ public abstract class HostRoutine<ParameterType> implements Comparable<HostRouti
                IllegalArgumentException,
                InvocationTargetException;
 
+    /*
+     * Arity-specialized entry points: invokeN passes N arguments
+     * to the routine. Implementations that can call the routine
+     * without collecting the arguments into an array override
+     * these; by default, they delegate to invoke(receiver, args).
+     */
+    public Object invoke0(Object receiver)
+        throws IllegalAccessException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        return invoke(receiver);
+    }
+
+    public Object invoke1(Object receiver, Object arg0)
+        throws IllegalAccessException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        return invoke(receiver, arg0);
+    }
+
+    public Object invoke2(Object receiver, Object arg0, Object arg1)
+        throws IllegalAccessException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        return invoke(receiver, arg0, arg1);
+    }
+
+    public Object invoke3(Object receiver, Object arg0, Object arg1, Object arg2)
+        throws IllegalAccessException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        return invoke(receiver, arg0, arg1, arg2);
+    }
+
+    public Object invoke4(Object receiver, Object arg0, Object arg1, Object arg2, Object arg3)
+        throws IllegalAccessException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        return invoke(receiver, arg0, arg1, arg2, arg3);
+    }
+
     public abstract BURMSemantics getSemantics();
 
     public int compareTo(HostRoutine x)
@@ -1,13 +1,20 @@
 package jburg.semantics;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -247,7 +254,7 @@ public class JavaSemantics<Nonterminal,NodeType> implements BURMSemantics<Nonter
             diagnostics.add(String.format("Method %s produces %s, expected %s", methodName, result.getReturnType(), returnType));
         }
 
-        return new MethodWrapperHostRoutine(result);
+        return getHostRoutine(result);
     }
 
     /**
@@ -355,15 +362,87 @@ public class JavaSemantics<Nonterminal,NodeType> implements BURMSemantics<Nonter
         }
     }
 
+    /**
+     * Get the HostRoutine that calls a method. The routine calls
+     * the method through a MethodHandle if the method is accessible
+     * to JavaSemantics, and falls back to reflection otherwise.
+     * @param m the method.
+     * @return a HostRoutine that calls the method.
+     */
     public HostRoutine getHostRoutine(Method m)
     {
-        return new MethodWrapperHostRoutine(m);
+        try {
+            return new MethodHandleHostRoutine(m);
+        } catch (IllegalAccessException inaccessible) {
+            // Reflection reports the access error if the routine is called.
+            return new MethodWrapperHostRoutine(m);
+        }
+    }
+
+    /**
+     * Compile routines into a RoutineDispatcher: a hidden class,
+     * generated at runtime, that calls each routine's method with
+     * a direct invocation instruction, so the JIT can inline the
+     * method into the routine's callers. The routines themselves
+     * are not changed; each compiled routine gets a copy that
+     * calls its method through the dispatcher, which its caller
+     * uses in its place. Routines that don't wrap a method, and
+     * methods the lookup's class can't call, are not compiled.
+     * @param routines  the routines to compile.
+     * @param lookup    a lookup with full privilege access, e.g.,
+     * MethodHandles.lookup() called in the visitor class; the
+     * dispatcher is defined in its class' package and nest.
+     * @return the compiled copies, keyed by the routines they copy.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     */
+    public static Map<HostRoutine, HostRoutine> compileRoutines(Collection<? extends HostRoutine> routines, MethodHandles.Lookup lookup)
+    throws IllegalAccessException
+    {
+        Map<HostRoutine, HostRoutine> result = new IdentityHashMap<HostRoutine, HostRoutine>();
+        List<JavaSemantics<?,?>.MethodWrapperHostRoutine> compiled = new ArrayList<JavaSemantics<?,?>.MethodWrapperHostRoutine>();
+        List<Method> methods = new ArrayList<Method>();
+
+        for (HostRoutine routine: routines) {
+
+            if (routine instanceof JavaSemantics.MethodWrapperHostRoutine && !result.containsKey(routine)) {
+                JavaSemantics<?,?>.MethodWrapperHostRoutine wrapper = (JavaSemantics<?,?>.MethodWrapperHostRoutine)routine;
+
+                if (ClassAssembler.canCall(lookup, wrapper.m)) {
+                    // Mark the routine visited; its copy is made below.
+                    result.put(wrapper, wrapper);
+                    compiled.add(wrapper);
+                    methods.add(wrapper.m);
+                }
+            }
+        }
+
+        if (!compiled.isEmpty()) {
+            RoutineDispatcher dispatcher = new RoutineDispatcherGenerator(methods).define(lookup);
+
+            for (int i = 0; i < compiled.size(); i++) {
+                result.put(compiled.get(i), compiled.get(i).compile(dispatcher, i));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the method a routine calls.
+     * @param routine   the routine.
+     * @return the method, or null if the routine doesn't
+     * wrap a method, e.g., if it's not a JavaSemantics routine.
+     */
+    public static Method getMethod(HostRoutine routine)
+    {
+        return routine instanceof JavaSemantics.MethodWrapperHostRoutine? ((JavaSemantics<?,?>.MethodWrapperHostRoutine)routine).m: null;
     }
 
     class MethodWrapperHostRoutine extends HostRoutine<Class>
     {
         final Method        m;
         final Class<?>[]    parameterTypes;
+
         MethodWrapperHostRoutine(Method m)
         {
             this.m = m;
@@ -413,6 +492,17 @@ public class JavaSemantics<Nonterminal,NodeType> implements BURMSemantics<Nonter
             return parameterTypes.length - 2;
         }
 
+        /**
+         * Copy this routine into one that calls its method through a dispatcher.
+         * @param dispatcher    the dispatcher.
+         * @param routineNumber the method's routine number in the dispatcher.
+         * @return the compiled copy.
+         */
+        HostRoutine compile(RoutineDispatcher dispatcher, int routineNumber)
+        {
+            return new CompiledHostRoutine(m, dispatcher, routineNumber);
+        }
+
         public Object invoke(Object receiver, Object... args)
         throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
         {
@@ -424,4 +514,275 @@ public class JavaSemantics<Nonterminal,NodeType> implements BURMSemantics<Nonter
             return JavaSemantics.this;
         }
     }
+
+    /**
+     * A MethodHandleHostRoutine calls its method through a
+     * MethodHandle adapted to take and return Objects, so its
+     * arity-specialized entry points call the method without
+     * an argument array and can be inlined into the caller.
+     * Exceptions thrown by the method are wrapped in an
+     * InvocationTargetException, as Method.invoke does.
+     */
+    class MethodHandleHostRoutine extends MethodWrapperHostRoutine
+    {
+        /**
+         * The method, adapted to (Object receiver, Object... args)Object
+         * with one Object parameter per formal parameter; for a variadic
+         * method, the last parameter is the array of variadic arguments.
+         */
+        final MethodHandle exact;
+
+        /**
+         * The method, adapted to (Object receiver, Object[] args)Object.
+         */
+        final MethodHandle spreader;
+
+        MethodHandleHostRoutine(Method m)
+        throws IllegalAccessException
+        {
+            super(m);
+
+            MethodHandle handle = MethodHandles.lookup().unreflect(m).asFixedArity();
+
+            if (Modifier.isStatic(m.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            this.exact = handle.asType(MethodType.genericMethodType(parameterTypes.length + 1));
+            this.spreader = exact.asSpreader(Object[].class, parameterTypes.length);
+        }
+
+        @Override
+        public Object invoke(Object receiver, Object... args)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            int argCount = args != null? args.length: 0;
+
+            if (argCount != parameterTypes.length) {
+                throw new IllegalArgumentException(String.format("Method %s expected %d arguments, received %d", m, parameterTypes.length, argCount));
+            }
+
+            try {
+                return spreader.invokeExact(receiver, args);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public Object invoke0(Object receiver)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 0) {
+                return super.invoke0(receiver);
+            }
+
+            try {
+                return (Object)exact.invokeExact(receiver);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public Object invoke1(Object receiver, Object arg0)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 1) {
+                return super.invoke1(receiver, arg0);
+            }
+
+            try {
+                return (Object)exact.invokeExact(receiver, arg0);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public Object invoke2(Object receiver, Object arg0, Object arg1)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 2) {
+                return super.invoke2(receiver, arg0, arg1);
+            }
+
+            try {
+                return (Object)exact.invokeExact(receiver, arg0, arg1);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public Object invoke3(Object receiver, Object arg0, Object arg1, Object arg2)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 3) {
+                return super.invoke3(receiver, arg0, arg1, arg2);
+            }
+
+            try {
+                return (Object)exact.invokeExact(receiver, arg0, arg1, arg2);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public Object invoke4(Object receiver, Object arg0, Object arg1, Object arg2, Object arg3)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 4) {
+                return super.invoke4(receiver, arg0, arg1, arg2, arg3);
+            }
+
+            try {
+                return (Object)exact.invokeExact(receiver, arg0, arg1, arg2, arg3);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    /**
+     * A CompiledHostRoutine is a copy of a routine that calls its
+     * method through a RoutineDispatcher. As Method.invoke does, it
+     * throws an IllegalArgumentException if an argument doesn't
+     * match the method's parameter types, and wraps exceptions
+     * thrown by the method in an InvocationTargetException.
+     */
+    class CompiledHostRoutine extends MethodWrapperHostRoutine
+    {
+        /**
+         * The dispatcher that calls the method.
+         */
+        final RoutineDispatcher dispatcher;
+
+        /**
+         * The method's routine number in the dispatcher.
+         */
+        final int routineNumber;
+
+        CompiledHostRoutine(Method m, RoutineDispatcher dispatcher, int routineNumber)
+        {
+            super(m);
+            this.dispatcher = dispatcher;
+            this.routineNumber = routineNumber;
+        }
+
+        /**
+         * @param cause the exception the dispatcher threw
+         * casting or unboxing the receiver or an argument.
+         * @return the exception Method.invoke would throw.
+         */
+        private IllegalArgumentException argumentMismatch(RuntimeException cause)
+        {
+            return new IllegalArgumentException(String.format("Method %s cannot take its receiver or arguments: %s", m, cause.getMessage()), cause);
+        }
+
+        @Override
+        public Object invoke(Object receiver, Object... args)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            int argCount = args != null? args.length: 0;
+
+            if (argCount != parameterTypes.length) {
+                throw new IllegalArgumentException(String.format("Method %s expected %d arguments, received %d", m, parameterTypes.length, argCount));
+            }
+
+            try {
+                return dispatcher.invoke(routineNumber, receiver, args);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+
+        @Override
+        public Object invoke0(Object receiver)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 0) {
+                return super.invoke0(receiver);
+            }
+
+            try {
+                return dispatcher.invoke0(routineNumber, receiver);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+
+        @Override
+        public Object invoke1(Object receiver, Object arg0)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 1) {
+                return super.invoke1(receiver, arg0);
+            }
+
+            try {
+                return dispatcher.invoke1(routineNumber, receiver, arg0);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+
+        @Override
+        public Object invoke2(Object receiver, Object arg0, Object arg1)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 2) {
+                return super.invoke2(receiver, arg0, arg1);
+            }
+
+            try {
+                return dispatcher.invoke2(routineNumber, receiver, arg0, arg1);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+
+        @Override
+        public Object invoke3(Object receiver, Object arg0, Object arg1, Object arg2)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 3) {
+                return super.invoke3(receiver, arg0, arg1, arg2);
+            }
+
+            try {
+                return dispatcher.invoke3(routineNumber, receiver, arg0, arg1, arg2);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+
+        @Override
+        public Object invoke4(Object receiver, Object arg0, Object arg1, Object arg2, Object arg3)
+        throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+        {
+            if (parameterTypes.length != 4) {
+                return super.invoke4(receiver, arg0, arg1, arg2, arg3);
+            }
+
+            try {
+                return dispatcher.invoke4(routineNumber, receiver, arg0, arg1, arg2, arg3);
+            } catch (ClassCastException wrongType) {
+                throw argumentMismatch(wrongType);
+            } catch (NullPointerException nullPrimitive) {
+                throw argumentMismatch(nullPrimitive);
+            }
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package jburg.semantics;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A RoutineDispatcher calls a set of Java methods, each identified
+ * by a routine number, with direct invocation instructions. Its
+ * implementations are hidden classes generated at runtime by
+ * {@link JavaSemantics#compileRoutines}; the compiled copies of
+ * the HostRoutines route their calls through the dispatcher.
+ * <p>The invokeN entry points call a routine of N parameters;
+ * invoke calls a routine of any arity with an argument array.
+ * Exceptions thrown by the routine are wrapped in an
+ * InvocationTargetException, as Method.invoke wraps them.
+ * A receiver or argument of the wrong type throws a
+ * ClassCastException, and a null argument to a primitive
+ * parameter a NullPointerException, before the routine runs.
+ */
+public interface RoutineDispatcher
+{
+    Object invoke0(int routine, Object receiver) throws InvocationTargetException;
+    Object invoke1(int routine, Object receiver, Object arg0) throws InvocationTargetException;
+    Object invoke2(int routine, Object receiver, Object arg0, Object arg1) throws InvocationTargetException;
+    Object invoke3(int routine, Object receiver, Object arg0, Object arg1, Object arg2) throws InvocationTargetException;
+    Object invoke4(int routine, Object receiver, Object arg0, Object arg1, Object arg2, Object arg3) throws InvocationTargetException;
+    Object invoke(int routine, Object receiver, Object[] args) throws InvocationTargetException;
+}
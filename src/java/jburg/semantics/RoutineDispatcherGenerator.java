@@ -0,0 +1,192 @@
+package jburg.semantics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static jburg.semantics.ClassAssembler.*;
+
+/**
+ * A RoutineDispatcherGenerator generates a RoutineDispatcher that
+ * calls a list of methods, and defines it as a hidden class. Each
+ * of the dispatcher's entry points is a tableswitch on the routine
+ * number whose cases cast the arguments to the method's parameter
+ * types, call the method directly, and box the method's result.
+ * An exception handler that covers only the calls wraps the methods'
+ * exceptions in InvocationTargetExceptions, so a failed cast is
+ * distinguishable from an exception the method threw.
+ */
+class RoutineDispatcherGenerator
+{
+    /**
+     * The dispatcher has invokeN entry points for N in 0..MAX_FIXED_ARITY.
+     */
+    static final int MAX_FIXED_ARITY = 4;
+
+    /**
+     * The simple name of the generated class; the JVM
+     * appends a suffix to make hidden classes' names unique.
+     */
+    private static final String CLASS_NAME = "JBurgRoutineDispatcher";
+
+    private static final String DISPATCHER_INTERFACE = "jburg/semantics/RoutineDispatcher";
+
+    private static final String INVOCATION_TARGET_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+
+    /**
+     * The methods, indexed by routine number.
+     */
+    private final List<Method> methods;
+
+    /**
+     * @param methods   the methods, indexed by routine number.
+     */
+    RoutineDispatcherGenerator(List<Method> methods)
+    {
+        this.methods = methods;
+    }
+
+    /**
+     * Generate the dispatcher and define it as a hidden class
+     * in the package and nest of the lookup's class.
+     * @param lookup    a lookup with full privilege access.
+     * @return an instance of the dispatcher.
+     * @throws IllegalAccessException if the lookup cannot define classes.
+     * @throws IllegalStateException if the dispatcher is too large for a class file.
+     */
+    RoutineDispatcher define(MethodHandles.Lookup lookup)
+    throws IllegalAccessException
+    {
+        ClassAssembler assembler = new ClassAssembler(ClassAssembler.classNameInPackage(lookup, CLASS_NAME), "java/lang/Object", DISPATCHER_INTERFACE);
+
+        ClassAssembler.Code constructor = assembler.addMethod(ACC_PUBLIC, "<init>", "()V");
+        constructor.aload(0);
+        constructor.op(INVOKESPECIAL, assembler.methodConstant("java/lang/Object", "<init>", "()V", false));
+        constructor.op(RETURN);
+        constructor.setFrameSize(1, 1);
+
+        for (int arity = 0; arity <= MAX_FIXED_ARITY; arity++) {
+            addDispatchMethod(assembler, arity);
+        }
+
+        addDispatchMethod(assembler, -1);
+
+        Class<?> dispatcherClass = assembler.defineHiddenClass(lookup);
+
+        try {
+            return (RoutineDispatcher)dispatcherClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException cannotInstantiate) {
+            throw new IllegalStateException(String.format("Unable to instantiate %s", dispatcherClass), cannotInstantiate);
+        }
+    }
+
+    /**
+     * Add one of the dispatcher's entry points.
+     * @param arity the number of arguments the entry point
+     * passes to its routines, or -1 for the entry point that
+     * passes an argument array to routines of any arity.
+     */
+    private void addDispatchMethod(ClassAssembler assembler, int arity)
+    {
+        StringBuilder descriptor = new StringBuilder("(ILjava/lang/Object;");
+
+        for (int i = 0; i < arity; i++) {
+            descriptor.append("Ljava/lang/Object;");
+        }
+
+        if (arity < 0) {
+            descriptor.append("[Ljava/lang/Object;");
+        }
+
+        descriptor.append(")Ljava/lang/Object;");
+
+        ClassAssembler.Code code = assembler.addMethod(ACC_PUBLIC, arity >= 0? "invoke" + arity: "invoke", descriptor.toString());
+        // The exception handler needs three stack slots.
+        int maxStack = 3;
+        List<int[]> calls = new ArrayList<int[]>();
+
+        code.iload(1);
+        ClassAssembler.Switch routineSwitch = code.tableswitch(methods.size());
+
+        for (int i = 0; i < methods.size(); i++) {
+            Method m = methods.get(i);
+
+            if (arity < 0 || m.getParameterCount() == arity) {
+                code.setCase(routineSwitch, i);
+                maxStack = Math.max(maxStack, addCall(code, m, arity < 0, calls));
+            }
+        }
+
+        code.setDefault(routineSwitch);
+        code.op(NEW, assembler.classConstant("java/lang/IllegalArgumentException"));
+        code.op(DUP);
+        code.op(INVOKESPECIAL, assembler.methodConstant("java/lang/IllegalArgumentException", "<init>", "()V", false));
+        code.op(ATHROW);
+
+        if (!calls.isEmpty()) {
+            // Wrap the exception the method threw: new InvocationTargetException(ex).
+            int handler = code.position();
+            code.op(NEW, assembler.classConstant(INVOCATION_TARGET_EXCEPTION));
+            code.op(DUP_X1);
+            code.op(SWAP);
+            code.op(INVOKESPECIAL, assembler.methodConstant(INVOCATION_TARGET_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V", false));
+            code.op(ATHROW);
+
+            for (int[] call: calls) {
+                code.addExceptionHandler(call[0], call[1], handler, null);
+            }
+        }
+
+        // this, the routine number, the receiver, and the arguments.
+        code.setFrameSize(maxStack, arity >= 0? 3 + arity: 4);
+    }
+
+    /**
+     * Add a switch case that calls a method.
+     * @param code          the entry point's code.
+     * @param m             the method to call.
+     * @param spreadArgs    true if the arguments are in an array in local 3,
+     * false if they're in consecutive locals starting at local 3.
+     * @param calls         the start and end offsets of the invocation
+     * instructions, which the exception handler covers.
+     * @return the stack depth the call needs.
+     */
+    private int addCall(ClassAssembler.Code code, Method m, boolean spreadArgs, List<int[]> calls)
+    {
+        Class<?>[] parameterTypes = m.getParameterTypes();
+        int depth = 0;
+        int maxDepth = 0;
+
+        if (!Modifier.isStatic(m.getModifiers())) {
+            code.aload(2);
+            code.checkcast(m.getDeclaringClass());
+            depth = 1;
+        }
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+
+            if (spreadArgs) {
+                code.aload(3);
+                code.pushInt(i);
+                code.op(AALOAD);
+                maxDepth = Math.max(maxDepth, depth + 2);
+            } else {
+                code.aload(3 + i);
+            }
+
+            code.unbox(parameterTypes[i]);
+            depth += ClassAssembler.slots(parameterTypes[i]);
+            maxDepth = Math.max(maxDepth, depth + 1);
+        }
+
+        int callStart = code.position();
+        code.invoke(m);
+        calls.add(new int[] { callStart, code.position() });
+        code.box(m.getReturnType());
+        code.op(ARETURN);
+
+        return Math.max(maxDepth, 2);
+    }
+}
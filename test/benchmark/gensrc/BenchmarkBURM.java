@@ -0,0 +1,2987 @@
+/* GENERATED CODE - Edits will be lost
+ * Generated by JBurg3 1.0 Sat Oct 17 16:12:34 UTC 2026  from ../grammar_driven/grammars/PoorlyOverloaded.xml
+ */
+
+public class BenchmarkBURM
+{
+    private final static int ERROR_STATE_NUM = 0;
+    private final static int NULL_STATE_NUM = 1;
+
+    private static int getStateNumber(Node node)
+    {
+        return node != null? node.getStateNumber(): NULL_STATE_NUM;
+    }
+
+    /*
+     * The labeler's work stack: nodes awaiting labeling, and the
+     * index of each node's next child to visit. The stack is reused
+     * across calls to label(), so an instance labels one tree at a time.
+     */
+    private Node[] labelNodes = new Node[64];
+    private int[] labelNextChild = new int[64];
+
+    public void label(Calculator visitor, Node node)
+    {
+        if (node == null) {
+            return;
+        }
+
+        int depth = 0;
+
+        try {
+            labelNodes[depth] = node;
+            labelNextChild[depth] = 0;
+            depth++;
+
+            // Label the tree in post order; a node is labeled
+            // when it's popped, after all its children.
+            while (depth > 0) {
+                Node top = labelNodes[depth-1];
+
+                if (labelNextChild[depth-1] < top.getSubtreeCount()) {
+                    Node child = top.getSubtree(labelNextChild[depth-1]++);
+
+                    if (child != null) {
+
+                        if (depth == labelNodes.length) {
+                            labelNodes = java.util.Arrays.copyOf(labelNodes, depth * 2);
+                            labelNextChild = java.util.Arrays.copyOf(labelNextChild, depth * 2);
+                        }
+
+                        labelNodes[depth] = child;
+                        labelNextChild[depth] = 0;
+                        depth++;
+                    }
+                } else {
+                    labelNodes[--depth] = null;
+                    labelNode(visitor, top);
+                }
+            }
+        } finally {
+            java.util.Arrays.fill(labelNodes, 0, depth, null);
+        }
+    }
+
+    private void labelNode(Calculator visitor, Node node)
+    {
+        switch(node.getNodeType()) {
+            case Add:
+                switch(node.getSubtreeCount()) {
+                    case 1:
+                        Add_1_Fixed(visitor, node);
+                        break;
+
+                    case 2:
+                        Add_2_Fixed(visitor, node);
+                        break;
+
+                    case 3:
+                        Add_3_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case Concat:
+                switch(node.getSubtreeCount()) {
+                    default:
+                        if (node.getSubtreeCount() >= 1) {
+                            Concat_1_Variadic(visitor, node);
+                        }
+                        break;
+                }
+                break; 
+            case ShortLiteral:
+                switch(node.getSubtreeCount()) {
+                    case 0:
+                        ShortLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case StringLiteral:
+                switch(node.getSubtreeCount()) {
+                    case 0:
+                        StringLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case Subtract:
+                switch(node.getSubtreeCount()) {
+                    case 1:
+                        Subtract_1_Fixed(visitor, node);
+                        break;
+
+                    case 2:
+                        Subtract_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case AddStrict:
+                switch(node.getSubtreeCount()) {
+                    case 2:
+                        AddStrict_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case Multiply:
+                switch(node.getSubtreeCount()) {
+                    case 2:
+                        Multiply_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case IntLiteral:
+                switch(node.getSubtreeCount()) {
+                    case 0:
+                        IntLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            default:
+                node.setStateNumber(ERROR_STATE_NUM);
+                break;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object reduce(Calculator visitor, Node node, Nonterminal goalState)
+    {
+        if (node == null) {
+            return nullHandler.reduce(visitor, node, goalState);
+        } else if (node.getTransitionTableLeaf() != null) {
+            TransitionEntry ti = (TransitionEntry)(node.getTransitionTableLeaf());
+            return ti.reduce(this, visitor, node, goalState);
+        } else {
+            return errorHandler.reduce(visitor, node, goalState);
+        }
+    }
+
+    public boolean canProduce(Node node,  Nonterminal goalState)
+    {
+        if (node != null && node.getTransitionTableLeaf() != null) {
+            TransitionEntry ti = (TransitionEntry)(node.getTransitionTableLeaf());
+            return ti.canProduce(node, goalState);
+        } else {
+            return false;
+        }
+    }
+
+    void Add_1_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+                leafState0.assignState(visitor, node);
+                break;
+
+        }
+
+    } 
+
+    void Add_2_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+        case 2:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 3:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 3: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 3: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 12:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState1.assignState(visitor, node);
+                    break;
+
+                case 3: 
+                case 8: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 13:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 3: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                case 13: 
+                    leafState2.assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+
+    } 
+
+    void Add_3_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+        case 2:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 4:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 5:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 6:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 7:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 9:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 10:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 11:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+        break;
+        case 12:
+            switch(getStateNumber(node.getSubtree(1))) {
+            case 2:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 4:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 5:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 6:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 7:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 9:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 10:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 11:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+            break;
+            case 12:
+                switch(getStateNumber(node.getSubtree(2))) {
+                    case 2: 
+                    case 4: 
+                    case 5: 
+                    case 6: 
+                    case 7: 
+                    case 9: 
+                    case 10: 
+                    case 11: 
+                    case 12: 
+                        leafState3.assignState(visitor, node);
+                        break;
+
+                }
+
+            }
+
+        }
+
+    }  
+
+    void Concat_1_Variadic(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+            case 2: 
+            case 3: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+            case 13: 
+                leafState4.assignState(visitor, node);
+                break;
+
+        }
+
+    }  
+
+    void ShortLiteral_0_Fixed(Calculator visitor, Node node)
+    {
+        leafState5.assignState(visitor, node);
+    }  
+
+    void StringLiteral_0_Fixed(Calculator visitor, Node node)
+    {
+        leafState6.assignState(visitor, node);
+    }  
+
+    void Subtract_1_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+                leafState7.assignState(visitor, node);
+                break;
+
+        }
+
+    } 
+
+    void Subtract_2_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+        case 2:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 12:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState8.assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+
+    }  
+
+    void AddStrict_2_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+        case 2:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 12:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState9.assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+
+    }  
+
+    void Multiply_2_Fixed(Calculator visitor, Node node)
+    {
+        switch(getStateNumber(node.getSubtree(0))) {
+        case 2:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 12:
+            switch(getStateNumber(node.getSubtree(1))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 9: 
+                case 10: 
+                case 11: 
+                case 12: 
+                    leafState10.assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+
+    }  
+
+    void IntLiteral_0_Fixed(Calculator visitor, Node node)
+    {
+        leafState11.assignState(visitor, node);
+    }  
+
+    static abstract class TransitionEntry
+    {
+        abstract void assignState(Calculator visitor, Node node);
+        abstract Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState);
+        abstract boolean canProduce(Node node, Nonterminal goalState);
+
+        // abstract java.lang.String reduce_as_String(BenchmarkBURM reducer, Calculator visitor, Node node); 
+        // abstract java.lang.Integer reduce_as_Int(BenchmarkBURM reducer, Calculator visitor, Node node); 
+        // abstract java.lang.Short reduce_as_Short(BenchmarkBURM reducer, Calculator visitor, Node node); 
+    }
+
+    // TransitionTableLeaf{[jburg.semantics.JavaSemantics$MethodHandleHostRoutine@ea4a92b]=State 2 ShortLiteral[Short=ShortLiteral[] :1], String=Int, Int=Short}
+    static TransitionEntry leafState5 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            boolean bshortGuard = visitor.shortGuard(node); 
+            if (visitor.shortGuard(node)) {
+                node.setStateNumber(2);
+                node.setTransitionTableLeaf(this);
+            }
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    result=visitor.shortLiteral(node);
+
+                    result = visitor.widenShortToInt(node, (java.lang.Short)result); 
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Short: {
+                    result=visitor.shortLiteral(node);
+
+                    break;
+                }
+                case Int: {
+                    result=visitor.shortLiteral(node);
+
+                    result = visitor.widenShortToInt(node, (java.lang.Short)result); 
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 2: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Short:
+                    switch (getStateNumber(node)) {
+                    case 2: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 2: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 6 Add[Int=Add[Int, Int] :1,String=Add[String, String] :1]
+    static TransitionEntry leafState1 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(6);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.String);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.String);
+                    result=visitor.concatFixed(node, (java.lang.String)result0, (java.lang.String)result1);
+
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.add(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 6: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 6: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 8 Concat[String=Concat[String] :1]
+    static TransitionEntry leafState4 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(8);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    String[] variadicActuals = new String[node.getSubtreeCount() - 0];
+                    for (int i = 0; i < node.getSubtreeCount() - 0; i++) {
+                        variadicActuals[i] = (String)reducer.reduce(visitor, node.getSubtree(i + 0), Nonterminal.String);
+                    }
+                    result=visitor.concat(node, variadicActuals);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 8: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 13 Add[String=Add[String, String] :1]
+    static TransitionEntry leafState2 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(13);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.String);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.String);
+                    result=visitor.concatFixed(node, (java.lang.String)result0, (java.lang.String)result1);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 13: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 7 Add[Int=Add[Int, Int, Int] :1], String=Int
+    static TransitionEntry leafState3 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(7);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    Object result2 = reducer.reduce(visitor, node.getSubtree(2), Nonterminal.Int);
+                    result=visitor.addTernary(node, (java.lang.Integer)result0, (java.lang.Integer)result1, (java.lang.Integer)result2);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    Object result2 = reducer.reduce(visitor, node.getSubtree(2), Nonterminal.Int);
+                    result=visitor.addTernary(node, (java.lang.Integer)result0, (java.lang.Integer)result1, (java.lang.Integer)result2);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 7: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 7: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 3 StringLiteral[String=StringLiteral[] :1]
+    static TransitionEntry leafState6 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(3);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    result=visitor.stringLiteral(node);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 3: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 10 Subtract[Int=Subtract[Int, Int] :1], String=Int
+    static TransitionEntry leafState8 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(10);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.subtract(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.subtract(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 10: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 10: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 11 AddStrict[Int=AddStrict[Int, Int] :1], String=Int
+    static TransitionEntry leafState9 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(11);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.add(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.add(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 11: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 11: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 4 IntLiteral[Int=IntLiteral[] :1], String=Int
+    static TransitionEntry leafState11 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(4);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    result=visitor.intLiteral(node);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    result=visitor.intLiteral(node);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 4: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 4: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 5 Add[Int=Add[Int] :1], String=Int
+    static TransitionEntry leafState0 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(5);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    result=visitor.identity(node, (java.lang.Integer)result0);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    result=visitor.identity(node, (java.lang.Integer)result0);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 5: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 5: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 9 Subtract[Int=Subtract[Int] :1], String=Int
+    static TransitionEntry leafState7 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(9);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    result=visitor.negate(node, (java.lang.Integer)result0);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    result=visitor.negate(node, (java.lang.Integer)result0);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 9: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 9: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+    // TransitionTableLeaf State 12 Multiply[Int=Multiply[Int, Int] :1], String=Int
+    static TransitionEntry leafState10 = new TransitionEntry()
+    {
+        void assignState(Calculator visitor, Node node)
+        {
+            node.setStateNumber(12);
+            node.setTransitionTableLeaf(this);
+
+        }
+
+        Object reduce(BenchmarkBURM reducer, Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+
+            switch(goalState) {
+                case String: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.multiply(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    result = visitor.convertToString(node, (java.lang.Object)result); 
+                    break;
+                }
+                case Int: {
+                    Object result0 = reducer.reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                    Object result1 = reducer.reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                    result=visitor.multiply(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                    break;
+                }
+                default:
+                    result = errorHandler.reduce(visitor, node, goalState);
+            }
+
+            return result;
+        }
+
+        boolean canProduce(Node node, Nonterminal goalState)
+        {
+            switch(goalState) {
+                case String:
+                    switch (getStateNumber(node)) {
+                    case 12: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                case Int:
+                    switch (getStateNumber(node)) {
+                    case 12: 
+                        return true;
+                    default:
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    };
+
+    static class ErrorHandler
+    {
+        public Object reduce(Calculator visitor, Node node, Nonterminal goalState)
+        {
+            throw new IllegalArgumentException(String.format("No error handler produces %s", goalState));
+        }
+    }
+
+    static final ErrorHandler errorHandler = new ErrorHandler();
+    // State 1 null
+    static class NullHandler
+    {
+        public Object reduce(Calculator visitor, Node node, Nonterminal goalState)
+        {
+            Object result = null;
+            switch(goalState) {
+                default:
+                    throw new NullPointerException();
+            }
+        }
+    }
+    static final NullHandler nullHandler = new NullHandler();
+}
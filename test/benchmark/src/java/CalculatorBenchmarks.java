@@ -0,0 +1,245 @@
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.*;
+
+import benchmark.Harness;
+
+import jburg.BinaryTableLoader;
+import jburg.FlatTree;
+import jburg.IdentityLabelStore;
+import jburg.ProductionTable;
+import jburg.Reducer;
+import jburg.TransitionTableLoader;
+import jburg.frontend.XMLGrammar;
+
+/**
+ * Benchmarks of the grammar_driven test grammars: state generation
+ * and table loading for each grammar, and labeling and reduction
+ * of synthetic trees by the table-driven Reducer, by a Reducer
+ * compiled into a runtime-generated reducer, and by a generated Java BURM.
+ * <p>In addition to the Harness' properties, the benchmarks are
+ * configured by system properties:
+ * <ul>
+ * <li>bench.grammar.dir: the directory of the grammars.
+ * <li>bench.grammars: a comma-separated list of the grammars whose
+ * generation and loading is measured.
+ * <li>bench.grammar: the grammar that labels and reduces the trees;
+ * it must accept all the shapes in {@link Trees.Shape}.
+ * <li>bench.size: the approximate node count of the trees, default 1000.
+ * <li>bench.reducer: the class name of a BURM generated from bench.grammar;
+ * if not set, the generated BURM is not measured.
+ * </ul>
+ */
+public class CalculatorBenchmarks
+{
+    public static void main(String[] args)
+    throws Exception
+    {
+        Harness harness = new Harness();
+
+        String grammarDir = System.getProperty("bench.grammar.dir", "../grammar_driven/grammars");
+        String[] grammars = System.getProperty("bench.grammars", "PoorlyOverloaded,MultiplePredicates,NestedAddition,TransitiveClosures").split(",");
+        String treeGrammar = System.getProperty("bench.grammar", "PoorlyOverloaded");
+        int size = Integer.getInteger("bench.size", 1000);
+        String reducerClassName = System.getProperty("bench.reducer");
+
+        for (String grammar: grammars) {
+            benchmarkGrammar(harness, grammar, new File(grammarDir, grammar + ".xml"));
+        }
+
+        File treeGrammarFile = new File(grammarDir, treeGrammar + ".xml");
+        final ProductionTable<Nonterminal, NodeType> productions = newGrammarBuilder().build(NodeFactory.convertToFileURL(treeGrammarFile.getPath()));
+        final Calculator calculator = new Calculator();
+        final Reducer<Nonterminal, NodeType> reducer = new Reducer<Nonterminal, NodeType>(calculator, productions);
+
+        // Compiling a table's routines rewires it to compiled copies of
+        // the routines, so the compiled reducer has its own table; the table
+        // shares the interpreted table's productions and routines.
+        final ProductionTable<Nonterminal, NodeType> compiledProductions = productions.copyProductions();
+        compiledProductions.generateStates();
+        compiledProductions.compileRoutines(MethodHandles.lookup());
+        final Reducer<Nonterminal, NodeType> compiledReducer = new Reducer<Nonterminal, NodeType>(calculator, compiledProductions);
+        compiledReducer.compile(MethodHandles.lookup());
+
+        final Object generatedReducer = reducerClassName != null? Class.forName(reducerClassName).newInstance(): null;
+        final Method generatedLabel = generatedReducer != null? generatedReducer.getClass().getDeclaredMethod("label", Calculator.class, Node.class): null;
+        final Method generatedReduce = generatedReducer != null? generatedReducer.getClass().getDeclaredMethod("reduce", Calculator.class, Node.class, Nonterminal.class): null;
+
+        for (final Trees.Shape shape: Trees.Shape.values()) {
+            final Node root = Trees.build(shape, size);
+            String params = String.format("%s, shape=%s, nodes=%d", treeGrammar, shape, Trees.countNodes(root));
+
+            harness.run("ProductionTable.label", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    productions.label(root, calculator, true);
+                    return root;
+                }
+            });
+
+            harness.run("Reducer.label", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    reducer.label(root);
+                    return root;
+                }
+            });
+
+            reducer.label(root);
+
+            harness.run("Reducer.reduce", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    return reducer.reduce(root, shape.goal);
+                }
+            });
+
+            final Reducer<Nonterminal, NodeType> iterativeReducer = new Reducer<Nonterminal, NodeType>(calculator, productions);
+            iterativeReducer.setIterative(true);
+            iterativeReducer.label(root);
+
+            harness.run("Reducer.reduceIteratively", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    return iterativeReducer.reduce(root, shape.goal);
+                }
+            });
+
+            final Reducer<Nonterminal, NodeType> storeReducer = new Reducer<Nonterminal, NodeType>(calculator, productions);
+            storeReducer.setLabelStore(new IdentityLabelStore<Nonterminal, NodeType>());
+
+            harness.run("Reducer.labelIntoStore", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    storeReducer.label(root);
+                    return root;
+                }
+            });
+
+            storeReducer.label(root);
+
+            harness.run("Reducer.reduceFromStore", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    return storeReducer.reduce(root, shape.goal);
+                }
+            });
+
+            harness.run("Reducer.labelCompiled", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    compiledReducer.label(root);
+                    return root;
+                }
+            });
+
+            compiledReducer.label(root);
+
+            harness.run("Reducer.reduceCompiled", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    return compiledReducer.reduce(root, shape.goal);
+                }
+            });
+
+            final FlatTree<Nonterminal, NodeType> flatTree = FlatTree.fromTree(root);
+
+            harness.run("Reducer.labelFlatTree", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    reducer.labelFlatTree(flatTree);
+                    return flatTree;
+                }
+            });
+
+            reducer.labelFlatTree(flatTree);
+
+            harness.run("Reducer.reduceFlatTree", params, new Harness.Workload() {
+                public Object run() throws Exception
+                {
+                    return reducer.reduceFlatTree(flatTree, shape.goal);
+                }
+            });
+
+            if (generatedReducer != null) {
+
+                harness.run("GeneratedBURM.label", params, new Harness.Workload() {
+                    public Object run() throws Exception
+                    {
+                        return generatedLabel.invoke(generatedReducer, calculator, root);
+                    }
+                });
+
+                generatedLabel.invoke(generatedReducer, calculator, root);
+
+                harness.run("GeneratedBURM.reduce", params, new Harness.Workload() {
+                    public Object run() throws Exception
+                    {
+                        return generatedReduce.invoke(generatedReducer, calculator, root, shape.goal);
+                    }
+                });
+            }
+        }
+
+        harness.printSummary();
+    }
+
+    /**
+     * Measure state generation and table loading for a grammar.
+     */
+    private static void benchmarkGrammar(Harness harness, String grammar, File grammarFile)
+    throws Exception
+    {
+        XMLGrammar<Nonterminal, NodeType> grammarBuilder = newGrammarBuilder();
+        final ProductionTable<Nonterminal, NodeType> productions = grammarBuilder.build(NodeFactory.convertToFileURL(grammarFile.getPath()));
+
+        harness.run("ProductionTable.generateStates", grammar, new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                productions.generateStates();
+                return productions;
+            }
+        });
+
+        final File xmlDump = File.createTempFile(grammar, ".xml");
+        xmlDump.deleteOnExit();
+
+        Map<String,String> attributes = new HashMap<String,String>();
+        attributes.put("visitor.class", "Calculator");
+        attributes.put("node.class", "Node");
+        attributes.put("nonterminal.class", "Nonterminal");
+        attributes.put("nodeType.class", "NodeType");
+        attributes.put("grammar.name", grammarFile.getPath());
+
+        if (!productions.dump(xmlDump.getPath(), "xml.stg", attributes, new HashMap<String,Object>(), grammarBuilder.getSemantics())) {
+            throw new IllegalStateException("Unable to dump " + grammar);
+        }
+
+        harness.run("TransitionTableLoader.load", grammar, new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                return new TransitionTableLoader<Nonterminal, NodeType>().load(NodeFactory.convertToFileURL(xmlDump.getPath()), Nonterminal.class, NodeType.class);
+            }
+        });
+
+        final File binaryDump = File.createTempFile(grammar, ".jbt");
+        binaryDump.deleteOnExit();
+
+        if (!productions.dumpBinary(binaryDump.getPath())) {
+            throw new IllegalStateException("Unable to dump " + grammar);
+        }
+
+        harness.run("BinaryTableLoader.load", grammar, new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                return new BinaryTableLoader<Nonterminal, NodeType>().load(binaryDump.getPath(), NodeType.class);
+            }
+        });
+    }
+
+    private static XMLGrammar<Nonterminal, NodeType> newGrammarBuilder()
+    {
+        return new XMLGrammar<Nonterminal, NodeType>("Nonterminal", "NodeType");
+    }
+}
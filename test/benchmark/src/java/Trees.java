@@ -0,0 +1,121 @@
+/**
+ * Trees builds synthetic Calculator trees of a given shape and approximate size.
+ */
+class Trees
+{
+    /**
+     * Tree shapes.
+     */
+    enum Shape
+    {
+        /** A chain of unary operators. */
+        Deep(Nonterminal.Int),
+        /** A balanced tree of ternary operators. */
+        Wide(Nonterminal.Int),
+        /** Variadic operators with many operands. */
+        Variadic(Nonterminal.String),
+        /** A balanced binary tree whose leaves need predicates. */
+        Predicated(Nonterminal.Int);
+
+        /** The nonterminal a tree of this shape reduces to. */
+        final Nonterminal goal;
+
+        Shape(Nonterminal goal)
+        {
+            this.goal = goal;
+        }
+    }
+
+    /**
+     * The maximum number of operands of a variadic node.
+     */
+    private static final int VARIADIC_WIDTH = 16;
+
+    private static final NodeType[] binaryOperators = { NodeType.Add, NodeType.Subtract, NodeType.Multiply };
+
+    /**
+     * Build a tree.
+     * @param shape the tree's shape.
+     * @param size  the tree's approximate node count.
+     * @return the root of the tree.
+     */
+    static Node build(Shape shape, int size)
+    {
+        switch (shape) {
+            case Deep:
+                return deep(size);
+            case Wide:
+                return wide(size);
+            case Variadic:
+                return variadic(size);
+            case Predicated:
+                return predicated(size, 0);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    private static Node deep(int size)
+    {
+        Node result = new Node(NodeType.IntLiteral, "1");
+
+        for (int i = 1; i < size; i++) {
+            result = new Node(i % 2 == 0? NodeType.Add: NodeType.Subtract, result);
+        }
+
+        return result;
+    }
+
+    private static Node wide(int size)
+    {
+        if (size < 4) {
+            return new Node(NodeType.IntLiteral, "1");
+        }
+
+        int childSize = (size - 1) / 3;
+        return new Node(NodeType.Add, wide(childSize), wide(childSize), wide(childSize));
+    }
+
+    private static Node variadic(int size)
+    {
+        Node result = new Node(NodeType.Concat);
+
+        if (size <= VARIADIC_WIDTH + 1) {
+
+            for (int i = 1; i < Math.max(size, 2); i++) {
+                result.addChild(new Node(NodeType.StringLiteral, "s"));
+            }
+
+        } else {
+            for (int i = 0; i < VARIADIC_WIDTH; i++) {
+                result.addChild(variadic((size - 1) / VARIADIC_WIDTH));
+            }
+        }
+
+        return result;
+    }
+
+    private static Node predicated(int size, int position)
+    {
+        if (size < 3) {
+            return position % 2 == 0? new Node(NodeType.ShortLiteral, "7"): new Node(NodeType.IntLiteral, "3");
+        }
+
+        int childSize = (size - 1) / 2;
+        return new Node(binaryOperators[position % binaryOperators.length], predicated(childSize, 2 * position), predicated(childSize, 2 * position + 1));
+    }
+
+    /**
+     * @return the number of nodes in a tree.
+     */
+    static int countNodes(Node node)
+    {
+        int result = 1;
+
+        for (Node child: node.children) {
+            result += countNodes(child);
+        }
+
+        return result;
+    }
+}
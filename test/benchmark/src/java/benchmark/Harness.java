@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Harness is a minimal JMH-style benchmark driver: each benchmark
+ * runs for a number of timed warmup iterations, whose results are
+ * discarded, then for a number of timed measurement iterations;
+ * the harness reports the average time per operation and its
+ * standard deviation across the measurement iterations.
+ * <p>The harness is configured by system properties:
+ * <ul>
+ * <li>bench.warmup: the number of warmup iterations, default 3.
+ * <li>bench.iterations: the number of measurement iterations, default 5.
+ * <li>bench.time: the duration of an iteration in milliseconds, default 1000.
+ * <li>bench.filter: a regular expression; only benchmarks whose
+ * names contain a match are run. By default, all benchmarks run.
+ * </ul>
+ */
+public class Harness
+{
+    /**
+     * A Workload is one operation of a benchmark.
+     */
+    public interface Workload
+    {
+        /**
+         * Run the operation once.
+         * @return the operation's result, which the harness
+         * consumes so the operation can't be optimized away.
+         */
+        Object run() throws Exception;
+    }
+
+    private final int warmupIterations = Integer.getInteger("bench.warmup", 3);
+    private final int measurementIterations = Integer.getInteger("bench.iterations", 5);
+    private final long iterationNanos = Long.getLong("bench.time", 1000) * 1000000L;
+    private final Pattern filter = Pattern.compile(System.getProperty("bench.filter", ""));
+
+    /**
+     * Results of the benchmarks run so far, formatted for the summary.
+     */
+    private final List<String> results = new ArrayList<String>();
+
+    /**
+     * Workload results are stored here so the JIT can't
+     * discard the computation that produced them.
+     */
+    private volatile Object sink;
+
+    /**
+     * Run a benchmark, if it's selected by the filter.
+     * @param name      the benchmark's name.
+     * @param params    the benchmark's parameters, for reporting.
+     * @param workload  the operation to measure.
+     */
+    public void run(String name, String params, Workload workload)
+    throws Exception
+    {
+        if (!filter.matcher(name).find()) {
+            return;
+        }
+
+        System.out.printf("# Benchmark: %s (%s)\n", name, params);
+
+        for (int i = 0; i < warmupIterations; i++) {
+            System.out.printf("# Warmup Iteration %d: %.3f ns/op\n", i+1, iterate(workload));
+        }
+
+        double[] scores = new double[measurementIterations];
+        double sum = 0;
+
+        for (int i = 0; i < measurementIterations; i++) {
+            scores[i] = iterate(workload);
+            sum += scores[i];
+            System.out.printf("Iteration %d: %.3f ns/op\n", i+1, scores[i]);
+        }
+
+        double mean = sum / measurementIterations;
+        double variance = 0;
+
+        for (double score: scores) {
+            variance += (score - mean) * (score - mean);
+        }
+
+        double stddev = measurementIterations > 1? Math.sqrt(variance / (measurementIterations - 1)): 0;
+        results.add(String.format("%-32s %-44s %5d %16.3f +- %12.3f ns/op", name, params, measurementIterations, mean, stddev));
+    }
+
+    /**
+     * Run one iteration of a workload.
+     * @param workload  the operation to measure.
+     * @return the average time per operation, in nanoseconds.
+     */
+    private double iterate(Workload workload)
+    throws Exception
+    {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+            sink = workload.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        return (double)elapsed / ops;
+    }
+
+    /**
+     * Print a summary of the benchmarks' results.
+     */
+    public void printSummary()
+    {
+        System.out.println();
+        System.out.printf("%-32s %-44s %5s %16s    %12s\n", "Benchmark", "(params)", "Cnt", "Score", "Error");
+
+        for (String result: results) {
+            System.out.println(result);
+        }
+    }
+}
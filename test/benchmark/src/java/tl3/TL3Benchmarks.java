@@ -0,0 +1,127 @@
+package tl3;
+
+import benchmark.Harness;
+
+import jburg.Reducer;
+
+import static tl3.Nonterminal.*;
+import static tl3.NodeType.*;
+
+/**
+ * Benchmarks of the TL/3 grammar: state generation, and labeling
+ * and reduction of synthetic TL/3 programs. The programs' size is
+ * set by the bench.size system property, default 1000 nodes.
+ */
+public class TL3Benchmarks
+{
+    /**
+     * The number of nodes in a synthetic statement.
+     */
+    private static final int STATEMENT_SIZE = 8;
+
+    public static void main(String[] args)
+    throws Exception
+    {
+        Harness harness = new Harness();
+        int size = Integer.getInteger("bench.size", 1000);
+
+        harness.run("ProductionTable.generateStates", "TL3", new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                CodeGenerator.productions.generateStates();
+                return CodeGenerator.productions;
+            }
+        });
+
+        benchmarkProgram(harness, "statements", statements(size / STATEMENT_SIZE));
+        benchmarkProgram(harness, "expression", program(print(expression(size))));
+
+        harness.printSummary();
+    }
+
+    private static void benchmarkProgram(Harness harness, String shape, final Node root)
+    throws Exception
+    {
+        final CodeGenerator generator = new CodeGenerator(root, "TL3Benchmark");
+        final Reducer<Nonterminal, NodeType> reducer = new Reducer<Nonterminal, NodeType>(generator, CodeGenerator.productions);
+        String params = String.format("TL3, shape=%s", shape);
+
+        harness.run("Reducer.label", params, new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                reducer.label(root);
+                return root;
+            }
+        });
+
+        reducer.label(root);
+
+        harness.run("Reducer.reduce", params, new Harness.Workload() {
+            public Object run() throws Exception
+            {
+                return reducer.reduce(root, MainProgram);
+            }
+        });
+    }
+
+    /**
+     * @return a program with the given number of statements.
+     */
+    private static Node statements(int statementCount)
+    {
+        Node[] statements = new Node[Math.max(statementCount, 1)];
+
+        for (int i = 0; i < statements.length; i++) {
+            statements[i] = i % 2 == 0? print(expression(STATEMENT_SIZE - 1)): varDef("v" + i, expression(STATEMENT_SIZE - 2));
+        }
+
+        return program(statements);
+    }
+
+    /**
+     * @return a balanced expression tree with about size nodes.
+     */
+    private static Node expression(int size)
+    {
+        if (size < 3) {
+            return new Node(IntegerLiteral, Integer.valueOf(size));
+        }
+
+        int childSize = (size - 1) / 2;
+        Node result = new Node(Add, 2);
+        result.setChild(0, expression(childSize));
+        result.setChild(1, expression(childSize));
+        return result;
+    }
+
+    private static Node print(Node expression)
+    {
+        Node result = new Node(Print, 1);
+        result.setChild(0, expression);
+        return result;
+    }
+
+    private static Node varDef(String name, Node initializer)
+    {
+        Node result = new Node(VarDef, 2);
+        result.setChild(0, new Node(IdentifierPart, name));
+        result.setChild(1, initializer);
+        return result;
+    }
+
+    /**
+     * @return an unnamed scope that contains the statements.
+     */
+    private static Node program(Node... statements)
+    {
+        Node contents = new Node(ScopeContents, statements.length);
+
+        for (int i = 0; i < statements.length; i++) {
+            contents.setChild(i, statements[i]);
+        }
+
+        Node result = new Node(Scope, 2);
+        result.setChild(0, contents);
+        return result;
+    }
+}
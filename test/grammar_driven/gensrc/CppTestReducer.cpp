@@ -0,0 +1,3569 @@
+/* GENERATED CODE - Edits will be lost
+ * Generated by JBurg3 1.0 Sat Oct 17 19:28:49 UTC 2026  from grammars/CppOverloaded.xml
+ */
+
+#include "CppTestReducer.h"
+
+#include <stdexcept>
+
+namespace jburg {
+    int getStateNumber(Node* node) {
+        return node? node->getStateNumber():jburg::NullStateNumber;
+    }
+}
+
+void CppTestReducer::label(Calculator& visitor, Node* node)
+{
+    if (node) {
+
+        for (size_t i = 0; i < node->getSubtreeCount(); i++) {
+            label(visitor, node->getSubtree(i));
+        }
+
+        switch(node->getNodeType()) {
+            case NodeType::IntLiteral:
+                switch(node->getSubtreeCount()) {
+                    case 0:
+                        IntLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::StringLiteral:
+                switch(node->getSubtreeCount()) {
+                    case 0:
+                        StringLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::ShortLiteral:
+                switch(node->getSubtreeCount()) {
+                    case 0:
+                        ShortLiteral_0_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::Add:
+                switch(node->getSubtreeCount()) {
+                    case 1:
+                        Add_1_Fixed(visitor, node);
+                        break;
+
+                    case 2:
+                        Add_2_Fixed(visitor, node);
+                        break;
+
+                    case 3:
+                        Add_3_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::Subtract:
+                switch(node->getSubtreeCount()) {
+                    case 1:
+                        Subtract_1_Fixed(visitor, node);
+                        break;
+
+                    case 2:
+                        Subtract_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::AddStrict:
+                switch(node->getSubtreeCount()) {
+                    case 2:
+                        AddStrict_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::Multiply:
+                switch(node->getSubtreeCount()) {
+                    case 2:
+                        Multiply_2_Fixed(visitor, node);
+                        break;
+                }
+                break; 
+            case NodeType::Concat:
+                switch(node->getSubtreeCount()) {
+                    default:
+                        if (node->getSubtreeCount() >= 1) {
+                            Concat_1_Variadic(visitor, node);
+                        }
+                        break;
+                }
+                break; 
+            default:
+                node->setStateNumber(jburg::ErrorStateNumber);
+                break;
+        }
+    }
+}
+
+Object CppTestReducer::reduce(Calculator& visitor, Node* node, Nonterminal goalState)
+{
+    if (node) {
+        CppTestReducer::TransitionEntry* ti = (CppTestReducer::TransitionEntry*)(node->getTransitionTableLeaf());
+        if (ti) {
+            return ti->reduce(*this, visitor, node, goalState);
+        } else {
+            return errorHandler.reduce(visitor, node, goalState);
+        }
+    } else {
+        return errorHandler.reduce(visitor, node, goalState);
+    }
+}
+
+bool CppTestReducer::canProduce(Node* node,  Nonterminal goalState)
+{
+    if (node != NULL && node->getTransitionTableLeaf() != NULL) {
+        TransitionEntry* ti = (TransitionEntry*)(node->getTransitionTableLeaf());
+        return ti->canProduce(node, goalState);
+    } else {
+        return false;
+    }
+}
+void CppTestReducer::IntLiteral_0_Fixed(Calculator& visitor, Node* node)
+{
+    leafState0->assignState(visitor, node);
+}  
+
+void CppTestReducer::StringLiteral_0_Fixed(Calculator& visitor, Node* node)
+{
+    leafState1->assignState(visitor, node);
+}  
+
+void CppTestReducer::ShortLiteral_0_Fixed(Calculator& visitor, Node* node)
+{
+    leafState2->assignState(visitor, node);
+}  
+
+void CppTestReducer::Add_1_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+        case 2: 
+        case 4: 
+        case 5: 
+        case 6: 
+        case 7: 
+        case 8: 
+        case 9: 
+        case 10: 
+        case 11: 
+            leafState3->assignState(visitor, node);
+            break;
+
+    }
+
+} 
+
+void CppTestReducer::Add_2_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+    case 2:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 3:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 3: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 4:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 5:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 6:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 7:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 8:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 9:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 10:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 11:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 3: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState4->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 12:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 3: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 13:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 3: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+            case 12: 
+            case 13: 
+                leafState5->assignState(visitor, node);
+                break;
+
+        }
+
+    }
+
+} 
+
+void CppTestReducer::Add_3_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+    case 2:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 4:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 5:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 6:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 7:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 8:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 9:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 10:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+    break;
+    case 11:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+        case 2:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 4:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 5:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 6:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 7:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 8:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 9:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 10:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+        break;
+        case 11:
+            switch(jburg::getStateNumber(node->getSubtree(2))) {
+                case 2: 
+                case 4: 
+                case 5: 
+                case 6: 
+                case 7: 
+                case 8: 
+                case 9: 
+                case 10: 
+                case 11: 
+                    leafState6->assignState(visitor, node);
+                    break;
+
+            }
+
+        }
+
+    }
+
+}  
+
+void CppTestReducer::Subtract_1_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+        case 2: 
+        case 4: 
+        case 5: 
+        case 6: 
+        case 7: 
+        case 8: 
+        case 9: 
+        case 10: 
+        case 11: 
+            leafState7->assignState(visitor, node);
+            break;
+
+    }
+
+} 
+
+void CppTestReducer::Subtract_2_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+    case 2:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 4:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 5:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 6:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 7:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 8:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 9:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 10:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 11:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState8->assignState(visitor, node);
+                break;
+
+        }
+
+    }
+
+}  
+
+void CppTestReducer::AddStrict_2_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+    case 2:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 4:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 5:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 6:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 7:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 8:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 9:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 10:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 11:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState9->assignState(visitor, node);
+                break;
+
+        }
+
+    }
+
+}  
+
+void CppTestReducer::Multiply_2_Fixed(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+    case 2:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 4:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 5:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 6:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 7:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 8:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 9:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 10:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+    break;
+    case 11:
+        switch(jburg::getStateNumber(node->getSubtree(1))) {
+            case 2: 
+            case 4: 
+            case 5: 
+            case 6: 
+            case 7: 
+            case 8: 
+            case 9: 
+            case 10: 
+            case 11: 
+                leafState10->assignState(visitor, node);
+                break;
+
+        }
+
+    }
+
+}  
+
+void CppTestReducer::Concat_1_Variadic(Calculator& visitor, Node* node)
+{
+    switch(jburg::getStateNumber(node->getSubtree(0))) {
+        case 2: 
+        case 3: 
+        case 4: 
+        case 5: 
+        case 6: 
+        case 7: 
+        case 8: 
+        case 9: 
+        case 10: 
+        case 11: 
+        case 12: 
+        case 13: 
+            leafState11->assignState(visitor, node);
+            break;
+
+    }
+
+}  
+
+// TransitionTableLeaf State 10 AddStrict[Int=AddStrict[Int, Int] :1], String=Int
+class leafState9Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(10);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.add(node, result0, result1);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.add(node, result0, result1);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 10: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 10: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 10: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.add(node, result0, result1);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 10: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.add(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 7 Add[Int=Add[Int, Int, Int] :1], String=Int
+class leafState6Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(7);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                Object result2 = reducer.reduce(visitor, node->getSubtree(2), Nonterminal::Int);
+                result=visitor.addTernary(node, result0, result1, result2);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                Object result2 = reducer.reduce(visitor, node->getSubtree(2), Nonterminal::Int);
+                result=visitor.addTernary(node, result0, result1, result2);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 7: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 7: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 7: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        Object result2 = reducer.reduce(visitor, node->getSubtree(2), Nonterminal::Int);
+                        result=visitor.addTernary(node, result0, result1, result2);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 7: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        Object result2 = reducer.reduce(visitor, node->getSubtree(2), Nonterminal::Int);
+                        result=visitor.addTernary(node, result0, result1, result2);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 12 Concat[String=Concat[String] :1]
+class leafState11Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(12);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                std::vector<Object> variadicActuals;
+                for (int i = 0; i < node->getSubtreeCount() - 0; i++) {
+                    variadicActuals.push_back(reducer.reduce(visitor, node->getSubtree(i + 0), Nonterminal::String));
+                }
+                result=visitor.concat(node, variadicActuals);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 12: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 12: {
+                     {
+                        std::vector<Object> variadicActuals;
+                        for (int i = 0; i < node->getSubtreeCount() - 0; i++) {
+                            variadicActuals.push_back(reducer.reduce(visitor, node->getSubtree(i + 0), Nonterminal::String));
+                        }
+                        result=visitor.concat(node, variadicActuals);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf{[shortGuard()]=State 4 ShortLiteral[Short=ShortLiteral[] :1], String=Int, Int=Short}
+class leafState2Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        bool bshortGuard = visitor.shortGuard(node); 
+        if (bshortGuard) {
+            node->setStateNumber(4);
+            node->setTransitionTableLeaf(this);
+        }
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                result=visitor.shortLiteral(node);
+
+                result = visitor.widenShortToInt(node, result); 
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Short: {
+                result=visitor.shortLiteral(node);
+
+                break;
+            }
+            case Nonterminal::Int: {
+                result=visitor.shortLiteral(node);
+
+                result = visitor.widenShortToInt(node, result); 
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 4: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Short:
+                switch (node->getStateNumber()) {
+                case 4: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 4: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 4: {
+                     {
+                        result=visitor.shortLiteral(node);
+
+                        result = visitor.widenShortToInt(node, result); 
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Short(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 4: {
+                     {
+                        result=visitor.shortLiteral(node);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Short(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Short(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 4: {
+                     {
+                        result=visitor.shortLiteral(node);
+
+                        result = visitor.widenShortToInt(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 5 Add[Int=Add[Int] :1], String=Int
+class leafState3Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(5);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                result=visitor.identity(node, result0);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                result=visitor.identity(node, result0);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 5: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 5: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 5: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        result=visitor.identity(node, result0);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 5: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        result=visitor.identity(node, result0);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 13 Add[String=Add[String, String] :1]
+class leafState5Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(13);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::String);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::String);
+                result=visitor.concatFixed(node, result0, result1);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 13: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 13: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::String);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::String);
+                        result=visitor.concatFixed(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 3 StringLiteral[String=StringLiteral[] :1]
+class leafState1Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(3);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                result=visitor.stringLiteral(node);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 3: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 3: {
+                     {
+                        result=visitor.stringLiteral(node);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 11 Multiply[Int=Multiply[Int, Int] :1], String=Int
+class leafState10Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(11);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.multiply(node, result0, result1);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.multiply(node, result0, result1);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 11: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 11: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 11: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.multiply(node, result0, result1);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 11: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.multiply(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 6 Add[Int=Add[Int, Int] :1,String=Add[String, String] :1]
+class leafState4Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(6);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::String);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::String);
+                result=visitor.concatFixed(node, result0, result1);
+
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.add(node, result0, result1);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 6: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 6: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 6: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::String);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::String);
+                        result=visitor.concatFixed(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 6: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.add(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 2 IntLiteral[Int=IntLiteral[] :1], String=Int
+class leafState0Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(2);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                result=visitor.intLiteral(node);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                result=visitor.intLiteral(node);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 2: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 2: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 2: {
+                     {
+                        result=visitor.intLiteral(node);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 2: {
+                     {
+                        result=visitor.intLiteral(node);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 8 Subtract[Int=Subtract[Int] :1], String=Int
+class leafState7Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(8);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                result=visitor.negate(node, result0);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                result=visitor.negate(node, result0);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 8: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 8: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 8: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        result=visitor.negate(node, result0);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 8: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        result=visitor.negate(node, result0);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+
+// TransitionTableLeaf State 9 Subtract[Int=Subtract[Int, Int] :1], String=Int
+class leafState8Impl: public CppTestReducer::TransitionEntry
+{
+    virtual void assignState(Calculator& visitor, Node* node)
+    {
+        node->setStateNumber(9);
+        node->setTransitionTableLeaf(this);
+
+    }
+
+    virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState)
+    {
+        Object result;
+
+        switch(goalState) {
+            case Nonterminal::String: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.subtract(node, result0, result1);
+
+                result = visitor.convertToString(node, result); 
+                break;
+            }
+            case Nonterminal::Int: {
+                Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                result=visitor.subtract(node, result0, result1);
+
+                break;
+            }
+            default: {
+                result = reducer.errorHandler.reduce(visitor, node, goalState);
+            }
+        }
+
+        return result;
+    }
+
+    virtual bool canProduce(Node* node, Nonterminal goalState)
+    {
+        switch(goalState) {
+            case Nonterminal::String:
+                switch (node->getStateNumber()) {
+                case 9: 
+                    return true;
+                default:
+                    return false;
+                }
+            case Nonterminal::Int:
+                switch (node->getStateNumber()) {
+                case 9: 
+                    return true;
+                default:
+                    return false;
+                }
+            default: return false;
+        }
+    }
+
+    Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 9: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.subtract(node, result0, result1);
+
+                        result = visitor.convertToString(node, result); 
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_String(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+    Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+    {
+        Object result;
+        if (node) {
+            switch(node->getStateNumber()) {
+                case 9: {
+                     {
+                        Object result0 = reducer.reduce(visitor, node->getSubtree(0), Nonterminal::Int);
+                        Object result1 = reducer.reduce(visitor, node->getSubtree(1), Nonterminal::Int);
+                        result=visitor.subtract(node, result0, result1);
+
+                        break;
+                    }
+                    break;
+                }
+                default: {
+                    result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+                }
+            }
+        } else {
+            result = CppTestReducer::errorHandler.reduce_as_Int(visitor, node);
+            return result;
+        }
+
+        return result;
+    }
+};
+CppTestReducer::TransitionEntry* CppTestReducer::leafState9 = new leafState9Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState6 = new leafState6Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState11 = new leafState11Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState2 = new leafState2Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState3 = new leafState3Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState5 = new leafState5Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState1 = new leafState1Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState10 = new leafState10Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState4 = new leafState4Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState0 = new leafState0Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState7 = new leafState7Impl();
+
+CppTestReducer::TransitionEntry* CppTestReducer::leafState8 = new leafState8Impl();
+
+Object CppTestReducer::ErrorHandler::reduce(Calculator& visitor, Node* node, Nonterminal goalState)
+{
+    throw std::logic_error("unhandled tree parse failure");
+}
+
+Object CppTestReducer::ErrorHandler::reduce_as_String(Calculator&, Node*)
+{
+    throw std::logic_error("unhandled tree parse failure");
+}
+
+Object CppTestReducer::ErrorHandler::reduce_as_Int(Calculator&, Node*)
+{
+    throw std::logic_error("unhandled tree parse failure");
+}
+
+Object CppTestReducer::ErrorHandler::reduce_as_Short(Calculator&, Node*)
+{
+    throw std::logic_error("unhandled tree parse failure");
+}
+
+
+CppTestReducer::ErrorHandler CppTestReducer::errorHandler;
@@ -0,0 +1,110 @@
+/* GENERATED CODE - Edits will be lost
+ * Generated by JBurg3 1.0 Sat Oct 17 19:28:45 UTC 2026  from grammars/CppOverloaded.xml
+ */
+
+#include "Test.h"
+#include "Nonterminals.h"
+
+
+class CppTestReducer
+{
+public:
+    void label(Calculator& visitor, Node* node);
+
+    Object reduce(Calculator& visitor, Node* node, Nonterminal goalState);
+
+    Object reduce_as_String(Calculator&, Node*); 
+    Object reduce_as_Int(Calculator&, Node*); 
+    Object reduce_as_Short(Calculator&, Node*); 
+
+    bool canProduce(Node* node,  Nonterminal goalState);
+
+private:
+    class ErrorHandler
+    {
+    public:
+        Object reduce(Calculator& visitor, Node* node, Nonterminal goalState);
+        Object reduce_as_String(Calculator&, Node*); 
+        Object reduce_as_Int(Calculator&, Node*); 
+        Object reduce_as_Short(Calculator&, Node*); 
+    };
+
+    public:
+    static ErrorHandler errorHandler;
+
+    class TransitionEntry
+    {
+
+    public:
+        virtual void assignState(Calculator& visitor, Node* node) = 0;
+        virtual Object reduce(CppTestReducer& reducer, Calculator& visitor, Node* node, Nonterminal goalState) = 0;
+        virtual bool canProduce(Node* node, Nonterminal goalState) = 0;
+
+        virtual Object reduce_as_String(CppTestReducer& reducer, Calculator& visitor, Node* node)
+        {
+            return reducer.reduce(visitor, node, Nonterminal::String);
+        }
+
+        virtual Object reduce_as_Int(CppTestReducer& reducer, Calculator& visitor, Node* node)
+        {
+            return reducer.reduce(visitor, node, Nonterminal::Int);
+        }
+
+        virtual Object reduce_as_Short(CppTestReducer& reducer, Calculator& visitor, Node* node)
+        {
+            return reducer.reduce(visitor, node, Nonterminal::Short);
+        }
+    };
+private:
+    void IntLiteral_0_Fixed(Calculator& visitor, Node* node);  
+
+    void StringLiteral_0_Fixed(Calculator& visitor, Node* node);  
+
+    void ShortLiteral_0_Fixed(Calculator& visitor, Node* node);  
+
+    void Add_1_Fixed(Calculator& visitor, Node* node); 
+
+    void Add_2_Fixed(Calculator& visitor, Node* node); 
+
+    void Add_3_Fixed(Calculator& visitor, Node* node);  
+
+    void Subtract_1_Fixed(Calculator& visitor, Node* node); 
+
+    void Subtract_2_Fixed(Calculator& visitor, Node* node);  
+
+    void AddStrict_2_Fixed(Calculator& visitor, Node* node);  
+
+    void Multiply_2_Fixed(Calculator& visitor, Node* node);  
+
+    void Concat_1_Variadic(Calculator& visitor, Node* node);  
+
+    // TransitionTableLeaf State 10 AddStrict[Int=AddStrict[Int, Int] :1], String=Int
+    static TransitionEntry* leafState9;
+    // TransitionTableLeaf State 7 Add[Int=Add[Int, Int, Int] :1], String=Int
+    static TransitionEntry* leafState6;
+    // TransitionTableLeaf State 12 Concat[String=Concat[String] :1]
+    static TransitionEntry* leafState11;
+    // TransitionTableLeaf{[shortGuard()]=State 4 ShortLiteral[Short=ShortLiteral[] :1], String=Int, Int=Short}
+    static TransitionEntry* leafState2;
+    // TransitionTableLeaf State 5 Add[Int=Add[Int] :1], String=Int
+    static TransitionEntry* leafState3;
+    // TransitionTableLeaf State 13 Add[String=Add[String, String] :1]
+    static TransitionEntry* leafState5;
+    // TransitionTableLeaf State 3 StringLiteral[String=StringLiteral[] :1]
+    static TransitionEntry* leafState1;
+    // TransitionTableLeaf State 11 Multiply[Int=Multiply[Int, Int] :1], String=Int
+    static TransitionEntry* leafState10;
+    // TransitionTableLeaf State 6 Add[Int=Add[Int, Int] :1,String=Add[String, String] :1]
+    static TransitionEntry* leafState4;
+    // TransitionTableLeaf State 2 IntLiteral[Int=IntLiteral[] :1], String=Int
+    static TransitionEntry* leafState0;
+    // TransitionTableLeaf State 8 Subtract[Int=Subtract[Int] :1], String=Int
+    static TransitionEntry* leafState7;
+    // TransitionTableLeaf State 9 Subtract[Int=Subtract[Int, Int] :1], String=Int
+    static TransitionEntry* leafState8;
+};
+
+namespace jburg {
+    static const int ErrorStateNumber = 0;
+    static const int NullStateNumber = 1;
+}
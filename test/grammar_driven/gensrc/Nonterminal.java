@@ -0,0 +1,9 @@
+/**
+ * GENERATED CODE -- Edits will be lost!
+ * Generated by JBurg3 version 1.0 Sat Oct 17 19:28:41 UTC 2026  from grammars/PoorlyOverloaded.xml
+ */
+public enum Nonterminal {
+    String,
+    Int,
+    Short
+};
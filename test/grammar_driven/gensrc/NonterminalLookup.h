@@ -0,0 +1,20 @@
+/**
+ * GENERATED CODE -- Edits will be lost!
+ * Generated by JBurg3 version 1.0 Sat Oct 17 19:28:47 UTC 2026  from grammars/CppOverloaded.xml
+ */
+#pragma once
+#include <stdexcept>
+Nonterminal NonterminalLookupByName(std::string ntName) {
+    if (ntName == "String") {
+        return Nonterminal::String;
+    }
+    if (ntName == "Int") {
+        return Nonterminal::Int;
+    }
+    if (ntName == "Short") {
+        return Nonterminal::Short;
+    }
+    std::string diagnostic("Unhandled nonterminal ");
+    diagnostic += ntName;
+    throw std::logic_error(diagnostic);
+}
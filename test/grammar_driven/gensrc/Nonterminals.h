@@ -0,0 +1,10 @@
+/**
+ * GENERATED CODE -- Edits will be lost!
+ * Generated by JBurg3 version 1.0 Sat Oct 17 19:28:46 UTC 2026  from grammars/CppOverloaded.xml
+ */
+#pragma once
+enum class Nonterminal {
+    String,
+    Int,
+    Short
+};
@@ -0,0 +1,442 @@
+/* GENERATED CODE - Edits will be lost
+ * Generated by JBurg3 1.0 Sat Oct 17 19:28:43 UTC 2026  from grammars/PoorlyOverloaded.xml
+ */
+
+public class Test
+{
+    private final static int ERROR_STATE_NUM = 0;
+    private final static int NULL_STATE_NUM = 1;
+    private final static int NO_ENTRY = -1;
+
+    private static final int[] DISPATCH_BASE = decode(9,
+        "\u0001\u0003\u0005\u0007\u000c\u0010\u0014\u0018\u001b"
+    );
+    private static final int[] DISPATCH = decode(26,
+        "\u0001\u0000\u0002\u0000\u0003\u0000\u0000\u0004\u0005\u0006\u0000\u0000\u0007\u0008\u0000\u0000\u0000\u0009\u0000\u0000\u0000\n\u0000\u0000\u000b\u000b"
+    );
+    private static final int[] OPERATOR_ARITY = decode(11,
+        "\u0001\u0001\u0001\u0002\u0003\u0004\u0002\u0003\u0003\u0003\u0002"
+    );
+    private static final int[] OPERATOR_VARIADIC = decode(11,
+        "\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0001\u0002"
+    );
+    private static final int[] OPERATOR_PLANE = decode(11,
+        "\u0000\u0000\u0000\u0001\u0002\u000fjku\u007f\u0089"
+    );
+    private static final int[] OPERATOR_LEAF = decode(11,
+        "\u0001\u0002\u0003\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000"
+    );
+    private static final int[] PLANE_NEXT_ROW = decode(137,
+        "\u000f\u0011\u0013\u0015\u0017\u0019\u001b\u001d\u001f!#%')+-/13579;=?ACEGIKMOQSUWY[]_acegikmoqsuwy{}\u007f\u0081\u0083\u0085\u0087\u0089\u008b\u008d\u008f\u0091\u0093\u0095\u0097\u0099\u009b\u009d\u009f\u00a1\u00a3\u00a5\u00a7\u00a9\u00ab\u00ad\u00af\u00b1\u00b3\u00b5\u00b7\u00b9\u00bb\u00bd\u00bf\u00c1\u00c3\u00c5\u00c7\u00c9\u00cb\u00cd\u00cf\u00d1\u00d3\u00d5\u00d7\u00d9\u00db\u00dd\u00df\u00e1\u00e3\u00e5\u00e7\u00e9\u00eb\u00ed\u00ef\u00f1\u00f3\u00f5\u00f7\u00f9\u00fb\u00fd\u00ff\u0101\u0103\u0105\u0107\u0109\u010b\u010d\u010f\u0111\u0113\u0115\u0117\u0119\u011b\u011d\u011f"
+    );
+    private static final int[] PLANE_FINAL_ROW = decode(137,
+        "\u0010\u0012\u0014\u0016\u0018\u001a\u001c\u001e \"$&(*,.02468:<>@BDFHJLNPRTVXZ\\^`bdfhjlnprtvxz|~\u0080\u0082\u0084\u0086\u0088\u008a\u008c\u008e\u0090\u0092\u0094\u0096\u0098\u009a\u009c\u009e\u00a0\u00a2\u00a4\u00a6\u00a8\u00aa\u00ac\u00ae\u00b0\u00b2\u00b4\u00b6\u00b8\u00ba\u00bc\u00be\u00c0\u00c2\u00c4\u00c6\u00c8\u00ca\u00cc\u00ce\u00d0\u00d2\u00d4\u00d6\u00d8\u00da\u00dc\u00de\u00e0\u00e2\u00e4\u00e6\u00e8\u00ea\u00ec\u00ee\u00f0\u00f2\u00f4\u00f6\u00f8\u00fa\u00fc\u00fe\u0100\u0102\u0104\u0106\u0108\u010a\u010c\u010e\u0110\u0112\u0114\u0116\u0118\u011a\u011c\u011e\u0120"
+    );
+    private static final int[] LEAF_PREDICATE_BASE = decode(13,
+        "\u0001\u0001\u0001\u0002\u0002\u0002\u0002\u0002\u0002\u0002\u0002\u0002\u0002"
+    );
+    private static final int[] LEAF_PREDICATES = decode(1,
+        "\u0001"
+    );
+    private static final int[] LEAF_STATE_BASE = decode(12,
+        "\u0001\u0002\u0003\u0005\u0006\u0007\u0008\u0009\n\u000b\u000c\r"
+    );
+    private static final int[] LEAF_STATES = decode(13,
+        "\u0003\u0004\u0000\u0005\u0006\u0007\u000e\u0008\u0009\n\u000b\u000c\r"
+    );
+    private static final int[] STATE_ROW = decode(14,
+        "\u0001\u0002\u0003\u0004\u0005\u0006\u0007\u0008\u0009\n\u000b\u000c\r\u000e"
+    );
+    private static final int[] CHAIN_BASE = decode(22,
+        "\u0001\u0003\u0004\u0005\u0008\u0009\u000b\r\u000e\u000f\u0010\u0012\u0013\u0015\u0016\u0018\u0019\u001b\u001c\u001e\u001f "
+    );
+    private static final int[] CHAIN_PRODUCTIONS = decode(31,
+        "\r\u0001\u0001\u0002\r\u000e\u0003\u0003\u000e\u0003\r\u0004\u0004\u0005\u0006\r\u0007\u0007\r\u0008\u0008\r\u0009\u0009\r\n\n\r\u000b\u000b\u000c"
+    );
+    private static final int[] COMB_BASE = decode(288,
+        "\u0001\u0001\u057a\u00aa\u0577\u057c\u057e\u0580\u0582\u0584\u0586\u0588\u00b4\u00be\u0001\u00a7\uffff\uffff\uffff\u0001\u0001\u000b\u0001\u0017\u0001#\u0001/\u0001;\u0001G\u0001S\u0001_\u0001k\u0001w\u0001\u0083\u0001\u008f\u00b1\u0001\u00bb\u0001\u0001\u00c5\u0001\u00cf\u0001\u00d9\u0001\u00e3\u0001\u00ed\u0001\u00f7\u0001\u0101\u0001\u010b\u0001\u0115\u011f\u0001\u0001\u0129\u0001\u0133\u0001\u013d\u0001\u0147\u0001\u0151\u0001\u015b\u0001\u0165\u0001\u016f\u0001\u0179\u0183\u0001\u0001\u018d\u0001\u0197\u0001\u01a1\u0001\u01ab\u0001\u01b5\u0001\u01bf\u0001\u01c9\u0001\u01d3\u0001\u01dd\u01e7\u0001\u0001\u01f1\u0001\u01fb\u0001\u0205\u0001\u020f\u0001\u0219\u0001\u0223\u0001\u022d\u0001\u0237\u0001\u0241\u024b\u0001\u0001\u0255\u0001\u025f\u0001\u0269\u0001\u0273\u0001\u027d\u0001\u0287\u0001\u0291\u0001\u029b\u0001\u02a5\u02af\u0001\u0001\u02b9\u0001\u02c3\u0001\u02cd\u0001\u02d7\u0001\u02e1\u0001\u02eb\u0001\u02f5\u0001\u02ff\u0001\u0309\u0313\u0001\u0001\u031d\u0001\u0327\u0001\u0331\u0001\u033b\u0001\u0345\u0001\u034f\u0001\u0359\u0001\u0363\u0001\u036d\u0377\u0001\u0001\u0381\u0001\u038b\u0001\u0395\u0001\u039f\u0001\u03a9\u0001\u03b3\u0001\u03bd\u0001\u03c7\u0001\u03d1\u03db\u0001\u0001\u03e5\u0001\u03ef\u0001\u03f9\u0001\u0403\u0001\u040d\u0001\u0417\u0001\u0421\u0001\u042b\u0001\u0435\u0001\u043f\u0449\u0001\u0001\u0453\u0001\u045d\u0001\u0467\u0001\u0471\u0001\u047b\u0001\u0485\u0001\u048f\u0001\u0499\u0001\u04a3\u04ad\u0001\u0001\u04b7\u0001\u04c1\u0001\u04cb\u0001\u04d5\u0001\u04df\u0001\u04e9\u0001\u04f3\u0001\u04fd\u0001\u0507\u0511\u0001\u0001\u051b\u0001\u0525\u0001\u052f\u0001\u0539\u0001\u0543\u0001\u054d\u0001\u0557\u0001\u0561\u0001\u056b\u0001\u009b"
+    );
+    private static final int[] COMB_VALUE = decode(1417,
+        "\u0003\u0004\u0005\u0006\u0007\u0008\u0009\n\u000b\u000c\r\u000e\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0005\u0006\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0005\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u0006\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u000c\u0004\u0003\u0004\u0004\u0004\u0004\u0004\u0004\u0004\u0004\u0010\u0015\u001a$.8BLV`\u0011\u0009\u0012\u0013\u0014\u0015\u0016\u0017\u0018\u0019\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u001b\u0001\u001c\u001d\u001e\u001f !\"#\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007%\u0001&'()*+,-\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007/\u000101234567\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u00079\u0001:;<=>?@A\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007C\u0001DEFGHIJK\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007M\u0001NOPQRSTU\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007W\u0001XYZ[\\]^_\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007a\u0001bcdefghi\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0001\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0007\u0008\u0001\u0008\u0008\u0008\u0008\u0008\u0008\u0008\u0008l\u0001mnopqrst\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0001\u0009\u0009\u0009\u0009\u0009\u0009\u0009\u0009v\u0001wxyz{|}~\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\n\u0001\n\n\n\n\n\n\n\n\u0080\u0001\u0081\u0082\u0083\u0084\u0085\u0086\u0087\u0088\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0001\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u000b\u0004\u0006\u0005\u0001\u0002\u0007\u0008\u0009\n\u000b\u000c\r\u000e\u000f\u0010\u0011\u0012\u0013\u0014"
+    );
+    private static final int[] COMB_CHECK = decode(1417,
+        "\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0011\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0014\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0016\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u0018\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001a\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001c\u001e\u001e\u001e\u001e\u001e\u001e\u001e\u001e\u001e\u001e\u001e\u001e            \"\"\"\"\"\"\"\"\"\"\"\"$$$$$$$$$$$$&&&&&&&&&&&&((((((((((((************\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0120\u0010\u0004\u0010\u0010\u0010\u0010\u0010\u0010\u0010\u0010+\r++++++++-\u000e--------0\u0000000000002\u0000222222224\u0000444444446\u0000666666668\u000088888888:\u0000::::::::<\u0000<<<<<<<<>\u0000>>>>>>>>@\u0000@@@@@@@@A\u0000AAAAAAAAD\u0000DDDDDDDDF\u0000FFFFFFFFH\u0000HHHHHHHHJ\u0000JJJJJJJJL\u0000LLLLLLLLN\u0000NNNNNNNNP\u0000PPPPPPPPR\u0000RRRRRRRRT\u0000TTTTTTTTU\u0000UUUUUUUUX\u0000XXXXXXXXZ\u0000ZZZZZZZZ\\\u0000\\\\\\\\\\\\\\\\^\u0000^^^^^^^^`\u0000````````b\u0000bbbbbbbbd\u0000ddddddddf\u0000ffffffffh\u0000hhhhhhhhi\u0000iiiiiiiil\u0000lllllllln\u0000nnnnnnnnp\u0000ppppppppr\u0000rrrrrrrrt\u0000ttttttttv\u0000vvvvvvvvx\u0000xxxxxxxxz\u0000zzzzzzzz|\u0000||||||||}\u0000}}}}}}}}\u0080\u0000\u0080\u0080\u0080\u0080\u0080\u0080\u0080\u0080\u0082\u0000\u0082\u0082\u0082\u0082\u0082\u0082\u0082\u0082\u0084\u0000\u0084\u0084\u0084\u0084\u0084\u0084\u0084\u0084\u0086\u0000\u0086\u0086\u0086\u0086\u0086\u0086\u0086\u0086\u0088\u0000\u0088\u0088\u0088\u0088\u0088\u0088\u0088\u0088\u008a\u0000\u008a\u008a\u008a\u008a\u008a\u008a\u008a\u008a\u008c\u0000\u008c\u008c\u008c\u008c\u008c\u008c\u008c\u008c\u008e\u0000\u008e\u008e\u008e\u008e\u008e\u008e\u008e\u008e\u0090\u0000\u0090\u0090\u0090\u0090\u0090\u0090\u0090\u0090\u0091\u0000\u0091\u0091\u0091\u0091\u0091\u0091\u0091\u0091\u0094\u0000\u0094\u0094\u0094\u0094\u0094\u0094\u0094\u0094\u0096\u0000\u0096\u0096\u0096\u0096\u0096\u0096\u0096\u0096\u0098\u0000\u0098\u0098\u0098\u0098\u0098\u0098\u0098\u0098\u009a\u0000\u009a\u009a\u009a\u009a\u009a\u009a\u009a\u009a\u009c\u0000\u009c\u009c\u009c\u009c\u009c\u009c\u009c\u009c\u009e\u0000\u009e\u009e\u009e\u009e\u009e\u009e\u009e\u009e\u00a0\u0000\u00a0\u00a0\u00a0\u00a0\u00a0\u00a0\u00a0\u00a0\u00a2\u0000\u00a2\u00a2\u00a2\u00a2\u00a2\u00a2\u00a2\u00a2\u00a4\u0000\u00a4\u00a4\u00a4\u00a4\u00a4\u00a4\u00a4\u00a4\u00a5\u0000\u00a5\u00a5\u00a5\u00a5\u00a5\u00a5\u00a5\u00a5\u00a8\u0000\u00a8\u00a8\u00a8\u00a8\u00a8\u00a8\u00a8\u00a8\u00aa\u0000\u00aa\u00aa\u00aa\u00aa\u00aa\u00aa\u00aa\u00aa\u00ac\u0000\u00ac\u00ac\u00ac\u00ac\u00ac\u00ac\u00ac\u00ac\u00ae\u0000\u00ae\u00ae\u00ae\u00ae\u00ae\u00ae\u00ae\u00ae\u00b0\u0000\u00b0\u00b0\u00b0\u00b0\u00b0\u00b0\u00b0\u00b0\u00b2\u0000\u00b2\u00b2\u00b2\u00b2\u00b2\u00b2\u00b2\u00b2\u00b4\u0000\u00b4\u00b4\u00b4\u00b4\u00b4\u00b4\u00b4\u00b4\u00b6\u0000\u00b6\u00b6\u00b6\u00b6\u00b6\u00b6\u00b6\u00b6\u00b8\u0000\u00b8\u00b8\u00b8\u00b8\u00b8\u00b8\u00b8\u00b8\u00b9\u0000\u00b9\u00b9\u00b9\u00b9\u00b9\u00b9\u00b9\u00b9\u00bc\u0000\u00bc\u00bc\u00bc\u00bc\u00bc\u00bc\u00bc\u00bc\u00be\u0000\u00be\u00be\u00be\u00be\u00be\u00be\u00be\u00be\u00c0\u0000\u00c0\u00c0\u00c0\u00c0\u00c0\u00c0\u00c0\u00c0\u00c2\u0000\u00c2\u00c2\u00c2\u00c2\u00c2\u00c2\u00c2\u00c2\u00c4\u0000\u00c4\u00c4\u00c4\u00c4\u00c4\u00c4\u00c4\u00c4\u00c6\u0000\u00c6\u00c6\u00c6\u00c6\u00c6\u00c6\u00c6\u00c6\u00c8\u0000\u00c8\u00c8\u00c8\u00c8\u00c8\u00c8\u00c8\u00c8\u00ca\u0000\u00ca\u00ca\u00ca\u00ca\u00ca\u00ca\u00ca\u00ca\u00cc\u0000\u00cc\u00cc\u00cc\u00cc\u00cc\u00cc\u00cc\u00cc\u00cd\u0000\u00cd\u00cd\u00cd\u00cd\u00cd\u00cd\u00cd\u00cd\u00d0\u0000\u00d0\u00d0\u00d0\u00d0\u00d0\u00d0\u00d0\u00d0\u00d2\u0000\u00d2\u00d2\u00d2\u00d2\u00d2\u00d2\u00d2\u00d2\u00d4\u0000\u00d4\u00d4\u00d4\u00d4\u00d4\u00d4\u00d4\u00d4\u00d6\u0000\u00d6\u00d6\u00d6\u00d6\u00d6\u00d6\u00d6\u00d6\u00d8\u0000\u00d8\u00d8\u00d8\u00d8\u00d8\u00d8\u00d8\u00d8\u00da\u0000\u00da\u00da\u00da\u00da\u00da\u00da\u00da\u00da\u00dc\u0000\u00dc\u00dc\u00dc\u00dc\u00dc\u00dc\u00dc\u00dc\u00de\u0000\u00de\u00de\u00de\u00de\u00de\u00de\u00de\u00de\u00e0\u0000\u00e0\u00e0\u00e0\u00e0\u00e0\u00e0\u00e0\u00e0\u00e2\u0000\u00e2\u00e2\u00e2\u00e2\u00e2\u00e2\u00e2\u00e2\u00e3\u0000\u00e3\u00e3\u00e3\u00e3\u00e3\u00e3\u00e3\u00e3\u00e6\u0000\u00e6\u00e6\u00e6\u00e6\u00e6\u00e6\u00e6\u00e6\u00e8\u0000\u00e8\u00e8\u00e8\u00e8\u00e8\u00e8\u00e8\u00e8\u00ea\u0000\u00ea\u00ea\u00ea\u00ea\u00ea\u00ea\u00ea\u00ea\u00ec\u0000\u00ec\u00ec\u00ec\u00ec\u00ec\u00ec\u00ec\u00ec\u00ee\u0000\u00ee\u00ee\u00ee\u00ee\u00ee\u00ee\u00ee\u00ee\u00f0\u0000\u00f0\u00f0\u00f0\u00f0\u00f0\u00f0\u00f0\u00f0\u00f2\u0000\u00f2\u00f2\u00f2\u00f2\u00f2\u00f2\u00f2\u00f2\u00f4\u0000\u00f4\u00f4\u00f4\u00f4\u00f4\u00f4\u00f4\u00f4\u00f6\u0000\u00f6\u00f6\u00f6\u00f6\u00f6\u00f6\u00f6\u00f6\u00f7\u0000\u00f7\u00f7\u00f7\u00f7\u00f7\u00f7\u00f7\u00f7\u00fa\u0000\u00fa\u00fa\u00fa\u00fa\u00fa\u00fa\u00fa\u00fa\u00fc\u0000\u00fc\u00fc\u00fc\u00fc\u00fc\u00fc\u00fc\u00fc\u00fe\u0000\u00fe\u00fe\u00fe\u00fe\u00fe\u00fe\u00fe\u00fe\u0100\u0000\u0100\u0100\u0100\u0100\u0100\u0100\u0100\u0100\u0102\u0000\u0102\u0102\u0102\u0102\u0102\u0102\u0102\u0102\u0104\u0000\u0104\u0104\u0104\u0104\u0104\u0104\u0104\u0104\u0106\u0000\u0106\u0106\u0106\u0106\u0106\u0106\u0106\u0106\u0108\u0000\u0108\u0108\u0108\u0108\u0108\u0108\u0108\u0108\u010a\u0000\u010a\u010a\u010a\u010a\u010a\u010a\u010a\u010a\u010b\u0000\u010b\u010b\u010b\u010b\u010b\u010b\u010b\u010b\u010e\u0000\u010e\u010e\u010e\u010e\u010e\u010e\u010e\u010e\u0110\u0000\u0110\u0110\u0110\u0110\u0110\u0110\u0110\u0110\u0112\u0000\u0112\u0112\u0112\u0112\u0112\u0112\u0112\u0112\u0114\u0000\u0114\u0114\u0114\u0114\u0114\u0114\u0114\u0114\u0116\u0000\u0116\u0116\u0116\u0116\u0116\u0116\u0116\u0116\u0118\u0000\u0118\u0118\u0118\u0118\u0118\u0118\u0118\u0118\u011a\u0000\u011a\u011a\u011a\u011a\u011a\u011a\u011a\u011a\u011c\u0000\u011c\u011c\u011c\u011c\u011c\u011c\u011c\u011c\u011e\u0000\u011e\u011e\u011e\u011e\u011e\u011e\u011e\u011e\u0005\u0005\u0005\u0003\u0003\u0006\u0006\u0007\u0007\u0008\u0008\u0009\u0009\n\n\u000b\u000b\u000c\u000c"
+    );
+
+    /*
+     * Decode an array: each int is offset by one, and
+     * an int that doesn't fit in a char is escaped.
+     */
+    private static int[] decode(int length, String... chunks)
+    {
+        int[] result = new int[length];
+        int n = 0;
+
+        for (String chunk: chunks) {
+
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = chunk.charAt(i);
+
+                if (c != '\uffff') {
+                    result[n++] = c - 1;
+                } else {
+                    result[n++] = ((chunk.charAt(i+1) << 16) | chunk.charAt(i+2)) - 1;
+                    i += 2;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /*
+     * Look up a key in a row of the comb vector.
+     */
+    private static int lookup(int row, int key)
+    {
+        if (row == NO_ENTRY) {
+            return NO_ENTRY;
+        }
+
+        int slot = COMB_BASE[row] + key;
+        return slot >= 0 && slot < COMB_CHECK.length && COMB_CHECK[slot] == row? COMB_VALUE[slot]: NO_ENTRY;
+    }
+
+    private static int getStateNumber(Node node)
+    {
+        return node != null? node.getStateNumber(): NULL_STATE_NUM;
+    }
+
+    private static int getNodeTypeIndex(NodeType nodeType)
+    {
+        switch(nodeType) {
+            case IntLiteral: return 0;
+            case StringLiteral: return 1;
+            case ShortLiteral: return 2;
+            case Add: return 3;
+            case Subtract: return 4;
+            case AddStrict: return 5;
+            case Multiply: return 6;
+            case Concat: return 7;
+            default: return NO_ENTRY;
+        }
+    }
+
+    private static int getNonterminalIndex(Nonterminal goalState)
+    {
+        switch(goalState) {
+            case String: return 0;
+            case Int: return 1;
+            case Short: return 2;
+            default: return NO_ENTRY;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void label(Calculator visitor, Node node)
+    {
+        if (node == null) {
+            return;
+        }
+
+        // The work stack: nodes awaiting labeling, and the index of
+        // each node's next child to visit. The stack is local to this
+        // call, so a predicate may label another tree, and threads may
+        // share the reducer; it's an Object[] so the node class may be generic.
+        Object[] nodes = new Object[64];
+        int[] nextChild = new int[64];
+        int depth = 0;
+
+        nodes[depth] = node;
+        nextChild[depth] = 0;
+        depth++;
+
+        // Label the tree in post order; a node is labeled
+        // when it's popped, after all its children.
+        while (depth > 0) {
+            Node top = (Node)nodes[depth-1];
+
+            if (nextChild[depth-1] < top.getSubtreeCount()) {
+                Node child = top.getSubtree(nextChild[depth-1]++);
+
+                if (child != null) {
+
+                    if (depth == nodes.length) {
+                        nodes = java.util.Arrays.copyOf(nodes, depth * 2);
+                        nextChild = java.util.Arrays.copyOf(nextChild, depth * 2);
+                    }
+
+                    nodes[depth] = child;
+                    nextChild[depth] = 0;
+                    depth++;
+                }
+            } else {
+                nodes[--depth] = null;
+                top.setStateNumber(getState(visitor, top));
+            }
+        }
+    }
+
+    /*
+     * Get the state of a node whose subtrees are labeled.
+     */
+    private static int getState(Calculator visitor, Node node)
+    {
+        int nodeType = getNodeTypeIndex(node.getNodeType());
+
+        if (nodeType == NO_ENTRY) {
+            return ERROR_STATE_NUM;
+        }
+
+        int subtreeCount = node.getSubtreeCount();
+        int dispatchBase = DISPATCH_BASE[nodeType];
+        int op = DISPATCH[dispatchBase + Math.min(subtreeCount, DISPATCH_BASE[nodeType+1] - dispatchBase - 1)];
+
+        if (op == NO_ENTRY) {
+            return ERROR_STATE_NUM;
+
+        } else if (subtreeCount == 0) {
+            int leaf = OPERATOR_LEAF[op];
+            return leaf != NO_ENTRY? getLeafState(visitor, node, leaf): ERROR_STATE_NUM;
+        }
+
+        int plane = OPERATOR_PLANE[op];
+        int variadicTail = OPERATOR_VARIADIC[op] != 0? OPERATOR_ARITY[op] - 1: subtreeCount;
+
+        for (int dim = 0; dim < subtreeCount && plane != NO_ENTRY; dim++) {
+            int stateNumber = getStateNumber(node.getSubtree(dim));
+
+            if (dim == subtreeCount - 1) {
+                int leaf = lookup(PLANE_FINAL_ROW[plane], stateNumber);
+                return leaf != NO_ENTRY? getLeafState(visitor, node, leaf): ERROR_STATE_NUM;
+
+            } else if (dim >= variadicTail) {
+                // Continue traversing the variadic tail's dimension.
+                if (lookup(PLANE_FINAL_ROW[plane], stateNumber) == NO_ENTRY) {
+                    break;
+                }
+            } else {
+                plane = lookup(PLANE_NEXT_ROW[plane], stateNumber);
+            }
+        }
+
+        return ERROR_STATE_NUM;
+    }
+
+    /*
+     * Get a leaf's state for a node: run the leaf's predicates,
+     * and index its states by the mask of satisfied predicates.
+     */
+    private static int getLeafState(Calculator visitor, Node node, int leaf)
+    {
+        int mask = 0;
+        int bit = 1;
+
+        for (int i = LEAF_PREDICATE_BASE[leaf]; i < LEAF_PREDICATE_BASE[leaf+1]; i++) {
+
+            if (testPredicate(visitor, node, LEAF_PREDICATES[i])) {
+                mask |= bit;
+            }
+
+            bit <<= 1;
+        }
+
+        return LEAF_STATES[LEAF_STATE_BASE[leaf] + mask];
+    }
+
+    private static boolean testPredicate(Calculator visitor, Node node, int predicate)
+    {
+        switch(predicate) {
+            case 0:
+                return visitor.shortGuard(node);
+            default:
+                throw new IllegalStateException(String.format("Unknown predicate %d", predicate));
+        }
+    }
+
+    /*
+     * Get the closure chain that derives a goal from a node's state.
+     */
+    private static int getClosureChain(Node node, Nonterminal goalState)
+    {
+        int goal = getNonterminalIndex(goalState);
+        int chain = NO_ENTRY;
+
+        if (node == null) {
+            chain = lookup(STATE_ROW[NULL_STATE_NUM], goal);
+
+            if (chain == NO_ENTRY) {
+                throw new NullPointerException();
+            }
+
+            return chain;
+        }
+
+        int stateNumber = node.getStateNumber();
+
+        if (stateNumber > ERROR_STATE_NUM && stateNumber < STATE_ROW.length) {
+            chain = lookup(STATE_ROW[stateNumber], goal);
+        }
+
+        if (chain == NO_ENTRY) {
+            chain = lookup(STATE_ROW[ERROR_STATE_NUM], goal);
+
+            if (chain == NO_ENTRY) {
+                throw new IllegalArgumentException(String.format("No error handler produces %s", goalState));
+            }
+        }
+
+        return chain;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object reduce(Calculator visitor, Node node, Nonterminal goalState)
+    {
+        int chain = getClosureChain(node, goalState);
+        int first = CHAIN_BASE[chain];
+        int last = CHAIN_BASE[chain+1] - 1;
+
+        // Run the pre callbacks in chain order, reduce
+        // the production that starts the chain, and then
+        // run the closures' post callbacks in reverse order.
+        for (int i = first; i <= last; i++) {
+            runPreCallback(visitor, node, goalState, CHAIN_PRODUCTIONS[i]);
+        }
+
+        Object result = reduceProduction(visitor, node, goalState, CHAIN_PRODUCTIONS[last]);
+
+        for (int i = last - 1; i >= first; i--) {
+            result = runClosure(visitor, node, CHAIN_PRODUCTIONS[i], result);
+        }
+
+        return result;
+    }
+
+    public boolean canProduce(Node node,  Nonterminal goalState)
+    {
+        if (node != null) {
+            int stateNumber = node.getStateNumber();
+            return stateNumber > ERROR_STATE_NUM && stateNumber < STATE_ROW.length && lookup(STATE_ROW[stateNumber], getNonterminalIndex(goalState)) != NO_ENTRY;
+        } else {
+            return false;
+        }
+    }
+
+    private static void runPreCallback(Calculator visitor, Node node, Nonterminal goalState, int production)
+    {
+        switch(production) {
+        }
+    }
+
+    private Object reduceProduction(Calculator visitor, Node node, Nonterminal goalState, int production)
+    {
+        switch(production / 32) {
+            case 0: return reduceGroup0(visitor, node, goalState, production);
+            default:
+                throw new IllegalStateException(String.format("Unknown production %d", production));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object reduceGroup0(Calculator visitor, Node node, Nonterminal goalState, int production)
+    {
+        Object result = null;
+
+        switch(production) {
+            case 0: {
+                result = visitor.intLiteral(node);
+
+                break;
+            }
+            case 1: {
+                result = visitor.stringLiteral(node);
+
+                break;
+            }
+            case 2: {
+                result = visitor.shortLiteral(node);
+
+                break;
+            }
+            case 3: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                result = visitor.identity(node, (java.lang.Integer)result0);
+
+                break;
+            }
+            case 4: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.String);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.String);
+                result = visitor.concatFixed(node, (java.lang.String)result0, (java.lang.String)result1);
+
+                break;
+            }
+            case 5: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                result = visitor.add(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                break;
+            }
+            case 6: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                Object result2 = reduce(visitor, node.getSubtree(2), Nonterminal.Int);
+                result = visitor.addTernary(node, (java.lang.Integer)result0, (java.lang.Integer)result1, (java.lang.Integer)result2);
+
+                break;
+            }
+            case 7: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                result = visitor.negate(node, (java.lang.Integer)result0);
+
+                break;
+            }
+            case 8: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                result = visitor.subtract(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                break;
+            }
+            case 9: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                result = visitor.add(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                break;
+            }
+            case 10: {
+                Object result0 = reduce(visitor, node.getSubtree(0), Nonterminal.Int);
+                Object result1 = reduce(visitor, node.getSubtree(1), Nonterminal.Int);
+                result = visitor.multiply(node, (java.lang.Integer)result0, (java.lang.Integer)result1);
+
+                break;
+            }
+            case 11: {
+                String[] variadicActuals = new String[node.getSubtreeCount() - 0];
+                for (int i = 0; i < node.getSubtreeCount() - 0; i++) {
+                    variadicActuals[i] = (String)reduce(visitor, node.getSubtree(i + 0), Nonterminal.String);
+                }
+                result = visitor.concat(node, variadicActuals);
+
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object runClosure(Calculator visitor, Node node, int production, Object result)
+    {
+        switch(production) {
+            case 12:
+                return visitor.convertToString(node, (java.lang.Object)result);
+            case 13:
+                return visitor.widenShortToInt(node, (java.lang.Short)result);
+            default:
+                return result;
+        }
+    }
+}
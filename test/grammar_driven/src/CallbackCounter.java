@@ -0,0 +1,141 @@
+import java.util.*;
+
+/**
+ * A Calculator that counts the callbacks run on each node,
+ * to check that a reducer that reduces shared subtrees once
+ * doesn't run a shared node's callbacks twice. A node that's
+ * reduced to several goals may still run each of its children's
+ * callbacks once per goal, so only shared nodes are checked.
+ */
+public class CallbackCounter extends Calculator
+{
+    /** Callback counts by node, then by callback name. */
+    private final Map<Node, Map<String, Integer>> callbacks = new IdentityHashMap<Node, Map<String, Integer>>();
+
+    /**
+     * Forget the counts from the previous testcase.
+     */
+    public void clear()
+    {
+        callbacks.clear();
+    }
+
+    /**
+     * @param root  the root of the tree that was reduced.
+     * @return descriptions of the callbacks that ran more than
+     * once on a node with more than one parent.
+     */
+    public List<String> getRepeatedCallbacks(Node root)
+    {
+        Map<Node, Integer> parentCounts = new IdentityHashMap<Node, Integer>();
+        countParents(root, parentCounts);
+
+        List<String> result = new ArrayList<String>();
+
+        for (Map.Entry<Node, Map<String, Integer>> nodeEntry: callbacks.entrySet()) {
+            Integer parentCount = parentCounts.get(nodeEntry.getKey());
+
+            if (parentCount != null && parentCount > 1) {
+
+                for (Map.Entry<String, Integer> entry: nodeEntry.getValue().entrySet()) {
+
+                    if (entry.getValue() > 1) {
+                        result.add(String.format("%s ran %d times on shared node %d", entry.getKey(), entry.getValue(), nodeEntry.getKey().id));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Count the parents of each node in a DAG,
+     * visiting each shared node's subtree once.
+     */
+    private void countParents(Node node, Map<Node, Integer> parentCounts)
+    {
+        for (int i = 0; i < node.getSubtreeCount(); i++) {
+            Node child = node.getSubtree(i);
+            Integer parentCount = parentCounts.get(child);
+            parentCounts.put(child, parentCount != null? parentCount + 1: 1);
+
+            if (parentCount == null && child != null) {
+                countParents(child, parentCounts);
+            }
+        }
+    }
+
+    private void count(Node node, String callback)
+    {
+        Map<String, Integer> counts = callbacks.get(node);
+
+        if (counts == null) {
+            counts = new HashMap<String, Integer>();
+            callbacks.put(node, counts);
+        }
+
+        Integer count = counts.get(callback);
+        counts.put(callback, count != null? count + 1: 1);
+    }
+
+    public Integer intLiteral(Node node)
+    {
+        count(node, "intLiteral");
+        return super.intLiteral(node);
+    }
+
+    public Short shortLiteral(Node node)
+    {
+        count(node, "shortLiteral");
+        return super.shortLiteral(node);
+    }
+
+    public String stringLiteral(Node node)
+    {
+        count(node, "stringLiteral");
+        return super.stringLiteral(node);
+    }
+
+    public Integer negate(Node node, Integer x)
+    {
+        count(node, "negate");
+        return super.negate(node, x);
+    }
+
+    public Integer add(Node node, Integer x, Integer y)
+    {
+        count(node, "add");
+        return super.add(node, x, y);
+    }
+
+    public Integer subtract(Node node, Integer x, Integer y)
+    {
+        count(node, "subtract");
+        return super.subtract(node, x, y);
+    }
+
+    public Integer multiply(Node node, Integer x, Integer y)
+    {
+        count(node, "multiply");
+        return super.multiply(node, x, y);
+    }
+
+    public String concat(Node node, String... args)
+    {
+        count(node, "concat");
+        return super.concat(node, args);
+    }
+
+    public Integer widenShortToInt(Node node, Short operand)
+    {
+        count(node, "widenShortToInt");
+        return super.widenShortToInt(node, operand);
+    }
+
+    public String convertToString(Node node, Object o)
+    {
+        count(node, "convertToString");
+        return super.convertToString(node, o);
+    }
+}
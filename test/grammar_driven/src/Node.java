@@ -18,6 +18,12 @@ public class Node implements jburg.BurgInput<Nonterminal, NodeType>
     /** State stored on behalf of the BURM. */
     private int stateNumber = -1;
 
+    /** The next node's id. */
+    private static int nextId = 0;
+
+    /** A dense id, for labeling into a DenseLabelStore. */
+    final int id = nextId++;
+
     Node(NodeType type)
     {
         this.nodeType = type;
@@ -14,6 +14,12 @@ class NodeFactory extends DefaultHandler
 
     List<Testcase> testcases = new ArrayList<Testcase>();
 
+    /**
+     * Nodes with an id attribute in the current testcase;
+     * a node with a ref attribute shares the node with that id.
+     */
+    Map<String,Node> nodesById = new HashMap<String,Node>();
+
     public NodeFactory(String filename)
     throws Exception
     {
@@ -46,6 +52,8 @@ class NodeFactory extends DefaultHandler
 
         } else if (localName.equals("Testcase")) {
 
+            nodesById.clear();
+
             // Do a little validation to get better diagnostics.
             String testcaseName = atts.getValue("name");
             String testcaseType = atts.getValue("type");
@@ -76,8 +84,12 @@ class NodeFactory extends DefaultHandler
             String      nodeTypeName = atts.getValue("op");
             String      content = atts.getValue("content");
             boolean     isNull = atts.getValue("null") != null && Boolean.parseBoolean(atts.getValue("null"));
+            String      id = atts.getValue("id");
+            String      ref = atts.getValue("ref");
 
-            if (nodeTypeName != null) {
+            if (ref != null) {
+                // Let it go; the node is shared.
+            } else if (nodeTypeName != null) {
                 nodeType = NodeType.valueOf(nodeTypeName);
             } else if (isNull) {
                 // Let it go.
@@ -85,7 +97,13 @@ class NodeFactory extends DefaultHandler
                 throw new IllegalArgumentException("Nodes require an op specifier");
             }
 
-            if (isNull) {
+            if (ref != null) {
+                node = nodesById.get(ref);
+
+                if (node == null) {
+                    throw new IllegalArgumentException(String.format("Node ref %s must follow the node with that id", ref));
+                }
+            } else if (isNull) {
                 node = null;
             } else if (content != null) {
                 node = new Node(nodeType, content);
@@ -93,6 +111,10 @@ class NodeFactory extends DefaultHandler
                 node = new Node(nodeType);
             }
 
+            if (id != null) {
+                nodesById.put(id, node);
+            }
+
             if (nodeStack.isEmpty()) {
 
                 if (!testcases.isEmpty()) {
@@ -1,6 +1,16 @@
 import java.util.*;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 
+import jburg.AbstractProductionTable;
+import jburg.BinaryTableLoader;
+import jburg.BurgInput;
+import jburg.CompiledProductionTable;
+import jburg.DenseLabelStore;
+import jburg.FlatTree;
+import jburg.IdentityLabelStore;
+import jburg.LazyProductionTable;
+import jburg.PatternMatcher;
 import jburg.ProductionTable;
 import jburg.Reducer;
 import jburg.TransitionTableLoader;
@@ -16,6 +26,8 @@ public class TestRunner
     {
         String dumpFile = null;
         String loadFile = null;
+        String binaryDumpFile = null;
+        String binaryLoadFile = null;
         String grammarFile = null;
         String testcaseFile = null;
         String dumpTemplates = "xml.stg";
@@ -28,6 +40,28 @@ public class TestRunner
 
         boolean verbose = true;
         boolean randomize = false;
+        boolean iterative = false;
+        int parallelThreshold = 0;
+        boolean parallelGeneration = false;
+        boolean regenerate = false;
+        Reducer.SharedSubtrees sharedSubtrees = Reducer.SharedSubtrees.Relabel;
+        boolean flatten = false;
+        String labelStoreKind = null;
+        List<String> concurrentGrammarFiles = new ArrayList<String>();
+        boolean freeze = false;
+        int lazyTransitions = -1;
+        long minEvictedTransitions = 0;
+        int maxKeptTransitions = -1;
+        int transitionBudget = 0;
+        int minDynamicOperators = 0;
+        boolean compileRoutines = false;
+        boolean compileReducer = false;
+        long minSkippedPredicates = 0;
+        boolean goalDirected = false;
+        boolean minimize = false;
+        int minMergedStates = 0;
+        int deepSpine = 0;
+        int deepLabel = 0;
 
 
         for (int i = 0; i < args.length; i++) {
@@ -38,6 +72,10 @@ public class TestRunner
                 dumpClassName = args[++i];
             } else if (args[i].equals("-dump")) {
                 dumpFile = args[++i];
+            } else if (args[i].equals("-load-binary")) {
+                binaryLoadFile = args[++i];
+            } else if (args[i].equals("-dump-binary")) {
+                binaryDumpFile = args[++i];
             } else if (args[i].equals("-grammar")) {
                 grammarFile = args[++i];
             } else if (args[i].equals("-quiet")) {
@@ -46,10 +84,54 @@ public class TestRunner
                 verboseTrigger = args[++i];
             } else if (args[i].equals("-randomize")) {
                 randomize = true;
+            } else if (args[i].equals("-iterative")) {
+                iterative = true;
+            } else if (args[i].equals("-parallel")) {
+                parallelThreshold = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-parallel-generation")) {
+                parallelGeneration = true;
+            } else if (args[i].equals("-regenerate")) {
+                regenerate = true;
+            } else if (args[i].equals("-flat")) {
+                flatten = true;
+            } else if (args[i].equals("-freeze")) {
+                freeze = true;
+            } else if (args[i].equals("-lazy")) {
+                lazyTransitions = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-min-evicted-transitions")) {
+                minEvictedTransitions = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-max-kept-transitions")) {
+                maxKeptTransitions = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-transition-budget")) {
+                transitionBudget = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-min-dynamic-operators")) {
+                minDynamicOperators = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-compile-routines")) {
+                compileRoutines = true;
+            } else if (args[i].equals("-compile")) {
+                compileReducer = true;
+            } else if (args[i].equals("-label-store")) {
+                labelStoreKind = args[++i];
+            } else if (args[i].equals("-concurrent-grammar")) {
+                concurrentGrammarFiles.add(args[++i]);
+            } else if (args[i].equals("-shared-subtrees")) {
+                sharedSubtrees = Reducer.SharedSubtrees.valueOf(args[++i]);
             } else if (args[i].equals("-reducer")) {
                 reducerClassName = args[++i];
             } else if (args[i].equals("-visitor")) {
                 visitorClassName = args[++i];
+            } else if (args[i].equals("-goal-directed")) {
+                goalDirected = true;
+            } else if (args[i].equals("-minimize")) {
+                minimize = true;
+            } else if (args[i].equals("-min-merged-states")) {
+                minMergedStates = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-deep-spine")) {
+                deepSpine = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-deep-label")) {
+                deepLabel = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-min-skipped-predicates")) {
+                minSkippedPredicates = Long.parseLong(args[++i]);
             } else if (args[i].equals("-templates")) {
                 dumpTemplates = args[++i];
             } else if (testcaseFile == null && !args[i].startsWith("-")) {
@@ -62,6 +144,17 @@ public class TestRunner
         XMLGrammar<Nonterminal,NodeType> grammarBuilder = new XMLGrammar<Nonterminal,NodeType>("Nonterminal", "NodeType");
         grammarBuilder.setRandomized(randomize);
 
+        if (parallelGeneration) {
+            grammarBuilder.setGenerationPool(java.util.concurrent.ForkJoinPool.commonPool());
+        }
+
+        grammarBuilder.setIncrementalGeneration(regenerate);
+        grammarBuilder.setTransitionBudget(transitionBudget);
+
+        // A lazy table computes its own states; the table it's created
+        // from only generates them if they're dumped or checked.
+        grammarBuilder.setGenerateStates(lazyTransitions < 0 || regenerate || minimize || transitionBudget > 0 || dumpFile != null || binaryDumpFile != null);
+
         ProductionTable<Nonterminal, NodeType> productions = null;
 
         if (loadFile != null) {
@@ -74,14 +167,57 @@ public class TestRunner
                 System.exit(1);
             }
 
+        } else if (binaryLoadFile != null) {
+            productions = new BinaryTableLoader<Nonterminal, NodeType>().load(binaryLoadFile, NodeType.class);
+            System.out.println("Load successful.");
+
         } else if (grammarFile != null) {
             productions = grammarBuilder.build(NodeFactory.convertToFileURL(grammarFile));
+
+            if (regenerate) {
+                // Take away each pattern in turn from a scratch table,
+                // and put it back; the testcases use a table whose
+                // last patterns were taken away and put back, so the
+                // patterns keep their order.
+                ProductionTable<Nonterminal, NodeType> scratch = productions.copyProductions();
+                scratch.setIncrementalGeneration(true);
+                scratch.generateStates();
+                checkRegeneration(scratch, false, failedTestcases);
+                checkRegeneration(productions, true, failedTestcases);
+            }
         }
 
         if (productions == null && reducerClassName ==  null) {
             throw new IllegalArgumentException("You must specify a grammar, e.g. -grammar burmGrammar.xml, or load a production table, e.g. -load productionTable.xml.\n");
         }
 
+        if (productions != null && minimize) {
+            // Minimize after any regeneration, and after loading,
+            // so dumped and loaded tables are minimized, too.
+            int originalStates = productions.getStateCount();
+            int mergedStates = productions.minimizeStates();
+
+            if (verbose) {
+                System.out.printf("Minimized %d states to %d\n", originalStates, productions.getStateCount());
+            }
+
+            if (mergedStates < minMergedStates) {
+                failedTestcases.add(String.format("FAILED: merged %d states, expected at least %d", mergedStates, minMergedStates));
+            }
+        }
+
+        if (productions != null && transitionBudget > 0) {
+            int dynamicOperators = productions.getDynamicOperatorCount();
+
+            if (verbose) {
+                System.out.printf("%d operators exceeded the transition budget of %d\n", dynamicOperators, transitionBudget);
+            }
+
+            if (dynamicOperators < minDynamicOperators) {
+                failedTestcases.add(String.format("FAILED: %d operators exceeded the transition budget, expected at least %d", dynamicOperators, minDynamicOperators));
+            }
+        }
+
         if (verboseTrigger != null) {
             productions.setVerboseTrigger(verboseTrigger);
         }
@@ -102,17 +238,93 @@ public class TestRunner
             productions.dump(dumpFile, dumpTemplates, attributes, defaults, grammarBuilder.getSemantics());
         }
 
-        if (dumpFile == null && testcaseFile != null) {
+        if (binaryDumpFile != null && !productions.dumpBinary(binaryDumpFile)) {
+            System.out.printf("Unable to dump %s\n", binaryDumpFile);
+            System.exit(1);
+        }
+
+        if (dumpFile == null && binaryDumpFile == null && testcaseFile != null) {
 
             Reducer<Nonterminal, NodeType>  defaultReducer = null;
             Object                          bespokeReducer = null;
             Method                          labelMethod = null;
             Method                          reduceMethod = null;
             Method                          canProduceMethod = null;
+            AbstractProductionTable<Nonterminal, NodeType> runtimeTable = null;
             Object                          visitor = Class.forName(visitorClassName).newInstance();
+            List<Reducer<Nonterminal, NodeType>> concurrentReducers = new ArrayList<Reducer<Nonterminal, NodeType>>();
 
             if (reducerClassName == null) {
-                defaultReducer = new Reducer<Nonterminal, NodeType>(visitor, productions);
+                runtimeTable = productions;
+
+                if (freeze) {
+                    CompiledProductionTable<Nonterminal, NodeType> compiled = productions.freeze();
+
+                    if (verbose) {
+                        System.out.printf("Froze %d states, releasing %d compile-time entries (an estimated %d bytes)\n", compiled.getStateCount(), compiled.getReclaimedEntries(), compiled.getEstimatedReclaimedBytes());
+                    }
+
+                    runtimeTable = compiled;
+                } else if (lazyTransitions >= 0) {
+                    runtimeTable = productions.createLazyTable(lazyTransitions);
+                }
+
+                // A compiled reducer requires its table's routines to be compiled.
+                if (compileRoutines || compileReducer) {
+                    int routineCount = runtimeTable.compileRoutines(MethodHandles.lookup());
+
+                    if (verbose) {
+                        System.out.printf("Compiled %d routines\n", routineCount);
+                    }
+                }
+
+                if (verbose || minSkippedPredicates > 0) {
+                    runtimeTable.setPredicateStatistics(true);
+                }
+
+                defaultReducer = new Reducer<Nonterminal, NodeType>(visitor, runtimeTable);
+                defaultReducer.setIterative(iterative);
+                defaultReducer.setSharedSubtrees(sharedSubtrees);
+
+                if ("identity".equals(labelStoreKind)) {
+                    defaultReducer.setLabelStore(new IdentityLabelStore<Nonterminal, NodeType>());
+                } else if ("dense".equals(labelStoreKind)) {
+                    defaultReducer.setLabelStore(
+                        new DenseLabelStore<Nonterminal, NodeType>(
+                            new DenseLabelStore.NodeIds<Nonterminal, NodeType>() {
+                                public int getNodeId(BurgInput<Nonterminal, NodeType> node)
+                                {
+                                    return ((Node)node).id;
+                                }
+                            },
+                            256
+                        )
+                    );
+                } else if (labelStoreKind != null) {
+                    throw new IllegalArgumentException("unrecognized label store " + labelStoreKind);
+                }
+
+                if (parallelThreshold > 0) {
+                    defaultReducer.setLabelingPool(java.util.concurrent.ForkJoinPool.commonPool());
+                    defaultReducer.setParallelLabelingThreshold(parallelThreshold);
+                }
+
+                // Reducers for other grammars label each tree into their
+                // own stores while the default reducer labels it.
+                for (String concurrentGrammarFile: concurrentGrammarFiles) {
+                    ProductionTable<Nonterminal, NodeType> concurrentTable = new XMLGrammar<Nonterminal,NodeType>("Nonterminal", "NodeType").build(NodeFactory.convertToFileURL(concurrentGrammarFile));
+                    Reducer<Nonterminal, NodeType> concurrentReducer = new Reducer<Nonterminal, NodeType>(visitor, concurrentTable);
+                    concurrentReducer.setLabelStore(new IdentityLabelStore<Nonterminal, NodeType>());
+                    concurrentReducers.add(concurrentReducer);
+                }
+
+                if (compileReducer) {
+                    int reductionCount = defaultReducer.compile(MethodHandles.lookup());
+
+                    if (verbose) {
+                        System.out.printf("Compiled %d reductions\n", reductionCount);
+                    }
+                }
             } else {
                 bespokeReducer = Class.forName(reducerClassName).newInstance();
                 labelMethod = bespokeReducer.getClass().getDeclaredMethod("label", visitor.getClass(), Node.class);
@@ -122,12 +334,77 @@ public class TestRunner
 
             NodeFactory nf = new NodeFactory(testcaseFile);
 
+            if (deepSpine > 0) {
+                nf.testcases.add(leftSpine(deepSpine, new Testcase(String.format("left spine %d", deepSpine), Nonterminal.Int, String.valueOf(deepSpine + 1), Testcase.TestType.Normal)));
+            }
+
+            if (deepLabel > 0) {
+                // Reducers that reduce recursively can still label deep trees.
+                nf.testcases.add(leftSpine(deepLabel, new Testcase(String.format("labeled left spine %d", deepLabel), Nonterminal.Int, Testcase.TestType.CanProduce)));
+            }
+
             for (Testcase tc: nf.testcases) {
 
+                // Flat trees are labeled and reduced by the default reducer.
+                FlatTree<Nonterminal, NodeType> flatTree = null;
+
+                if (visitor instanceof CallbackCounter) {
+                    ((CallbackCounter)visitor).clear();
+                }
+
+                List<java.util.concurrent.Future<Object>> concurrentLabelings = new ArrayList<java.util.concurrent.Future<Object>>();
+
+                for (final Reducer<Nonterminal, NodeType> concurrentReducer: concurrentReducers) {
+                    final Node root = tc.root;
+                    concurrentLabelings.add(
+                        java.util.concurrent.ForkJoinPool.commonPool().submit(
+                            new java.util.concurrent.Callable<Object>() {
+                                public Object call() throws Exception
+                                {
+                                    concurrentReducer.label(root);
+                                    return null;
+                                }
+                            }
+                        )
+                    );
+                }
+
                 if (bespokeReducer != null) {
                     labelMethod.invoke(bespokeReducer, visitor, tc.root);
+                } else if (flatten) {
+                    flatTree = FlatTree.fromTree(tc.root);
+                    defaultReducer.labelFlatTree(flatTree);
+                } else if (goalDirected) {
+                    defaultReducer.labelForGoal(tc.root, tc.canProduceType != null? tc.canProduceType: tc.type);
                 } else {
                     defaultReducer.label(tc.root);
+
+                    // Labeling into a label store must leave the tree untouched.
+                    if (labelStoreKind != null && tc.root != null && tc.root.getStateNumber() != -1) {
+                        failedTestcases.add(String.format("FAILED: %s: label store run labeled the root %s", tc.name, tc.root));
+                    }
+                }
+
+                for (java.util.concurrent.Future<Object> labeling: concurrentLabelings) {
+                    labeling.get();
+                }
+
+                // Each grammar's reduction of the concurrently labeled
+                // tree must match its reduction of the tree labeled alone.
+                if (tc.type != null) {
+
+                    for (int i = 0; i < concurrentReducers.size(); i++) {
+                        Reducer<Nonterminal, NodeType> concurrentReducer = concurrentReducers.get(i);
+                        String concurrentResult = reduceOutcome(concurrentReducer, tc);
+                        concurrentReducer.label(tc.root);
+                        String aloneResult = reduceOutcome(concurrentReducer, tc);
+
+                        if (!concurrentResult.equals(aloneResult)) {
+                            failedTestcases.add(String.format("FAILED: %s: labeled concurrently, %s produced %s, alone %s", tc.name, concurrentGrammarFiles.get(i), concurrentResult, aloneResult));
+                        } else if (verbose) {
+                            System.out.printf("Succeeded: %s labeled concurrently by %s: %s\n", tc.name, concurrentGrammarFiles.get(i), concurrentResult);
+                        }
+                    }
                 }
 
                 switch(tc.testType) {
@@ -137,6 +414,8 @@ public class TestRunner
 
                         if (bespokeReducer != null) {
                             canProduce = (Boolean)canProduceMethod.invoke(bespokeReducer, tc.root, tc.canProduceType);
+                        } else if (flatTree != null) {
+                            canProduce = defaultReducer.canProduce(flatTree, flatTree.getRoot(), tc.canProduceType);
                         } else {
                             canProduce = defaultReducer.canProduce(tc.root, tc.canProduceType);
                         }
@@ -159,7 +438,9 @@ public class TestRunner
                     try {
                         String result = null;
 
-                        if (bespokeReducer == null) {
+                        if (flatTree != null) {
+                            result = defaultReducer.reduceFlatTree(flatTree, tc.type).toString();
+                        } else if (bespokeReducer == null) {
                             result = defaultReducer.reduce(tc.root, tc.type).toString();
                         } else {
                             Object reduced = reduceMethod.invoke(bespokeReducer, visitor, tc.root, tc.type);
@@ -176,6 +457,14 @@ public class TestRunner
                         } else {
                             failedTestcases.add(String.format("FAILED: %s: expected %s got %s", tc.name, tc.expected, result));
                         }
+
+                        // A reducer that reduces shared subtrees once runs each of their callbacks once.
+                        if (visitor instanceof CallbackCounter) {
+
+                            for (String repeated: ((CallbackCounter)visitor).getRepeatedCallbacks(tc.root)) {
+                                failedTestcases.add(String.format("FAILED: %s: %s", tc.name, repeated));
+                            }
+                        }
                     } catch (java.lang.reflect.InvocationTargetException ite) {
                         Throwable ex = ite.getCause();
 
@@ -196,7 +485,9 @@ public class TestRunner
                     Throwable ex = null;
 
                     try {
-                        if (bespokeReducer == null) {
+                        if (flatTree != null) {
+                            defaultReducer.reduceFlatTree(flatTree, tc.type);
+                        } else if (bespokeReducer == null) {
                             defaultReducer.reduce(tc.root, tc.type);
                         } else {
                             reduceMethod.invoke(bespokeReducer, visitor, tc.root, tc.type);
@@ -228,6 +519,35 @@ public class TestRunner
                 }
             }
             }
+
+            if (runtimeTable != null) {
+                long ran = runtimeTable.getPredicateInvocations();
+                long skipped = runtimeTable.getPredicateInvocationsSaved();
+
+                if (verbose && ran + skipped > 0) {
+                    System.out.printf("Ran %d predicates, skipped %d\n", ran, skipped);
+                }
+
+                if (runtimeTable instanceof LazyProductionTable) {
+                    LazyProductionTable<Nonterminal, NodeType> lazy = (LazyProductionTable<Nonterminal, NodeType>)runtimeTable;
+
+                    if (verbose) {
+                        System.out.printf("Computed %d transitions, evicted %d, kept %d; %d states\n", lazy.getTransitionsComputed(), lazy.getTransitionsEvicted(), lazy.getTransitionCount(), lazy.getStateCount());
+                    }
+
+                    if (lazy.getTransitionsEvicted() < minEvictedTransitions) {
+                        failedTestcases.add(String.format("FAILED: evicted %d transitions, expected at least %d", lazy.getTransitionsEvicted(), minEvictedTransitions));
+                    }
+
+                    if (maxKeptTransitions >= 0 && lazy.getTransitionCount() > maxKeptTransitions) {
+                        failedTestcases.add(String.format("FAILED: kept %d transitions, expected at most %d", lazy.getTransitionCount(), maxKeptTransitions));
+                    }
+                }
+
+                if (skipped < minSkippedPredicates) {
+                    failedTestcases.add(String.format("FAILED: skipped %d predicates, expected at least %d", skipped, minSkippedPredicates));
+                }
+            }
         }
 
         if (!failedTestcases.isEmpty()) {
@@ -243,4 +563,91 @@ public class TestRunner
 
         System.exit(failedTestcases.size());
     }
+
+    /**
+     * Remove a production table's patterns, one at a time, and put
+     * each back; generate the states incrementally after each change,
+     * and check them against the states of a table generated from
+     * scratch with the same patterns.
+     * @param productions       the production table, which must
+     * generate its states incrementally.
+     * @param lastPatternsOnly  if true, only remove each node type's
+     * last pattern, so the patterns are restored in their order.
+     * @param failedTestcases   [out] descriptions of failed checks.
+     */
+    private static void checkRegeneration(ProductionTable<Nonterminal, NodeType> productions, boolean lastPatternsOnly, List<String> failedTestcases)
+    {
+        for (NodeType nodeType: NodeType.values()) {
+            List<PatternMatcher<Nonterminal, NodeType>> patterns = new ArrayList<PatternMatcher<Nonterminal, NodeType>>(productions.getPatternMatchers(nodeType));
+
+            for (int i = lastPatternsOnly? patterns.size() - 1: 0; i >= 0 && i < patterns.size(); i++) {
+                PatternMatcher<Nonterminal, NodeType> p = patterns.get(i);
+                productions.removePatternMatch(p);
+                regenerate(productions, "removing " + p, failedTestcases);
+                productions.addPatternMatch(p);
+                regenerate(productions, "restoring " + p, failedTestcases);
+            }
+        }
+    }
+
+    /**
+     * Generate a production table's states incrementally, and check
+     * them against the states of a table generated from scratch.
+     * @param productions       the production table.
+     * @param change            the change since the last generation.
+     * @param failedTestcases   [out] descriptions of failed checks.
+     */
+    private static void regenerate(ProductionTable<Nonterminal, NodeType> productions, String change, List<String> failedTestcases)
+    {
+        ProductionTable<Nonterminal, NodeType> fresh = productions.copyProductions();
+
+        try {
+            fresh.generateStates();
+        } catch (IllegalStateException noTransitions) {
+            // The change left an operator that can't match any subtree,
+            // so neither table can generate its states; the next change
+            // puts the pattern back.
+            return;
+        }
+
+        productions.generateStates();
+
+        if (!productions.isEquivalent(fresh)) {
+            failedTestcases.add(String.format("FAILED: regenerated states differ from a new table's after %s", change));
+        }
+    }
+
+    /**
+     * Reduce a testcase's tree, which the reducer has labeled.
+     * @param reducer   the reducer.
+     * @param tc        the testcase.
+     * @return the result, or the exception the reduction threw.
+     */
+    private static String reduceOutcome(Reducer<Nonterminal, NodeType> reducer, Testcase tc)
+    {
+        try {
+            return String.valueOf(reducer.reduce(tc.root, tc.type));
+        } catch (Exception ex) {
+            return ex.toString();
+        }
+    }
+
+    /**
+     * Give a testcase a tree that is a left spine of additions,
+     * ((1+1)+1)+..., deep enough to overflow a recursive walk.
+     * @param depth     the number of additions.
+     * @param result    the testcase; its sum is depth+1.
+     * @return the testcase.
+     */
+    private static Testcase leftSpine(int depth, Testcase result)
+    {
+        Node spine = new Node(NodeType.IntLiteral, "1");
+
+        for (int i = 0; i < depth; i++) {
+            spine = new Node(NodeType.Add, spine, new Node(NodeType.IntLiteral, "1"));
+        }
+
+        result.root = spine;
+        return result;
+    }
 }